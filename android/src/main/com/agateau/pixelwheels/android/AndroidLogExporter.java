@@ -24,8 +24,10 @@ import android.content.Context;
 import android.net.Uri;
 import androidx.core.app.ShareCompat;
 import androidx.core.content.FileProvider;
+import com.agateau.pixelwheels.Constants;
 import com.agateau.pixelwheels.LogExporter;
 import com.agateau.utils.log.LogFilePrinter;
+import com.agateau.utils.log.NLog;
 import java.io.File;
 
 /** Implements LogExporter for Android by sending an email */
@@ -42,19 +44,30 @@ public class AndroidLogExporter implements LogExporter {
 
     @Override
     public void exportLogs() {
+        // Print queued messages, then make sure they are written to the file
+        NLog.flush();
         mLogFilePrinter.flush();
         File file = mContext.getFileStreamPath(mLogFilePrinter.getPath());
-        Uri contentUri =
-                FileProvider.getUriForFile(
-                        mContext, "com.agateau.tinywheels.android.fileprovider", file);
 
-        new ShareCompat.IntentBuilder(mContext)
-                .setType("message/rfc822")
-                .addEmailTo(EMAIL_RECIPIENT)
-                .setSubject("Pixel Wheels bug report")
-                .addStream(contentUri)
-                .setChooserTitle(tr("Share via"))
-                .startChooser();
+        ShareCompat.IntentBuilder builder =
+                new ShareCompat.IntentBuilder(mContext)
+                        .setType("message/rfc822")
+                        .addEmailTo(EMAIL_RECIPIENT)
+                        .setSubject("Pixel Wheels bug report")
+                        .addStream(getContentUri(file));
+
+        // FlightRecorder writes its snapshots next to the log file
+        File spikeFile = mContext.getFileStreamPath(Constants.FLIGHT_RECORDER_FILENAME);
+        if (spikeFile.exists()) {
+            builder.addStream(getContentUri(spikeFile));
+        }
+
+        builder.setChooserTitle(tr("Share via")).startChooser();
+    }
+
+    private Uri getContentUri(File file) {
+        return FileProvider.getUriForFile(
+                mContext, "com.agateau.tinywheels.android.fileprovider", file);
     }
 
     @Override
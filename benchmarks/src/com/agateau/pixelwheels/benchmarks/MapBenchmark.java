@@ -0,0 +1,99 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.benchmarks;
+
+import com.agateau.pixelwheels.map.LapPosition;
+import com.agateau.pixelwheels.map.Material;
+import com.agateau.pixelwheels.map.MaterialChecker;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.map.WaypointStore;
+import com.agateau.pixelwheels.utils.OrientedPoint;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measures the track queries done by racers and AI pilots on each step */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapBenchmark {
+    @Param({"country", "river", "flood", "race", "snow2", "snow3", "be", "tiny-sur-mer", "city3"})
+    public String trackId;
+
+    private Track mTrack;
+    private WaypointStore mWaypointStore;
+    private MaterialChecker mMaterialChecker;
+    private TrackSamples mSamples;
+
+    @Setup
+    public void setup() {
+        mTrack = TrackSamples.loadTrack(trackId);
+        mWaypointStore = mTrack.getWaypointStore();
+        mMaterialChecker = new MaterialChecker(mTrack);
+        mSamples = new TrackSamples(mTrack);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mTrack.dispose();
+    }
+
+    @Benchmark
+    public LapPosition lapPositionTableGet() {
+        int idx = mSamples.next();
+        return mTrack.getLapPositionTable().get(mSamples.pixelXs[idx], mSamples.pixelYs[idx]);
+    }
+
+    @Benchmark
+    public Material trackGetMaterialAt() {
+        return mTrack.getMaterialAt(mSamples.positions[mSamples.next()]);
+    }
+
+    @Benchmark
+    public Material materialCheckerGetSlowestMaterialAhead() {
+        int idx = mSamples.next();
+        return mMaterialChecker.getSlowestMaterialAhead(
+                mSamples.positions[idx], mSamples.targets[idx]);
+    }
+
+    @Benchmark
+    public int waypointStoreGetWaypointIndex() {
+        return mWaypointStore.getWaypointIndex(mSamples.lapDistances[mSamples.next()]);
+    }
+
+    @Benchmark
+    public OrientedPoint waypointStoreGetValidPosition() {
+        int idx = mSamples.next();
+        return mWaypointStore.getValidPosition(
+                mSamples.positions[idx], mSamples.lapDistances[idx]);
+    }
+}
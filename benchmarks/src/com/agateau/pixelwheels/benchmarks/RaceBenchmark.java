@@ -0,0 +1,138 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.benchmarks;
+
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.racer.Racer;
+import com.agateau.pixelwheels.racescreen.GameWorldImpl;
+import com.agateau.pixelwheels.simulator.HeadlessEnvironment;
+import com.agateau.pixelwheels.simulator.RaceSimulator;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.PerformanceCounters;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the per-step cost of racers and AI pilots, and of a whole world step.
+ *
+ * <p>Each iteration works on a new AI-only race, started a few seconds after the countdown so
+ * that racers are spread along the track.
+ *
+ * <p>racerAct() and aiPilotAct() do not step the world: they measure the cost of deciding what to
+ * do from a given situation. worldAct() steps the world, so it measures all the game objects and
+ * the physics engine.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RaceBenchmark {
+    private static final int RACER_COUNT = 6;
+    private static final float RUNNING_DURATION = 5;
+    /** How many steps worldAct() runs for each invocation: 10 seconds of race */
+    private static final int STEP_COUNT = 600;
+    private static final long SEED = 1234;
+
+    @Param({"country", "river", "flood", "race", "snow2", "snow3", "be", "tiny-sur-mer", "city3"})
+    public String trackId;
+
+    private Track mTrack;
+    private RaceSimulator mSimulator;
+    private GameWorldImpl mWorld;
+    private Array<Racer> mRacers;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        mTrack = TrackSamples.loadTrack(trackId);
+        mSimulator = new RaceSimulator(HeadlessEnvironment.getAssets());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+        mTrack.dispose();
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() {
+        MathUtils.random.setSeed(SEED);
+        mWorld = mSimulator.createWorld(mTrack, RACER_COUNT, new PerformanceCounters());
+        while (mWorld.getState() == GameWorld.State.COUNTDOWN) {
+            mWorld.act(GameWorld.BOX2D_TIME_STEP);
+        }
+        for (float time = 0; time < RUNNING_DURATION; time += GameWorld.BOX2D_TIME_STEP) {
+            mWorld.act(GameWorld.BOX2D_TIME_STEP);
+        }
+        mRacers = mWorld.getRacers();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownIteration() {
+        mWorld.forgetTrack();
+        RaceSimulator.disposeWorld(mWorld);
+        mWorld = null;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OperationsPerInvocation(RACER_COUNT)
+    public void aiPilotAct() {
+        for (Racer racer : mRacers) {
+            racer.getPilot().act(GameWorld.BOX2D_TIME_STEP);
+        }
+    }
+
+    /** Includes aiPilotAct(), since pilots are racer components */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OperationsPerInvocation(RACER_COUNT)
+    public void racerAct() {
+        for (Racer racer : mRacers) {
+            racer.act(GameWorld.BOX2D_TIME_STEP);
+        }
+    }
+
+    /**
+     * Runs STEP_COUNT steps of the race. Each invocation gets a new race, otherwise the race could
+     * finish during the measurements.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OperationsPerInvocation(STEP_COUNT)
+    public void worldAct() {
+        for (int step = 0; step < STEP_COUNT; ++step) {
+            mWorld.act(GameWorld.BOX2D_TIME_STEP);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.benchmarks;
+
+import com.agateau.pixelwheels.Constants;
+import com.agateau.pixelwheels.map.LapPosition;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.map.WaypointStore;
+import com.agateau.pixelwheels.simulator.HeadlessEnvironment;
+import com.agateau.pixelwheels.simulator.HeadlessRaceSimulator;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import java.util.Random;
+
+/**
+ * A fixed set of positions spread along the waypoints of a track, used as inputs for the map
+ * benchmarks.
+ *
+ * <p>Positions are slightly moved away from the waypoint segments, so that lookups do not always
+ * hit the same cells. They are always on the track, so each has a lap distance. The same seed
+ * always produces the same positions.
+ */
+class TrackSamples {
+    /** Must be a power of 2, see {@link #next()} */
+    static final int COUNT = 1024;
+
+    private static final long SEED = 1234;
+    private static final int MAX_ATTEMPTS = COUNT * 100;
+
+    /** unit: world */
+    final Vector2[] positions = new Vector2[COUNT];
+    /** unit: world. The position of the next waypoint for each position */
+    final Vector2[] targets = new Vector2[COUNT];
+    /** unit: pixels */
+    final int[] pixelXs = new int[COUNT];
+    /** unit: pixels */
+    final int[] pixelYs = new int[COUNT];
+
+    final float[] lapDistances = new float[COUNT];
+
+    private int mIndex = 0;
+
+    /** Returns the track with id trackId, initialized */
+    static Track loadTrack(String trackId) {
+        Array<Track> tracks =
+                HeadlessRaceSimulator.findTracks(
+                        HeadlessEnvironment.getAssets(), Array.with(trackId));
+        if (tracks.size == 0) {
+            throw new RuntimeException("No track with id '" + trackId + "'");
+        }
+        Track track = tracks.first();
+        track.init();
+        return track;
+    }
+
+    TrackSamples(Track track) {
+        WaypointStore store = track.getWaypointStore();
+        Random random = new Random(SEED);
+        float jitter = track.getTileWidth();
+        Vector2 position = new Vector2();
+        int count = 0;
+        for (int attempt = 0; count < COUNT && attempt < MAX_ATTEMPTS; ++attempt) {
+            int idx = random.nextInt(store.getCount());
+            Vector2 start = store.getWaypoint(idx);
+            Vector2 end = store.getWaypoint(store.getNextIndex(idx));
+            position.set(start).lerp(end, random.nextFloat());
+            position.add(randomOffset(random, jitter), randomOffset(random, jitter));
+
+            int pixelX = (int) (position.x / Constants.UNIT_FOR_PIXEL);
+            int pixelY = (int) (position.y / Constants.UNIT_FOR_PIXEL);
+            LapPosition lapPosition = track.getLapPositionTable().get(pixelX, pixelY);
+            if (lapPosition == null) {
+                continue;
+            }
+            positions[count] = new Vector2(position);
+            targets[count] = end;
+            pixelXs[count] = pixelX;
+            pixelYs[count] = pixelY;
+            lapDistances[count] = lapPosition.getLapDistance();
+            ++count;
+        }
+        if (count < COUNT) {
+            throw new RuntimeException(
+                    "Only found " + count + " positions on track " + track.getId());
+        }
+    }
+
+    private static float randomOffset(Random random, float amplitude) {
+        return (random.nextFloat() * 2 - 1) * amplitude;
+    }
+
+    /** Returns the index of the next sample to use, cycling through all samples */
+    int next() {
+        mIndex = (mIndex + 1) & (COUNT - 1);
+        return mIndex;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.debug;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class FrameTimeHistogramTests {
+    private static final double EPSILON = FrameTimeHistogram.BUCKET_WIDTH;
+
+    @Test
+    public void testEmpty() {
+        FrameTimeHistogram histogram = new FrameTimeHistogram();
+        assertThat(histogram.getCount(), is(0));
+        assertThat(histogram.getPercentile(0.5f), is(0f));
+        assertThat(histogram.getMax(), is(0f));
+    }
+
+    @Test
+    public void testPercentiles() {
+        // GIVEN a histogram with 100 durations: 1ms, 2ms... 100ms
+        FrameTimeHistogram histogram = new FrameTimeHistogram();
+        for (int idx = 1; idx <= 100; ++idx) {
+            histogram.add(idx / 1000f);
+        }
+
+        // THEN percentiles are correct
+        assertThat(histogram.getCount(), is(100));
+        assertEquals(0.050, histogram.getPercentile(0.5f), EPSILON);
+        assertEquals(0.095, histogram.getPercentile(0.95f), EPSILON);
+        assertEquals(0.099, histogram.getPercentile(0.99f), EPSILON);
+        assertEquals(0.0505, histogram.getMean(), EPSILON);
+        assertThat(histogram.getMax(), is(0.1f));
+    }
+
+    @Test
+    public void testDurationsLongerThanMaxDuration() {
+        // GIVEN a histogram with 9 short durations and a spike longer than MAX_DURATION
+        FrameTimeHistogram histogram = new FrameTimeHistogram();
+        for (int idx = 0; idx < 9; ++idx) {
+            histogram.add(0.016f);
+        }
+        float spike = FrameTimeHistogram.MAX_DURATION * 3;
+        histogram.add(spike);
+
+        // THEN the spike is reported as is by the max and the highest percentiles
+        assertThat(histogram.getMax(), is(spike));
+        assertThat(histogram.getPercentile(1f), is(spike));
+        // AND lower percentiles are not affected
+        assertEquals(0.016, histogram.getPercentile(0.5f), EPSILON);
+    }
+
+    @Test
+    public void testClear() {
+        FrameTimeHistogram histogram = new FrameTimeHistogram();
+        histogram.add(0.016f);
+        histogram.clear();
+        assertThat(histogram.getCount(), is(0));
+        assertThat(histogram.getMax(), is(0f));
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.gameobject;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import com.agateau.pixelwheels.ZLevel;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class GameObjectGridTests {
+    private static class FakeObject extends GameObjectAdapter {
+        private final float mX;
+        private final float mY;
+        private final float mBoundingRadius;
+
+        FakeObject(float x, float y, float boundingRadius) {
+            mX = x;
+            mY = y;
+            mBoundingRadius = boundingRadius;
+        }
+
+        @Override
+        public void act(float delta) {}
+
+        @Override
+        public void draw(Batch batch, ZLevel zLevel, Rectangle viewBounds) {}
+
+        @Override
+        public float getBoundingRadius() {
+            return mBoundingRadius;
+        }
+
+        @Override
+        public float getX() {
+            return mX;
+        }
+
+        @Override
+        public float getY() {
+            return mY;
+        }
+
+        void finish() {
+            setFinished(true);
+        }
+    }
+
+    @Test
+    public void testFindObjectsInRadius() {
+        // GIVEN objects spread over several cells, one of them outside the grid
+        FakeObject near1 = new FakeObject(20, 20, 1);
+        FakeObject far = new FakeObject(60, 20, 1);
+        FakeObject near2 = new FakeObject(17, 23, 1);
+        FakeObject outside = new FakeObject(-5, 20, 1);
+        GameObjectGrid grid = createGrid(near1, far, near2, outside);
+
+        // WHEN looking for objects around a point
+        Array<GameObject> result = new Array<>();
+        grid.findObjectsInRadius(18, 20, 5, result);
+
+        // THEN only the close objects are found, in the order they were added
+        assertThat(result, is(Array.with((GameObject) near1, near2)));
+
+        // AND objects outside the grid can be found too
+        result.clear();
+        grid.findObjectsInRadius(0, 20, 6, result);
+        assertThat(result, is(Array.with((GameObject) outside)));
+    }
+
+    @Test
+    public void testFindObjectsInRadiusKeepsOrderAcrossCells() {
+        // GIVEN two objects in different cells, the first one in the cell scanned last
+        FakeObject first = new FakeObject(20, 20, 1);
+        FakeObject second = new FakeObject(12, 12, 1);
+        GameObjectGrid grid = createGrid(first, second);
+
+        // WHEN looking for objects around a point between them
+        Array<GameObject> result = new Array<>();
+        grid.findObjectsInRadius(16, 16, 8, result);
+
+        // THEN they are found in the order they were added
+        assertThat(result, is(Array.with((GameObject) first, second)));
+    }
+
+    @Test
+    public void testFindObjectsToDraw() {
+        // GIVEN objects outside the view, one of them big enough to be visible, and an object
+        // whose drawing is not bound to its position
+        FakeObject inside = new FakeObject(30, 30, 1);
+        FakeObject unbounded = new FakeObject(90, 90, -1);
+        FakeObject bigOutside = new FakeObject(45, 30, 6);
+        FakeObject smallOutside = new FakeObject(45, 30, 1);
+        GameObjectGrid grid = createGrid(inside, unbounded, bigOutside, smallOutside);
+
+        // WHEN looking for objects to draw in the view
+        Array<GameObject> result = new Array<>();
+        grid.findObjectsToDraw(new Rectangle(20, 20, 20, 20), result);
+
+        // THEN the small object outside the view is skipped, and the others come in the order
+        // they were added
+        assertThat(result, is(Array.with((GameObject) inside, unbounded, bigOutside)));
+    }
+
+    @Test
+    public void testFinishedObjectsAreSkipped() {
+        // GIVEN two objects in the same cell
+        FakeObject object1 = new FakeObject(10, 10, 1);
+        FakeObject object2 = new FakeObject(11, 10, 1);
+        GameObjectGrid grid = createGrid(object1, object2);
+
+        // WHEN one of them finishes before the grid is rebuilt
+        object1.finish();
+
+        // THEN it is not returned anymore
+        Array<GameObject> result = new Array<>();
+        grid.findObjectsInRadius(10, 10, 5, result);
+        assertThat(result, is(Array.with((GameObject) object2)));
+    }
+
+    private static GameObjectGrid createGrid(GameObject... objects) {
+        GameObjectGrid grid = new GameObjectGrid(100, 100);
+        grid.rebuild(Array.with(objects));
+        return grid;
+    }
+}
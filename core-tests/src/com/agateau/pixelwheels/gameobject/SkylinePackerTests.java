@@ -0,0 +1,107 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.gameobject;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class SkylinePackerTests {
+    @Test
+    public void testFillsRowsFromTheBottom() {
+        // GIVEN a 100x100 packer
+        SkylinePacker packer = new SkylinePacker(100, 100);
+
+        // WHEN 3 40x30 rectangles are packed
+        Rectangle rect1 = new Rectangle();
+        Rectangle rect2 = new Rectangle();
+        Rectangle rect3 = new Rectangle();
+        assertThat(packer.pack(40, 30, rect1), is(true));
+        assertThat(packer.pack(40, 30, rect2), is(true));
+        assertThat(packer.pack(40, 30, rect3), is(true));
+
+        // THEN the first two are on the bottom row
+        assertThat(rect1, is(new Rectangle(0, 0, 40, 30)));
+        assertThat(rect2, is(new Rectangle(40, 0, 40, 30)));
+        // AND the third one is above the first one
+        assertThat(rect3, is(new Rectangle(0, 30, 40, 30)));
+    }
+
+    @Test
+    public void testUsesTheLowestSpace() {
+        // GIVEN a 100x100 packer with a tall and a short rectangle
+        SkylinePacker packer = new SkylinePacker(100, 100);
+        Rectangle rect = new Rectangle();
+        packer.pack(50, 80, rect);
+        packer.pack(50, 20, rect);
+
+        // WHEN a 50x50 rectangle is packed
+        packer.pack(50, 50, rect);
+
+        // THEN it is placed on top of the short rectangle
+        assertThat(rect, is(new Rectangle(50, 20, 50, 50)));
+    }
+
+    @Test
+    public void testPackedRectanglesDoNotOverlap() {
+        // GIVEN a 100x100 packer
+        SkylinePacker packer = new SkylinePacker(100, 100);
+
+        // WHEN it is filled with rectangles of various sizes
+        Array<Rectangle> rects = new Array<>();
+        int[][] sizes = {{30, 20}, {50, 40}, {20, 60}, {40, 10}, {25, 25}, {60, 30}, {10, 10}};
+        for (int[] size : sizes) {
+            Rectangle rect = new Rectangle();
+            if (packer.pack(size[0], size[1], rect)) {
+                rects.add(rect);
+            }
+        }
+
+        // THEN they all fit in the area and do not overlap
+        for (int idx = 0; idx < rects.size; ++idx) {
+            Rectangle rect = rects.get(idx);
+            assertThat(rect.x + rect.width <= 100 && rect.y + rect.height <= 100, is(true));
+            for (int idx2 = idx + 1; idx2 < rects.size; ++idx2) {
+                assertThat(rect.overlaps(rects.get(idx2)), is(false));
+            }
+        }
+    }
+
+    @Test
+    public void testRefusesWhenFull() {
+        // GIVEN a 100x100 packer filled with 4 50x50 rectangles
+        SkylinePacker packer = new SkylinePacker(100, 100);
+        Rectangle rect = new Rectangle();
+        for (int idx = 0; idx < 4; ++idx) {
+            assertThat(packer.pack(50, 50, rect), is(true));
+        }
+
+        // WHEN another rectangle is packed
+        boolean packed = packer.pack(10, 10, rect);
+
+        // THEN it fails
+        assertThat(packed, is(false));
+    }
+}
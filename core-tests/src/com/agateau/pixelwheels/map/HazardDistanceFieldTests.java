@@ -0,0 +1,124 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.badlogic.gdx.math.Vector2;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class HazardDistanceFieldTests {
+    private static final float CELL_SIZE = 2;
+    private static final float EPSILON = 0.001f;
+
+    // 'x' cells are hazards. The first line is the top of the map.
+    private static HazardDistanceField createField(String... lines) {
+        int width = lines[0].length();
+        int height = lines.length;
+        boolean[] hazards = new boolean[width * height];
+        for (int ty = 0; ty < height; ++ty) {
+            String line = lines[height - 1 - ty];
+            for (int tx = 0; tx < width; ++tx) {
+                hazards[ty * width + tx] = line.charAt(tx) == 'x';
+            }
+        }
+        return new HazardDistanceField(width, height, CELL_SIZE, hazards);
+    }
+
+    @Test
+    public void testCellDistances() {
+        // GIVEN a field with a hole in the middle
+        HazardDistanceField field =
+                createField(
+                        ".......", //
+                        ".......", //
+                        ".......", //
+                        "...x...", //
+                        ".......", //
+                        ".......", //
+                        ".......");
+
+        // THEN distances are computed from the hole or the edge of the map
+        assertEquals(0, field.getCellDistance(3, 3), EPSILON);
+        assertEquals(1, field.getCellDistance(4, 3), EPSILON);
+        assertEquals(Math.sqrt(2), field.getCellDistance(4, 4), EPSILON);
+        assertEquals(1, field.getCellDistance(0, 0), EPSILON);
+        assertEquals(2, field.getCellDistance(1, 5), EPSILON);
+
+        // AND outside the map, the distance is 0
+        assertEquals(0, field.getCellDistance(-1, 0), EPSILON);
+        assertEquals(0, field.getDistance(-1, 0), EPSILON);
+    }
+
+    @Test
+    public void testIsPathClear() {
+        // GIVEN a field with a wall in the middle of a road
+        HazardDistanceField field =
+                createField(
+                        "xxxxxxxxxxxxxxxxxxxx", //
+                        "....................", //
+                        "....................", //
+                        "....................", //
+                        "....................", //
+                        "..........xx........", //
+                        "....................", //
+                        "....................", //
+                        "....................", //
+                        "....................", //
+                        "xxxxxxxxxxxxxxxxxxxx");
+
+        // WHEN checking a path crossing the wall
+        // THEN it is not clear
+        assertFalse(field.isPathClear(cellCenter(2, 5), cellCenter(18, 5)));
+
+        // WHEN checking a path away from the wall
+        // THEN it is clear
+        assertTrue(field.isPathClear(cellCenter(3, 8), cellCenter(16, 8)));
+    }
+
+    @Test
+    public void testMoveAway() {
+        // GIVEN a road between two hazards
+        HazardDistanceField field =
+                createField(
+                        "xxxxxxxxx", //
+                        ".........", //
+                        ".........", //
+                        ".........", //
+                        ".........", //
+                        ".........", //
+                        "xxxxxxxxx");
+
+        // WHEN moving a position next to the bottom hazard away from it
+        Vector2 position = cellCenter(4, 1);
+        field.moveAway(position, 2 * CELL_SIZE);
+
+        // THEN it ends up at the center of the closest cell far enough from the hazard
+        assertEquals(cellCenter(4, 2), position);
+    }
+
+    private static Vector2 cellCenter(int tx, int ty) {
+        return new Vector2((tx + 0.5f) * CELL_SIZE, (ty + 0.5f) * CELL_SIZE);
+    }
+}
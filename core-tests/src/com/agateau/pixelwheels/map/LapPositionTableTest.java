@@ -0,0 +1,87 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.badlogic.gdx.math.Polygon;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class LapPositionTableTest {
+    private static final int SECTION_COUNT = 10;
+    private static final int SECTION_WIDTH = 100;
+    private static final int SECTION_HEIGHT = 100;
+
+    /** Creates a table made of SECTION_COUNT rectangular sections, laid out from left to right */
+    private static LapPositionTable createTable(boolean buildIndex) {
+        LapPositionTable table = new LapPositionTable();
+        for (int idx = 0; idx < SECTION_COUNT; ++idx) {
+            float x1 = idx * SECTION_WIDTH;
+            float x2 = x1 + SECTION_WIDTH;
+            float[] vertices = {x1, 0, x2, 0, x2, SECTION_HEIGHT, x1, SECTION_HEIGHT};
+            table.addSection(new Polygon(vertices));
+        }
+        if (buildIndex) {
+            table.buildIndex();
+        }
+        return table;
+    }
+
+    @Test
+    public void testIndexedLookupMatchesLinearLookup() {
+        LapPositionTable linearTable = createTable(false);
+        LapPositionTable indexedTable = createTable(true);
+        // Go a bit beyond the sections to test positions outside of the table
+        for (int y = -150; y < SECTION_HEIGHT + 150; y += 7) {
+            for (int x = -150; x < SECTION_COUNT * SECTION_WIDTH + 150; x += 7) {
+                LapPosition expected = linearTable.get(x, y);
+                LapPosition actual = indexedTable.get(x, y);
+                if (expected == null) {
+                    assertNull(actual);
+                } else {
+                    assertEquals(expected.getSectionId(), actual.getSectionId());
+                    assertEquals(expected.getLapDistance(), actual.getLapDistance(), 0.001f);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLookupWithHint() {
+        LapPositionTable table = createTable(true);
+        int y = SECTION_HEIGHT / 2;
+        // Hint is the right section
+        assertEquals(3, table.get(350, y, 3).getSectionId());
+        // Hint is a neighbor
+        assertEquals(4, table.get(450, y, 3).getSectionId());
+        assertEquals(2, table.get(250, y, 3).getSectionId());
+        // Hint is the last section, the first section is its neighbor
+        assertEquals(0, table.get(50, y, SECTION_COUNT - 1).getSectionId());
+        // Hint is wrong
+        assertEquals(7, table.get(750, y, 3).getSectionId());
+        // No hint
+        assertEquals(7, table.get(750, y, -1).getSectionId());
+        // Outside the table
+        assertNull(table.get(-200, y, 0));
+    }
+}
@@ -33,12 +33,33 @@ public class MaterialCheckerTest {
 
     private static class TestTrack extends Track {
         private final String[] mLines;
+        private HazardDistanceField mHazardDistanceField;
 
         public TestTrack(String[] lines) {
             super(null, "id", "name");
             mLines = lines;
         }
 
+        /** Builds the field the same way Track does, so that the checker can use its fast path */
+        public TestTrack withHazardDistanceField() {
+            int width = mLines[0].length();
+            int height = mLines.length;
+            boolean[] hazards = new boolean[width * height];
+            for (int ty = 0; ty < height; ++ty) {
+                for (int tx = 0; tx < width; ++tx) {
+                    Material material = materialFromCharacter(mLines[ty].charAt(tx));
+                    hazards[ty * width + tx] = Track.isHazardMaterial(material);
+                }
+            }
+            mHazardDistanceField = new HazardDistanceField(width, height, TILE_SIZE, hazards);
+            return this;
+        }
+
+        @Override
+        public HazardDistanceField getHazardDistanceField() {
+            return mHazardDistanceField;
+        }
+
         @Override
         public float getTileWidth() {
             return TILE_SIZE;
@@ -58,6 +79,8 @@ public class MaterialCheckerTest {
                     return Material.ROAD;
                 case 's':
                     return Material.SAND;
+                case 'i':
+                    return Material.ICE;
                 default:
                     throw new RuntimeException("Unknown material character '" + character + "'");
             }
@@ -96,6 +119,42 @@ public class MaterialCheckerTest {
                 is(Material.SAND));
     }
 
+    private static final Track ICE_TRACK =
+            new TestTrack(
+                            new String[] {
+                                //         111111
+                                // 23456789012345
+                                "................", // 0
+                                "................", // 1
+                                "................", // 2
+                                "................", // 3
+                                "........iiii....", // 4
+                                "........iiii....", // 5
+                                "................", // 6
+                                "................", // 7
+                                "................", // 8
+                                "................", // 9
+                            })
+                    .withHazardDistanceField();
+
+    @Test
+    public void testIceWithHazardDistanceField() {
+        // GIVEN a checker on the ICE_TRACK, which has a hazard distance field
+        MaterialChecker checker = new MaterialChecker(ICE_TRACK);
+
+        // WHEN getMaterialAhead() is called across the ice strip
+        // THEN it returns ice
+        assertThat(
+                checker.getSlowestMaterialAhead(createVector2(9, 1), createVector2(10, 8)),
+                is(Material.ICE));
+
+        // WHEN getMaterialAhead() is called far from the ice strip
+        // THEN it returns road
+        assertThat(
+                checker.getSlowestMaterialAhead(createVector2(1, 1), createVector2(3, 8)),
+                is(Material.ROAD));
+    }
+
     // Create a vector in pixel coordinate, centered on tile coordinates tx, ty
     private static Vector2 createVector2(int tx, int ty) {
         return new Vector2((float) (tx + 0.5) * TILE_SIZE, (float) (ty + 0.5) * TILE_SIZE);
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.map;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.badlogic.gdx.maps.MapObjects;
+import com.badlogic.gdx.maps.objects.RectangleMapObject;
+import com.badlogic.gdx.math.Vector2;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ObstacleRasterizerTests {
+    private static final int SIZE = 10;
+    private static final float CELL_SIZE = 10;
+
+    @Test
+    public void testBorderBlocksPath() {
+        // GIVEN a thin horizontal border across the middle of the map, on road
+        MapObjects objects = new MapObjects();
+        objects.add(new RectangleMapObject(0, 48, SIZE * CELL_SIZE, 4));
+        boolean[] hazards = new boolean[SIZE * SIZE];
+
+        // WHEN it is rasterized
+        new ObstacleRasterizer(SIZE, SIZE, CELL_SIZE, hazards).rasterize(objects);
+
+        // THEN the cells it covers are hazards
+        for (int tx = 0; tx < SIZE; ++tx) {
+            assertTrue(hazards[4 * SIZE + tx]);
+            assertTrue(hazards[5 * SIZE + tx]);
+            assertFalse(hazards[3 * SIZE + tx]);
+            assertFalse(hazards[6 * SIZE + tx]);
+        }
+
+        // AND a distance field created from them does not let paths cross the border
+        HazardDistanceField field = new HazardDistanceField(SIZE, SIZE, CELL_SIZE, hazards);
+        assertFalse(field.isPathClear(new Vector2(50, 15), new Vector2(50, 85)));
+        assertTrue(field.isPathClear(new Vector2(15, 25), new Vector2(85, 25)));
+    }
+
+    @Test
+    public void testRotatedBorder() {
+        // GIVEN a border rotated by 90 degrees around its top-left corner, which ends up vertical
+        // between x = 45 and x = 49
+        RectangleMapObject border = new RectangleMapObject(45, 0, SIZE * CELL_SIZE, 4);
+        MapUtils.setObjectRotation(border, 90);
+        boolean[] hazards = new boolean[SIZE * SIZE];
+
+        // WHEN it is rasterized
+        new ObstacleRasterizer(SIZE, SIZE, CELL_SIZE, hazards).rasterize(border);
+
+        // THEN only the cells of column 4 are hazards
+        for (int ty = 1; ty < SIZE; ++ty) {
+            assertFalse(hazards[ty * SIZE + 3]);
+            assertTrue(hazards[ty * SIZE + 4]);
+            assertFalse(hazards[ty * SIZE + 5]);
+        }
+    }
+}
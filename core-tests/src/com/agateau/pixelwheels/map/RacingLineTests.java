@@ -0,0 +1,48 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.map;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class RacingLineTests {
+    @Test
+    public void testFindNextIndex() {
+        // GIVEN a racing line with 4 points
+        RacingLine line = new RacingLine();
+        line.addPoint(0, 0, 0.5f, 10);
+        line.addPoint(1, 0, 1f, 10);
+        line.addPoint(2, 0, 1f, 10);
+        line.addPoint(3, 0, 2.5f, 10);
+
+        // WHEN looking for the point after a lap distance
+        // THEN the first point further than the lap distance is returned
+        assertEquals(0, line.findNextIndex(0));
+        assertEquals(1, line.findNextIndex(0.5f));
+        assertEquals(3, line.findNextIndex(1f));
+        assertEquals(3, line.findNextIndex(2f));
+
+        // AND after the last point, the first point of the next lap is returned
+        assertEquals(0, line.findNextIndex(3f));
+    }
+}
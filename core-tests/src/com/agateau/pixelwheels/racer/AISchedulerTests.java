@@ -0,0 +1,132 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.racer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.agateau.pixelwheels.GamePlay;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class AISchedulerTests {
+    private int mOldThinkInterval;
+    private int mOldMaxRaycasts;
+
+    @Before
+    public void setUp() {
+        mOldThinkInterval = GamePlay.instance.aiThinkInterval;
+        mOldMaxRaycasts = GamePlay.instance.aiMaxRaycastsPerStep;
+        GamePlay.instance.aiThinkInterval = 4;
+        GamePlay.instance.aiMaxRaycastsPerStep = 12;
+    }
+
+    @After
+    public void tearDown() {
+        GamePlay.instance.aiThinkInterval = mOldThinkInterval;
+        GamePlay.instance.aiMaxRaycastsPerStep = mOldMaxRaycasts;
+    }
+
+    @Test
+    public void testPilotsThinkAtDifferentSteps() {
+        // GIVEN a scheduler with 4 pilots
+        AIScheduler scheduler = new AIScheduler();
+        int[] slots = new int[4];
+        int[] lastThinkSteps = new int[4];
+        for (int idx = 0; idx < slots.length; ++idx) {
+            slots[idx] = scheduler.register();
+        }
+
+        for (int step = 0; step < 8; ++step) {
+            // WHEN a step starts
+            scheduler.beginStep();
+
+            // THEN exactly one pilot is due
+            int dueCount = 0;
+            for (int idx = 0; idx < slots.length; ++idx) {
+                if (scheduler.isDue(slots[idx], lastThinkSteps[idx])) {
+                    ++dueCount;
+                    lastThinkSteps[idx] = scheduler.getStep();
+                }
+            }
+            assertEquals(1, dueCount);
+        }
+    }
+
+    @Test
+    public void testPilotIsDueIfItMissedItsTurn() {
+        // GIVEN a pilot which last thought at step 1
+        AIScheduler scheduler = new AIScheduler();
+        int slot = scheduler.register();
+        scheduler.beginStep();
+        int lastThinkStep = scheduler.getStep();
+
+        // WHEN more than the think interval has elapsed
+        for (int idx = 0; idx < 5; ++idx) {
+            scheduler.beginStep();
+        }
+
+        // THEN the pilot is due, even if it is not its turn
+        assertTrue(scheduler.isDue(slot, lastThinkStep));
+    }
+
+    @Test
+    public void testRaycastBudget() {
+        // GIVEN a step with a budget of 12 raycasts
+        AIScheduler scheduler = new AIScheduler();
+        scheduler.beginStep();
+
+        // WHEN pilots acquire raycasts
+        // THEN they get them until the budget is exhausted
+        assertTrue(scheduler.acquireRaycasts(6));
+        assertTrue(scheduler.acquireRaycasts(6));
+        assertFalse(scheduler.acquireRaycasts(6));
+
+        // WHEN a pilot releases unused raycasts
+        scheduler.releaseRaycasts(4);
+
+        // THEN they can be used by other pilots
+        assertTrue(scheduler.acquireRaycasts(4));
+        assertFalse(scheduler.acquireRaycasts(1));
+
+        // WHEN the next step starts
+        scheduler.beginStep();
+
+        // THEN the budget is reset
+        assertTrue(scheduler.acquireRaycasts(12));
+    }
+
+    @Test
+    public void testRaycastBudgetIsEnoughForOnePilot() {
+        // GIVEN a budget smaller than what a pilot needs to think
+        GamePlay.instance.aiMaxRaycastsPerStep = AIPilot.MAX_RAYCASTS_PER_THINK - 2;
+        AIScheduler scheduler = new AIScheduler();
+
+        // WHEN a step starts
+        scheduler.beginStep();
+
+        // THEN a pilot can still get its raycasts
+        assertTrue(scheduler.acquireRaycasts(AIPilot.MAX_RAYCASTS_PER_THINK));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.racer;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Vector2;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class SkidmarkManagerTests {
+    @Test
+    public void testTrailCreatesOneQuadPerSegment() {
+        // GIVEN a skidmark manager and a trail
+        SkidmarkManager manager = new SkidmarkManager(new TextureRegion(), 128);
+        SkidmarkManager.Trail trail = new SkidmarkManager.Trail();
+
+        // WHEN 3 points are added to the trail
+        for (int idx = 0; idx < 3; ++idx) {
+            manager.addPoint(trail, new Vector2(idx, 0));
+        }
+
+        // THEN 2 quads have been created
+        assertThat(manager.getQuadCount(), is(2));
+    }
+
+    @Test
+    public void testEndedTrailDoesNotConnectToNextPoint() {
+        // GIVEN a skidmark manager and a trail with one segment
+        SkidmarkManager manager = new SkidmarkManager(new TextureRegion(), 128);
+        SkidmarkManager.Trail trail = new SkidmarkManager.Trail();
+        manager.addPoint(trail, new Vector2(0, 0));
+        manager.addPoint(trail, new Vector2(1, 0));
+
+        // WHEN the trail is ended and a new point is added
+        trail.end();
+        manager.addPoint(trail, new Vector2(5, 0));
+
+        // THEN no quad has been created
+        assertThat(manager.getQuadCount(), is(1));
+    }
+
+    @Test
+    public void testQuadsExpire() {
+        // GIVEN a skidmark manager with 2 quads created at different times
+        SkidmarkManager manager = new SkidmarkManager(new TextureRegion(), 128);
+        SkidmarkManager.Trail trail = new SkidmarkManager.Trail();
+        manager.addPoint(trail, new Vector2(0, 0));
+        manager.addPoint(trail, new Vector2(1, 0));
+        manager.act(1);
+        manager.addPoint(trail, new Vector2(2, 0));
+
+        // WHEN the first quad has reached its lifetime
+        manager.act(SkidmarkManager.LIFETIME - 1);
+
+        // THEN only the second quad remains
+        assertThat(manager.getQuadCount(), is(1));
+    }
+
+    @Test
+    public void testNewQuadsReplaceOldOnesWhenFull() {
+        // GIVEN a skidmark manager with room for 2 chunks
+        int capacity = 2 * SkidmarkManager.CHUNK_SIZE;
+        SkidmarkManager manager = new SkidmarkManager(new TextureRegion(), capacity);
+        SkidmarkManager.Trail trail = new SkidmarkManager.Trail();
+
+        // WHEN more quads than its capacity are added
+        for (int idx = 0; idx <= capacity + 1; ++idx) {
+            manager.addPoint(trail, new Vector2(idx, 0));
+        }
+
+        // THEN the quads of the oldest chunk have been dropped
+        assertThat(manager.getQuadCount(), is(SkidmarkManager.CHUNK_SIZE + 1));
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.racescreen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class RankTableTest {
+    private static class Item {
+        float distance;
+
+        Item(float distance) {
+            this.distance = distance;
+        }
+    }
+
+    // Items which have driven the longest are ranked first
+    private static RankTable<Item> createTable() {
+        return new RankTable<>((item1, item2) -> Float.compare(item2.distance, item1.distance));
+    }
+
+    @Test
+    public void testUpdateSorts() {
+        RankTable<Item> table = createTable();
+        Item item1 = new Item(1);
+        Item item2 = new Item(3);
+        Item item3 = new Item(2);
+        table.add(item1);
+        table.add(item2);
+        table.add(item3);
+
+        table.update();
+
+        assertEquals(3, table.getRank(item1));
+        assertEquals(1, table.getRank(item2));
+        assertEquals(2, table.getRank(item3));
+        assertSame(item2, table.getItemAtRank(1));
+        assertSame(item3, table.getItemAtRank(2));
+        assertSame(item1, table.getItemAtRank(3));
+    }
+
+    @Test
+    public void testRanksOnlyChangeOnUpdate() {
+        RankTable<Item> table = createTable();
+        Item item1 = new Item(2);
+        Item item2 = new Item(1);
+        table.add(item1);
+        table.add(item2);
+        table.update();
+
+        item2.distance = 3;
+        assertEquals(1, table.getRank(item1));
+        assertEquals(2, table.getRank(item2));
+
+        table.update();
+        assertEquals(2, table.getRank(item1));
+        assertEquals(1, table.getRank(item2));
+    }
+
+    @Test
+    public void testEqualItemsKeepTheirRanks() {
+        RankTable<Item> table = createTable();
+        Item item1 = new Item(1);
+        Item item2 = new Item(1);
+        table.add(item1);
+        table.add(item2);
+        table.update();
+
+        assertEquals(1, table.getRank(item1));
+        assertEquals(2, table.getRank(item2));
+    }
+
+    @Test
+    public void testOvertakeAcrossSeveralRanks() {
+        RankTable<Item> table = createTable();
+        Item[] items = new Item[5];
+        for (int idx = 0; idx < items.length; ++idx) {
+            items[idx] = new Item(items.length - idx);
+            table.add(items[idx]);
+        }
+        table.update();
+
+        // The last item overtakes everyone
+        items[4].distance = 10;
+        table.update();
+
+        assertEquals(1, table.getRank(items[4]));
+        for (int idx = 0; idx < 4; ++idx) {
+            assertEquals(idx + 2, table.getRank(items[idx]));
+            assertSame(items[idx], table.getItemAtRank(idx + 2));
+        }
+    }
+}
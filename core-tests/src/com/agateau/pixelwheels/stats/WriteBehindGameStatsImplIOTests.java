@@ -0,0 +1,81 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.stats;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import com.badlogic.gdx.files.FileHandle;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class WriteBehindGameStatsImplIOTests {
+    @Rule public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testSaveDoesNotWrite() {
+        // GIVEN a WriteBehindGameStatsImplIO working on a new json file
+        FileHandle testFile = new FileHandle(mTemporaryFolder.getRoot() + "/io.json");
+        WriteBehindGameStatsImplIO io =
+                new WriteBehindGameStatsImplIO(new JsonGameStatsImplIO(testFile));
+        GameStats gameStats = new GameStatsImpl(io);
+
+        // WHEN an event is recorded
+        gameStats.recordEvent(GameStats.Event.MISSILE_HIT);
+
+        // THEN the stats are dirty, but nothing has been written
+        assertTrue(io.isDirty());
+        assertFalse(testFile.exists());
+        io.dispose();
+    }
+
+    @Test
+    public void testFlush() {
+        // GIVEN a WriteBehindGameStatsImplIO working on a new json file
+        FileHandle testFile = new FileHandle(mTemporaryFolder.getRoot() + "/io.json");
+        WriteBehindGameStatsImplIO io =
+                new WriteBehindGameStatsImplIO(new JsonGameStatsImplIO(testFile));
+        GameStats gameStats = new GameStatsImpl(io);
+
+        // AND events recorded and flushed several times
+        gameStats.recordEvent(GameStats.Event.MISSILE_HIT);
+        io.flush();
+        gameStats.recordEvent(GameStats.Event.MISSILE_HIT);
+        gameStats.recordEvent(GameStats.Event.MISSILE_HIT);
+        io.flush();
+
+        // WHEN the writes are done
+        io.waitForWrites();
+
+        // THEN the stats are not dirty anymore
+        assertFalse(io.isDirty());
+        // AND no temporary file is left behind
+        assertFalse(testFile.sibling("io.json.tmp").exists());
+        // AND the file contains the last values
+        GameStatsImpl gameStats2 = new GameStatsImpl(new JsonGameStatsImplIO(testFile));
+        assertThat(gameStats2.getEventCount(GameStats.Event.MISSILE_HIT), is(3));
+        io.dispose();
+    }
+}
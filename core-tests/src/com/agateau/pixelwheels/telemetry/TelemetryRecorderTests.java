@@ -0,0 +1,101 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.telemetry;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import com.badlogic.gdx.files.FileHandle;
+import java.io.IOException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class TelemetryRecorderTests {
+    @Rule public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        // GIVEN a recorder with 2 sources, a float channel and an int channel, using small chunks
+        FileHandle testFile = new FileHandle(mTemporaryFolder.getRoot() + "/test.pwt");
+        TelemetryRecorder recorder = new TelemetryRecorder(testFile, 0.5f, /* chunkSize */ 4);
+        recorder.addSource("a");
+        recorder.addSource("b");
+        int floatChannel = recorder.addChannel("float", TelemetryRecorder.ChannelType.FLOAT);
+        int intChannel = recorder.addChannel("int", TelemetryRecorder.ChannelType.INT);
+        recorder.start();
+
+        // WHEN 5 steps are recorded for each source, so that the rows do not fit in one chunk
+        for (int step = 0; step < 5; ++step) {
+            for (int source = 0; source < 2; ++source) {
+                recorder.beginRow(step, source);
+                recorder.setFloat(floatChannel, step + source / 10f);
+                recorder.setInt(intChannel, step * 10 + source);
+            }
+        }
+        recorder.dispose();
+
+        // THEN the file can be read back
+        TelemetryReader reader = new TelemetryReader(testFile.read());
+        assertThat(reader.getStepDuration(), is(0.5f));
+        assertThat(reader.getSources().size, is(2));
+        assertThat(reader.getSources().get(1), is("b"));
+        assertThat(reader.getChannelCount(), is(2));
+        assertThat(reader.getChannelName(floatChannel), is("float"));
+        assertThat(reader.getChannelType(intChannel), is(TelemetryRecorder.ChannelType.INT));
+
+        // AND it contains all the rows
+        int rowIdx = 0;
+        while (reader.readChunk()) {
+            for (int row = 0; row < reader.getRowCount(); ++row, ++rowIdx) {
+                int step = rowIdx / 2;
+                int source = rowIdx % 2;
+                assertThat(reader.getStep(row), is(step));
+                assertThat(reader.getSource(row), is(source));
+                assertThat(reader.getFloat(floatChannel, row), is(step + source / 10f));
+                assertThat(reader.getInt(intChannel, row), is(step * 10 + source));
+            }
+        }
+        reader.close();
+        assertThat(rowIdx, is(10));
+        assertThat(recorder.getDroppedRowCount(), is(0));
+    }
+
+    @Test
+    public void testInvalidFile() {
+        // GIVEN a file which is not a telemetry file
+        FileHandle testFile = new FileHandle(mTemporaryFolder.getRoot() + "/test.pwt");
+        testFile.writeString("Hello world", /* append */ false);
+
+        // WHEN trying to read it
+        boolean failed = false;
+        try {
+            new TelemetryReader(testFile.read());
+        } catch (IOException e) {
+            failed = true;
+        }
+
+        // THEN the reader refuses it
+        assertTrue(failed);
+    }
+}
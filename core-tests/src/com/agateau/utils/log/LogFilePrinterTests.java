@@ -46,6 +46,7 @@ public class LogFilePrinterTests {
         printer.setMessageFormatter(
                 (level, tag, message) -> String.format(Locale.US, "%s %s %s", level, tag, message));
         printer.print(NLog.Level.INFO, "tag", "hello");
+        printer.flush();
 
         assertThat(readFile(path), is("INFO tag hello\n"));
     }
@@ -60,18 +61,21 @@ public class LogFilePrinterTests {
 
         // WHEN I log a short message
         printer.print(NLog.Level.INFO, "", "aaaaa");
+        printer.flush();
 
         // THEN it is in the main log
         assertThat(readFile(path), is("aaaaa\n"));
 
         // WHEN I log another short message
         printer.print(NLog.Level.INFO, "", "bbbbb");
+        printer.flush();
 
         // THEN it iis also in the main log
         assertThat(readFile(path), is("aaaaa\nbbbbb\n"));
 
         // WHEN I log a message which forces the rotation
         printer.print(NLog.Level.INFO, "", "0123456789abcde");
+        printer.flush();
 
         // THEN the backup log contains the previous content
         assertThat(readFile(path + LogFilePrinter.BACKUP_SUFFIX), is("aaaaa\nbbbbb\n"));
@@ -81,6 +85,7 @@ public class LogFilePrinterTests {
 
         // WHEN I log another long message
         printer.print(NLog.Level.INFO, "", "edcba0123456789");
+        printer.flush();
 
         // THEN the backup log contains the previous main log content
         assertThat(readFile(path + LogFilePrinter.BACKUP_SUFFIX), is("0123456789abcde\n"));
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.utils.log;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class LogRingBufferTests {
+    private static final Object[] NO_ARGS = new Object[0];
+
+    @Test
+    public void testEmpty() {
+        LogRingBuffer buffer = new LogRingBuffer(4);
+        assertThat(buffer.peek(), is(nullValue()));
+    }
+
+    @Test
+    public void testOfferAndPeek() {
+        // GIVEN a buffer with two messages
+        LogRingBuffer buffer = new LogRingBuffer(4);
+        buffer.offer(NLog.Level.INFO, "tag", "first", NO_ARGS);
+        buffer.offer(NLog.Level.ERROR, "tag", "second", NO_ARGS);
+
+        // WHEN the messages are consumed
+        // THEN they come out in order
+        LogRingBuffer.Entry entry = buffer.peek();
+        assertThat(entry.level, is(NLog.Level.INFO));
+        assertThat(entry.format, is("first"));
+        buffer.release();
+
+        entry = buffer.peek();
+        assertThat(entry.level, is(NLog.Level.ERROR));
+        assertThat(entry.format, is("second"));
+        buffer.release();
+
+        assertThat(buffer.peek(), is(nullValue()));
+    }
+
+    @Test
+    public void testFullBufferDropsMessages() {
+        // GIVEN a full buffer
+        LogRingBuffer buffer = new LogRingBuffer(2);
+        assertTrue(buffer.offer(NLog.Level.INFO, "", "1", NO_ARGS));
+        assertTrue(buffer.offer(NLog.Level.INFO, "", "2", NO_ARGS));
+
+        // WHEN another message is queued
+        // THEN it is dropped and counted
+        assertFalse(buffer.offer(NLog.Level.INFO, "", "3", NO_ARGS));
+        assertThat(buffer.takeDroppedCount(), is(1));
+        assertThat(buffer.takeDroppedCount(), is(0));
+
+        // WHEN a message is consumed
+        buffer.release();
+
+        // THEN there is room for a new one, which wraps around
+        assertTrue(buffer.offer(NLog.Level.INFO, "", "4", NO_ARGS));
+        assertThat(buffer.peek().format, is("2"));
+        buffer.release();
+        assertThat(buffer.peek().format, is("4"));
+    }
+}
@@ -20,6 +20,7 @@ package com.agateau.utils.tests;
 
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 
 import com.agateau.utils.AgcMathUtils;
@@ -100,6 +101,16 @@ public class AgcMathUtilsTests {
         }
     }
 
+    @Test
+    public void testProjectToOut() {
+        Vector2 out = new Vector2();
+        Vector2 result =
+                AgcMathUtils.project(out, new Vector2(1, 1), new Vector2(0, 0), new Vector2(2, 0));
+        assertSame(out, result);
+        assertEquals(1, out.x, 0.001f);
+        assertEquals(0, out.y, 0.001f);
+    }
+
     @Test
     public void testIsQuadConvex() {
         Vector2 p1 = new Vector2(0, 0);
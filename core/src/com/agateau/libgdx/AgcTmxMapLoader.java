@@ -18,14 +18,150 @@
  */
 package com.agateau.libgdx;
 
+import com.agateau.utils.Assert;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.maps.ImageResolver;
+import com.badlogic.gdx.maps.MapLayers;
 import com.badlogic.gdx.maps.MapObject;
 import com.badlogic.gdx.maps.MapObjects;
 import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSets;
 import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
 import com.badlogic.gdx.utils.XmlReader;
+import java.nio.charset.StandardCharsets;
 
-/** This class is here to fix issues with loading recent Tiled maps with TmxMapLoader */
+/**
+ * This class is here to fix issues with loading recent Tiled maps with TmxMapLoader.
+ *
+ * <p>It can also load a map in two steps: prepare() does the slow parts which do not need the GL
+ * context (parsing XML and decoding images) and can run on any thread, then finishLoading() uploads
+ * the textures and creates the map on the render thread. A loader instance can only prepare one map
+ * at a time.
+ *
+ * <p>The map can also be created from a skeleton of the TMX file, without the data of its tile
+ * layers, and from the tile ids of these layers. This skips most of the XML parsing.
+ */
 public class AgcTmxMapLoader extends TmxMapLoader {
+    private FileHandle mPreparedTmxFile;
+    private final ObjectMap<String, TextureData> mPreparedTextureDatas = new ObjectMap<>();
+    private Array<int[]> mPreparedTileLayerIds;
+    private int mNextTileLayerIdx;
+
+    /** Parses tmxFile and decodes the images it uses. Can be called from any thread. */
+    public void prepare(FileHandle tmxFile, Parameters parameter) {
+        root = xml.parse(tmxFile);
+        prepareDependencies(tmxFile, parameter);
+    }
+
+    /**
+     * Like prepare(), but parses tmxSkeleton, the content of tmxFile without the data of its tile
+     * layers, instead of tmxFile. The tiles of the layers are then taken from tileLayerIds: for
+     * each tile layer, in the order of the file, the tile ids as stored in the TMX file.
+     */
+    public void prepare(
+            FileHandle tmxFile, byte[] tmxSkeleton, Array<int[]> tileLayerIds, Parameters parameter) {
+        root = xml.parse(new String(tmxSkeleton, StandardCharsets.UTF_8));
+        prepareDependencies(tmxFile, parameter);
+        mPreparedTileLayerIds = tileLayerIds;
+    }
+
+    private void prepareDependencies(FileHandle tmxFile, Parameters parameter) {
+        for (FileHandle textureFile : getDependencyFileHandles(tmxFile)) {
+            TextureData data =
+                    TextureData.Factory.loadFromFile(textureFile, parameter.generateMipMaps);
+            data.prepare();
+            mPreparedTextureDatas.put(textureFile.path(), data);
+        }
+        mPreparedTmxFile = tmxFile;
+    }
+
+    /** Creates the map prepared by prepare(). Must be called from the render thread. */
+    public TiledMap finishLoading(Parameters parameter) {
+        Assert.check(mPreparedTmxFile != null, "prepare() has not been called");
+        ObjectMap<String, Texture> textures = new ObjectMap<>();
+        for (ObjectMap.Entry<String, TextureData> entry : mPreparedTextureDatas) {
+            Texture texture = new Texture(entry.value);
+            texture.setFilter(parameter.textureMinFilter, parameter.textureMagFilter);
+            textures.put(entry.key, texture);
+        }
+        ImageResolver imageResolver = new ImageResolver.DirectImageResolver(textures);
+        mNextTileLayerIdx = 0;
+        TiledMap map = loadTiledMap(mPreparedTmxFile, parameter, imageResolver);
+        map.setOwnedResources(textures.values().toArray());
+        mPreparedTextureDatas.clear();
+        mPreparedTmxFile = null;
+        mPreparedTileLayerIds = null;
+        root = null;
+        return map;
+    }
+
+    /** Frees the data created by prepare(), for when finishLoading() is not going to be called */
+    public void discardPrepared() {
+        for (TextureData data : mPreparedTextureDatas.values()) {
+            if (data.disposePixmap()) {
+                Pixmap pixmap = data.consumePixmap();
+                pixmap.dispose();
+            }
+        }
+        mPreparedTextureDatas.clear();
+        mPreparedTmxFile = null;
+        mPreparedTileLayerIds = null;
+        root = null;
+    }
+
+    /*
+     * When the map comes from a skeleton, create tile layers from the prepared tile ids. This does
+     * what TmxMapLoader does once it has decoded the layer data.
+     */
+    @Override
+    protected void loadTileLayer(
+            TiledMap map, MapLayers parentLayers, XmlReader.Element element) {
+        if (mPreparedTileLayerIds == null || !element.getName().equals("layer")) {
+            super.loadTileLayer(map, parentLayers, element);
+            return;
+        }
+        Assert.check(
+                mNextTileLayerIdx < mPreparedTileLayerIds.size, "Not enough prepared tile layers");
+        int[] ids = mPreparedTileLayerIds.get(mNextTileLayerIdx++);
+        int width = element.getIntAttribute("width", 0);
+        int height = element.getIntAttribute("height", 0);
+        Assert.check(ids.length == width * height, "Wrong size for prepared tile layer");
+        int tileWidth = map.getProperties().get("tilewidth", Integer.class);
+        int tileHeight = map.getProperties().get("tileheight", Integer.class);
+        TiledMapTileLayer layer = new TiledMapTileLayer(width, height, tileWidth, tileHeight);
+        loadBasicLayerInfo(layer, element);
+
+        TiledMapTileSets tileSets = map.getTileSets();
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                int id = ids[y * width + x];
+                TiledMapTile tile = tileSets.getTile(id & ~MASK_CLEAR);
+                if (tile == null) {
+                    continue;
+                }
+                TiledMapTileLayer.Cell cell =
+                        createTileLayerCell(
+                                (id & FLAG_FLIP_HORIZONTALLY) != 0,
+                                (id & FLAG_FLIP_VERTICALLY) != 0,
+                                (id & FLAG_FLIP_DIAGONALLY) != 0);
+                cell.setTile(tile);
+                layer.setCell(x, flipY ? height - 1 - y : y, cell);
+            }
+        }
+
+        XmlReader.Element properties = element.getChildByName("properties");
+        if (properties != null) {
+            loadProperties(layer.getProperties(), properties);
+        }
+        parentLayers.add(layer);
+    }
 
     /*
      * Fix a crash when loading properties of type file and empty.
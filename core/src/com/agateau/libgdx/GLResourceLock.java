@@ -0,0 +1,29 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.libgdx;
+
+/**
+ * A lock to hold when creating or disposing GL resources (textures, frame buffers, shaders...)
+ * from code which may not run on the render thread.
+ *
+ * <p>gdx keeps track of these resources in static collections which are not thread-safe.
+ */
+public class GLResourceLock {
+    public static final Object instance = new Object();
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.libgdx;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ReflectionPool;
+
+/**
+ * A ReflectionPool which can be shared between threads.
+ *
+ * <p>Used for the static pools of game objects, since several race worlds can run in parallel
+ * (for example in the batch race runner).
+ */
+public class SynchronizedReflectionPool<T> extends ReflectionPool<T> {
+    public SynchronizedReflectionPool(Class<T> type) {
+        super(type);
+    }
+
+    @Override
+    public synchronized T obtain() {
+        return super.obtain();
+    }
+
+    @Override
+    public synchronized void free(T object) {
+        super.free(object);
+    }
+
+    @Override
+    public synchronized void freeAll(Array<T> objects) {
+        super.freeAll(objects);
+    }
+
+    @Override
+    public synchronized void fill(int size) {
+        super.fill(size);
+    }
+
+    @Override
+    public synchronized void clear() {
+        super.clear();
+    }
+
+    @Override
+    public synchronized int getFree() {
+        return super.getFree();
+    }
+}
@@ -26,6 +26,7 @@ import com.agateau.pixelwheels.obstacles.ObstacleDef;
 import com.agateau.pixelwheels.obstacles.ObstacleIO;
 import com.agateau.pixelwheels.sound.AudioManager;
 import com.agateau.pixelwheels.sound.SoundAtlas;
+import com.agateau.pixelwheels.sound.SoundCategory;
 import com.agateau.pixelwheels.utils.StringUtils;
 import com.agateau.pixelwheels.vehicledef.VehicleDef;
 import com.agateau.pixelwheels.vehicledef.VehicleIO;
@@ -262,7 +263,7 @@ public class Assets implements TextureRegionProvider {
 
     public AnimationObject createExplosion(AudioManager audioManager, float x, float y) {
         AnimationObject obj = AnimationObject.create(explosion, x, y);
-        obj.initAudio(audioManager, soundAtlas.get("explosion"));
+        obj.initAudio(audioManager, soundAtlas.get("explosion"), SoundCategory.EXPLOSION);
         return obj;
     }
 
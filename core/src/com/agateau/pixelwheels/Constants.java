@@ -38,6 +38,7 @@ public class Constants {
     public static final String LOG_FILENAME = "pixelwheels.log";
     // 1 mega-byte max size
     public static final long LOG_MAX_SIZE = 1024 * 1024;
+    public static final String FLIGHT_RECORDER_FILENAME = "pixelwheels-spikes.log";
 
     public static final String CONFIG_FILENAME = "pixelwheels.conf";
 
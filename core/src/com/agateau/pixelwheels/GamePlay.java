@@ -52,6 +52,11 @@ public class GamePlay {
     // speed
     public float aiSpeedLimiter = 0.8f;
 
+    // AI pilots look for a new target every aiThinkInterval steps, and all AI pilots together
+    // cannot cast more than aiMaxRaycastsPerStep rays in a step
+    public int aiThinkInterval = 4;
+    public int aiMaxRaycastsPerStep = 24;
+
     public boolean oneLapOnly = false;
     public boolean freeCamera = false;
 
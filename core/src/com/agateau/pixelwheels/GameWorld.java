@@ -20,8 +20,10 @@ package com.agateau.pixelwheels;
 
 import com.agateau.pixelwheels.bonus.BonusPool;
 import com.agateau.pixelwheels.gameobject.GameObject;
+import com.agateau.pixelwheels.gameobject.GameObjectGrid;
 import com.agateau.pixelwheels.map.Track;
 import com.agateau.pixelwheels.racer.Racer;
+import com.agateau.pixelwheels.racer.SkidmarkManager;
 import com.agateau.pixelwheels.racescreen.CountDown;
 import com.agateau.pixelwheels.stats.GameStats;
 import com.badlogic.gdx.physics.box2d.World;
@@ -54,12 +56,19 @@ public interface GameWorld {
 
     Array<GameObject> getActiveGameObjects();
 
+    /** Returns a grid of the active game objects, up to date with the last step */
+    GameObjectGrid getGameObjectGrid();
+
     void addGameObject(GameObject object);
 
+    SkidmarkManager getSkidmarkManager();
+
     CountDown getCountDown();
 
     int getRacerRank(Racer racer);
 
+    Racer getRacerAtRank(int rank);
+
     float getRacerNormalizedRank(Racer racer);
 
     GameStats getGameStats();
@@ -19,10 +19,12 @@
 package com.agateau.pixelwheels;
 
 import com.agateau.pixelwheels.debug.Debug;
+import com.agateau.pixelwheels.debug.FlightRecorder;
 import com.agateau.pixelwheels.gamesetup.ChampionshipGameInfo;
 import com.agateau.pixelwheels.gamesetup.ChampionshipMaestro;
 import com.agateau.pixelwheels.gamesetup.Maestro;
 import com.agateau.pixelwheels.gamesetup.QuickRaceMaestro;
+import com.agateau.pixelwheels.map.TrackPreloader;
 import com.agateau.pixelwheels.rewards.RewardManager;
 import com.agateau.pixelwheels.screens.MainMenuScreen;
 import com.agateau.pixelwheels.screens.PwStageScreen;
@@ -33,6 +35,7 @@ import com.agateau.pixelwheels.sound.SoundSettings;
 import com.agateau.pixelwheels.stats.GameStats;
 import com.agateau.pixelwheels.stats.GameStatsImpl;
 import com.agateau.pixelwheels.stats.JsonGameStatsImplIO;
+import com.agateau.pixelwheels.stats.WriteBehindGameStatsImplIO;
 import com.agateau.ui.MouseCursorManager;
 import com.agateau.ui.ScreenStack;
 import com.agateau.ui.UiInputMapper;
@@ -58,6 +61,7 @@ public class PwGame extends Game implements GameConfig.ChangeListener {
     private Maestro mMaestro;
     private GameConfig mGameConfig;
     private AudioManager mAudioManager;
+    private final TrackPreloader mTrackPreloader = new TrackPreloader();
 
     private Introspector mGamePlayIntrospector;
     private Introspector mDebugIntrospector;
@@ -65,7 +69,7 @@ public class PwGame extends Game implements GameConfig.ChangeListener {
     private GameStatsImpl mGameStats;
     private RewardManager mRewardManager;
 
-    private GameStatsImpl.IO mNormalGameStatsIO;
+    private WriteBehindGameStatsImplIO mNormalGameStatsIO;
     // Used when GamePlay has been modified, to ensure stats are not recorded
     private final GameStatsImpl.IO mNoSaveGameStatsIO =
             new GameStatsImpl.IO() {
@@ -90,6 +94,10 @@ public class PwGame extends Game implements GameConfig.ChangeListener {
         return mAudioManager;
     }
 
+    public TrackPreloader getTrackPreloader() {
+        return mTrackPreloader;
+    }
+
     public RewardManager getRewardManager() {
         return mRewardManager;
     }
@@ -171,12 +179,41 @@ public class PwGame extends Game implements GameConfig.ChangeListener {
 
     @Override
     public void render() {
-        if (UiInputMapper.getInstance().isKeyJustPressed(VirtualKey.SCREENSHOT)) {
-            String path = ScreenshotCreator.saveScreenshot();
-            NLog.i("Screenshot saved in %s", path);
+        FlightRecorder.instance.beginFrame();
+        try {
+            if (UiInputMapper.getInstance().isKeyJustPressed(VirtualKey.SCREENSHOT)) {
+                String path = ScreenshotCreator.saveScreenshot();
+                NLog.i("Screenshot saved in %s", path);
+            }
+            MouseCursorManager.getInstance().act();
+            super.render();
+        } catch (Throwable e) {
+            // Catch Errors too: OutOfMemoryError and StackOverflowError are worth recording
+            FlightRecorder.instance.onException(e);
+            throw e;
         }
-        MouseCursorManager.getInstance().act();
-        super.render();
+        FlightRecorder.instance.endFrame(Gdx.graphics.getDeltaTime());
+    }
+
+    @Override
+    public void pause() {
+        super.pause();
+        flushGameStats();
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        mTrackPreloader.dispose();
+        mNormalGameStatsIO.dispose();
+    }
+
+    /**
+     * Game stats are not written to the disk when they change, to avoid file writes during races.
+     * This must be called at safe points to write them in the background.
+     */
+    public void flushGameStats() {
+        mNormalGameStatsIO.flush();
     }
 
     public void refreshAssets() {
@@ -202,7 +239,8 @@ public class PwGame extends Game implements GameConfig.ChangeListener {
 
     private void setupTrackStats() {
         mNormalGameStatsIO =
-                new JsonGameStatsImplIO(FileUtils.getUserWritableFile("gamestats.json"));
+                new WriteBehindGameStatsImplIO(
+                        new JsonGameStatsImplIO(FileUtils.getUserWritableFile("gamestats.json")));
         mGameStats = new GameStatsImpl(getCurrentGameStatsIO());
         GameStatsSetup.loadDefaultRecords(mGameStats, mAssets.championships);
     }
@@ -225,6 +263,7 @@ public class PwGame extends Game implements GameConfig.ChangeListener {
     }
 
     public void showMainMenu() {
+        flushGameStats();
         mScreenStack.clear();
         mAudioManager.playMusic(Assets.MENU_MUSIC_ID);
         Screen screen;
@@ -247,6 +286,7 @@ public class PwGame extends Game implements GameConfig.ChangeListener {
     }
 
     public void replaceScreen(Screen screen) {
+        flushGameStats();
         mScreenStack.replace(screen);
     }
 
@@ -279,10 +319,12 @@ public class PwGame extends Game implements GameConfig.ChangeListener {
     }
 
     public void pushScreen(Screen screen) {
+        flushGameStats();
         mScreenStack.push(screen);
     }
 
     public void popScreen() {
+        flushGameStats();
         mScreenStack.pop();
     }
 
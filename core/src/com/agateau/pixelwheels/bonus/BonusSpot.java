@@ -25,6 +25,7 @@ import com.agateau.pixelwheels.ZLevel;
 import com.agateau.pixelwheels.gameobject.AudioClipper;
 import com.agateau.pixelwheels.gameobject.GameObjectAdapter;
 import com.agateau.pixelwheels.sound.AudioManager;
+import com.agateau.pixelwheels.sound.SoundCategory;
 import com.agateau.pixelwheels.utils.BodyRegionDrawer;
 import com.agateau.pixelwheels.utils.DrawUtils;
 import com.agateau.utils.AgcMathUtils;
@@ -40,6 +41,7 @@ import com.badlogic.gdx.physics.box2d.PolygonShape;
 
 /** The bonus waiting to be hit by a the player */
 public class BonusSpot extends GameObjectAdapter {
+    private static final ZLevel[] Z_LEVELS = {ZLevel.GROUND, ZLevel.ON_GROUND};
     private static final float DISABLED_TIMEOUT = 5;
     private final TextureRegion mRegion;
     private final Sound mSound;
@@ -95,6 +97,16 @@ public class BonusSpot extends GameObjectAdapter {
         }
     }
 
+    @Override
+    public ZLevel[] getZLevels() {
+        return Z_LEVELS;
+    }
+
+    @Override
+    public float getBoundingRadius() {
+        return sRegionRadiusU;
+    }
+
     @Override
     public void draw(Batch batch, ZLevel zLevel, Rectangle viewBounds) {
         if (!mBody.isActive()) {
@@ -116,7 +128,7 @@ public class BonusSpot extends GameObjectAdapter {
     public void audioRender(AudioClipper audioClipper) {
         if (mJustPicked) {
             float volume = audioClipper.clip(this);
-            mAudioManager.play(mSound, volume);
+            mAudioManager.play(mSound, volume, SoundCategory.EFFECT);
             mJustPicked = false;
         }
     }
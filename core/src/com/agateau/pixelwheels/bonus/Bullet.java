@@ -18,6 +18,7 @@
  */
 package com.agateau.pixelwheels.bonus;
 
+import com.agateau.libgdx.SynchronizedReflectionPool;
 import com.agateau.pixelwheels.Assets;
 import com.agateau.pixelwheels.Constants;
 import com.agateau.pixelwheels.GameWorld;
@@ -30,8 +31,10 @@ import com.agateau.pixelwheels.racer.Racer;
 import com.agateau.pixelwheels.racescreen.Collidable;
 import com.agateau.pixelwheels.racescreen.CollisionCategories;
 import com.agateau.pixelwheels.sound.AudioManager;
+import com.agateau.pixelwheels.sound.SoundCategory;
 import com.agateau.pixelwheels.utils.BodyRegionDrawer;
 import com.agateau.pixelwheels.utils.Box2DUtils;
+import com.agateau.pixelwheels.utils.DrawUtils;
 import com.agateau.utils.AgcMathUtils;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.math.MathUtils;
@@ -46,11 +49,12 @@ import com.badlogic.gdx.physics.box2d.Manifold;
 import com.badlogic.gdx.physics.box2d.PolygonShape;
 import com.badlogic.gdx.utils.Disposable;
 import com.badlogic.gdx.utils.Pool;
-import com.badlogic.gdx.utils.ReflectionPool;
 
 /** A player bullet */
 public class Bullet extends GameObjectAdapter implements Collidable, Pool.Poolable, Disposable {
-    private static final ReflectionPool<Bullet> sPool = new ReflectionPool<>(Bullet.class);
+    private static final ZLevel[] Z_LEVELS = {ZLevel.GROUND};
+    private static final SynchronizedReflectionPool<Bullet> sPool =
+            new SynchronizedReflectionPool<>(Bullet.class);
 
     private static final float IMPULSE = 160;
 
@@ -131,6 +135,16 @@ public class Bullet extends GameObjectAdapter implements Collidable, Pool.Poolab
     @Override
     public void act(float delta) {}
 
+    @Override
+    public ZLevel[] getZLevels() {
+        return Z_LEVELS;
+    }
+
+    @Override
+    public float getBoundingRadius() {
+        return Constants.UNIT_FOR_PIXEL * DrawUtils.getTextureRegionRadius(mAssets.bullet);
+    }
+
     @Override
     public void draw(Batch batch, ZLevel zLevel, Rectangle viewBounds) {
         if (zLevel != ZLevel.GROUND) {
@@ -147,7 +161,8 @@ public class Bullet extends GameObjectAdapter implements Collidable, Pool.Poolab
     @Override
     public void audioRender(AudioClipper clipper) {
         if (mJustShot) {
-            mAudioManager.play(mAssets.soundAtlas.get("shoot"), clipper.clip(this));
+            mAudioManager.play(
+                    mAssets.soundAtlas.get("shoot"), clipper.clip(this), SoundCategory.EFFECT);
             mJustShot = false;
         }
     }
@@ -23,15 +23,26 @@ import static com.agateau.pixelwheels.utils.ArcClosestBodyFinder.FilterResult.ST
 import static com.agateau.pixelwheels.utils.ArcClosestBodyFinder.FilterResult.STOP_SUCCESS;
 
 import com.agateau.pixelwheels.BodyIdentifier;
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.gameobject.GameObject;
+import com.agateau.pixelwheels.gameobject.GameObjectGrid;
 import com.agateau.pixelwheels.racer.Racer;
 import com.agateau.pixelwheels.utils.ArcClosestBodyFinder;
+import com.agateau.utils.AgcMathUtils;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
-import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
 
 public class ClosestRacerFinder {
+    // Half the diagonal of the biggest vehicle, in world units
+    private static final float MAX_RACER_RADIUS = 2.5f;
+
+    private final float mDepth;
+    private final float mArc;
     private final ArcClosestBodyFinder mBodyFinder;
     private final RacerBodyFilter mFilter = new RacerBodyFilter();
+    private final Array<GameObject> mCandidates = new Array<>();
 
     private static class RacerBodyFilter implements ArcClosestBodyFinder.BodyFilter {
         Racer mIgnoredRacer;
@@ -54,6 +65,8 @@ public class ClosestRacerFinder {
     }
 
     public ClosestRacerFinder(float depth, float arc) {
+        mDepth = depth;
+        mArc = arc;
         mBodyFinder = new ArcClosestBodyFinder(depth, arc);
         mBodyFinder.setBodyFilter(mFilter);
     }
@@ -62,8 +75,11 @@ public class ClosestRacerFinder {
         mFilter.mIgnoredRacer = ignoredRacer;
     }
 
-    public Racer find(World world, Vector2 origin, float angle) {
-        Body body = mBodyFinder.find(world, origin, angle);
+    public Racer find(GameWorld gameWorld, Vector2 origin, float angle) {
+        if (!mayFindRacer(gameWorld.getGameObjectGrid(), origin, angle)) {
+            return null;
+        }
+        Body body = mBodyFinder.find(gameWorld.getBox2DWorld(), origin, angle);
         if (body == null) {
             return null;
         } else {
@@ -71,6 +87,38 @@ public class ClosestRacerFinder {
         }
     }
 
+    /**
+     * Raycasting the whole arc is expensive, so first use the grid to check if there is at least
+     * one racer close enough to the arc to be hit by a ray
+     */
+    private boolean mayFindRacer(GameObjectGrid grid, Vector2 origin, float angle) {
+        mCandidates.clear();
+        grid.findObjectsInRadius(origin.x, origin.y, mDepth + MAX_RACER_RADIUS, mCandidates);
+        for (GameObject object : mCandidates) {
+            if (!(object instanceof Racer) || object == mFilter.mIgnoredRacer) {
+                continue;
+            }
+            float dx = object.getX() - origin.x;
+            float dy = object.getY() - origin.y;
+            float distance = (float) Math.sqrt(dx * dx + dy * dy);
+            if (distance <= MAX_RACER_RADIUS) {
+                return true;
+            }
+            // Widen the arc by the angle under which the racer is seen
+            float racerArc =
+                    (float) Math.asin(MAX_RACER_RADIUS / distance) * MathUtils.radiansToDegrees;
+            float racerAngle = (float) Math.atan2(dy, dx) * MathUtils.radiansToDegrees;
+            float delta =
+                    AgcMathUtils.shortestAngleDelta(
+                            AgcMathUtils.normalizeAngle(angle),
+                            AgcMathUtils.normalizeAngle(racerAngle));
+            if (Math.abs(delta) <= mArc / 2 + racerArc) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public Vector2 getLeftVertex(Vector2 origin, float angle) {
         return mBodyFinder.getLeftVertex(origin, angle);
     }
@@ -29,7 +29,6 @@ import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
-import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.utils.Pool;
 
 /** A gun bonus */
@@ -157,9 +156,9 @@ public class GunBonus extends BonusAdapter implements Pool.Poolable {
     @Override
     public void aiAct(float delta) {
         mRayCastOrigin.set(mRacer.getX(), mRacer.getY());
-        World world = mGameWorld.getBox2DWorld();
         Racer racer =
-                mClosestRacerFinder.find(world, mRayCastOrigin, mRacer.getVehicle().getAngle());
+                mClosestRacerFinder.find(
+                        mGameWorld, mRayCastOrigin, mRacer.getVehicle().getAngle());
         if (racer != null) {
             mRacer.triggerBonus();
         }
@@ -18,6 +18,7 @@
  */
 package com.agateau.pixelwheels.bonus;
 
+import com.agateau.libgdx.SynchronizedReflectionPool;
 import com.agateau.pixelwheels.Assets;
 import com.agateau.pixelwheels.Constants;
 import com.agateau.pixelwheels.GameWorld;
@@ -32,6 +33,7 @@ import com.agateau.pixelwheels.racescreen.CollisionCategories;
 import com.agateau.pixelwheels.sound.AudioManager;
 import com.agateau.pixelwheels.utils.BodyRegionDrawer;
 import com.agateau.pixelwheels.utils.Box2DUtils;
+import com.agateau.pixelwheels.utils.DrawUtils;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
@@ -48,12 +50,13 @@ import com.badlogic.gdx.physics.box2d.Manifold;
 import com.badlogic.gdx.physics.box2d.joints.WeldJointDef;
 import com.badlogic.gdx.utils.Disposable;
 import com.badlogic.gdx.utils.Pool;
-import com.badlogic.gdx.utils.ReflectionPool;
 
 /** A mine on the road */
 public class Mine extends GameObjectAdapter
         implements Collidable, Pool.Poolable, Disposable, Explosable {
-    private static final ReflectionPool<Mine> sPool = new ReflectionPool<>(Mine.class);
+    private static final ZLevel[] Z_LEVELS = {ZLevel.GROUND, ZLevel.ON_GROUND};
+    private static final SynchronizedReflectionPool<Mine> sPool =
+            new SynchronizedReflectionPool<>(Mine.class);
 
     private static final float MINE_RADIUS = 0.8f;
 
@@ -69,15 +72,13 @@ public class Mine extends GameObjectAdapter
     private float mTime;
     private Joint mJoint;
 
-    private static final Vector2 sTmp = new Vector2();
-
     public static Mine createAttachedMine(
             GameWorld gameWorld, Assets assets, AudioManager audioManager, Racer owner) {
         Vehicle vehicle = owner.getVehicle();
-        sTmp.set(-vehicle.getWidth(), 0);
-        sTmp.rotate(vehicle.getAngle()).add(vehicle.getX(), vehicle.getY());
+        Vector2 position = new Vector2(-vehicle.getWidth(), 0);
+        position.rotate(vehicle.getAngle()).add(vehicle.getX(), vehicle.getY());
 
-        Mine mine = createInternal(gameWorld, assets, audioManager, sTmp);
+        Mine mine = createInternal(gameWorld, assets, audioManager, position);
         mine.mOwner = owner;
         mine.initJoint();
         return mine;
@@ -159,6 +160,18 @@ public class Mine extends GameObjectAdapter
 
     private final BodyRegionDrawer mBodyRegionDrawer = new BodyRegionDrawer();
 
+    @Override
+    public ZLevel[] getZLevels() {
+        return Z_LEVELS;
+    }
+
+    @Override
+    public float getBoundingRadius() {
+        TextureRegion region = mAssets.mine.getKeyFrame(0);
+        return Constants.UNIT_FOR_PIXEL
+                * (DrawUtils.getTextureRegionRadius(region) + BodyRegionDrawer.SHADOW_OFFSET_PX);
+    }
+
     @Override
     public void draw(Batch batch, ZLevel zLevel, Rectangle viewBounds) {
         mBodyRegionDrawer.setBatch(batch);
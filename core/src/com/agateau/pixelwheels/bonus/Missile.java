@@ -18,6 +18,7 @@
  */
 package com.agateau.pixelwheels.bonus;
 
+import com.agateau.libgdx.SynchronizedReflectionPool;
 import com.agateau.pixelwheels.Assets;
 import com.agateau.pixelwheels.Constants;
 import com.agateau.pixelwheels.GameWorld;
@@ -32,6 +33,7 @@ import com.agateau.pixelwheels.racer.Vehicle;
 import com.agateau.pixelwheels.racescreen.Collidable;
 import com.agateau.pixelwheels.racescreen.CollisionCategories;
 import com.agateau.pixelwheels.sound.AudioManager;
+import com.agateau.pixelwheels.sound.SoundCategory;
 import com.agateau.pixelwheels.sound.SoundPlayer;
 import com.agateau.pixelwheels.stats.GameStats;
 import com.agateau.pixelwheels.utils.BodyRegionDrawer;
@@ -51,16 +53,16 @@ import com.badlogic.gdx.physics.box2d.Fixture;
 import com.badlogic.gdx.physics.box2d.Joint;
 import com.badlogic.gdx.physics.box2d.Manifold;
 import com.badlogic.gdx.physics.box2d.PolygonShape;
-import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.physics.box2d.joints.WeldJointDef;
 import com.badlogic.gdx.utils.Disposable;
 import com.badlogic.gdx.utils.Pool;
-import com.badlogic.gdx.utils.ReflectionPool;
 
 /** A player bullet */
 public class Missile extends GameObjectAdapter
         implements Collidable, Pool.Poolable, Disposable, Explosable {
-    private static final ReflectionPool<Missile> sPool = new ReflectionPool<>(Missile.class);
+    private static final ZLevel[] Z_LEVELS = {ZLevel.FLYING_LOW};
+    private static final SynchronizedReflectionPool<Missile> sPool =
+            new SynchronizedReflectionPool<>(Missile.class);
 
     private static final float WIDTH = 44;
     private static final float HEIGHT = 13;
@@ -149,7 +151,9 @@ public class Missile extends GameObjectAdapter
 
         object.mStatus = Status.WAITING;
         if (object.mSoundPlayer == null) {
-            object.mSoundPlayer = audioManager.createSoundPlayer(assets.soundAtlas.get("missile"));
+            object.mSoundPlayer =
+                    audioManager.createSoundPlayer(
+                            assets.soundAtlas.get("missile"), SoundCategory.EFFECT);
         }
         object.mNeedShootSound = false;
         object.mTarget = null;
@@ -250,10 +254,14 @@ public class Missile extends GameObjectAdapter
     }
 
     private void findTarget() {
-        World world = mGameWorld.getBox2DWorld();
         mTarget =
                 mRacerFinder.find(
-                        world, mBody.getWorldCenter(), mBody.getAngle() * MathUtils.radDeg);
+                        mGameWorld, mBody.getWorldCenter(), mBody.getAngle() * MathUtils.radDeg);
+    }
+
+    @Override
+    public ZLevel[] getZLevels() {
+        return Z_LEVELS;
     }
 
     @Override
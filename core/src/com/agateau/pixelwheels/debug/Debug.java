@@ -27,12 +27,22 @@ public class Debug {
     public boolean showHudDebugLines = false;
 
     public boolean alwaysShowTouchInput = false;
-    public boolean createSpeedReport = false;
+    public boolean recordTelemetry = false;
 
-    public int maxSkidmarks = 60;
+    // Number of skidmark quads kept for the whole track
+    public int maxSkidmarkQuads = 4096;
 
     public boolean logUiActivities = false;
 
+    public boolean profileFrames = false;
+    // Frames taking longer than this are dumped by the FlightRecorder
+    public int spikeThresholdMs = 50;
+    // Count draw calls, flushes, texture binds and sprites of each render pass
+    public boolean recordRenderStats = false;
+
+    // Draw tile layers from vertices computed when the race starts
+    public boolean cacheTileChunks = true;
+
     public boolean refreshAssetsOnRestart = false;
 
     public static final Debug instance = new Debug();
@@ -33,15 +33,15 @@ public class DebugShapeMap {
         return sMap.values();
     }
 
-    public static void put(Object key, Shape shape) {
+    public static synchronized void put(Object key, Shape shape) {
         sMap.put(key, shape);
     }
 
-    public static void remove(Object key) {
+    public static synchronized void remove(Object key) {
         sMap.remove(key);
     }
 
-    public static void clear() {
+    public static synchronized void clear() {
         sMap.clear();
     }
 }
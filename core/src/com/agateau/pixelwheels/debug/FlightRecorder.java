@@ -0,0 +1,236 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.debug;
+
+import com.agateau.pixelwheels.Constants;
+import com.agateau.utils.FileUtils;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Keeps the last seconds of per-frame data in a ring buffer, and writes them to a file when a frame
+ * takes too long or when an exception escapes the render loop. This makes it possible to explain
+ * one-off hitches reported by players, since the file is next to the log file.
+ *
+ * <p>Recording is always on, so it must stay cheap: it only writes to preallocated arrays. All
+ * methods must be called from the render thread.
+ */
+public class FlightRecorder {
+    public static final FlightRecorder instance = new FlightRecorder();
+
+    /** 10 seconds at 60 FPS */
+    private static final int CAPACITY = 600;
+
+    /** Ignore the first frames, they are slow because the game is still loading its assets */
+    private static final int WARMUP_FRAME_COUNT = 60;
+
+    /** Do not write more than one snapshot in this interval, a hitch often comes with others */
+    private static final long MIN_DUMP_INTERVAL_MS = 10_000;
+
+    /** The file is truncated when it becomes bigger than this */
+    private static final long MAX_FILE_SIZE = 256 * 1024;
+
+    private static class Frames {
+        final long[] indexes = new long[CAPACITY];
+        final float[] deltas = new float[CAPACITY];
+        final float[] durations = new float[CAPACITY];
+        final int[] stepCounts = new int[CAPACITY];
+        final int[] gameObjectCounts = new int[CAPACITY];
+        final int[] bodyCounts = new int[CAPACITY];
+        final int[] contactCounts = new int[CAPACITY];
+        final int[] audioCommandCounts = new int[CAPACITY];
+        int size = 0;
+
+        void copyRow(int srcIdx, Frames dst, int dstIdx) {
+            dst.indexes[dstIdx] = indexes[srcIdx];
+            dst.deltas[dstIdx] = deltas[srcIdx];
+            dst.durations[dstIdx] = durations[srcIdx];
+            dst.stepCounts[dstIdx] = stepCounts[srcIdx];
+            dst.gameObjectCounts[dstIdx] = gameObjectCounts[srcIdx];
+            dst.bodyCounts[dstIdx] = bodyCounts[srcIdx];
+            dst.contactCounts[dstIdx] = contactCounts[srcIdx];
+            dst.audioCommandCounts[dstIdx] = audioCommandCounts[srcIdx];
+        }
+    }
+
+    // Ring buffer, mHead is the index of the next row to write
+    private final Frames mFrames = new Frames();
+    private int mHead = 0;
+    private long mFrameIndex = 0;
+
+    // Values for the current frame
+    private long mFrameStartTime = 0;
+    private int mStepCount = 0;
+    private int mGameObjectCount = 0;
+    private int mBodyCount = 0;
+    private int mContactCount = 0;
+    private int mAudioCommandCount = 0;
+
+    // Oldest rows first, written by the executor
+    private final Frames mSnapshot = new Frames();
+    private final AsyncExecutor mExecutor = new AsyncExecutor(1, "FlightRecorder");
+    private AsyncResult<Void> mPendingWrite;
+    private long mLastDumpTime = 0;
+    private FileHandle mDumpFile;
+
+    private FlightRecorder() {}
+
+    /**
+     * Defines where snapshots are written. Launchers should set it to a file in the same directory
+     * as the log file. If it is not set, snapshots are written to a user-writable file.
+     */
+    public void setDumpFile(FileHandle dumpFile) {
+        mDumpFile = dumpFile;
+    }
+
+    public void beginFrame() {
+        mFrameStartTime = TimeUtils.nanoTime();
+    }
+
+    public void setWorldStats(int stepCount, int gameObjectCount, int bodyCount, int contactCount) {
+        mStepCount = stepCount;
+        mGameObjectCount = gameObjectCount;
+        mBodyCount = bodyCount;
+        mContactCount = contactCount;
+    }
+
+    public void addAudioCommand() {
+        ++mAudioCommandCount;
+    }
+
+    public void endFrame(float delta) {
+        float duration = (TimeUtils.nanoTime() - mFrameStartTime) / 1_000_000_000f;
+        Frames frames = mFrames;
+        frames.indexes[mHead] = mFrameIndex++;
+        frames.deltas[mHead] = delta;
+        frames.durations[mHead] = duration;
+        frames.stepCounts[mHead] = mStepCount;
+        frames.gameObjectCounts[mHead] = mGameObjectCount;
+        frames.bodyCounts[mHead] = mBodyCount;
+        frames.contactCounts[mHead] = mContactCount;
+        frames.audioCommandCounts[mHead] = mAudioCommandCount;
+        mHead = (mHead + 1) % CAPACITY;
+        frames.size = Math.min(frames.size + 1, CAPACITY);
+
+        // Reset the counters here and not in beginFrame(): audio commands are published from
+        // runnables which run after render(), they must be charged to the next frame
+        mStepCount = 0;
+        mGameObjectCount = 0;
+        mBodyCount = 0;
+        mContactCount = 0;
+        mAudioCommandCount = 0;
+
+        float budget = Debug.instance.spikeThresholdMs / 1000f;
+        if (mFrameIndex > WARMUP_FRAME_COUNT && Math.max(delta, duration) > budget) {
+            long now = TimeUtils.millis();
+            if (now - mLastDumpTime >= MIN_DUMP_INTERVAL_MS) {
+                mLastDumpTime = now;
+                String reason =
+                        String.format(
+                                Locale.US,
+                                "Slow frame: delta=%.1fms duration=%.1fms",
+                                delta * 1000,
+                                duration * 1000);
+                dump(reason, /* wait */ false);
+            }
+        }
+    }
+
+    /**
+     * Writes a snapshot right away, since the game is probably about to stop. If a snapshot of a
+     * slow frame is being written, waits for it to be done first, so that this one is not lost.
+     */
+    public void onException(Throwable throwable) {
+        try {
+            dump("Exception: " + throwable, /* wait */ true);
+        } catch (Throwable e) {
+            // Do not hide the original error, the caller is going to rethrow it
+            NLog.e("Failed to write flight recorder snapshot: %s", e);
+        }
+    }
+
+    private void dump(String reason, boolean wait) {
+        if (mPendingWrite != null) {
+            if (wait) {
+                mPendingWrite.get();
+            } else if (!mPendingWrite.isDone()) {
+                // Still writing the previous snapshot
+                return;
+            }
+            mPendingWrite = null;
+        }
+        takeSnapshot();
+        final FileHandle file =
+                mDumpFile != null
+                        ? mDumpFile
+                        : FileUtils.getUserWritableFile(Constants.FLIGHT_RECORDER_FILENAME);
+        if (wait) {
+            writeSnapshot(file, reason);
+        } else {
+            mPendingWrite =
+                    mExecutor.submit(
+                            () -> {
+                                writeSnapshot(file, reason);
+                                return null;
+                            });
+        }
+    }
+
+    private void takeSnapshot() {
+        int size = mFrames.size;
+        int start = (mHead - size + CAPACITY) % CAPACITY;
+        for (int idx = 0; idx < size; ++idx) {
+            mFrames.copyRow((start + idx) % CAPACITY, mSnapshot, idx);
+        }
+        mSnapshot.size = size;
+    }
+
+    private void writeSnapshot(FileHandle file, String reason) {
+        boolean append = file.exists() && file.length() < MAX_FILE_SIZE;
+        try (Writer writer = file.writer(append)) {
+            writer.write(String.format(Locale.US, "=== %s: %s ===\n", new Date(), reason));
+            writer.write("frame deltaMs durationMs steps gameObjects bodies contacts audio\n");
+            Frames frames = mSnapshot;
+            for (int idx = 0; idx < frames.size; ++idx) {
+                writer.write(
+                        String.format(
+                                Locale.US,
+                                "%d %.2f %.2f %d %d %d %d %d\n",
+                                frames.indexes[idx],
+                                frames.deltas[idx] * 1000,
+                                frames.durations[idx] * 1000,
+                                frames.stepCounts[idx],
+                                frames.gameObjectCounts[idx],
+                                frames.bodyCounts[idx],
+                                frames.contactCounts[idx],
+                                frames.audioCommandCounts[idx]));
+            }
+            NLog.i("%s, wrote the last %d frames to %s", reason, frames.size, file.path());
+        } catch (IOException | RuntimeException e) {
+            NLog.e("Failed to write flight recorder snapshot to %s: %s", file.path(), e);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.debug;
+
+import com.agateau.utils.CsvWriter;
+import com.agateau.utils.FileUtils;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.PerformanceCounter;
+import com.badlogic.gdx.utils.PerformanceCounters;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+
+/**
+ * Records the time spent in each performance counter, frame by frame, to report percentiles
+ * instead of the averages shown by the debug hud.
+ *
+ * <p>Each counter gets a fixed-memory histogram. Raw per-frame values are kept too, for the first
+ * MAX_RECORDED_FRAMES frames, so that they can be exported as CSV.
+ *
+ * <p>When finish() is called, a summary CSV (p50, p95, p99 and max of each counter) and a per-frame
+ * CSV are written in the background, named after the report name.
+ */
+public class FrameProfiler implements Disposable {
+    /** 10 minutes at 60 FPS */
+    private static final int MAX_RECORDED_FRAMES = 36000;
+
+    private static final String FRAME_DELTA_NAME = "Frame delta";
+
+    private final Array<PerformanceCounter> mCounters;
+    // Index 0 is for the frame delta, index idx + 1 for counter idx
+    private final Array<String> mNames = new Array<>();
+    private final Array<FrameTimeHistogram> mHistograms = new Array<>();
+    private final FloatArray mFrameValues;
+    private int mFrameCount = 0;
+    private boolean mFinished = false;
+    private final AsyncExecutor mExecutor = new AsyncExecutor(1, "FrameProfiler");
+
+    /** Profiles the counters which are in performanceCounters at construction time */
+    public FrameProfiler(PerformanceCounters performanceCounters) {
+        mCounters = new Array<>(performanceCounters.counters);
+        mNames.add(FRAME_DELTA_NAME);
+        for (PerformanceCounter counter : mCounters) {
+            mNames.add(counter.name);
+        }
+        for (int idx = 0; idx < mNames.size; ++idx) {
+            mHistograms.add(new FrameTimeHistogram());
+        }
+        mFrameValues = new FloatArray(/* ordered */ true, mNames.size * 60 * 60);
+    }
+
+    /**
+     * Must be called at the end of each frame, *before* the counters are ticked.
+     *
+     * <p>Counters which have not been started during the frame are not added to their histograms,
+     * and appear as 0 in the per-frame CSV.
+     */
+    public void recordFrame(float delta) {
+        if (mFinished) {
+            return;
+        }
+        boolean recordValues = mFrameCount < MAX_RECORDED_FRAMES;
+        mHistograms.get(0).add(delta);
+        if (recordValues) {
+            mFrameValues.add(delta);
+        }
+        for (int idx = 0; idx < mCounters.size; ++idx) {
+            PerformanceCounter counter = mCounters.get(idx);
+            float value = counter.valid ? counter.current : 0;
+            if (counter.valid) {
+                mHistograms.get(idx + 1).add(value);
+            }
+            if (recordValues) {
+                mFrameValues.add(value);
+            }
+        }
+        ++mFrameCount;
+    }
+
+    /**
+     * Stops recording, logs a summary and writes the reports in the background. Reports are called
+     * profile-$name-summary.csv and profile-$name-frames.csv.
+     */
+    public void finish(String name) {
+        if (mFinished) {
+            return;
+        }
+        mFinished = true;
+        logSummary(name);
+        String prefix = "profile-" + name;
+        FileHandle summaryHandle = FileUtils.getUserWritableFile(prefix + "-summary.csv");
+        FileHandle framesHandle = FileUtils.getUserWritableFile(prefix + "-frames.csv");
+        mExecutor.submit(
+                () -> {
+                    writeSummary(summaryHandle);
+                    writeFrames(framesHandle);
+                    NLog.i("Profile reports written to %s", summaryHandle.parent().path());
+                    return null;
+                });
+    }
+
+    /** Waits until the reports have been written */
+    @Override
+    public void dispose() {
+        mExecutor.dispose();
+    }
+
+    private void logSummary(String name) {
+        NLog.i("Frame profile for %s, %d frames (times in ms)", name, mFrameCount);
+        for (int idx = 0; idx < mNames.size; ++idx) {
+            FrameTimeHistogram histogram = mHistograms.get(idx);
+            NLog.i(
+                    "%-16s p50=%6.2f p95=%6.2f p99=%6.2f max=%6.2f",
+                    mNames.get(idx),
+                    toMs(histogram.getPercentile(0.5f)),
+                    toMs(histogram.getPercentile(0.95f)),
+                    toMs(histogram.getPercentile(0.99f)),
+                    toMs(histogram.getMax()));
+        }
+    }
+
+    private void writeSummary(FileHandle handle) {
+        try (CsvWriter writer = new CsvWriter(handle)) {
+            writer.addRow("counter", "frames", "meanMs", "p50Ms", "p95Ms", "p99Ms", "maxMs");
+            for (int idx = 0; idx < mNames.size; ++idx) {
+                FrameTimeHistogram histogram = mHistograms.get(idx);
+                writer.addRow(
+                        mNames.get(idx),
+                        histogram.getCount(),
+                        toMs(histogram.getMean()),
+                        toMs(histogram.getPercentile(0.5f)),
+                        toMs(histogram.getPercentile(0.95f)),
+                        toMs(histogram.getPercentile(0.99f)),
+                        toMs(histogram.getMax()));
+            }
+        }
+    }
+
+    private void writeFrames(FileHandle handle) {
+        int columnCount = mNames.size;
+        int recordedFrameCount = mFrameValues.size / columnCount;
+        try (CsvWriter writer = new CsvWriter(handle)) {
+            Object[] row = new Object[columnCount + 1];
+            row[0] = "frame";
+            for (int idx = 0; idx < columnCount; ++idx) {
+                row[idx + 1] = mNames.get(idx);
+            }
+            writer.addRow(row);
+
+            for (int frame = 0; frame < recordedFrameCount; ++frame) {
+                row[0] = frame;
+                for (int idx = 0; idx < columnCount; ++idx) {
+                    row[idx + 1] = toMs(mFrameValues.get(frame * columnCount + idx));
+                }
+                writer.addRow(row);
+            }
+        }
+        if (mFrameCount > recordedFrameCount) {
+            NLog.i(
+                    "Only the first %d frames out of %d have been written to %s",
+                    recordedFrameCount,
+                    mFrameCount,
+                    handle.path());
+        }
+    }
+
+    private static float toMs(float seconds) {
+        return seconds * 1000;
+    }
+}
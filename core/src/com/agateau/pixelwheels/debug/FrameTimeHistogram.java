@@ -0,0 +1,90 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.debug;
+
+/**
+ * A fixed-memory histogram of durations, used to compute percentiles.
+ *
+ * <p>Durations are counted in buckets of BUCKET_WIDTH seconds. Durations longer than
+ * MAX_DURATION all go to the last bucket, but the maximum duration is tracked separately.
+ */
+public class FrameTimeHistogram {
+    /** Width of a bucket, in seconds */
+    public static final float BUCKET_WIDTH = 0.00002f;
+
+    private static final int BUCKET_COUNT = 5000;
+
+    /** Durations longer than this (in seconds) are not precisely counted */
+    public static final float MAX_DURATION = BUCKET_WIDTH * BUCKET_COUNT;
+
+    // The last bucket is for durations longer than MAX_DURATION
+    private final int[] mBuckets = new int[BUCKET_COUNT + 1];
+    private int mCount = 0;
+    private double mTotal = 0;
+    private float mMax = 0;
+
+    /** Adds a duration, in seconds */
+    public void add(float duration) {
+        int idx = Math.min((int) (duration / BUCKET_WIDTH), BUCKET_COUNT);
+        ++mBuckets[Math.max(idx, 0)];
+        ++mCount;
+        mTotal += duration;
+        mMax = Math.max(mMax, duration);
+    }
+
+    public int getCount() {
+        return mCount;
+    }
+
+    public float getMean() {
+        return mCount == 0 ? 0 : (float) (mTotal / mCount);
+    }
+
+    public float getMax() {
+        return mMax;
+    }
+
+    /**
+     * Returns the duration below which percentile (between 0 and 1) of the durations are. The
+     * result is rounded up to the upper bound of a bucket, but never more than getMax().
+     */
+    public float getPercentile(float percentile) {
+        if (mCount == 0) {
+            return 0;
+        }
+        int rank = Math.max((int) Math.ceil(percentile * mCount), 1);
+        int cumulatedCount = 0;
+        for (int idx = 0; idx < BUCKET_COUNT; ++idx) {
+            cumulatedCount += mBuckets[idx];
+            if (cumulatedCount >= rank) {
+                return Math.min((idx + 1) * BUCKET_WIDTH, mMax);
+            }
+        }
+        return mMax;
+    }
+
+    public void clear() {
+        for (int idx = 0; idx < mBuckets.length; ++idx) {
+            mBuckets[idx] = 0;
+        }
+        mCount = 0;
+        mTotal = 0;
+        mMax = 0;
+    }
+}
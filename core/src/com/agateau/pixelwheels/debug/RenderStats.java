@@ -0,0 +1,182 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.debug;
+
+import com.agateau.utils.CsvWriter;
+import com.agateau.utils.FileUtils;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.profiling.GLProfiler;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Counts what each render pass submits to OpenGL: draw calls, SpriteBatch flushes, texture binds
+ * and sprites. This makes it possible to find which objects break batching.
+ *
+ * <p>Draw calls and texture binds come from a GLProfiler, so they include everything which reaches
+ * OpenGL, not only what goes through the batch. Sprites are estimated from the number of vertex
+ * indices, assuming 6 indices per quad.
+ *
+ * <p>To attribute the work of each pass correctly, the batch is flushed at the end of each pass, so
+ * recording these stats adds a few flushes.
+ */
+public class RenderStats implements Disposable {
+    private static final int DRAW_CALLS = 0;
+    private static final int FLUSHES = 1;
+    private static final int TEXTURE_BINDINGS = 2;
+    private static final int SPRITES = 3;
+    private static final String[] STAT_NAMES = {"draws", "flushes", "binds", "sprites"};
+
+    private static final int INDICES_PER_SPRITE = 6;
+
+    public static class Pass {
+        private final String mName;
+        // Values of the frame being rendered
+        private final int[] mCurrent = new int[STAT_NAMES.length];
+        // Values of the last complete frame
+        private final int[] mLast = new int[STAT_NAMES.length];
+        private final int[] mMax = new int[STAT_NAMES.length];
+        private final long[] mTotals = new long[STAT_NAMES.length];
+
+        private Pass(String name) {
+            mName = name;
+        }
+    }
+
+    private final SpriteBatch mBatch;
+    private final GLProfiler mProfiler;
+    private final Array<Pass> mPasses = new Array<>();
+    private int mFrameCount = 0;
+
+    // Values at the beginning of the current pass
+    private int mMarkDrawCalls;
+    private int mMarkFlushes;
+    private int mMarkTextureBindings;
+    private float mMarkIndexCount;
+
+    public RenderStats(SpriteBatch batch) {
+        mBatch = batch;
+        mProfiler = new GLProfiler(Gdx.graphics);
+        mProfiler.enable();
+    }
+
+    /** Returns the pass called name, creating it if necessary. Passes are reported in order */
+    public Pass getPass(String name) {
+        for (Pass pass : mPasses) {
+            if (pass.mName.equals(name)) {
+                return pass;
+            }
+        }
+        Pass pass = new Pass(name);
+        mPasses.add(pass);
+        return pass;
+    }
+
+    public void beginFrame() {
+        for (Pass pass : mPasses) {
+            Arrays.fill(pass.mCurrent, 0);
+        }
+    }
+
+    public void beginPass() {
+        mMarkDrawCalls = mProfiler.getDrawCalls();
+        mMarkFlushes = mBatch.totalRenderCalls;
+        mMarkTextureBindings = mProfiler.getTextureBindings();
+        mMarkIndexCount = mProfiler.getVertexCount().total;
+    }
+
+    /**
+     * Adds what has been submitted since beginPass() to pass. A pass can be recorded several times
+     * per frame, for example once per viewport.
+     */
+    public void endPass(Pass pass) {
+        mBatch.flush();
+        pass.mCurrent[DRAW_CALLS] += mProfiler.getDrawCalls() - mMarkDrawCalls;
+        pass.mCurrent[FLUSHES] += mBatch.totalRenderCalls - mMarkFlushes;
+        pass.mCurrent[TEXTURE_BINDINGS] += mProfiler.getTextureBindings() - mMarkTextureBindings;
+        float indexCount = mProfiler.getVertexCount().total - mMarkIndexCount;
+        pass.mCurrent[SPRITES] += (int) (indexCount / INDICES_PER_SPRITE);
+    }
+
+    public void endFrame() {
+        for (Pass pass : mPasses) {
+            for (int idx = 0; idx < STAT_NAMES.length; ++idx) {
+                int value = pass.mCurrent[idx];
+                pass.mLast[idx] = value;
+                pass.mMax[idx] = Math.max(pass.mMax[idx], value);
+                pass.mTotals[idx] += value;
+            }
+        }
+        ++mFrameCount;
+    }
+
+    /** Appends the values of the last frame to builder, one line per pass */
+    public void appendTo(StringBuilder builder) {
+        builder.append("pass: ");
+        for (String name : STAT_NAMES) {
+            builder.append(name).append(' ');
+        }
+        builder.append('\n');
+        for (Pass pass : mPasses) {
+            builder.append(pass.mName).append(':');
+            for (int value : pass.mLast) {
+                builder.append(' ').append(value);
+            }
+            builder.append('\n');
+        }
+    }
+
+    /** Logs the average and max values of each pass, and writes them to render-stats-$name.csv */
+    public void finish(String name) {
+        if (mFrameCount == 0) {
+            return;
+        }
+        NLog.i("Render stats for %s, %d frames (average per frame / max)", name, mFrameCount);
+        FileHandle handle = FileUtils.getUserWritableFile("render-stats-" + name + ".csv");
+        try (CsvWriter writer = new CsvWriter(handle)) {
+            writer.addRow("pass", "stat", "mean", "max");
+            StringBuilder builder = new StringBuilder();
+            for (Pass pass : mPasses) {
+                builder.setLength(0);
+                for (int idx = 0; idx < STAT_NAMES.length; ++idx) {
+                    float mean = (float) pass.mTotals[idx] / mFrameCount;
+                    builder.append(
+                            String.format(
+                                    Locale.US,
+                                    " %s=%.1f/%d",
+                                    STAT_NAMES[idx],
+                                    mean,
+                                    pass.mMax[idx]));
+                    writer.addRow(pass.mName, STAT_NAMES[idx], mean, pass.mMax[idx]);
+                }
+                NLog.i("%-16s%s", pass.mName, builder);
+            }
+        }
+    }
+
+    @Override
+    public void dispose() {
+        mProfiler.disable();
+    }
+}
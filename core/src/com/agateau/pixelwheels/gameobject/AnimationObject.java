@@ -18,9 +18,11 @@
  */
 package com.agateau.pixelwheels.gameobject;
 
+import com.agateau.libgdx.SynchronizedReflectionPool;
 import com.agateau.pixelwheels.Constants;
 import com.agateau.pixelwheels.ZLevel;
 import com.agateau.pixelwheels.sound.AudioManager;
+import com.agateau.pixelwheels.sound.SoundCategory;
 import com.agateau.pixelwheels.utils.DrawUtils;
 import com.agateau.utils.AgcMathUtils;
 import com.badlogic.gdx.audio.Sound;
@@ -30,12 +32,12 @@ import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.utils.Disposable;
 import com.badlogic.gdx.utils.Pool;
-import com.badlogic.gdx.utils.ReflectionPool;
 
 /** A generic short-animation game object */
 public class AnimationObject extends GameObjectAdapter implements Pool.Poolable, Disposable {
-    private static final ReflectionPool<AnimationObject> sPool =
-            new ReflectionPool<>(AnimationObject.class);
+    private static final ZLevel[] Z_LEVELS = {ZLevel.FLYING_LOW};
+    private static final SynchronizedReflectionPool<AnimationObject> sPool =
+            new SynchronizedReflectionPool<>(AnimationObject.class);
     private float mTime;
     private Animation<TextureRegion> mAnimation;
     private float mAnimationRadius;
@@ -43,6 +45,7 @@ public class AnimationObject extends GameObjectAdapter implements Pool.Poolable,
     private float mPosY;
 
     private Sound mSound;
+    private SoundCategory mSoundCategory;
     private AudioManager mAudioManager;
 
     @Override
@@ -64,6 +67,16 @@ public class AnimationObject extends GameObjectAdapter implements Pool.Poolable,
         }
     }
 
+    @Override
+    public ZLevel[] getZLevels() {
+        return Z_LEVELS;
+    }
+
+    @Override
+    public float getBoundingRadius() {
+        return mAnimationRadius;
+    }
+
     @Override
     public void draw(Batch batch, ZLevel zLevel, Rectangle viewBounds) {
         if (mTime < 0) {
@@ -84,7 +97,7 @@ public class AnimationObject extends GameObjectAdapter implements Pool.Poolable,
     @Override
     public void audioRender(AudioClipper clipper) {
         if (mSound != null) {
-            mAudioManager.play(mSound, clipper.clip(this));
+            mAudioManager.play(mSound, clipper.clip(this), mSoundCategory);
             // Make sure we don't play twice
             mSound = null;
         }
@@ -100,9 +113,10 @@ public class AnimationObject extends GameObjectAdapter implements Pool.Poolable,
         return mPosY;
     }
 
-    public void initAudio(AudioManager audioManager, Sound sound) {
+    public void initAudio(AudioManager audioManager, Sound sound, SoundCategory category) {
         mAudioManager = audioManager;
         mSound = sound;
+        mSoundCategory = category;
     }
 
     public static AnimationObject create(
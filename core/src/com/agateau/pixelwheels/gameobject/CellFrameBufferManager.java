@@ -30,6 +30,9 @@ import com.badlogic.gdx.math.Matrix4;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.BooleanArray;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.IntArray;
 
 /**
  * Manages cells in a frame buffer. A cell is a rectangle of the frame buffer.
@@ -40,47 +43,62 @@ import com.badlogic.gdx.utils.Array;
  *
  * <p>We can avoid this problem by drawing the textures to a CellFrameBufferManager cell, at full
  * opacity, then drawing the content of the cell, at the required opacity, to the screen.
+ *
+ * <p>Cells are packed in pages: when a page is full, a new one is created. The content of a cell is
+ * kept from one frame to the next, so objects only need to redraw their cells when they are dirty.
  */
-public class CellFrameBufferManager {
+public class CellFrameBufferManager implements Disposable {
     private static final int SIZE = 1024;
-    private final FrameBuffer mFrameBuffer;
 
-    private float mCurrentRowTop = 0;
-    private final Vector2 mTmp = new Vector2();
+    private static class Page {
+        final FrameBuffer frameBuffer;
+        final SkylinePacker packer = new SkylinePacker(SIZE, SIZE);
+        boolean cleared = false;
+
+        Page() {
+            frameBuffer =
+                    new FrameBuffer(Pixmap.Format.RGBA8888, SIZE, SIZE, false /* hasDepth */);
+            frameBuffer
+                    .getColorBufferTexture()
+                    .setFilter(Texture.TextureFilter.Nearest, Texture.TextureFilter.Nearest);
+        }
+    }
+
+    private final Array<Page> mPages = new Array<>();
 
     private final Array<Rectangle> mCells = new Array<>();
+    private final IntArray mCellPages = new IntArray();
+    private final BooleanArray mDirtyCells = new BooleanArray();
 
     private Batch mBatch;
+    private int mCurrentPageIdx = -1;
 
     private final Matrix4 mOldProjectionMatrix = new Matrix4();
     private final Matrix4 mProjectionMatrix = new Matrix4();
 
     public CellFrameBufferManager() {
-        mFrameBuffer = new FrameBuffer(Pixmap.Format.RGBA8888, SIZE, SIZE, false /* hasDepth */);
-        mFrameBuffer
-                .getColorBufferTexture()
-                .setFilter(Texture.TextureFilter.Nearest, Texture.TextureFilter.Nearest);
         mProjectionMatrix.setToOrtho2D(0, 0, SIZE, SIZE);
     }
 
     /** Returns the cell ID */
     public int reserveCell(int width, int height) {
-        float cellX = 0;
-        float cellY = 0;
-        if (!mCells.isEmpty()) {
-            Rectangle lastCell = mCells.get(mCells.size - 1);
-            cellX = lastCell.x + lastCell.width;
-            cellY = lastCell.y;
-            if (cellX + width > SIZE) {
-                cellX = 0;
-                cellY = mCurrentRowTop;
+        Assert.check(width <= SIZE && height <= SIZE, "Cell is too big to fit in a page");
+        Rectangle cell = new Rectangle();
+        int pageIdx = 0;
+        for (; pageIdx < mPages.size; ++pageIdx) {
+            if (mPages.get(pageIdx).packer.pack(width, height, cell)) {
+                break;
             }
         }
-        mCurrentRowTop = Math.max(cellY + height, mCurrentRowTop);
-        Assert.check(mCurrentRowTop < SIZE, "Not enough space to fit cell");
+        if (pageIdx == mPages.size) {
+            Page page = new Page();
+            page.packer.pack(width, height, cell);
+            mPages.add(page);
+        }
 
-        Rectangle cell = new Rectangle(cellX, cellY, width, height);
         mCells.add(cell);
+        mCellPages.add(pageIdx);
+        mDirtyCells.add(true);
         return mCells.size - 1;
     }
 
@@ -94,25 +112,86 @@ public class CellFrameBufferManager {
         return rect.y + rect.height / 2;
     }
 
-    /** Begins drawing to the manager texture. Must be called before calling drawToCell() */
+    /**
+     * Returns true if the content of the cell has been lost, or has never been drawn. Objects must
+     * redraw such cells even if their state did not change.
+     */
+    public boolean isCellDirty(int id) {
+        return mDirtyCells.get(id);
+    }
+
+    /**
+     * Marks all cells as dirty. Must be called when the content of the frame buffers may have been
+     * lost, for example when the GL context has been recreated.
+     */
+    public void invalidate() {
+        for (int idx = 0; idx < mDirtyCells.size; ++idx) {
+            mDirtyCells.set(idx, true);
+        }
+        for (Page page : mPages) {
+            page.cleared = false;
+        }
+    }
+
+    /** Begins drawing to the manager texture. Must be called before calling beginCell() */
     public void begin(Batch batch) {
         mBatch = batch;
         mOldProjectionMatrix.set(mBatch.getProjectionMatrix());
-
-        mFrameBuffer.begin();
-        mBatch.begin();
         mBatch.setProjectionMatrix(mProjectionMatrix);
+        mBatch.begin();
+        mCurrentPageIdx = -1;
+    }
+
+    /**
+     * Binds the page of the cell and clears the cell. Must be called before drawing the content of
+     * the cell.
+     */
+    public void beginCell(int id) {
+        mBatch.flush();
+        int pageIdx = mCellPages.get(id);
+        if (pageIdx != mCurrentPageIdx) {
+            if (mCurrentPageIdx != -1) {
+                mPages.get(mCurrentPageIdx).frameBuffer.end();
+            }
+            mCurrentPageIdx = pageIdx;
+            Page page = mPages.get(pageIdx);
+            page.frameBuffer.begin();
+            if (!page.cleared) {
+                Gdx.gl.glClearColor(0, 0, 0, 0);
+                Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+                page.cleared = true;
+            }
+        }
+
+        Rectangle rect = mCells.get(id);
+        Gdx.gl.glEnable(GL20.GL_SCISSOR_TEST);
+        Gdx.gl.glScissor((int) rect.x, (int) rect.y, (int) rect.width, (int) rect.height);
         Gdx.gl.glClearColor(0, 0, 0, 0);
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+        Gdx.gl.glDisable(GL20.GL_SCISSOR_TEST);
+        mDirtyCells.set(id, false);
     }
 
-    public void end(int x, int y, int width, int height) {
+    /**
+     * Ends drawing to the manager texture. The viewport is reset to cover the whole screen, callers
+     * must restore their own viewport if they use a smaller one.
+     */
+    public void end() {
         mBatch.end();
-        mFrameBuffer.end(x, y, width, height);
-
+        if (mCurrentPageIdx != -1) {
+            mPages.get(mCurrentPageIdx).frameBuffer.end();
+            mCurrentPageIdx = -1;
+        }
         mBatch.setProjectionMatrix(mOldProjectionMatrix);
     }
 
+    @Override
+    public void dispose() {
+        for (Page page : mPages) {
+            page.frameBuffer.dispose();
+        }
+    }
+
     public void drawCell(Batch batch, Vector2 dst, int cellId) {
         drawCell(batch, dst.x, dst.y, cellId);
     }
@@ -137,8 +216,9 @@ public class CellFrameBufferManager {
         float u2 = (rect.x + rect.width) / textureSize;
         float v2 = (rect.y + rect.height) / textureSize;
 
+        Texture texture = mPages.get(mCellPages.get(cellId)).frameBuffer.getColorBufferTexture();
         batch.draw(
-                mFrameBuffer.getColorBufferTexture(),
+                texture,
                 // dst
                 dstX - w / 2f,
                 dstY - h / 2f,
@@ -26,6 +26,18 @@ public interface CellFrameBufferUser {
     /** The manager to use. Implementation of this method can reserve the required cell(s) */
     void init(CellFrameBufferManager manager);
 
-    /** Implementations must paint the object to the reserved cells */
-    void drawToCell(Batch batch, Rectangle viewBounds);
+    /** Returns true if what the object draws from its cells can be visible in viewBounds */
+    boolean isCellVisible(Rectangle viewBounds);
+
+    /**
+     * Called once per frame for objects whose cells are visible. Returns true if the cells must be
+     * redrawn, in which case drawToCell() is called.
+     */
+    boolean updateCell();
+
+    /**
+     * Implementations must call CellFrameBufferManager.beginCell() for each of their cells, then
+     * paint the object to it
+     */
+    void drawToCell(Batch batch);
 }
@@ -35,6 +35,19 @@ public interface GameObject {
 
     void draw(Batch batch, ZLevel zLevel, Rectangle viewBounds);
 
+    /**
+     * Returns the Z levels draw() may draw at. draw() is only called for these levels. The returned
+     * value must not change while the object is in the game world.
+     */
+    ZLevel[] getZLevels();
+
+    /**
+     * Returns the radius of a circle centered on the object position which contains everything
+     * draw() draws, or a negative value if what the object draws is not bound to its position.
+     * Objects outside the view are not drawn.
+     */
+    float getBoundingRadius();
+
     float getX();
 
     float getY();
@@ -18,10 +18,13 @@
  */
 package com.agateau.pixelwheels.gameobject;
 
+import com.agateau.pixelwheels.ZLevel;
 import com.badlogic.gdx.math.Vector2;
 
 /** An adapter for the GameObject interface */
 public abstract class GameObjectAdapter implements GameObject {
+    private static final ZLevel[] ALL_Z_LEVELS = ZLevel.values();
+
     private boolean mIsFinished = false;
     private final Vector2 mPosition = new Vector2();
 
@@ -33,6 +36,21 @@ public abstract class GameObjectAdapter implements GameObject {
     @Override
     public void audioRender(AudioClipper audioClipper) {}
 
+    /** Draws at all levels by default, subclasses should return only the levels they use */
+    @Override
+    public ZLevel[] getZLevels() {
+        return ALL_Z_LEVELS;
+    }
+
+    /**
+     * Not bound by default, so the object is always drawn. Subclasses should return a radius if
+     * they can
+     */
+    @Override
+    public float getBoundingRadius() {
+        return -1;
+    }
+
     @Override
     public Vector2 getPosition() {
         mPosition.set(getX(), getY());
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.gameobject;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * A uniform grid indexing game objects by position, so that callers can find the objects of an
+ * area without looking at all of them.
+ *
+ * <p>Objects are referenced by their index in the array passed to rebuild(), so that queries return
+ * them in the order they were added to the world. This is the order they must be drawn in.
+ *
+ * <p>Objects whose position is outside the grid are indexed in the closest border cell.
+ */
+public class GameObjectGrid {
+    public static final float CELL_SIZE = 8;
+
+    private final int mColumns;
+    private final int mRows;
+    // Indexes in mObjects of the objects whose position is inside the cell, created on demand
+    private final IntArray[] mCells;
+    // Cells which are not empty, so that rebuild() does not have to go through all of them
+    private final IntArray mUsedCells = new IntArray();
+
+    // Copy of the array passed to rebuild(), so that indexes stay valid if the original changes
+    private final Array<GameObject> mObjects = new Array<>();
+    private final FloatArray mBoundingRadiuses = new FloatArray();
+    private final IntArray mUnboundedIndexes = new IntArray();
+    private float mMaxBoundingRadius = 0;
+
+    // Work var
+    private final IntArray mTmpIndexes = new IntArray();
+
+    public GameObjectGrid(float width, float height) {
+        mColumns = Math.max(MathUtils.ceil(width / CELL_SIZE), 1);
+        mRows = Math.max(MathUtils.ceil(height / CELL_SIZE), 1);
+        mCells = new IntArray[mColumns * mRows];
+    }
+
+    public void rebuild(Array<GameObject> objects) {
+        for (int idx = 0; idx < mUsedCells.size; ++idx) {
+            mCells[mUsedCells.get(idx)].clear();
+        }
+        mUsedCells.clear();
+        mObjects.clear();
+        mBoundingRadiuses.clear();
+        mUnboundedIndexes.clear();
+        mMaxBoundingRadius = 0;
+
+        mObjects.addAll(objects);
+        for (int idx = 0; idx < mObjects.size; ++idx) {
+            GameObject object = mObjects.get(idx);
+            float radius = object.getBoundingRadius();
+            mBoundingRadiuses.add(radius);
+            if (radius < 0) {
+                mUnboundedIndexes.add(idx);
+            } else {
+                mMaxBoundingRadius = Math.max(mMaxBoundingRadius, radius);
+            }
+
+            int cellIdx = getRow(object.getY()) * mColumns + getColumn(object.getX());
+            IntArray cell = mCells[cellIdx];
+            if (cell == null) {
+                cell = new IntArray();
+                mCells[cellIdx] = cell;
+            }
+            if (cell.size == 0) {
+                mUsedCells.add(cellIdx);
+            }
+            cell.add(idx);
+        }
+    }
+
+    /**
+     * Adds to out the objects whose position is at most radius away from (x, y), in the order they
+     * were added to the world
+     */
+    public void findObjectsInRadius(float x, float y, float radius, Array<GameObject> out) {
+        collectIndexes(x - radius, y - radius, x + radius, y + radius);
+        mTmpIndexes.sort();
+        float radius2 = radius * radius;
+        for (int idx = 0; idx < mTmpIndexes.size; ++idx) {
+            GameObject object = mObjects.get(mTmpIndexes.get(idx));
+            float dx = object.getX() - x;
+            float dy = object.getY() - y;
+            if (dx * dx + dy * dy <= radius2) {
+                out.add(object);
+            }
+        }
+    }
+
+    /**
+     * Adds to out the objects which may draw something inside rect: objects whose bounding circle
+     * intersects it, and objects whose drawing is not bound to their position. Objects are added
+     * in the order they were added to the world.
+     */
+    public void findObjectsToDraw(Rectangle rect, Array<GameObject> out) {
+        float margin = mMaxBoundingRadius;
+        collectIndexes(
+                rect.x - margin,
+                rect.y - margin,
+                rect.x + rect.width + margin,
+                rect.y + rect.height + margin);
+        mTmpIndexes.addAll(mUnboundedIndexes);
+        mTmpIndexes.sort();
+        int lastIndex = -1;
+        for (int idx = 0; idx < mTmpIndexes.size; ++idx) {
+            int index = mTmpIndexes.get(idx);
+            if (index == lastIndex) {
+                // Unbounded objects are also in the cells
+                continue;
+            }
+            lastIndex = index;
+            GameObject object = mObjects.get(index);
+            if (object.isFinished()) {
+                continue;
+            }
+            float radius = mBoundingRadiuses.get(index);
+            if (radius < 0 || intersects(rect, object.getX(), object.getY(), radius)) {
+                out.add(object);
+            }
+        }
+    }
+
+    /** Fills mTmpIndexes with the unfinished objects of the cells touching the area */
+    private void collectIndexes(float minX, float minY, float maxX, float maxY) {
+        mTmpIndexes.clear();
+        int column1 = getColumn(minX);
+        int column2 = getColumn(maxX);
+        int row1 = getRow(minY);
+        int row2 = getRow(maxY);
+        for (int row = row1; row <= row2; ++row) {
+            for (int column = column1; column <= column2; ++column) {
+                IntArray cell = mCells[row * mColumns + column];
+                if (cell == null) {
+                    continue;
+                }
+                for (int idx = 0; idx < cell.size; ++idx) {
+                    int index = cell.get(idx);
+                    // An object can finish between two rebuilds
+                    if (!mObjects.get(index).isFinished()) {
+                        mTmpIndexes.add(index);
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean intersects(Rectangle rect, float x, float y, float radius) {
+        return x + radius >= rect.x
+                && x - radius <= rect.x + rect.width
+                && y + radius >= rect.y
+                && y - radius <= rect.y + rect.height;
+    }
+
+    private int getColumn(float x) {
+        return MathUtils.clamp(MathUtils.floor(x / CELL_SIZE), 0, mColumns - 1);
+    }
+
+    private int getRow(float y) {
+        return MathUtils.clamp(MathUtils.floor(y / CELL_SIZE), 0, mRows - 1);
+    }
+}
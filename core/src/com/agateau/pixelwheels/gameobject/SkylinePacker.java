@@ -0,0 +1,133 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.gameobject;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Packs rectangles in a fixed-size area using the skyline bottom-left algorithm.
+ *
+ * <p>The skyline is the list of segments forming the top of the packed rectangles. A new rectangle
+ * is placed on the segment where its top would be the lowest.
+ */
+public class SkylinePacker {
+    private final int mWidth;
+    private final int mHeight;
+
+    // Segments of the skyline, sorted by x. Together they cover [0, mWidth)
+    private final IntArray mXs = new IntArray();
+    private final IntArray mYs = new IntArray();
+    private final IntArray mWidths = new IntArray();
+
+    public SkylinePacker(int width, int height) {
+        mWidth = width;
+        mHeight = height;
+        mXs.add(0);
+        mYs.add(0);
+        mWidths.add(width);
+    }
+
+    /**
+     * Looks for a place for a width x height rectangle. If there is one, stores it in out and
+     * returns true. If there is none, returns false.
+     */
+    public boolean pack(int width, int height, Rectangle out) {
+        int bestIdx = -1;
+        int bestY = 0;
+        int bestTop = Integer.MAX_VALUE;
+        int bestSegmentWidth = Integer.MAX_VALUE;
+        for (int idx = 0; idx < mXs.size; ++idx) {
+            int y = findY(idx, width);
+            if (y == -1 || y + height > mHeight) {
+                continue;
+            }
+            int top = y + height;
+            int segmentWidth = mWidths.get(idx);
+            if (top < bestTop || (top == bestTop && segmentWidth < bestSegmentWidth)) {
+                bestIdx = idx;
+                bestY = y;
+                bestTop = top;
+                bestSegmentWidth = segmentWidth;
+            }
+        }
+        if (bestIdx == -1) {
+            return false;
+        }
+        out.set(mXs.get(bestIdx), bestY, width, height);
+        addSegment(bestIdx, width, bestTop);
+        return true;
+    }
+
+    /**
+     * Returns the y coordinate of a rectangle of the given width whose left side is at the start of
+     * segment idx, or -1 if it would not fit horizontally
+     */
+    private int findY(int idx, int width) {
+        if (mXs.get(idx) + width > mWidth) {
+            return -1;
+        }
+        int y = 0;
+        int remaining = width;
+        for (int segmentIdx = idx; remaining > 0; ++segmentIdx) {
+            y = Math.max(y, mYs.get(segmentIdx));
+            remaining -= mWidths.get(segmentIdx);
+        }
+        return y;
+    }
+
+    private void addSegment(int idx, int width, int y) {
+        int x = mXs.get(idx);
+        int end = x + width;
+        mXs.insert(idx, x);
+        mYs.insert(idx, y);
+        mWidths.insert(idx, width);
+
+        // Remove or shorten the segments covered by the new one
+        int segmentIdx = idx + 1;
+        while (segmentIdx < mXs.size) {
+            int segmentX = mXs.get(segmentIdx);
+            int segmentEnd = segmentX + mWidths.get(segmentIdx);
+            if (segmentX >= end) {
+                break;
+            }
+            if (segmentEnd <= end) {
+                removeSegment(segmentIdx);
+                continue;
+            }
+            mXs.set(segmentIdx, end);
+            mWidths.set(segmentIdx, segmentEnd - end);
+            break;
+        }
+
+        // Merge neighbor segments with the same height
+        for (segmentIdx = mXs.size - 2; segmentIdx >= 0; --segmentIdx) {
+            if (mYs.get(segmentIdx) == mYs.get(segmentIdx + 1)) {
+                mWidths.incr(segmentIdx, mWidths.get(segmentIdx + 1));
+                removeSegment(segmentIdx + 1);
+            }
+        }
+    }
+
+    private void removeSegment(int idx) {
+        mXs.removeIndex(idx);
+        mYs.removeIndex(idx);
+        mWidths.removeIndex(idx);
+    }
+}
@@ -50,6 +50,11 @@ public class ChampionshipGameInfo extends GameInfo {
         mTrackIndex++;
     }
 
+    /** Returns the track after the current one, or null if the current one is the last one */
+    public Track getNextTrack() {
+        return isLastTrack() ? null : mChampionship.getTracks().get(mTrackIndex + 1);
+    }
+
     public Championship getChampionship() {
         return mChampionship;
     }
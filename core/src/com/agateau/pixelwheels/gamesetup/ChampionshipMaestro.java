@@ -22,6 +22,7 @@ import com.agateau.pixelwheels.Constants;
 import com.agateau.pixelwheels.GameConfig;
 import com.agateau.pixelwheels.PwGame;
 import com.agateau.pixelwheels.map.Championship;
+import com.agateau.pixelwheels.map.Track;
 import com.agateau.pixelwheels.racescreen.RaceScreen;
 import com.agateau.pixelwheels.screens.ChampionshipFinishedScreen;
 import com.agateau.pixelwheels.screens.MultiPlayerScreen;
@@ -109,6 +110,8 @@ public class ChampionshipMaestro extends Maestro {
                     @Override
                     public void onChampionshipSelected(Championship championship) {
                         mGameInfoBuilder.setChampionship(championship);
+                        // Load the first track while players select their vehicles
+                        getGame().getTrackPreloader().preload(championship.getTracks().first());
                         getGame().replaceScreen(createSelectVehicleScreen());
                     }
                 };
@@ -170,6 +173,14 @@ public class ChampionshipMaestro extends Maestro {
                                     () -> getGame().replaceScreen(createRaceScreen()));
                         }
                     }
+
+                    @Override
+                    public void onRaceFinished() {
+                        Track nextTrack = mGameInfo.getNextTrack();
+                        if (nextTrack != null) {
+                            getGame().getTrackPreloader().preload(nextTrack);
+                        }
+                    }
                 };
         return new RaceScreen(getGame(), listener, mGameInfo);
     }
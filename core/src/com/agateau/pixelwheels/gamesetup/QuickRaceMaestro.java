@@ -99,6 +99,8 @@ public class QuickRaceMaestro extends Maestro {
                     @Override
                     public void onTrackSelected(Track track) {
                         mGameInfoBuilder.setTrack(track);
+                        // Load the track while players select their vehicles
+                        getGame().getTrackPreloader().preload(track);
                         getGame().replaceScreen(createSelectVehicleScreen());
                     }
                 };
@@ -136,6 +138,9 @@ public class QuickRaceMaestro extends Maestro {
                         stopEnoughInputChecker();
                         showUnlockedRewardScreen(() -> getGame().showMainMenu());
                     }
+
+                    @Override
+                    public void onRaceFinished() {}
                 };
         return new RaceScreen(getGame(), listener, gameInfo);
     }
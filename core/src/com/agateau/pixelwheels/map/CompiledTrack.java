@@ -0,0 +1,56 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.map;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+
+/**
+ * All the data Track computes from its TMX file, which does not depend on the TiledMap, and what
+ * is needed to create the TiledMap without parsing the TMX file.
+ *
+ * <p>See CompiledTrackIO.
+ */
+class CompiledTrack {
+    /** The TMX file without the data of its tile layers, see AgcTmxMapLoader.prepare() */
+    byte[] tmxSkeleton;
+
+    /** The tile ids of each tile layer, as stored in the TMX file, in the order of the file */
+    final Array<int[]> tileLayerIds = new Array<>();
+
+    int materialGridWidth;
+    int materialGridHeight;
+    /** Material ordinals, see Track.mMaterialGrid */
+    byte[] materialGrid;
+
+    /** Vertices of each lap section, in pixels */
+    final Array<float[]> sectionVertices = new Array<>();
+
+    /** unit: world */
+    final Array<Vector2> waypoints = new Array<>();
+
+    final FloatArray waypointLapDistances = new FloatArray();
+
+    /** unit: world */
+    final Array<Vector2> startTilePositions = new Array<>();
+
+    /** unit: world */
+    final Array<Vector2> bonusSpotPositions = new Array<>();
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.map;
+
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.StreamUtils;
+import com.badlogic.gdx.utils.XmlReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes compiled tracks: the data Track computes from a TMX file, and the tile layers
+ * of the TMX file, stored in a compact binary format so that Track.init() does not have to parse
+ * the TMX file and compute this data again.
+ *
+ * <p>A compiled track stores a checksum of the TMX file and of the tilesets it uses. It is ignored
+ * if they changed since it was created.
+ *
+ * <p>Compiled tracks are created by the TrackCompiler tool.
+ */
+public class CompiledTrackIO {
+    private static final int MAGIC = 0x50575443; // "PWTC"
+    /** Must be increased when the format or the order of the Material values change */
+    private static final int VERSION = 2;
+
+    private static final Pattern TILESET_SOURCE_PATTERN =
+            Pattern.compile("<tileset[^>]*source=\"([^\"]+)\"");
+
+    private static final Pattern TILE_LAYER_DATA_PATTERN =
+            Pattern.compile("<data\\b[^>]*?(/>|>.*?</data>)", Pattern.DOTALL);
+
+    /**
+     * Returns the compiled track stored in compiledFile, or null if it is missing or stale.
+     * checksum must have been computed by computeChecksum() for the TMX file of the track.
+     */
+    static CompiledTrack load(FileHandle compiledFile, long checksum) {
+        if (!compiledFile.exists()) {
+            return null;
+        }
+        DataInputStream stream = new DataInputStream(new BufferedInputStream(compiledFile.read()));
+        try {
+            if (stream.readInt() != MAGIC || stream.readInt() != VERSION) {
+                NLog.i("%s: unsupported format, ignoring it", compiledFile.path());
+                return null;
+            }
+            if (stream.readLong() != checksum) {
+                NLog.i("%s: out of date, ignoring it", compiledFile.path());
+                return null;
+            }
+            return read(stream);
+        } catch (IOException e) {
+            NLog.e("%s: failed to read, ignoring it. %s", compiledFile.path(), e);
+            return null;
+        } finally {
+            StreamUtils.closeQuietly(stream);
+        }
+    }
+
+    /** Saves the data computed by track, which must be initialized, to compiledFile */
+    public static void save(Track track, FileHandle compiledFile) throws IOException {
+        CompiledTrack compiledTrack = track.createCompiledTrack();
+        readTileLayers(track.getTmxFile(), compiledTrack);
+        long checksum = computeChecksum(track.getTmxFile());
+        DataOutputStream stream =
+                new DataOutputStream(new BufferedOutputStream(compiledFile.write(false)));
+        try {
+            stream.writeInt(MAGIC);
+            stream.writeInt(VERSION);
+            stream.writeLong(checksum);
+            write(stream, compiledTrack);
+        } finally {
+            StreamUtils.closeQuietly(stream);
+        }
+    }
+
+    /** Computes a checksum of tmxFile and of the tileset files it refers to */
+    static long computeChecksum(FileHandle tmxFile) {
+        CRC32 crc = new CRC32();
+        byte[] tmxBytes = tmxFile.readBytes();
+        crc.update(tmxBytes);
+
+        String tmxText = new String(tmxBytes, StandardCharsets.UTF_8);
+        Matcher matcher = TILESET_SOURCE_PATTERN.matcher(tmxText);
+        while (matcher.find()) {
+            FileHandle tilesetFile = tmxFile.sibling(matcher.group(1));
+            crc.update(tilesetFile.readBytes());
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Fills the tile layer ids of compiledTrack with the ones of tmxFile, and its TMX skeleton with
+     * the content of tmxFile, without the data of the tile layers
+     */
+    private static void readTileLayers(FileHandle tmxFile, CompiledTrack compiledTrack) {
+        String tmxText = tmxFile.readString("UTF-8");
+        XmlReader.Element root = new XmlReader().parse(tmxText);
+        for (XmlReader.Element layer : root.getChildrenByNameRecursively("layer")) {
+            int width = layer.getIntAttribute("width");
+            int height = layer.getIntAttribute("height");
+            compiledTrack.tileLayerIds.add(TmxMapLoader.getTileIds(layer, width, height));
+        }
+        String skeleton = TILE_LAYER_DATA_PATTERN.matcher(tmxText).replaceAll("");
+        compiledTrack.tmxSkeleton = skeleton.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static CompiledTrack read(DataInputStream stream) throws IOException {
+        CompiledTrack track = new CompiledTrack();
+        track.tmxSkeleton = new byte[stream.readInt()];
+        stream.readFully(track.tmxSkeleton);
+        int tileLayerCount = stream.readInt();
+        for (int idx = 0; idx < tileLayerCount; ++idx) {
+            int[] ids = new int[stream.readInt()];
+            for (int cellIdx = 0; cellIdx < ids.length; ++cellIdx) {
+                ids[cellIdx] = stream.readInt();
+            }
+            track.tileLayerIds.add(ids);
+        }
+
+        track.materialGridWidth = stream.readInt();
+        track.materialGridHeight = stream.readInt();
+        track.materialGrid = new byte[track.materialGridWidth * track.materialGridHeight];
+        stream.readFully(track.materialGrid);
+
+        int sectionCount = stream.readInt();
+        for (int idx = 0; idx < sectionCount; ++idx) {
+            float[] vertices = new float[stream.readInt()];
+            for (int vertexIdx = 0; vertexIdx < vertices.length; ++vertexIdx) {
+                vertices[vertexIdx] = stream.readFloat();
+            }
+            track.sectionVertices.add(vertices);
+        }
+
+        int waypointCount = stream.readInt();
+        for (int idx = 0; idx < waypointCount; ++idx) {
+            track.waypoints.add(readVector(stream));
+            track.waypointLapDistances.add(stream.readFloat());
+        }
+
+        readVectors(stream, track.startTilePositions);
+        readVectors(stream, track.bonusSpotPositions);
+        return track;
+    }
+
+    private static void write(DataOutputStream stream, CompiledTrack track) throws IOException {
+        stream.writeInt(track.tmxSkeleton.length);
+        stream.write(track.tmxSkeleton);
+        stream.writeInt(track.tileLayerIds.size);
+        for (int[] ids : track.tileLayerIds) {
+            stream.writeInt(ids.length);
+            for (int id : ids) {
+                stream.writeInt(id);
+            }
+        }
+
+        stream.writeInt(track.materialGridWidth);
+        stream.writeInt(track.materialGridHeight);
+        stream.write(track.materialGrid);
+
+        stream.writeInt(track.sectionVertices.size);
+        for (float[] vertices : track.sectionVertices) {
+            stream.writeInt(vertices.length);
+            for (float value : vertices) {
+                stream.writeFloat(value);
+            }
+        }
+
+        stream.writeInt(track.waypoints.size);
+        for (int idx = 0; idx < track.waypoints.size; ++idx) {
+            writeVector(stream, track.waypoints.get(idx));
+            stream.writeFloat(track.waypointLapDistances.get(idx));
+        }
+
+        writeVectors(stream, track.startTilePositions);
+        writeVectors(stream, track.bonusSpotPositions);
+    }
+
+    private static Vector2 readVector(DataInputStream stream) throws IOException {
+        float x = stream.readFloat();
+        float y = stream.readFloat();
+        return new Vector2(x, y);
+    }
+
+    private static void readVectors(DataInputStream stream, Array<Vector2> vectors)
+            throws IOException {
+        int count = stream.readInt();
+        for (int idx = 0; idx < count; ++idx) {
+            vectors.add(readVector(stream));
+        }
+    }
+
+    private static void writeVector(DataOutputStream stream, Vector2 vector) throws IOException {
+        stream.writeFloat(vector.x);
+        stream.writeFloat(vector.y);
+    }
+
+    private static void writeVectors(DataOutputStream stream, Array<Vector2> vectors)
+            throws IOException {
+        stream.writeInt(vectors.size);
+        for (Vector2 vector : vectors) {
+            writeVector(stream, vector);
+        }
+    }
+}
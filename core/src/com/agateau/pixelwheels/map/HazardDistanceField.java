@@ -0,0 +1,181 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.map;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * For each map cell, the distance to the closest hazard cell: a cell vehicles should not drive
+ * on, such as holes, walls or slow materials.
+ *
+ * <p>Distances are computed once with a two-pass chamfer transform, so that hazard checks are
+ * lookups instead of walks along lines.
+ */
+public class HazardDistanceField {
+    private static final float DIAGONAL = (float) Math.sqrt(2);
+    // Chamfer distances can be up to 8% longer than euclidean distances
+    private static final float CHAMFER_ERROR_FACTOR = 0.92f;
+    // Give up when the path gets closer than this to a hazard (unit: cells)
+    private static final float MIN_STEP = 0.5f;
+    private static final int MAX_MOVE_STEPS = 20;
+    // Neighbors, orthogonal ones first so that they win ties
+    private static final int[] NEIGHBOR_DX = {1, 0, -1, 0, 1, -1, -1, 1};
+    private static final int[] NEIGHBOR_DY = {0, 1, 0, -1, 1, 1, -1, -1};
+
+    private final int mWidth;
+    private final int mHeight;
+    private final float mCellSize;
+    // unit: cells, row by row, starting from the bottom-left cell
+    private final float[] mDistances;
+
+    private final Vector2 mTmp = new Vector2();
+
+    /**
+     * Creates a field for a width x height grid. hazards[ty * width + tx] must be true if cell (tx,
+     * ty) is a hazard. cellSize is the size of a cell in world units.
+     */
+    public HazardDistanceField(int width, int height, float cellSize, boolean[] hazards) {
+        mWidth = width;
+        mHeight = height;
+        mCellSize = cellSize;
+        mDistances = new float[width * height];
+        float infinity = width + height;
+        for (int idx = 0; idx < mDistances.length; ++idx) {
+            mDistances[idx] = hazards[idx] ? 0 : infinity;
+        }
+
+        // Forward pass: look at the left and bottom neighbors
+        for (int ty = 0; ty < height; ++ty) {
+            for (int tx = 0; tx < width; ++tx) {
+                float distance = mDistances[ty * width + tx];
+                distance = Math.min(distance, get(tx - 1, ty) + 1);
+                distance = Math.min(distance, get(tx - 1, ty - 1) + DIAGONAL);
+                distance = Math.min(distance, get(tx, ty - 1) + 1);
+                distance = Math.min(distance, get(tx + 1, ty - 1) + DIAGONAL);
+                mDistances[ty * width + tx] = distance;
+            }
+        }
+
+        // Backward pass: look at the right and top neighbors
+        for (int ty = height - 1; ty >= 0; --ty) {
+            for (int tx = width - 1; tx >= 0; --tx) {
+                float distance = mDistances[ty * width + tx];
+                distance = Math.min(distance, get(tx + 1, ty) + 1);
+                distance = Math.min(distance, get(tx + 1, ty + 1) + DIAGONAL);
+                distance = Math.min(distance, get(tx, ty + 1) + 1);
+                distance = Math.min(distance, get(tx - 1, ty + 1) + DIAGONAL);
+                mDistances[ty * width + tx] = distance;
+            }
+        }
+    }
+
+    /** Returns the distance from cell (tx, ty) to the closest hazard cell. unit: cells */
+    public float getCellDistance(int tx, int ty) {
+        return get(tx, ty);
+    }
+
+    /**
+     * Returns a distance from (x, y) to the closest hazard which is guaranteed not to be more than
+     * the actual distance. Returns 0 for positions inside hazards and outside the map.
+     *
+     * <p>unit: world
+     */
+    public float getDistance(float x, float y) {
+        float cellX = x / mCellSize;
+        float cellY = y / mCellSize;
+        int tx = MathUtils.floor(cellX);
+        int ty = MathUtils.floor(cellY);
+        // The closest point of the hazard cell can be half a diagonal closer than its center, and
+        // (x, y) is not at the center of its cell
+        float offset = Vector2.len(cellX - tx - 0.5f, cellY - ty - 0.5f);
+        float distance = get(tx, ty) * CHAMFER_ERROR_FACTOR - DIAGONAL / 2 - offset;
+        return Math.max(distance, 0) * mCellSize;
+    }
+
+    /**
+     * Returns true if the segment from start to end does not cross any hazard.
+     *
+     * <p>May return false for segments which pass very close to a hazard without crossing it:
+     * callers must do a more precise check in this case.
+     */
+    public boolean isPathClear(Vector2 start, Vector2 end) {
+        float length = start.dst(end);
+        float minStep = MIN_STEP * mCellSize;
+        float progress = 0;
+        // Move forward by the distance to the closest hazard: we cannot cross any in this range
+        while (true) {
+            mTmp.set(start).lerp(end, length > 0 ? progress / length : 1);
+            float distance = getDistance(mTmp.x, mTmp.y);
+            if (distance < minStep) {
+                return false;
+            }
+            progress += distance;
+            if (progress >= length) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Moves position away from hazards, until it is at least minDistance away from them or it
+     * cannot get any further. unit: world
+     */
+    public void moveAway(Vector2 position, float minDistance) {
+        int tx = MathUtils.floor(position.x / mCellSize);
+        int ty = MathUtils.floor(position.y / mCellSize);
+        float minCellDistance = minDistance / mCellSize;
+        boolean moved = false;
+        for (int step = 0; step < MAX_MOVE_STEPS; ++step) {
+            float distance = get(tx, ty);
+            if (distance >= minCellDistance) {
+                break;
+            }
+            // Go to the neighbor which is the furthest from any hazard
+            int bestTx = tx;
+            int bestTy = ty;
+            for (int idx = 0; idx < NEIGHBOR_DX.length; ++idx) {
+                int neighborTx = tx + NEIGHBOR_DX[idx];
+                int neighborTy = ty + NEIGHBOR_DY[idx];
+                if (get(neighborTx, neighborTy) > distance) {
+                    distance = get(neighborTx, neighborTy);
+                    bestTx = neighborTx;
+                    bestTy = neighborTy;
+                }
+            }
+            if (bestTx == tx && bestTy == ty) {
+                break;
+            }
+            tx = bestTx;
+            ty = bestTy;
+            moved = true;
+        }
+        if (moved) {
+            position.set((tx + 0.5f) * mCellSize, (ty + 0.5f) * mCellSize);
+        }
+    }
+
+    private float get(int tx, int ty) {
+        if (tx < 0 || tx >= mWidth || ty < 0 || ty >= mHeight) {
+            // Vehicles cannot drive outside the map
+            return 0;
+        }
+        return mDistances[ty * mWidth + tx];
+    }
+}
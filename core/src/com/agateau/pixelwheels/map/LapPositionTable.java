@@ -19,14 +19,33 @@
 package com.agateau.pixelwheels.map;
 
 import com.agateau.utils.Assert;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
 
-/** Can provide the position within a lap based on x, y (in tile pixels) */
+/**
+ * Can provide the position within a lap based on x, y (in tile pixels)
+ *
+ * <p>Once all sections have been added, call buildIndex() so that lookups only test the sections
+ * whose bounding rectangle overlaps the grid cell of the position, instead of all sections.
+ */
 public class LapPositionTable {
+    /** unit: pixels */
+    private static final int INDEX_CELL_SIZE = 128;
+
     private final Array<LapSection> mSections = new Array<>();
 
+    // Grid index. mCellSections[row * mIndexColumnCount + column] contains the ids of the sections
+    // overlapping the cell, in ascending order. mCellSections is null until buildIndex() is called.
+    private int[][] mCellSections;
+    private int mIndexOriginX;
+    private int mIndexOriginY;
+    private int mIndexColumnCount;
+    private int mIndexRowCount;
+
     private static class LapSection {
         private final int mSectionId;
         private final Polygon mPolygon;
@@ -62,21 +81,117 @@ public class LapPositionTable {
     }
 
     public void addSection(Polygon polygon) {
+        Assert.check(mCellSections == null, "Cannot add sections after the index has been built");
         int sectionId = mSections.size;
         mSections.add(new LapSection(sectionId, polygon));
     }
 
+    /** Builds the grid index. Must be called after all sections have been added */
+    public void buildIndex() {
+        if (mSections.size == 0) {
+            return;
+        }
+        Rectangle bounds = new Rectangle(mSections.first().mPolygon.getBoundingRectangle());
+        for (LapSection section : mSections) {
+            bounds.merge(section.mPolygon.getBoundingRectangle());
+        }
+        mIndexOriginX = MathUtils.floor(bounds.x);
+        mIndexOriginY = MathUtils.floor(bounds.y);
+        int right = MathUtils.ceil(bounds.x + bounds.width);
+        int top = MathUtils.ceil(bounds.y + bounds.height);
+        mIndexColumnCount = getIndexCell(right, mIndexOriginX) + 1;
+        mIndexRowCount = getIndexCell(top, mIndexOriginY) + 1;
+
+        IntArray[] cellSections = new IntArray[mIndexColumnCount * mIndexRowCount];
+        for (LapSection section : mSections) {
+            Rectangle rect = section.mPolygon.getBoundingRectangle();
+            int column1 = getIndexCell(MathUtils.floor(rect.x), mIndexOriginX);
+            int column2 = getIndexCell(MathUtils.ceil(rect.x + rect.width), mIndexOriginX);
+            int row1 = getIndexCell(MathUtils.floor(rect.y), mIndexOriginY);
+            int row2 = getIndexCell(MathUtils.ceil(rect.y + rect.height), mIndexOriginY);
+            for (int row = row1; row <= row2; ++row) {
+                for (int column = column1; column <= column2; ++column) {
+                    int idx = row * mIndexColumnCount + column;
+                    if (cellSections[idx] == null) {
+                        cellSections[idx] = new IntArray();
+                    }
+                    cellSections[idx].add(section.mSectionId);
+                }
+            }
+        }
+
+        mCellSections = new int[cellSections.length][];
+        for (int idx = 0; idx < cellSections.length; ++idx) {
+            mCellSections[idx] = cellSections[idx] == null ? null : cellSections[idx].toArray();
+        }
+    }
+
     /** unit: pixels */
     public LapPosition get(int x, int y) {
-        for (LapSection zone : mSections) {
-            if (zone.mPolygon.contains(x, y)) {
-                return zone.computePosition(x, y);
+        if (mCellSections == null) {
+            for (LapSection section : mSections) {
+                if (section.mPolygon.contains(x, y)) {
+                    return section.computePosition(x, y);
+                }
+            }
+            return null;
+        }
+        int column = getIndexCell(x, mIndexOriginX);
+        int row = getIndexCell(y, mIndexOriginY);
+        if (column < 0 || column >= mIndexColumnCount || row < 0 || row >= mIndexRowCount) {
+            return null;
+        }
+        int[] sectionIds = mCellSections[row * mIndexColumnCount + column];
+        if (sectionIds == null) {
+            return null;
+        }
+        for (int sectionId : sectionIds) {
+            LapSection section = mSections.get(sectionId);
+            if (section.mPolygon.contains(x, y)) {
+                return section.computePosition(x, y);
             }
         }
         return null;
     }
 
+    /**
+     * Same as get(x, y), but first tests hintSectionId and its neighbors. Useful for moving
+     * objects, which are most of the time in the same section as during the previous lookup, or in
+     * the next or previous one.
+     *
+     * <p>hintSectionId can be -1, in which case this is the same as get(x, y).
+     *
+     * <p>unit: pixels
+     */
+    public LapPosition get(int x, int y, int hintSectionId) {
+        if (hintSectionId >= 0 && hintSectionId < mSections.size) {
+            int count = mSections.size;
+            LapSection section = mSections.get(hintSectionId);
+            if (section.mPolygon.contains(x, y)) {
+                return section.computePosition(x, y);
+            }
+            section = mSections.get((hintSectionId + 1) % count);
+            if (section.mPolygon.contains(x, y)) {
+                return section.computePosition(x, y);
+            }
+            section = mSections.get((hintSectionId + count - 1) % count);
+            if (section.mPolygon.contains(x, y)) {
+                return section.computePosition(x, y);
+            }
+        }
+        return get(x, y);
+    }
+
+    private static int getIndexCell(int value, int origin) {
+        return (value - origin) / INDEX_CELL_SIZE;
+    }
+
     public int getSectionCount() {
         return mSections.size;
     }
+
+    /** unit: pixels */
+    float[] getSectionVertices(int sectionId) {
+        return mSections.get(sectionId).mPolygon.getTransformedVertices();
+    }
 }
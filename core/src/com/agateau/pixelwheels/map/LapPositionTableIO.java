@@ -122,6 +122,7 @@ public class LapPositionTableIO {
             Polygon polygon = new Polygon(vertices);
             table.addSection(polygon);
         }
+        table.buildIndex();
         return table;
     }
 }
@@ -33,6 +33,12 @@ public class MaterialChecker {
     public Material getSlowestMaterialAhead(Vector2 position, Vector2 target) {
         Material slowest = Material.ROAD;
 
+        // Fast path: if there are no hazards on the way, there is only road
+        HazardDistanceField field = mTrack.getHazardDistanceField();
+        if (field != null && field.isPathClear(position, target)) {
+            return slowest;
+        }
+
         float len = mTmpVector.set(target).sub(position).len();
         int steps = (int) Math.ceil(len / mTrack.getTileWidth());
 
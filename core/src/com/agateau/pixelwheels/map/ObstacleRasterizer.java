@@ -0,0 +1,192 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.map;
+
+import com.badlogic.gdx.maps.MapObject;
+import com.badlogic.gdx.maps.MapObjects;
+import com.badlogic.gdx.maps.objects.EllipseMapObject;
+import com.badlogic.gdx.maps.objects.PolygonMapObject;
+import com.badlogic.gdx.maps.objects.PolylineMapObject;
+import com.badlogic.gdx.maps.objects.RectangleMapObject;
+import com.badlogic.gdx.math.Ellipse;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.math.Polyline;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * Marks the cells covered by the objects of the Obstacles layer, such as borders, so that they can
+ * be treated as hazards.
+ *
+ * <p>Objects are placed the same way Box2DUtils.createStaticBodyForMapObject() places their
+ * bodies. Ellipses are handled as circles, like Box2DUtils does.
+ */
+class ObstacleRasterizer {
+    private static final int CIRCLE_SEGMENT_COUNT = 16;
+    // Distance between two points checked along the outline of objects (unit: cells). Less than a
+    // cell, so that thin borders cannot slip between two points.
+    private static final float OUTLINE_STEP = 0.25f;
+
+    private final int mWidth;
+    private final int mHeight;
+    private final float mCellSize;
+    private final boolean[] mHazards;
+
+    private final Vector2 mTmp = new Vector2();
+
+    /**
+     * Creates a rasterizer for a width x height grid. cellSize is the size of a cell in the unit of
+     * the object coordinates (pixels). Cell (tx, ty) is marked by setting hazards[ty * width + tx]
+     * to true.
+     */
+    ObstacleRasterizer(int width, int height, float cellSize, boolean[] hazards) {
+        mWidth = width;
+        mHeight = height;
+        mCellSize = cellSize;
+        mHazards = hazards;
+    }
+
+    void rasterize(MapObjects objects) {
+        for (MapObject object : objects) {
+            rasterize(object);
+        }
+    }
+
+    void rasterize(MapObject object) {
+        float[] vertices = getVertices(object);
+        if (vertices == null) {
+            return;
+        }
+        boolean closed = !(object instanceof PolylineMapObject);
+        markOutline(vertices, closed);
+        if (closed) {
+            markInside(vertices);
+        }
+    }
+
+    /** Returns the vertices of object in map coordinates, or null if it has no shape */
+    private float[] getVertices(MapObject object) {
+        float rotation = MapUtils.getObjectRotation(object);
+        if (object instanceof RectangleMapObject) {
+            Rectangle rect = ((RectangleMapObject) object).getRectangle();
+            // Rectangles rotate around their top-left corner
+            float[] vertices = {
+                0, 0, 0, -rect.height, rect.width, -rect.height, rect.width, 0,
+            };
+            return transform(vertices, rect.x, rect.y + rect.height, rotation);
+        } else if (object instanceof PolygonMapObject) {
+            Polygon polygon = ((PolygonMapObject) object).getPolygon();
+            return transform(
+                    polygon.getVertices().clone(), polygon.getX(), polygon.getY(), rotation);
+        } else if (object instanceof PolylineMapObject) {
+            Polyline polyline = ((PolylineMapObject) object).getPolyline();
+            return transform(
+                    polyline.getVertices().clone(), polyline.getX(), polyline.getY(), rotation);
+        } else if (object instanceof EllipseMapObject) {
+            Ellipse ellipse = ((EllipseMapObject) object).getEllipse();
+            float radius = ellipse.width / 2;
+            float[] vertices = new float[CIRCLE_SEGMENT_COUNT * 2];
+            for (int idx = 0; idx < CIRCLE_SEGMENT_COUNT; ++idx) {
+                float angle = MathUtils.PI2 * idx / CIRCLE_SEGMENT_COUNT;
+                vertices[2 * idx] = MathUtils.cos(angle) * radius;
+                vertices[2 * idx + 1] = MathUtils.sin(angle) * radius;
+            }
+            return transform(vertices, ellipse.x + radius, ellipse.y + radius, 0);
+        }
+        return null;
+    }
+
+    /** Rotates vertices by rotation degrees, then moves them by (x, y). Returns vertices. */
+    private float[] transform(float[] vertices, float x, float y, float rotation) {
+        for (int idx = 0; idx < vertices.length; idx += 2) {
+            mTmp.set(vertices[idx], vertices[idx + 1]).rotate(rotation).add(x, y);
+            vertices[idx] = mTmp.x;
+            vertices[idx + 1] = mTmp.y;
+        }
+        return vertices;
+    }
+
+    private void markOutline(float[] vertices, boolean closed) {
+        int pointCount = vertices.length / 2;
+        int segmentCount = closed ? pointCount : pointCount - 1;
+        for (int idx = 0; idx < segmentCount; ++idx) {
+            int nextIdx = (idx + 1) % pointCount;
+            float x1 = vertices[2 * idx];
+            float y1 = vertices[2 * idx + 1];
+            float x2 = vertices[2 * nextIdx];
+            float y2 = vertices[2 * nextIdx + 1];
+            float length = Vector2.dst(x1, y1, x2, y2);
+            int steps = MathUtils.ceil(length / (OUTLINE_STEP * mCellSize));
+            for (int step = 0; step <= steps; ++step) {
+                float k = steps > 0 ? (float) step / steps : 0;
+                mark(x1 + (x2 - x1) * k, y1 + (y2 - y1) * k);
+            }
+        }
+    }
+
+    /** Marks the cells whose center is inside the polygon defined by vertices */
+    private void markInside(float[] vertices) {
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        for (int idx = 0; idx < vertices.length; idx += 2) {
+            minX = Math.min(minX, vertices[idx]);
+            maxX = Math.max(maxX, vertices[idx]);
+            minY = Math.min(minY, vertices[idx + 1]);
+            maxY = Math.max(maxY, vertices[idx + 1]);
+        }
+        int tx1 = Math.max(MathUtils.floor(minX / mCellSize), 0);
+        int tx2 = Math.min(MathUtils.floor(maxX / mCellSize), mWidth - 1);
+        int ty1 = Math.max(MathUtils.floor(minY / mCellSize), 0);
+        int ty2 = Math.min(MathUtils.floor(maxY / mCellSize), mHeight - 1);
+        for (int ty = ty1; ty <= ty2; ++ty) {
+            for (int tx = tx1; tx <= tx2; ++tx) {
+                if (isInside(vertices, (tx + 0.5f) * mCellSize, (ty + 0.5f) * mCellSize)) {
+                    mHazards[ty * mWidth + tx] = true;
+                }
+            }
+        }
+    }
+
+    private void mark(float x, float y) {
+        int tx = MathUtils.floor(x / mCellSize);
+        int ty = MathUtils.floor(y / mCellSize);
+        if (tx >= 0 && tx < mWidth && ty >= 0 && ty < mHeight) {
+            mHazards[ty * mWidth + tx] = true;
+        }
+    }
+
+    /** Even-odd rule point-in-polygon test */
+    private static boolean isInside(float[] vertices, float x, float y) {
+        boolean inside = false;
+        int pointCount = vertices.length / 2;
+        for (int idx = 0, prevIdx = pointCount - 1; idx < pointCount; prevIdx = idx++) {
+            float x1 = vertices[2 * idx];
+            float y1 = vertices[2 * idx + 1];
+            float x2 = vertices[2 * prevIdx];
+            float y2 = vertices[2 * prevIdx + 1];
+            if ((y1 > y) != (y2 > y) && x < (x2 - x1) * (y - y1) / (y2 - y1) + x1) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+}
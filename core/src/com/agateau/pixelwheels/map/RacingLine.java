@@ -0,0 +1,85 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.map;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * A path around the track, optimized to be as short and as straight as possible, with the speed at
+ * which vehicles can drive through each of its points.
+ *
+ * <p>Points are sorted by lap distance. Racing lines are created by the RacingLineGenerator tool.
+ */
+public class RacingLine {
+    private static class Point {
+        final Vector2 position = new Vector2();
+        float lapDistance;
+        float speed;
+    }
+
+    private final Array<Point> mPoints = new Array<>();
+
+    /** unit: world, lap distance, m/s */
+    public void addPoint(float x, float y, float lapDistance, float speed) {
+        Point point = new Point();
+        point.position.set(x, y);
+        point.lapDistance = lapDistance;
+        point.speed = speed;
+        mPoints.add(point);
+    }
+
+    public int getCount() {
+        return mPoints.size;
+    }
+
+    /** unit: world */
+    public Vector2 getPosition(int index) {
+        return mPoints.get(index).position;
+    }
+
+    public float getLapDistance(int index) {
+        return mPoints.get(index).lapDistance;
+    }
+
+    /** unit: m/s */
+    public float getSpeed(int index) {
+        return mPoints.get(index).speed;
+    }
+
+    public int getNextIndex(int index) {
+        return (index + 1) % mPoints.size;
+    }
+
+    /** Returns the index of the first point whose lap distance is greater than lapDistance */
+    public int findNextIndex(float lapDistance) {
+        int low = 0;
+        int high = mPoints.size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (mPoints.get(middle).lapDistance <= lapDistance) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        // Past the last point, the next one is the first point of the next lap
+        return low == mPoints.size ? 0 : low;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.map;
+
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.StreamUtils;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Reads and writes racing lines (.line files).
+ *
+ * <p>Like compiled tracks, a racing line stores a checksum of the TMX file it has been created
+ * from, and is ignored if the TMX file changed since then.
+ */
+public class RacingLineIO {
+    private static final int MAGIC = 0x5057524c; // "PWRL"
+    private static final int VERSION = 1;
+
+    /**
+     * Returns the racing line stored in lineFile, or null if it is missing or stale. checksum must
+     * have been computed by CompiledTrackIO.computeChecksum() for the TMX file of the track.
+     */
+    static RacingLine load(FileHandle lineFile, long checksum) {
+        if (!lineFile.exists()) {
+            return null;
+        }
+        DataInputStream stream = new DataInputStream(new BufferedInputStream(lineFile.read()));
+        try {
+            if (stream.readInt() != MAGIC || stream.readInt() != VERSION) {
+                NLog.i("%s: unsupported format, ignoring it", lineFile.path());
+                return null;
+            }
+            if (stream.readLong() != checksum) {
+                NLog.i("%s: out of date, ignoring it", lineFile.path());
+                return null;
+            }
+            RacingLine line = new RacingLine();
+            int count = stream.readInt();
+            for (int idx = 0; idx < count; ++idx) {
+                float x = stream.readFloat();
+                float y = stream.readFloat();
+                float lapDistance = stream.readFloat();
+                float speed = stream.readFloat();
+                line.addPoint(x, y, lapDistance, speed);
+            }
+            return line;
+        } catch (IOException e) {
+            NLog.e("%s: failed to read, ignoring it. %s", lineFile.path(), e);
+            return null;
+        } finally {
+            StreamUtils.closeQuietly(stream);
+        }
+    }
+
+    /** Saves line, created for the TMX file of track, to lineFile */
+    public static void save(RacingLine line, Track track, FileHandle lineFile) throws IOException {
+        long checksum = CompiledTrackIO.computeChecksum(track.getTmxFile());
+        DataOutputStream stream =
+                new DataOutputStream(new BufferedOutputStream(lineFile.write(false)));
+        try {
+            stream.writeInt(MAGIC);
+            stream.writeInt(VERSION);
+            stream.writeLong(checksum);
+            stream.writeInt(line.getCount());
+            for (int idx = 0; idx < line.getCount(); ++idx) {
+                stream.writeFloat(line.getPosition(idx).x);
+                stream.writeFloat(line.getPosition(idx).y);
+                stream.writeFloat(line.getLapDistance(idx));
+                stream.writeFloat(line.getSpeed(idx));
+            }
+        } finally {
+            StreamUtils.closeQuietly(stream);
+        }
+    }
+}
@@ -21,12 +21,14 @@ package com.agateau.pixelwheels.map;
 import static com.agateau.translations.Translator.trc;
 
 import com.agateau.libgdx.AgcTmxMapLoader;
+import com.agateau.libgdx.GLResourceLock;
 import com.agateau.pixelwheels.Constants;
 import com.agateau.pixelwheels.GamePlay;
 import com.agateau.pixelwheels.stats.TrackStats;
 import com.agateau.pixelwheels.utils.OrientedPoint;
 import com.agateau.utils.Assert;
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.maps.MapLayer;
@@ -41,9 +43,11 @@ import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
 import com.badlogic.gdx.maps.tiled.TmxMapLoader;
 import com.badlogic.gdx.math.Ellipse;
 import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Polygon;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.IntSet;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 
@@ -58,8 +62,14 @@ public class Track implements Disposable {
     private final ArrayList<Float> mDefaultTotalRecords = new ArrayList<>();
 
     private TiledMap mMap;
-    private Material[] mMaterialForTileId;
+    // Material ordinal of the top background tile of each map cell, row by row, starting from the
+    // bottom-left cell
+    private byte[] mMaterialGrid;
+    private int mMaterialGridWidth;
+    private int mMaterialGridHeight;
     private int mStartTileId = -1;
+    private final Array<Vector2> mStartTilePositions = new Array<>();
+    private final Array<Vector2> mBonusSpotPositions = new Array<>();
     private Array<TiledMapTileLayer> mBackgroundLayers;
     private Array<TiledMapTileLayer> mForegroundLayers;
     private MapLayer mObstaclesLayer;
@@ -67,9 +77,17 @@ public class Track implements Disposable {
     private float mTileWidth;
     private float mTileHeight;
     private LapPositionTable mLapPositionTable;
+    private RacingLine mRacingLine;
+    private HazardDistanceField mHazardDistanceField;
     private Color mBackgroundColor;
 
-    private static final TmxMapLoader sMapLoader = new AgcTmxMapLoader();
+    private static final Material[] sMaterials = Material.values();
+
+    // Set by prepare(), consumed by init()
+    private AgcTmxMapLoader mPreparedMapLoader;
+    private CompiledTrack mPreparedCompiledTrack;
+    private RacingLine mPreparedRacingLine;
+
     private static final TmxMapLoader.Parameters sMapLoaderParameters =
             new TmxMapLoader.Parameters();
 
@@ -84,31 +102,103 @@ public class Track implements Disposable {
         mMapName = name;
     }
 
-    public void init() {
+    /**
+     * Does the slow parts of init() which do not need the GL context: loading the compiled track,
+     * parsing the TMX file (or its skeleton, if the compiled track is up to date) and decoding its
+     * images.
+     *
+     * <p>Can be called from any thread. Calling it is optional, init() calls it if necessary. If
+     * init() is called while prepare() is running on another thread, it waits for it to finish.
+     */
+    public synchronized void prepare() {
+        if (mMap != null || mPreparedMapLoader != null) {
+            return;
+        }
+        FileHandle tmxFile = getTmxFile();
+        FileHandle compiledFile = Gdx.files.internal("maps/" + mId + ".track");
+        FileHandle lineFile = Gdx.files.internal("maps/" + mId + ".line");
+        if (compiledFile.exists() || lineFile.exists()) {
+            // Both files are checked against the same checksum, only compute it once
+            long checksum = CompiledTrackIO.computeChecksum(tmxFile);
+            mPreparedCompiledTrack = CompiledTrackIO.load(compiledFile, checksum);
+            mPreparedRacingLine = RacingLineIO.load(lineFile, checksum);
+        }
+        AgcTmxMapLoader loader = new AgcTmxMapLoader();
+        if (mPreparedCompiledTrack != null) {
+            // No need to parse the tile layers of the TMX file, they are in the compiled track
+            loader.prepare(
+                    tmxFile,
+                    mPreparedCompiledTrack.tmxSkeleton,
+                    mPreparedCompiledTrack.tileLayerIds,
+                    sMapLoaderParameters);
+        } else {
+            loader.prepare(tmxFile, sMapLoaderParameters);
+        }
+        mPreparedMapLoader = loader;
+    }
+
+    /** Returns true if prepare() has been called, but not init() */
+    public synchronized boolean isPrepared() {
+        return mPreparedMapLoader != null;
+    }
+
+    /** Frees the data created by prepare(), for when the track is not going to be used */
+    public synchronized void discardPrepared() {
+        if (mPreparedMapLoader == null) {
+            return;
+        }
+        mPreparedMapLoader.discardPrepared();
+        mPreparedMapLoader = null;
+        mPreparedCompiledTrack = null;
+        mPreparedRacingLine = null;
+    }
+
+    /** Must be called from the render thread */
+    public synchronized void init() {
         if (mMap != null) {
             return;
         }
-        // Do not use FileUtils.assets() to load maps because TmxMapLoader looks for "dependency
-        // files" (textures, .tsx...) in the same folder as the map, so if the map is found in the
-        // extra assets directory but the textures are only in the original one, TmxMapLoader won't
-        // find the required files and will crash.
-        String path = Gdx.files.internal("maps/" + mId + ".tmx").path();
-        mMap = sMapLoader.load(path, sMapLoaderParameters);
-        mMaterialForTileId = computeMaterialForTileId();
-        findSpecialTileIds();
+        prepare();
+        // Creates textures
+        synchronized (GLResourceLock.instance) {
+            mMap = mPreparedMapLoader.finishLoading(sMapLoaderParameters);
+        }
+        CompiledTrack compiledTrack = mPreparedCompiledTrack;
+        mRacingLine = mPreparedRacingLine;
+        mPreparedMapLoader = null;
+        mPreparedCompiledTrack = null;
+        mPreparedRacingLine = null;
         findLayers();
 
         mTileWidth = Constants.UNIT_FOR_PIXEL * mBackgroundLayers.get(0).getTileWidth();
         mTileHeight = Constants.UNIT_FOR_PIXEL * mBackgroundLayers.get(0).getTileHeight();
 
-        mLapPositionTable = LapPositionTableIO.load(mMap);
-        readWaypoints();
+        if (compiledTrack != null) {
+            applyCompiledTrack(compiledTrack);
+        } else {
+            findSpecialTileIds();
+            bakeMaterialGrid();
+            mLapPositionTable = LapPositionTableIO.load(mMap);
+            readWaypoints();
+            readStartTilePositions();
+            readBonusSpotPositions();
+        }
+        computeHazardDistanceField();
 
         String bgColorText = mMap.getProperties().get("backgroundcolor", "#808080", String.class);
         bgColorText = bgColorText.substring(1); // Skip leading '#'
         mBackgroundColor = Color.valueOf(bgColorText);
     }
 
+    /** The TMX file of the track */
+    public FileHandle getTmxFile() {
+        // Do not use FileUtils.assets() to load maps because TmxMapLoader looks for "dependency
+        // files" (textures, .tsx...) in the same folder as the map, so if the map is found in the
+        // extra assets directory but the textures are only in the original one, TmxMapLoader won't
+        // find the required files and will crash.
+        return Gdx.files.internal("maps/" + mId + ".tmx");
+    }
+
     public Championship getChampionship() {
         return mChampionship.get();
     }
@@ -178,6 +268,16 @@ public class Track implements Disposable {
         return mWaypointStore;
     }
 
+    /** Returns the distance from each cell to the closest hole, wall or slow material */
+    public HazardDistanceField getHazardDistanceField() {
+        return mHazardDistanceField;
+    }
+
+    /** Returns the racing line of the track, or null if it does not have an up-to-date one */
+    public RacingLine getRacingLine() {
+        return mRacingLine;
+    }
+
     public int[] getExtraBackgroundLayerIndexes() {
         int[] indexes = new int[mBackgroundLayers.size - 1];
         for (int idx = 1; idx < mBackgroundLayers.size; ++idx) {
@@ -225,9 +325,68 @@ public class Track implements Disposable {
         Assert.check(mStartTileId != -1, "No start id");
     }
 
-    private TiledMapTile getTopTileAt(Array<TiledMapTileLayer> layers, float x, float y) {
-        int tx = MathUtils.floor(x / mTileWidth);
-        int ty = MathUtils.floor(y / mTileHeight);
+    private void bakeMaterialGrid() {
+        Material[] materialForTileId = computeMaterialForTileId();
+        TiledMapTileLayer firstLayer = mBackgroundLayers.first();
+        mMaterialGridWidth = firstLayer.getWidth();
+        mMaterialGridHeight = firstLayer.getHeight();
+        mMaterialGrid = new byte[mMaterialGridWidth * mMaterialGridHeight];
+        for (int ty = 0; ty < mMaterialGridHeight; ++ty) {
+            for (int tx = 0; tx < mMaterialGridWidth; ++tx) {
+                TiledMapTile tile = getTopTileAt(mBackgroundLayers, tx, ty);
+                Material material = tile == null ? Material.ROAD : materialForTileId[tile.getId()];
+                mMaterialGrid[ty * mMaterialGridWidth + tx] = (byte) material.ordinal();
+            }
+        }
+    }
+
+    /**
+     * Hazards are cells whose material is a hazard, which contain an obstacle tile, or which are
+     * covered by an object of the Obstacles layer, such as a border
+     */
+    private void computeHazardDistanceField() {
+        boolean[] hazards = new boolean[mMaterialGrid.length];
+        for (int idx = 0; idx < hazards.length; ++idx) {
+            hazards[idx] = isHazardMaterial(sMaterials[mMaterialGrid[idx]]);
+        }
+
+        // Same tiles as the ones TiledObstacleCreator creates obstacles for
+        IntSet obstacleTileIds = new IntSet();
+        for (TiledMapTile tile : mMap.getTileSets().getTileSet(0)) {
+            if (tile.getProperties().containsKey("obstacle")) {
+                obstacleTileIds.add(tile.getId());
+            }
+        }
+        for (TiledMapTileLayer layer : mMap.getLayers().getByType(TiledMapTileLayer.class)) {
+            for (int ty = 0; ty < mMaterialGridHeight; ++ty) {
+                for (int tx = 0; tx < mMaterialGridWidth; ++tx) {
+                    TiledMapTileLayer.Cell cell = layer.getCell(tx, ty);
+                    if (cell != null && obstacleTileIds.contains(cell.getTile().getId())) {
+                        hazards[ty * mMaterialGridWidth + tx] = true;
+                    }
+                }
+            }
+        }
+
+        // Objects are in pixels
+        float tileSizeInPixels = mBackgroundLayers.first().getTileWidth();
+        new ObstacleRasterizer(mMaterialGridWidth, mMaterialGridHeight, tileSizeInPixels, hazards)
+                .rasterize(mObstaclesLayer.getObjects());
+
+        mHazardDistanceField =
+                new HazardDistanceField(
+                        mMaterialGridWidth, mMaterialGridHeight, mTileWidth, hazards);
+    }
+
+    /**
+     * Returns true if vehicles should avoid driving on material: it is slower than road. This
+     * includes holes, but also ice, even if isRoad() returns true for it.
+     */
+    static boolean isHazardMaterial(Material material) {
+        return material.getSpeed() < Material.ROAD.getSpeed();
+    }
+
+    private static TiledMapTile getTopTileAt(Array<TiledMapTileLayer> layers, int tx, int ty) {
         for (int idx = layers.size - 1; idx >= 0; idx--) {
             TiledMapTileLayer.Cell cell = layers.get(idx).getCell(tx, ty);
             if (cell != null) {
@@ -253,21 +412,42 @@ public class Track implements Disposable {
     }
 
     public Material getMaterialAt(float x, float y) {
-        TiledMapTile tile = getTopTileAt(mBackgroundLayers, x, y);
-        if (tile == null) {
+        int tx = MathUtils.floor(x / mTileWidth);
+        int ty = MathUtils.floor(y / mTileHeight);
+        if (tx < 0 || tx >= mMaterialGridWidth || ty < 0 || ty >= mMaterialGridHeight) {
             return Material.ROAD;
         }
-        return mMaterialForTileId[tile.getId()];
+        return sMaterials[mMaterialGrid[ty * mMaterialGridWidth + tx]];
     }
 
     @Override
-    public void dispose() {
-        mMap.dispose();
+    public synchronized void dispose() {
+        synchronized (GLResourceLock.instance) {
+            mMap.dispose();
+        }
         mMap = null;
     }
 
+    /** Returns a copy of the start tile positions, callers are free to modify it */
     public Array<Vector2> findStartTilePositions() {
-        Array<Vector2> lst = new Array<>();
+        return copyPositions(mStartTilePositions);
+    }
+
+    /** Returns a copy of the bonus spot positions, callers are free to modify it */
+    public Array<Vector2> findBonusSpotPositions() {
+        return copyPositions(mBonusSpotPositions);
+    }
+
+    private static Array<Vector2> copyPositions(Array<Vector2> positions) {
+        Array<Vector2> lst = new Array<>(positions.size);
+        for (Vector2 pos : positions) {
+            lst.add(pos.cpy());
+        }
+        return lst;
+    }
+
+    private void readStartTilePositions() {
+        mStartTilePositions.clear();
         TiledMapTileLayer groundLayer = mBackgroundLayers.get(0);
         for (int ty = 0; ty < groundLayer.getHeight(); ++ty) {
             for (int tx = 0; tx < groundLayer.getWidth(); ++tx) {
@@ -278,18 +458,17 @@ public class Track implements Disposable {
                 int tileId = cell.getTile().getId();
                 if (tileId == mStartTileId) {
                     Vector2 pos = new Vector2(tx * mTileWidth + mTileWidth / 2, ty * mTileHeight);
-                    lst.add(pos);
+                    mStartTilePositions.add(pos);
                 }
             }
         }
-        return lst;
     }
 
-    public Array<Vector2> findBonusSpotPositions() {
+    private void readBonusSpotPositions() {
         final float U = Constants.UNIT_FOR_PIXEL;
         MapLayer layer = mMap.getLayers().get("BonusSpots");
         Assert.check(layer != null, "No BonusSpots layer");
-        Array<Vector2> lst = new Array<>();
+        mBonusSpotPositions.clear();
 
         for (MapObject object : layer.getObjects()) {
             if (!(object instanceof EllipseMapObject)) {
@@ -300,17 +479,63 @@ public class Track implements Disposable {
             }
             Ellipse ellipse = ((EllipseMapObject) object).getEllipse();
             Vector2 pos = new Vector2(ellipse.x * U, ellipse.y * U);
-            lst.add(pos);
+            mBonusSpotPositions.add(pos);
         }
-        return lst;
     }
 
     private void readWaypoints() {
         MapLayer layer = mMap.getLayers().get("Waypoints");
         Assert.check(layer != null, "No Waypoints layer");
+        mWaypointStore.clear();
         mWaypointStore.read(layer, mLapPositionTable);
     }
 
+    private void applyCompiledTrack(CompiledTrack compiledTrack) {
+        mMaterialGridWidth = compiledTrack.materialGridWidth;
+        mMaterialGridHeight = compiledTrack.materialGridHeight;
+        mMaterialGrid = compiledTrack.materialGrid;
+
+        mLapPositionTable = new LapPositionTable();
+        for (float[] vertices : compiledTrack.sectionVertices) {
+            mLapPositionTable.addSection(new Polygon(vertices));
+        }
+        mLapPositionTable.buildIndex();
+
+        mWaypointStore.clear();
+        for (int idx = 0; idx < compiledTrack.waypoints.size; ++idx) {
+            Vector2 waypoint = compiledTrack.waypoints.get(idx);
+            float lapDistance = compiledTrack.waypointLapDistances.get(idx);
+            mWaypointStore.addWaypoint(waypoint.x, waypoint.y, lapDistance);
+        }
+
+        mStartTilePositions.clear();
+        mStartTilePositions.addAll(compiledTrack.startTilePositions);
+        mBonusSpotPositions.clear();
+        mBonusSpotPositions.addAll(compiledTrack.bonusSpotPositions);
+    }
+
+    /** Collects the data computed by init(), so that CompiledTrackIO can save it */
+    CompiledTrack createCompiledTrack() {
+        Assert.check(mMap != null, "Track must be initialized");
+        CompiledTrack compiledTrack = new CompiledTrack();
+        compiledTrack.materialGridWidth = mMaterialGridWidth;
+        compiledTrack.materialGridHeight = mMaterialGridHeight;
+        compiledTrack.materialGrid = mMaterialGrid.clone();
+
+        for (int idx = 0; idx < mLapPositionTable.getSectionCount(); ++idx) {
+            compiledTrack.sectionVertices.add(mLapPositionTable.getSectionVertices(idx).clone());
+        }
+
+        for (int idx = 0; idx < mWaypointStore.getCount(); ++idx) {
+            compiledTrack.waypoints.add(mWaypointStore.getWaypoint(idx).cpy());
+            compiledTrack.waypointLapDistances.add(mWaypointStore.getLapDistance(idx));
+        }
+
+        compiledTrack.startTilePositions.addAll(copyPositions(mStartTilePositions));
+        compiledTrack.bonusSpotPositions.addAll(copyPositions(mBonusSpotPositions));
+        return compiledTrack;
+    }
+
     public OrientedPoint getValidPosition(Vector2 pos, float lapDistance) {
         return mWaypointStore.getValidPosition(pos, lapDistance);
     }
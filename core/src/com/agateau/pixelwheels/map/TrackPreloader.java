@@ -0,0 +1,142 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.map;
+
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+
+/**
+ * Prepares the track the player is likely to race on next in the background, while they are in
+ * menus or looking at the results of a race, so that starting the race does not block on loading
+ * the track.
+ *
+ * <p>The preloader runs Track.prepare() on a worker thread. Track.init() then only has to upload
+ * textures and create the map on the render thread.
+ *
+ * <p>All methods must be called from the render thread.
+ */
+public class TrackPreloader implements Disposable {
+    public enum Status {
+        /** The track was prepared before it was needed */
+        HIT,
+        /** The track was being prepared when it was needed, Track.init() had to wait for it */
+        LATE,
+        /** The track was not preloaded */
+        MISS,
+        /** The track was still loaded, for example because the race has been restarted */
+        ALREADY_LOADED,
+    }
+
+    private final AsyncExecutor mExecutor = new AsyncExecutor(1, "TrackPreloader");
+
+    private Track mTrack;
+    private AsyncResult<Void> mResult;
+
+    private Status mLastStatus = Status.MISS;
+    private int mHitCount = 0;
+    private int mLateCount = 0;
+    private int mMissCount = 0;
+
+    /** Starts preparing track, discarding any other track which has been preloaded but not used */
+    public void preload(Track track) {
+        if (track == mTrack) {
+            return;
+        }
+        discardCurrentTrack();
+        mTrack = track;
+        NLog.i("Preloading %s", track.getId());
+        mResult =
+                mExecutor.submit(
+                        () -> {
+                            track.prepare();
+                            return null;
+                        });
+    }
+
+    /**
+     * Must be called when track is about to be initialized. Records whether it had been preloaded.
+     */
+    public Status onTrackRequired(Track track) {
+        if (track != mTrack) {
+            discardCurrentTrack();
+        }
+        Status status;
+        if (track.getMap() != null) {
+            status = Status.ALREADY_LOADED;
+        } else if (track != mTrack) {
+            status = Status.MISS;
+            ++mMissCount;
+        } else if (mResult.isDone()) {
+            status = Status.HIT;
+            ++mHitCount;
+        } else {
+            status = Status.LATE;
+            ++mLateCount;
+        }
+        // The track is now owned by its caller
+        mTrack = null;
+        mResult = null;
+
+        mLastStatus = status;
+        NLog.i(
+                "%s: %s (hits=%d late=%d misses=%d)",
+                track.getId(), status, mHitCount, mLateCount, mMissCount);
+        return status;
+    }
+
+    public Status getLastStatus() {
+        return mLastStatus;
+    }
+
+    public int getHitCount() {
+        return mHitCount;
+    }
+
+    public int getLateCount() {
+        return mLateCount;
+    }
+
+    public int getMissCount() {
+        return mMissCount;
+    }
+
+    @Override
+    public void dispose() {
+        discardCurrentTrack();
+        mExecutor.dispose();
+    }
+
+    private void discardCurrentTrack() {
+        if (mTrack == null) {
+            return;
+        }
+        Track track = mTrack;
+        // Run this on the executor so that it happens after prepare() is done, without blocking
+        // the render thread
+        mExecutor.submit(
+                () -> {
+                    track.discardPrepared();
+                    return null;
+                });
+        mTrack = null;
+        mResult = null;
+    }
+}
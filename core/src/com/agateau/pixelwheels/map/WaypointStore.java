@@ -29,7 +29,8 @@ import com.badlogic.gdx.utils.Array;
 
 /** Holds all the waypoints used by AI players */
 public class WaypointStore {
-    private static final OrientedPoint tmpPoint = new OrientedPoint();
+    private final OrientedPoint mTmpPoint = new OrientedPoint();
+    private final Vector2 mTmpVector = new Vector2();
 
     private static class WaypointInfo {
         final Vector2 waypoint = new Vector2();
@@ -55,21 +56,31 @@ public class WaypointStore {
             final LapPosition pos = lapPositionTable.get(x, y);
             Assert.check(pos != null, "No position at " + x + "x" + y);
 
-            WaypointInfo info = new WaypointInfo();
-            info.waypoint.set(x, y).scl(U);
-            info.lapDistance = pos.getLapDistance();
+            float lapDistance = pos.getLapDistance();
             if (idx > 0) {
                 Assert.check(
-                        info.lapDistance > mWaypointInfos.get(idx - 1).lapDistance,
+                        lapDistance > mWaypointInfos.get(idx - 1).lapDistance,
                         "Lap distance for point "
                                 + idx
                                 + " is shorter than for point "
                                 + (idx - 1));
             }
-            mWaypointInfos.add(info);
+            addWaypoint(x * U, y * U, lapDistance);
         }
     }
 
+    void clear() {
+        mWaypointInfos.clear();
+    }
+
+    /** unit: world */
+    void addWaypoint(float x, float y, float lapDistance) {
+        WaypointInfo info = new WaypointInfo();
+        info.waypoint.set(x, y);
+        info.lapDistance = lapDistance;
+        mWaypointInfos.add(info);
+    }
+
     public Vector2 getWaypoint(int index) {
         return mWaypointInfos.get(index).waypoint;
     }
@@ -86,13 +97,17 @@ public class WaypointStore {
         return mWaypointInfos.size;
     }
 
+    float getLapDistance(int index) {
+        return mWaypointInfos.get(index).lapDistance;
+    }
+
     /** unit: world */
     public OrientedPoint getValidPosition(Vector2 pos, float lapDistance) {
         int nextIdx = getWaypointIndex(lapDistance);
         int prevIdx = getPreviousIndex(nextIdx);
         Vector2 prev = mWaypointInfos.get(prevIdx).waypoint;
         Vector2 next = mWaypointInfos.get(nextIdx).waypoint;
-        Vector2 projected = AgcMathUtils.project(pos, prev, next);
+        Vector2 projected = AgcMathUtils.project(mTmpVector, pos, prev, next);
         float waypointSquareLength = prev.dst2(next);
         if (projected.dst2(prev) > waypointSquareLength) {
             // projected is after the [prev, next] segment
@@ -101,10 +116,10 @@ public class WaypointStore {
             // projected is before the [prev, next] segment
             projected.set(prev);
         }
-        tmpPoint.x = projected.x;
-        tmpPoint.y = projected.y;
-        tmpPoint.angle = AgcMathUtils.normalizeAngle(AgcMathUtils.segmentAngle(prev, next));
-        return tmpPoint;
+        mTmpPoint.x = projected.x;
+        mTmpPoint.y = projected.y;
+        mTmpPoint.angle = AgcMathUtils.normalizeAngle(AgcMathUtils.segmentAngle(prev, next));
+        return mTmpPoint;
     }
 
     public int getWaypointIndex(float lapDistance) {
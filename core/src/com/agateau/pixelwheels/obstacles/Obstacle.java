@@ -36,6 +36,7 @@ import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.utils.Disposable;
 
 class Obstacle extends GameObjectAdapter implements Disposable {
+    private static final ZLevel[] Z_LEVELS = {ZLevel.GROUND, ZLevel.ON_GROUND};
     private static final float LINEAR_DRAG = 90f;
     private static final float ANGULAR_DRAG = 2f;
     private final World mWorld;
@@ -73,6 +74,16 @@ class Obstacle extends GameObjectAdapter implements Disposable {
         Box2DUtils.applyCircularDrag(mBody, ANGULAR_DRAG);
     }
 
+    @Override
+    public ZLevel[] getZLevels() {
+        return Z_LEVELS;
+    }
+
+    @Override
+    public float getBoundingRadius() {
+        return mRegionRadius;
+    }
+
     @Override
     public void draw(Batch batch, ZLevel zLevel, Rectangle viewBounds) {
         if (zLevel != ZLevel.ON_GROUND && zLevel != ZLevel.GROUND) {
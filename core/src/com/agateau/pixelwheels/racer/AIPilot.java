@@ -22,9 +22,13 @@ import com.agateau.pixelwheels.BodyIdentifier;
 import com.agateau.pixelwheels.GamePlay;
 import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.bonus.Bonus;
+import com.agateau.pixelwheels.bonus.Mine;
+import com.agateau.pixelwheels.gameobject.GameObject;
+import com.agateau.pixelwheels.gameobject.GameObjectGrid;
 import com.agateau.pixelwheels.map.Championship;
 import com.agateau.pixelwheels.map.Material;
 import com.agateau.pixelwheels.map.MaterialChecker;
+import com.agateau.pixelwheels.map.RacingLine;
 import com.agateau.pixelwheels.map.Track;
 import com.agateau.pixelwheels.map.WaypointStore;
 import com.agateau.pixelwheels.stats.GameStats;
@@ -35,6 +39,7 @@ import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
 
 /** An AI pilot */
 public class AIPilot implements Pilot {
@@ -42,8 +47,21 @@ public class AIPilot implements Pilot {
     private static final float MAX_BLOCKED_DURATION = 1;
     private static final float MAX_REVERSE_DURATION = 0.5f;
     private static final int MAX_FORWARD_WAYPOINTS = 2;
+    // Checking the racing line costs 2 raycasts. If it is blocked, each candidate waypoint costs up
+    // to 2 raycasts, and we also check the previous waypoint
+    static final int MAX_RAYCASTS_PER_THINK = 2 + 2 * (MAX_FORWARD_WAYPOINTS + 1);
+    // When following the racing line, aim at a point at least this far away (unit: world), plus
+    // the distance driven during RACING_LINE_LOOK_AHEAD_TIME (unit: s)
+    private static final float RACING_LINE_MIN_LOOK_AHEAD = 4;
+    private static final float RACING_LINE_LOOK_AHEAD_TIME = 0.3f;
+    // Do not aim at points after the line turned by more than this (unit: degrees). At our look
+    // ahead distances, the segment to the target then stays about 1 unit away from the line, which
+    // is less than the margin RacingLineGenerator keeps between the line and the walls.
+    private static final float RACING_LINE_MAX_LOOK_AHEAD_TURN = 45;
     // How much of the vehicle width to move the target to avoid a mine
     private static final float AVOIDANCE_FACTOR = 2;
+    // Half the diagonal of the biggest vehicle, in world units
+    private static final float MAX_VEHICLE_RADIUS = 2.5f;
 
     private enum State {
         NORMAL,
@@ -69,13 +87,18 @@ public class AIPilot implements Pilot {
     private final Vector2 mHalfWidth = new Vector2();
     private final Vector2 mTmpVector1 = new Vector2();
     private final Vector2 mTmpVector2 = new Vector2();
+    private final Array<GameObject> mNearbyObjects = new Array<>();
 
     private final GameWorld mGameWorld;
     private final Track mTrack;
     private final Racer mRacer;
 
     private final ClosestBodyFinder mClosestBodyFinder;
+    // Only finds what can be in the way on the racing line: the line itself avoids walls
+    private final ClosestBodyFinder mTrafficFinder;
     private final MaterialChecker mMaterialChecker;
+    private final AIScheduler mScheduler;
+    private final int mSchedulerSlot;
 
     private State mState = State.NORMAL;
     private float mBlockedDuration = 0;
@@ -83,11 +106,17 @@ public class AIPilot implements Pilot {
 
     private final Target mTarget = new Target();
     private final Target mNextTarget = new Target();
+    private boolean mHasTarget = false;
+    private int mLastThinkStep = 0;
+    private int mLastThinkWaypointIndex = -1;
+    private int mRaycastCount = 0;
 
-    public AIPilot(GameWorld gameWorld, Track track, Racer racer) {
+    public AIPilot(GameWorld gameWorld, Track track, Racer racer, AIScheduler scheduler) {
         mGameWorld = gameWorld;
         mTrack = track;
         mRacer = racer;
+        mScheduler = scheduler;
+        mSchedulerSlot = scheduler.register();
         mClosestBodyFinder =
                 new ClosestBodyFinder(
                         body -> {
@@ -96,6 +125,11 @@ public class AIPilot implements Pilot {
                             }
                             return BodyIdentifier.isOtherVehicle(body, mRacer);
                         });
+        mTrafficFinder =
+                new ClosestBodyFinder(
+                        body ->
+                                BodyIdentifier.isMine(body)
+                                        || BodyIdentifier.isOtherVehicle(body, mRacer));
 
         mMaterialChecker = new MaterialChecker(track);
     }
@@ -179,6 +213,8 @@ public class AIPilot implements Pilot {
     private void switchToBlocked() {
         mState = State.BLOCKED;
         mReverseDuration = 0;
+        // Look for a new target as soon as we are back to normal
+        mHasTarget = false;
     }
 
     private void actBlocked(float dt) {
@@ -200,23 +236,49 @@ public class AIPilot implements Pilot {
 
         // If we are better ranked than a player, slow down a bit
         boolean needLimit = false;
+        int rank = mGameWorld.getRacerRank(mRacer);
         for (Racer playerRacer : mGameWorld.getPlayerRacers()) {
-            if (Racer.compareRaceDistances(mRacer, playerRacer) > 0) {
+            if (rank < mGameWorld.getRacerRank(playerRacer)) {
                 needLimit = true;
                 break;
             }
         }
         float limit = needLimit ? GamePlay.instance.aiSpeedLimiter : 1f;
         vehicle.setSpeedLimiter(limit);
+
+        // Lift off before corners which are too tight for our speed
+        RacingLine line = mTrack.getRacingLine();
+        if (line != null) {
+            float lapDistance = mRacer.getLapPositionComponent().getLapDistance();
+            int index = line.findNextIndex(lapDistance);
+            if (vehicle.getSpeed() > line.getSpeed(index)) {
+                vehicle.setAccelerating(false);
+            }
+        }
     }
 
     private void updateDirection() {
-        Target target = findBestTarget();
-        if (target == null) {
-            switchToBlocked();
+        int waypointIndex = getCurrentWaypointIndex();
+        if (shouldThink(waypointIndex) && mScheduler.acquireRaycasts(MAX_RAYCASTS_PER_THINK)) {
+            mRaycastCount = 0;
+            Target target = findRacingLineTarget();
+            if (target == null) {
+                target = findBestTarget(waypointIndex);
+            }
+            mScheduler.releaseRaycasts(MAX_RAYCASTS_PER_THINK - mRaycastCount);
+            mLastThinkStep = mScheduler.getStep();
+            mLastThinkWaypointIndex = waypointIndex;
+            mHasTarget = target != null;
+            if (target == null) {
+                switchToBlocked();
+                return;
+            }
+        }
+        if (!mHasTarget) {
+            // Not enough raycasts left in this step, keep the current direction
             return;
         }
-        float targetAngle = mTmpVector1.set(target.position).sub(mRacer.getPosition()).angleDeg();
+        float targetAngle = mTmpVector1.set(mTarget.position).sub(mRacer.getPosition()).angleDeg();
         targetAngle = AgcMathUtils.normalizeAngle(targetAngle);
 
         Vehicle vehicle = mRacer.getVehicle();
@@ -231,12 +293,104 @@ public class AIPilot implements Pilot {
         vehicle.setDirection(direction);
     }
 
-    private Target findBestTarget() {
+    private int getCurrentWaypointIndex() {
         float lapDistance = mRacer.getLapPositionComponent().getLapDistance();
+        return mTrack.getWaypointStore().getWaypointIndex(lapDistance);
+    }
+
+    /**
+     * Returns true if we need a new target: because we have none, because we went past a waypoint
+     * since we picked the current one, or because the scheduler says it's our turn
+     */
+    private boolean shouldThink(int waypointIndex) {
+        return !mHasTarget
+                || waypointIndex != mLastThinkWaypointIndex
+                || mScheduler.isDue(mSchedulerSlot, mLastThinkStep);
+    }
+
+    /**
+     * Returns a point ahead of us on the racing line, or null if the track has no racing line or if
+     * there is something between us and the point. In this case we have to look for a way around
+     * it with findBestTarget().
+     */
+    private Target findRacingLineTarget() {
+        RacingLine line = mTrack.getRacingLine();
+        if (line == null) {
+            return null;
+        }
+        Vector2 racerPosition = mRacer.getPosition();
+        float lookAhead =
+                RACING_LINE_MIN_LOOK_AHEAD
+                        + mRacer.getVehicle().getSpeed() * RACING_LINE_LOOK_AHEAD_TIME;
+        float lapDistance = mRacer.getLapPositionComponent().getLapDistance();
+        int index = line.findNextIndex(lapDistance);
+        // Stop looking ahead once the line has turned too much: the straight segment to points
+        // further away could cut through the inside of the corner, for example in a hairpin.
+        float turn = 0;
+        float previousAngle = Float.NaN;
+        for (int count = line.getCount(); count > 0; --count) {
+            if (line.getPosition(index).dst2(racerPosition) >= lookAhead * lookAhead) {
+                break;
+            }
+            int nextIndex = line.getNextIndex(index);
+            float angle =
+                    AgcMathUtils.segmentAngle(line.getPosition(index), line.getPosition(nextIndex));
+            if (!Float.isNaN(previousAngle)) {
+                turn += Math.abs(AgcMathUtils.shortestAngleDelta(previousAngle, angle));
+                if (turn > RACING_LINE_MAX_LOOK_AHEAD_TURN) {
+                    break;
+                }
+            }
+            previousAngle = angle;
+            index = nextIndex;
+        }
+        mNextTarget.position.set(line.getPosition(index));
+
+        // The line itself and the check above avoid walls, only check for vehicles and mines on
+        // both sides
+        if (!hasVehiclesOrMinesAround(racerPosition, mNextTarget.position)) {
+            mTarget.set(mNextTarget.position, Target.NO_OBSTACLES);
+            return mTarget;
+        }
+        Vector2 position = mTmpVector1;
+        Vector2 adjustedTargetPos = mTmpVector2;
+        World world = mGameWorld.getBox2DWorld();
+        for (int side = -1; side <= 1; side += 2) {
+            position.set(mHalfWidth).scl(side).add(racerPosition);
+            adjustedTargetPos.set(mHalfWidth).scl(side).add(mNextTarget.position);
+            ++mRaycastCount;
+            if (mTrafficFinder.find(world, position, adjustedTargetPos) != null) {
+                return null;
+            }
+        }
+        mTarget.set(mNextTarget.position, Target.NO_OBSTACLES);
+        return mTarget;
+    }
+
+    /**
+     * Returns true if there are other vehicles or mines close to the segment between position and
+     * target. This only looks at the game object grid, which is much cheaper than raycasting.
+     */
+    private boolean hasVehiclesOrMinesAround(Vector2 position, Vector2 target) {
+        float centerX = (position.x + target.x) / 2;
+        float centerY = (position.y + target.y) / 2;
+        float radius = position.dst(target) / 2 + mHalfWidth.len() + MAX_VEHICLE_RADIUS;
+        mNearbyObjects.clear();
+        GameObjectGrid grid = mGameWorld.getGameObjectGrid();
+        grid.findObjectsInRadius(centerX, centerY, radius, mNearbyObjects);
+        for (GameObject object : mNearbyObjects) {
+            if (object != mRacer && (object instanceof Racer || object instanceof Mine)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Target findBestTarget(int waypointIndex) {
         WaypointStore store = mTrack.getWaypointStore();
 
         // Start at the previous index, as a fallback in case the next waypoints are not visible
-        int index = store.getPreviousIndex(store.getWaypointIndex(lapDistance));
+        int index = store.getPreviousIndex(waypointIndex);
         mTarget.reset();
         for (int i = -1; i < MAX_FORWARD_WAYPOINTS; ++i, index = store.getNextIndex(index)) {
             mNextTarget.position.set(store.getWaypoint(index));
@@ -291,6 +445,7 @@ public class AIPilot implements Pilot {
     private boolean checkClearLine(
             Vector2 position, Vector2 adjustedTargetPos, float avoidanceFactor) {
         World world = mGameWorld.getBox2DWorld();
+        ++mRaycastCount;
         Body body = mClosestBodyFinder.find(world, position, adjustedTargetPos);
         if (body == null) {
             return true;
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.racer;
+
+import com.agateau.pixelwheels.GamePlay;
+
+/**
+ * Decides when AI pilots are allowed to re-evaluate their target.
+ *
+ * <p>Finding a target requires several raycasts, so pilots only do it every
+ * GamePlay.aiThinkInterval steps, at different steps for each pilot. Between two evaluations a
+ * pilot keeps steering towards its last target.
+ *
+ * <p>Raycasts are also limited to GamePlay.aiMaxRaycastsPerStep for each step: a pilot which cannot
+ * get enough raycasts tries again at the next step. This way the AI cost stops growing with the
+ * number of racers once the budget is reached. The budget is never less than what a single pilot
+ * needs, otherwise no pilot would ever think again.
+ */
+public class AIScheduler {
+    private int mStep = 0;
+    private int mPilotCount = 0;
+    private int mRaycastBudget = 0;
+
+    /** Must be called at the beginning of each world step */
+    public void beginStep() {
+        ++mStep;
+        mRaycastBudget =
+                Math.max(GamePlay.instance.aiMaxRaycastsPerStep, AIPilot.MAX_RAYCASTS_PER_THINK);
+    }
+
+    /** Returns a slot, used to make the pilots think at different steps */
+    int register() {
+        return mPilotCount++;
+    }
+
+    int getStep() {
+        return mStep;
+    }
+
+    /**
+     * Returns true if the pilot owning slot is due for a re-evaluation, either because it is its
+     * turn or because it could not get its raycasts when it was its turn
+     */
+    boolean isDue(int slot, int lastThinkStep) {
+        int interval = Math.max(GamePlay.instance.aiThinkInterval, 1);
+        return (mStep + slot) % interval == 0 || mStep - lastThinkStep > interval;
+    }
+
+    /** Returns true and removes count from the budget of this step if there are enough raycasts */
+    boolean acquireRaycasts(int count) {
+        if (count > mRaycastBudget) {
+            return false;
+        }
+        mRaycastBudget -= count;
+        return true;
+    }
+
+    /** Gives back raycasts which have been acquired but not used */
+    void releaseRaycasts(int count) {
+        mRaycastBudget += count;
+    }
+}
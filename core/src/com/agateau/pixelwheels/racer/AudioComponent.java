@@ -23,6 +23,7 @@ import com.agateau.pixelwheels.gameobject.AudioClipper;
 import com.agateau.pixelwheels.racescreen.Collidable;
 import com.agateau.pixelwheels.sound.AudioManager;
 import com.agateau.pixelwheels.sound.EngineSoundPlayer;
+import com.agateau.pixelwheels.sound.SoundCategory;
 import com.agateau.pixelwheels.sound.SoundAtlas;
 import com.agateau.pixelwheels.sound.SoundPlayer;
 import com.agateau.pixelwheels.sound.SoundSettings;
@@ -59,15 +60,18 @@ class AudioComponent implements Racer.Component, Disposable, Collidable {
 
     public AudioComponent(SoundAtlas atlas, AudioManager audioManager, Racer racer) {
         mAudioManager = audioManager;
+        SoundCategory category;
         if (racer.getEntrant().isPlayer()) {
-            mEngineSoundPlayer = new EngineSoundPlayer(atlas, audioManager);
+            category = SoundCategory.PLAYER_RACER;
+            mEngineSoundPlayer = new EngineSoundPlayer(atlas, audioManager, category);
         } else {
+            category = SoundCategory.AI_RACER;
             mEngineSoundPlayer = null;
         }
-        mDriftingSoundPlayer = audioManager.createSoundPlayer(atlas.get("drifting"));
-        mTurboSoundPlayer = audioManager.createSoundPlayer(atlas.get("turbo"));
-        mCollisionSoundPlayer = audioManager.createSoundPlayer(atlas.get("collision"));
-        mSplashSoundPlayer = audioManager.createSoundPlayer(atlas.get("splash"));
+        mDriftingSoundPlayer = audioManager.createSoundPlayer(atlas.get("drifting"), category);
+        mTurboSoundPlayer = audioManager.createSoundPlayer(atlas.get("turbo"), category);
+        mCollisionSoundPlayer = audioManager.createSoundPlayer(atlas.get("collision"), category);
+        mSplashSoundPlayer = audioManager.createSoundPlayer(atlas.get("splash"), category);
         mSoundPlayers.addAll(mDriftingSoundPlayer, mTurboSoundPlayer, mCollisionSoundPlayer);
         mRacer = racer;
     }
@@ -20,6 +20,7 @@ package com.agateau.pixelwheels.racer;
 
 import com.agateau.pixelwheels.Assets;
 import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.map.HazardDistanceField;
 import com.agateau.pixelwheels.map.Track;
 import com.agateau.pixelwheels.racescreen.Helicopter;
 import com.agateau.pixelwheels.utils.OrientedPoint;
@@ -35,6 +36,8 @@ public class HoleHandlerComponent implements Racer.Component {
     // Time for the helicopter to lift and drop the vehicle
     private static final float LIFT_DROP_DURATION = 0.5f;
     private static final float MAX_RECOVERING_ROTATION_SPEED = 360;
+    // Do not drop vehicles closer than this to a hole, a wall or a slow material (unit: world)
+    private static final float MIN_DROP_HAZARD_DISTANCE = 1.5f;
 
     private final Assets mAssets;
     private final GameWorld mGameWorld;
@@ -43,6 +46,7 @@ public class HoleHandlerComponent implements Racer.Component {
     private final Track mTrack;
     private final Racer mRacer;
     private final Vector2 mVelocity = new Vector2();
+    private final Vector2 mTmpVector = new Vector2();
     private Helicopter mHelicopter = null;
 
     public enum State {
@@ -170,7 +174,12 @@ public class HoleHandlerComponent implements Racer.Component {
         float distance = mLapPositionComponent.getLapDistance();
         OrientedPoint dropPoint =
                 mTrack.getValidPosition(mVehicle.getBody().getWorldCenter(), distance);
-        mHelicopter.setDestination(dropPoint);
+        mTmpVector.set(dropPoint.x, dropPoint.y);
+        HazardDistanceField field = mTrack.getHazardDistanceField();
+        if (field.getDistance(mTmpVector.x, mTmpVector.y) < MIN_DROP_HAZARD_DISTANCE) {
+            field.moveAway(mTmpVector, MIN_DROP_HAZARD_DISTANCE);
+        }
+        mHelicopter.setDestination(mTmpVector, dropPoint.angle);
     }
 
     private void actRecovering(float delta) {
@@ -97,7 +97,8 @@ public class LapPositionComponent implements Racer.Component {
         final float PFU = 1 / Constants.UNIT_FOR_PIXEL;
         final int pixelX = (int) (PFU * mVehicle.getX());
         final int pixelY = (int) (PFU * mVehicle.getY());
-        final LapPosition pos = mTrack.getLapPositionTable().get(pixelX, pixelY);
+        final LapPosition pos =
+                mTrack.getLapPositionTable().get(pixelX, pixelY, oldSectionId);
         if (pos == null) {
             NLog.e("No LapPosition at pixel " + pixelX + " x " + pixelY);
             return;
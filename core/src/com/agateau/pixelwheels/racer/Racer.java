@@ -24,7 +24,6 @@ import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.ZLevel;
 import com.agateau.pixelwheels.bonus.Bonus;
 import com.agateau.pixelwheels.bonus.BonusPool;
-import com.agateau.pixelwheels.debug.Debug;
 import com.agateau.pixelwheels.gameobject.AudioClipper;
 import com.agateau.pixelwheels.gameobject.CellFrameBufferManager;
 import com.agateau.pixelwheels.gameobject.CellFrameBufferUser;
@@ -66,6 +65,7 @@ public class Racer extends GameObjectAdapter
     // State
     private Bonus mBonus;
     private final RecordRanks mRecordRanks = new RecordRanks();
+    private boolean mCellDisrupted = false;
 
     @Override
     public void init(CellFrameBufferManager manager) {
@@ -73,14 +73,27 @@ public class Racer extends GameObjectAdapter
     }
 
     @Override
-    public void drawToCell(Batch batch, Rectangle viewBounds) {
+    public boolean isCellVisible(Rectangle viewBounds) {
+        return mVehicleRenderer.isCellVisible(viewBounds);
+    }
+
+    @Override
+    public boolean updateCell() {
+        boolean dirty = mVehicleRenderer.updateCell();
+        // The cell color changes during the whole disruption, and must be reset after it
+        return dirty || isDisrupted() || mCellDisrupted;
+    }
+
+    @Override
+    public void drawToCell(Batch batch) {
+        mCellDisrupted = isDisrupted();
         float old = batch.getPackedColor();
         if (isDisrupted()) {
             float k = MathUtils.lerp(1f, 0.1f, mDisruptedComponent.getNormalizedDuration());
             k = Interpolation.pow2.apply(k);
             batch.setColor(k, k, k, 1);
         }
-        mVehicleRenderer.drawToCell(batch, viewBounds);
+        mVehicleRenderer.drawToCell(batch);
         batch.setPackedColor(old);
     }
 
@@ -154,12 +167,6 @@ public class Racer extends GameObjectAdapter
         addComponent(supervisorComponent);
         addComponent(new BonusSpotHitComponent(this));
         addComponent(mAudioComponent);
-
-        if (Debug.instance.createSpeedReport) {
-            Probe probe = new Probe("speed.dat");
-            mVehicle.setProbe(probe);
-            addComponent(probe);
-        }
     }
 
     private void addComponent(Component component) {
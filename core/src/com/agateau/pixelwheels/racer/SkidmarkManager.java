@@ -0,0 +1,259 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.racer;
+
+import com.agateau.pixelwheels.Constants;
+import com.agateau.pixelwheels.ZLevel;
+import com.agateau.pixelwheels.gameobject.GameObjectAdapter;
+import com.agateau.utils.AgcMathUtils;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * Stores and draws the skidmarks of all the wheels of a race.
+ *
+ * <p>Skidmarks are made of quads, stored in a ring buffer of vertices ready to be sent to the
+ * batch. When the buffer is full, new quads replace the oldest ones.
+ *
+ * <p>The opacity of a quad is computed from its birth time when it is drawn, so quads do not need
+ * to be updated as they age.
+ *
+ * <p>The buffer is split in chunks of quads. Chunks which are not in view are not drawn, and
+ * consecutive visible chunks are drawn with a single call.
+ */
+public class SkidmarkManager extends GameObjectAdapter {
+    /** How long a skidmark stays visible, in seconds */
+    public static final float LIFETIME = 30f;
+
+    private static final float WIDTH = 7 * Constants.UNIT_FOR_PIXEL;
+    private static final float ALPHA_INC = 0.05f;
+    private static final float ALPHA_MIN = 0.1f;
+    private static final float ALPHA_MAX = 0.4f;
+
+    private static final ZLevel[] Z_LEVELS = {ZLevel.GROUND};
+
+    private static final int VERTEX_SIZE = 5;
+    private static final int QUAD_SIZE = 4 * VERTEX_SIZE;
+    // In quads
+    static final int CHUNK_SIZE = 64;
+
+    /** The skidmark trail of a wheel */
+    public static class Trail {
+        private final Vector2 mLastPos = new Vector2();
+        private final Vector2 mLastThickness = new Vector2();
+        private boolean mHasLastPos = false;
+        private boolean mHasLastThickness = false;
+        private float mAlpha = ALPHA_MIN;
+
+        /** Ends the current skidmark, the next point starts a new one */
+        public void end() {
+            mHasLastPos = false;
+            mHasLastThickness = false;
+        }
+    }
+
+    private final TextureRegion mRegion;
+
+    // In quads, always a multiple of CHUNK_SIZE, so that chunks do not wrap around
+    private final int mCapacity;
+    private final float[] mVertices;
+    private final float[] mBirthTimes;
+    // Base alpha of the start and end of each quad
+    private final float[] mAlphas;
+    private final Rectangle[] mChunkBounds;
+    // Do not use AgcMathUtils' shared vector: races may run in parallel threads
+    private final Vector2 mTmpThickness = new Vector2();
+
+    // Index of the oldest quad
+    private int mBegin = 0;
+    private int mCount = 0;
+    private float mTime = 0;
+
+    public SkidmarkManager(TextureRegion region, int maxQuadCount) {
+        mRegion = region;
+        int chunkCount = Math.max(1, (maxQuadCount + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        mCapacity = chunkCount * CHUNK_SIZE;
+        mVertices = new float[mCapacity * QUAD_SIZE];
+        mBirthTimes = new float[mCapacity];
+        mAlphas = new float[mCapacity * 2];
+        mChunkBounds = new Rectangle[chunkCount];
+        for (int idx = 0; idx < chunkCount; ++idx) {
+            mChunkBounds[idx] = new Rectangle();
+        }
+    }
+
+    /** Adds a point to the trail, creating a new quad if the trail already has a point */
+    public void addPoint(Trail trail, Vector2 pos) {
+        if (!trail.mHasLastPos) {
+            trail.mLastPos.set(pos);
+            trail.mHasLastPos = true;
+            trail.mAlpha = ALPHA_MIN;
+            return;
+        }
+        if (trail.mLastPos.epsilonEquals(pos)) {
+            return;
+        }
+        Vector2 thickness =
+                AgcMathUtils.computeWidthVector(mTmpThickness, trail.mLastPos, pos, WIDTH / 2);
+        if (!trail.mHasLastThickness) {
+            trail.mLastThickness.set(thickness);
+            trail.mHasLastThickness = true;
+        }
+        addQuad(
+                trail.mLastPos,
+                trail.mLastThickness,
+                pos,
+                thickness,
+                trail.mAlpha,
+                trail.mAlpha + ALPHA_INC);
+        trail.mAlpha = Math.min(ALPHA_MAX, trail.mAlpha + ALPHA_INC);
+        trail.mLastPos.set(pos);
+        trail.mLastThickness.set(thickness);
+    }
+
+    int getQuadCount() {
+        return mCount;
+    }
+
+    @Override
+    public void act(float delta) {
+        mTime += delta;
+        // Quads are sorted by birth time, so expired ones are always at the beginning
+        while (mCount > 0 && mTime - mBirthTimes[mBegin] >= LIFETIME) {
+            mBegin = (mBegin + 1) % mCapacity;
+            --mCount;
+        }
+    }
+
+    @Override
+    public ZLevel[] getZLevels() {
+        return Z_LEVELS;
+    }
+
+    @Override
+    public void draw(Batch batch, ZLevel zLevel, Rectangle viewBounds) {
+        // Range of visible quads waiting to be drawn, as ring indexes
+        int runBegin = 0;
+        int runEnd = 0;
+        for (int idx = mBegin, end = mBegin + mCount; idx < end; ) {
+            int ringIdx = idx % mCapacity;
+            int chunkEnd = Math.min(end, idx + CHUNK_SIZE - ringIdx % CHUNK_SIZE);
+            if (mChunkBounds[ringIdx / CHUNK_SIZE].overlaps(viewBounds)) {
+                if (ringIdx != runEnd) {
+                    drawQuads(batch, runBegin, runEnd);
+                    runBegin = ringIdx;
+                }
+                runEnd = ringIdx + chunkEnd - idx;
+            }
+            idx = chunkEnd;
+        }
+        drawQuads(batch, runBegin, runEnd);
+    }
+
+    @Override
+    public float getX() {
+        return 0;
+    }
+
+    @Override
+    public float getY() {
+        return 0;
+    }
+
+    private void addQuad(
+            Vector2 pos1,
+            Vector2 thickness1,
+            Vector2 pos2,
+            Vector2 thickness2,
+            float alpha1,
+            float alpha2) {
+        int idx = (mBegin + mCount) % mCapacity;
+        boolean newChunk = idx % CHUNK_SIZE == 0;
+        if (newChunk) {
+            // Drop the old quads still stored in the chunk, so that the chunk bounds only have to
+            // cover the new quads
+            int dropCount = mCount + CHUNK_SIZE - mCapacity;
+            if (dropCount > 0) {
+                mBegin = (mBegin + dropCount) % mCapacity;
+                mCount -= dropCount;
+            }
+        }
+        ++mCount;
+        mBirthTimes[idx] = mTime;
+        mAlphas[idx * 2] = alpha1;
+        mAlphas[idx * 2 + 1] = alpha2;
+
+        /*
+            0            3
+             x----------x        ^
+             |          |        |
+        pos1 x          x pos2   | thickness
+             |          |
+             x----------x
+            1            2
+         */
+        float u = mRegion.getU();
+        float v = mRegion.getV();
+        float u2 = mRegion.getU2();
+        float v2 = mRegion.getV2();
+        int offset = idx * QUAD_SIZE;
+        initVertex(offset, pos1.x + thickness1.x, pos1.y + thickness1.y, u, v);
+        initVertex(offset + VERTEX_SIZE, pos1.x - thickness1.x, pos1.y - thickness1.y, u2, v);
+        initVertex(offset + 2 * VERTEX_SIZE, pos2.x - thickness2.x, pos2.y - thickness2.y, u2, v2);
+        initVertex(offset + 3 * VERTEX_SIZE, pos2.x + thickness2.x, pos2.y + thickness2.y, u, v2);
+
+        Rectangle bounds = mChunkBounds[idx / CHUNK_SIZE];
+        if (newChunk) {
+            bounds.set(mVertices[offset], mVertices[offset + 1], 0, 0);
+        }
+        for (int vertex = 0; vertex < 4; ++vertex) {
+            int vertexOffset = offset + vertex * VERTEX_SIZE;
+            bounds.merge(mVertices[vertexOffset], mVertices[vertexOffset + 1]);
+        }
+    }
+
+    private void initVertex(int offset, float x, float y, float u, float v) {
+        mVertices[offset] = x;
+        mVertices[offset + 1] = y;
+        // Color is set when drawing
+        mVertices[offset + 3] = u;
+        mVertices[offset + 4] = v;
+    }
+
+    /** Updates the colors of quads from begin to end (excluded), then draws them */
+    private void drawQuads(Batch batch, int begin, int end) {
+        if (begin == end) {
+            return;
+        }
+        for (int idx = begin; idx < end; ++idx) {
+            float opacity = Math.max(0, 1 - (mTime - mBirthTimes[idx]) / LIFETIME);
+            float color1 = Color.toFloatBits(1, 1, 1, mAlphas[idx * 2] * opacity);
+            float color2 = Color.toFloatBits(1, 1, 1, mAlphas[idx * 2 + 1] * opacity);
+            int offset = idx * QUAD_SIZE + 2;
+            mVertices[offset] = color1;
+            mVertices[offset + VERTEX_SIZE] = color1;
+            mVertices[offset + 2 * VERTEX_SIZE] = color2;
+            mVertices[offset + 3 * VERTEX_SIZE] = color2;
+        }
+        batch.draw(mRegion.getTexture(), mVertices, begin * QUAD_SIZE, (end - begin) * QUAD_SIZE);
+    }
+}
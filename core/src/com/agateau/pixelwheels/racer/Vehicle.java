@@ -81,7 +81,7 @@ public class Vehicle implements Racer.Component, Disposable {
     private float mSpeedLimiter = 1f;
     private boolean mFlying = false;
 
-    private Probe mProbe = null;
+    private float mSteerAngle = 0;
 
     private final ArrayMap<Long, Float> mTurboCellMap = new ArrayMap<>(8);
 
@@ -185,10 +185,6 @@ public class Vehicle implements Racer.Component, Disposable {
         }
     }
 
-    public void setProbe(Probe probe) {
-        mProbe = probe;
-    }
-
     public void setCollisionInfo(int categoryBits, int maskBits) {
         mCollisionCategoryBits = categoryBits;
         mCollisionMaskBits = maskBits;
@@ -215,6 +211,15 @@ public class Vehicle implements Racer.Component, Disposable {
         return mBody.getLinearVelocity().len();
     }
 
+    /** Returns the steer angle applied to the wheels during the last step, in degrees */
+    public float getSteerAngle() {
+        return mSteerAngle;
+    }
+
+    public Material getMaterial() {
+        return mMaterial;
+    }
+
     public boolean isDrifting() {
         for (WheelInfo wheelInfo : mWheels) {
             if (wheelInfo.wheel.isDrifting()) {
@@ -378,7 +383,8 @@ public class Vehicle implements Racer.Component, Disposable {
             }
         }
 
-        float steerAngle = computeSteerAngle() * MathUtils.degRad;
+        mSteerAngle = computeSteerAngle();
+        float steerAngle = mSteerAngle * MathUtils.degRad;
         for (WheelInfo info : mWheels) {
             float angle = info.steeringFactor * steerAngle;
             info.wheel.adjustSpeed(speedDelta);
@@ -426,35 +432,18 @@ public class Vehicle implements Racer.Component, Disposable {
     private float computeSteerAngle() {
         final GamePlay GP = GamePlay.instance;
         if (mDirection == 0) {
-            if (mProbe != null) {
-                float speed = mBody.getLinearVelocity().len() * Box2DUtils.MS_TO_KMH;
-                mProbe.addValue("steer", 0);
-                mProbe.addValue("speed", speed);
-                mProbe.addValue("category", 0);
-            }
             return 0;
         }
 
         float speed = mBody.getLinearVelocity().len() * Box2DUtils.MS_TO_KMH;
         float steer;
-        // Category is 0 if speed is < GP.lowSpeed, 1 if < GP.maxSpeed, 2 if > GP.maxSpeed
-        // For a better driving experience, it should not reach 2 except when triggering turbos
-        float category;
         if (speed < GP.lowSpeed) {
             steer = MathUtils.lerp(GP.stoppedMaxSteer, GP.lowSpeedMaxSteer, speed / GP.lowSpeed);
-            category = 0;
         } else if (speed < GP.maxSpeed) {
             float factor = (speed - GP.lowSpeed) / (GP.maxSpeed - GP.lowSpeed);
             steer = MathUtils.lerp(GP.lowSpeedMaxSteer, GP.highSpeedMaxSteer, factor);
-            category = 1;
         } else {
             steer = GP.highSpeedMaxSteer;
-            category = 2;
-        }
-        if (mProbe != null) {
-            mProbe.addValue("steer", steer);
-            mProbe.addValue("speed", speed);
-            mProbe.addValue("category", category);
         }
         return mDirection * steer;
     }
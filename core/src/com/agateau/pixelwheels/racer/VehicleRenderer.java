@@ -36,24 +36,33 @@ import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
 
 /** Renders a vehicle */
 public class VehicleRenderer implements CellFrameBufferUser {
     private static final int CELL_SIZE = 200;
+    // Changes smaller than this (in pixels or degrees) do not cause the cell to be redrawn
+    private static final float CELL_STATE_EPSILON = 0.01f;
 
     private final Assets mAssets;
     private final Vehicle mVehicle;
     private final Array<Renderer> mRenderers = new Array<>();
-    private final SkidmarksRenderer mSkidmarksRenderer;
     private float mTime = 0;
     private final BodyRegionDrawer mBodyRegionDrawer = new BodyRegionDrawer();
     private CellFrameBufferManager mCellFrameBufferManager;
     private int mCellId = -1;
 
+    // What was drawn in the cell, to find out if it must be redrawn. For each body, cellValues
+    // contains the x and y offsets and the angle
+    private final Array<TextureRegion> mCellRegions = new Array<>();
+    private final FloatArray mCellValues = new FloatArray();
+    private final Array<TextureRegion> mNewCellRegions = new Array<>();
+    private final FloatArray mNewCellValues = new FloatArray();
+    private boolean mCellHasRendererContent = false;
+
     public VehicleRenderer(Assets assets, Vehicle vehicle) {
         mAssets = assets;
         mVehicle = vehicle;
-        mSkidmarksRenderer = new SkidmarksRenderer(mAssets);
     }
 
     public void addRenderer(Renderer renderer) {
@@ -84,15 +93,25 @@ public class VehicleRenderer implements CellFrameBufferUser {
         mCellId = manager.reserveCell(CELL_SIZE, CELL_SIZE);
     }
 
-    private void drawBodyToCell(Batch batch, Body body, TextureRegion region) {
+    private static float getCellAngle(Body body) {
         float angle = body.getAngle() * MathUtils.radiansToDegrees;
         // Snap angles so that the vehicle body textures are not drawn slightly rotated when facing
         // north, south, east or west. This is especially useful at startup.
-        angle = AgcMathUtils.snapAngle(angle);
-        float xOffset =
-                (body.getPosition().x - mVehicle.getPosition().x) / Constants.UNIT_FOR_PIXEL;
-        float yOffset =
-                (body.getPosition().y - mVehicle.getPosition().y) / Constants.UNIT_FOR_PIXEL;
+        return AgcMathUtils.snapAngle(angle);
+    }
+
+    private float getCellXOffset(Body body) {
+        return (body.getPosition().x - mVehicle.getPosition().x) / Constants.UNIT_FOR_PIXEL;
+    }
+
+    private float getCellYOffset(Body body) {
+        return (body.getPosition().y - mVehicle.getPosition().y) / Constants.UNIT_FOR_PIXEL;
+    }
+
+    private void drawBodyToCell(Batch batch, Body body, TextureRegion region) {
+        float angle = getCellAngle(body);
+        float xOffset = getCellXOffset(body);
+        float yOffset = getCellYOffset(body);
         float w = region.getRegionWidth();
         float h = region.getRegionHeight();
         float x = mCellFrameBufferManager.getCellCenterX(mCellId) + xOffset;
@@ -116,9 +135,68 @@ public class VehicleRenderer implements CellFrameBufferUser {
     }
 
     @Override
-    public void drawToCell(Batch batch, Rectangle viewBounds) {
+    public boolean isCellVisible(Rectangle viewBounds) {
+        // The cell is drawn scaled when the vehicle is flying, and is also used for its shadow, so
+        // use a generous radius
+        float radius = CELL_SIZE * Constants.UNIT_FOR_PIXEL * (mVehicle.getZ() + 1);
+        return AgcMathUtils.rectangleContains(viewBounds, mVehicle.getPosition(), radius);
+    }
+
+    @Override
+    public boolean updateCell() {
         mTime += Gdx.app.getGraphics().getDeltaTime();
 
+        mNewCellRegions.clear();
+        mNewCellValues.clear();
+        for (Vehicle.WheelInfo info : mVehicle.getWheelInfos()) {
+            addCellState(info.wheel.getBody(), info.wheel.getRegion());
+        }
+        addCellState(mVehicle.getBody(), mVehicle.getRegion(mTime));
+
+        boolean changed = !isSameCellState();
+        if (changed) {
+            mCellRegions.clear();
+            mCellRegions.addAll(mNewCellRegions);
+            mCellValues.clear();
+            mCellValues.addAll(mNewCellValues);
+        }
+        // We cannot tell if the content drawn by the renderers changed, so always redraw it, and
+        // redraw once more after they are gone to remove it
+        return changed
+                || mRenderers.size > 0
+                || mCellHasRendererContent
+                || mCellFrameBufferManager.isCellDirty(mCellId);
+    }
+
+    private void addCellState(Body body, TextureRegion region) {
+        mNewCellRegions.add(region);
+        mNewCellValues.add(getCellXOffset(body));
+        mNewCellValues.add(getCellYOffset(body));
+        mNewCellValues.add(getCellAngle(body));
+    }
+
+    private boolean isSameCellState() {
+        if (mNewCellRegions.size != mCellRegions.size) {
+            return false;
+        }
+        for (int idx = 0; idx < mCellRegions.size; ++idx) {
+            if (mNewCellRegions.get(idx) != mCellRegions.get(idx)) {
+                return false;
+            }
+        }
+        for (int idx = 0; idx < mCellValues.size; ++idx) {
+            if (Math.abs(mNewCellValues.get(idx) - mCellValues.get(idx)) > CELL_STATE_EPSILON) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void drawToCell(Batch batch) {
+        mCellFrameBufferManager.beginCell(mCellId);
+        mCellHasRendererContent = mRenderers.size > 0;
+
         // Wheels and body
         for (Vehicle.WheelInfo info : mVehicle.getWheelInfos()) {
             drawBodyToCell(batch, info.wheel.getBody(), info.wheel.getRegion());
@@ -138,12 +216,8 @@ public class VehicleRenderer implements CellFrameBufferUser {
         mBodyRegionDrawer.setBatch(batch);
         float scale = mVehicle.getZ() + 1;
 
-        // Ground: skidmarks, splash, shadow
+        // Ground: splash, shadow. Skidmarks are drawn by SkidmarkManager
         if (zLevel == ZLevel.GROUND) {
-            for (Vehicle.WheelInfo info : mVehicle.getWheelInfos()) {
-                mSkidmarksRenderer.draw(batch, info.wheel.getSkidmarks(), viewBounds);
-            }
-
             // Only draw splash and shadow if we are not falling
             if (!mVehicle.isFalling()) {
                 for (Vehicle.WheelInfo info : mVehicle.getWheelInfos()) {
@@ -21,10 +21,8 @@ package com.agateau.pixelwheels.racer;
 import com.agateau.pixelwheels.Constants;
 import com.agateau.pixelwheels.GamePlay;
 import com.agateau.pixelwheels.GameWorld;
-import com.agateau.pixelwheels.debug.Debug;
 import com.agateau.pixelwheels.map.Material;
 import com.agateau.pixelwheels.utils.Box2DUtils;
-import com.agateau.utils.CircularArray;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Interpolation;
@@ -41,68 +39,8 @@ public class Wheel implements Disposable {
             0.5f; // Limit how much of the lateral velocity is killed when drifting
     private static final float DRAG_FACTOR = 1;
     private static final int SKIDMARK_INTERVAL = 3;
-    private static final float SKIDMARK_LIFETIME = 10f;
 
-    public static class Skidmark {
-        private final Vector2 mPos = new Vector2();
-        // Stores the thickness used to draw the skidmark. Avoids computing it each time we draw the
-        // skidmark. See SkidmarksRenderer for details
-        private final Vector2 mThickness = new Vector2();
-        private boolean mIsEndIndicator = false;
-        private float mRemainingLife;
-
-        public boolean isEndIndicator() {
-            return mIsEndIndicator;
-        }
-
-        public Vector2 getPos() {
-            return mPos;
-        }
-
-        public void init(Vector2 pos) {
-            mPos.set(pos);
-            mThickness.set(0, 0);
-            mRemainingLife = SKIDMARK_LIFETIME;
-        }
-
-        /** This mark indicates the end of a skidmark. Next mark starts a new skidmark. */
-        public void initAsEndIndicator() {
-            mIsEndIndicator = true;
-        }
-
-        @SuppressWarnings("BooleanMethodIsAlwaysInverted")
-        public boolean hasThickness() {
-            return mThickness.x != 0 && mThickness.y != 0;
-        }
-
-        public void setThickness(Vector2 thickness) {
-            mThickness.set(thickness);
-        }
-
-        public Vector2 getThickness() {
-            return mThickness;
-        }
-
-        public void act(float delta) {
-            mRemainingLife = Math.max(0, mRemainingLife - delta);
-        }
-
-        public float getOpacity() {
-            return mRemainingLife / SKIDMARK_LIFETIME;
-        }
-
-        public boolean isFinished() {
-            return mRemainingLife <= 0;
-        }
-    }
-
-    private final CircularArray<Skidmark> mSkidmarks =
-            new CircularArray<Skidmark>(Debug.instance.maxSkidmarks) {
-                @Override
-                protected Skidmark createInstance() {
-                    return new Skidmark();
-                }
-            };
+    private final SkidmarkManager.Trail mSkidmarkTrail = new SkidmarkManager.Trail();
     private int mSkidmarkCount = 0; // Used to limit the number of skidmarks created
 
     private final Body mBody;
@@ -168,11 +106,6 @@ public class Wheel implements Disposable {
             updateFriction();
             Box2DUtils.applyDrag(mBody, DRAG_FACTOR);
         }
-        for (int idx = mSkidmarks.getBeginIndex(), end = mSkidmarks.getEndIndex();
-                idx != end;
-                idx = mSkidmarks.getNextIndex(idx)) {
-            mSkidmarks.get(idx).act(delta);
-        }
     }
 
     public Body getBody() {
@@ -219,13 +152,13 @@ public class Wheel implements Disposable {
             // Drift
             mDrifting = true;
             if (mSkidmarkCount == 0) {
-                mSkidmarks.add().init(mBody.getWorldCenter());
+                mGameWorld.getSkidmarkManager().addPoint(mSkidmarkTrail, mBody.getWorldCenter());
             }
             mSkidmarkCount = (mSkidmarkCount + 1) % SKIDMARK_INTERVAL;
             maxImpulse = Math.max(maxImpulse, impulse.len() - DRIFT_IMPULSE_REDUCTION);
             impulse.limit(maxImpulse);
         } else if (mDrifting) {
-            mSkidmarks.add().initAsEndIndicator();
+            mSkidmarkTrail.end();
             mDrifting = false;
         }
         mBody.applyLinearImpulse(impulse, mBody.getWorldCenter(), true);
@@ -250,10 +183,6 @@ public class Wheel implements Disposable {
         mMaxDrivingForce = maxDrivingForce;
     }
 
-    public CircularArray<Skidmark> getSkidmarks() {
-        return mSkidmarks;
-    }
-
     public Material getMaterial() {
         return mMaterial;
     }
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.racescreen;
+
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.gameobject.CellFrameBufferManager;
+import com.agateau.pixelwheels.gameobject.CellFrameBufferUser;
+import com.agateau.pixelwheels.gameobject.GameObject;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * Draws the cells of all the CellFrameBufferUser objects of a race, once per frame, to a frame
+ * buffer shared by all the GameRenderers of the race.
+ *
+ * <p>Cells of objects which are not visible in any renderer are not drawn, so the cost of this pass
+ * does not grow with the number of renderers. Cells whose content did not change are not drawn
+ * either.
+ */
+public class CellFrameBufferPass implements Disposable {
+    private final Batch mBatch;
+    private final CellFrameBufferManager mManager = new CellFrameBufferManager();
+    private final Array<CellFrameBufferUser> mUsers = new Array<>();
+
+    public CellFrameBufferPass(GameWorld world, Batch batch) {
+        mBatch = batch;
+        for (GameObject object : world.getActiveGameObjects()) {
+            if (object instanceof CellFrameBufferUser) {
+                CellFrameBufferUser user = (CellFrameBufferUser) object;
+                user.init(mManager);
+                mUsers.add(user);
+            }
+        }
+    }
+
+    /** Must be called after GameRenderer.updateView() has been called on all renderers */
+    public void draw(Array<GameRenderer> renderers) {
+        mManager.begin(mBatch);
+        for (CellFrameBufferUser user : mUsers) {
+            if (isVisible(user, renderers) && user.updateCell()) {
+                user.drawToCell(mBatch);
+            }
+        }
+        mManager.end();
+    }
+
+    /** Forces all cells to be redrawn, must be called if the GL context has been lost */
+    public void invalidate() {
+        mManager.invalidate();
+    }
+
+    @Override
+    public void dispose() {
+        mManager.dispose();
+    }
+
+    private static boolean isVisible(CellFrameBufferUser user, Array<GameRenderer> renderers) {
+        for (GameRenderer renderer : renderers) {
+            if (user.isCellVisible(renderer.getViewBounds())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
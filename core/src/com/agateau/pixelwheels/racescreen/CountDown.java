@@ -20,6 +20,7 @@ package com.agateau.pixelwheels.racescreen;
 
 import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.sound.AudioManager;
+import com.agateau.pixelwheels.sound.SoundCategory;
 import com.agateau.pixelwheels.sound.SoundAtlas;
 import com.badlogic.gdx.math.MathUtils;
 
@@ -64,7 +65,7 @@ public class CountDown {
         if ((oldValue != newValue && newValue >= 0) || mFirstCall) {
             mFirstCall = false;
             String soundName = newValue > 0 ? "countdown1" : "countdown2";
-            mAudioManager.play(mSoundAtlas.get(soundName), 1f);
+            mAudioManager.play(mSoundAtlas.get(soundName), 1f, SoundCategory.INTERFACE);
             if (newValue == 0) {
                 mGameWorld.startRace();
             }
@@ -24,8 +24,7 @@ import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.ZLevel;
 import com.agateau.pixelwheels.debug.Debug;
 import com.agateau.pixelwheels.debug.DebugShapeMap;
-import com.agateau.pixelwheels.gameobject.CellFrameBufferManager;
-import com.agateau.pixelwheels.gameobject.CellFrameBufferUser;
+import com.agateau.pixelwheels.debug.RenderStats;
 import com.agateau.pixelwheels.gameobject.GameObject;
 import com.agateau.pixelwheels.map.Track;
 import com.agateau.pixelwheels.map.WaypointStore;
@@ -39,6 +38,7 @@ import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.physics.box2d.Box2DDebugRenderer;
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.PerformanceCounter;
 import com.badlogic.gdx.utils.PerformanceCounters;
 
@@ -61,15 +61,25 @@ public class GameRenderer {
     private int mScreenY;
     private int mScreenWidth;
     private int mScreenHeight;
-    private final CellFrameBufferManager mCellFrameBufferManager = new CellFrameBufferManager();
     private final PerformanceCounter mTilePerformanceCounter;
     private final PerformanceCounter mGameObjectPerformanceCounter;
     private final PerformanceCounter mSetupPerformanceCounter;
 
+    private RenderStats mRenderStats;
+    private RenderStats.Pass mBackgroundPass;
+    private RenderStats.Pass mExtraBackgroundPass;
+    private RenderStats.Pass mForegroundPass;
+    private final RenderStats.Pass[] mZLevelPasses = new RenderStats.Pass[ZLevel.values().length];
+
+    // Objects which may draw something in the view this frame, all of them then by Z level
+    private final Array<GameObject> mObjectsToDraw = new Array<>();
+    private final Array<Array<GameObject>> mObjectsToDrawForZLevel = new Array<>();
+
     public GameRenderer(
             GameWorld world,
             Racer racer,
             Batch batch,
+            TileChunkCache tileChunkCache,
             boolean headingUp,
             PerformanceCounters counters) {
         mDebugRenderer = new Box2DDebugRenderer();
@@ -89,7 +99,9 @@ public class GameRenderer {
         } else {
             mCameraUpdater = new RacerCameraUpdater(mWorld, racer);
         }
-        mRenderer = new PwTiledMapRenderer(mTrack.getMap(), Constants.UNIT_FOR_PIXEL, mBatch);
+        mRenderer =
+                new PwTiledMapRenderer(
+                        mTrack.getMap(), Constants.UNIT_FOR_PIXEL, mBatch, tileChunkCache);
 
         mSetupPerformanceCounter = counters.add("- setup");
         mTilePerformanceCounter = counters.add("- tiles");
@@ -97,15 +109,13 @@ public class GameRenderer {
 
         mDebugRenderer.setDrawVelocities(Debug.instance.drawVelocities);
 
+        for (int idx = 0; idx < ZLevel.values().length; ++idx) {
+            mObjectsToDrawForZLevel.add(new Array<>());
+        }
+
         if (Debug.instance.showDebugLayer) {
             setupWaypointDebugShape();
         }
-        for (GameObject object : mWorld.getActiveGameObjects()) {
-            if (object instanceof CellFrameBufferUser) {
-                CellFrameBufferUser user = (CellFrameBufferUser) object;
-                user.init(mCellFrameBufferManager);
-            }
-        }
     }
 
     private void setupWaypointDebugShape() {
@@ -136,36 +146,57 @@ public class GameRenderer {
         updateCamera(CameraUpdater.IMMEDIATE);
     }
 
-    public void render(float delta) {
+    /**
+     * Moves the camera and finds what must be drawn. Must be called before render(), and before
+     * drawing the cells of CellFrameBufferUser objects, since it defines the view bounds.
+     */
+    public void updateView(float delta) {
         mSetupPerformanceCounter.start();
-        HdpiUtils.glViewport(mScreenX, mScreenY, mScreenWidth, mScreenHeight);
         updateCamera(delta);
         updateMapRendererCamera();
-        Rectangle viewBounds = mRenderer.getViewBounds();
+        findObjectsToDraw(mRenderer.getViewBounds());
         mSetupPerformanceCounter.stop();
+    }
+
+    /** Optional, makes the renderer record what each of its passes submits */
+    public void setRenderStats(RenderStats renderStats) {
+        mRenderStats = renderStats;
+        mBackgroundPass = renderStats.getPass("tiles bg");
+        mExtraBackgroundPass = renderStats.getPass("tiles extra bg");
+        for (ZLevel z : ZLevel.values()) {
+            if (z == ZLevel.FG_LAYERS) {
+                mForegroundPass = renderStats.getPass("tiles fg");
+            }
+            mZLevelPasses[z.ordinal()] = renderStats.getPass(z.name().toLowerCase());
+        }
+    }
+
+    public Rectangle getViewBounds() {
+        return mRenderer.getViewBounds();
+    }
+
+    public void render() {
+        Rectangle viewBounds = mRenderer.getViewBounds();
+        HdpiUtils.glViewport(mScreenX, mScreenY, mScreenWidth, mScreenHeight);
+        // The batch is shared with the other renderers, so its projection matrix may be theirs
+        mBatch.setProjectionMatrix(mCamera.combined);
 
         mTilePerformanceCounter.start();
         // Reset the color in case it was modified by the previous frame
         mBatch.setColor(1, 1, 1, 1);
         mBatch.disableBlending();
+        beginPass();
         mRenderer.render(mBackgroundLayerFirstIndexes);
+        endPass(mBackgroundPass);
         mBatch.enableBlending();
         if (mExtraBackgroundLayerIndexes.length > 0) {
+            beginPass();
             mRenderer.render(mExtraBackgroundLayerIndexes);
+            endPass(mExtraBackgroundPass);
         }
         mTilePerformanceCounter.stop();
 
         mGameObjectPerformanceCounter.start();
-
-        mCellFrameBufferManager.begin(mBatch);
-        for (GameObject object : mWorld.getActiveGameObjects()) {
-            if (object instanceof CellFrameBufferUser) {
-                CellFrameBufferUser user = (CellFrameBufferUser) object;
-                user.drawToCell(mBatch, viewBounds);
-            }
-        }
-        mCellFrameBufferManager.end(mScreenX, mScreenY, mScreenWidth, mScreenHeight);
-
         mBatch.begin();
         for (ZLevel z : ZLevel.values()) {
             if (z == ZLevel.FG_LAYERS && mForegroundLayerIndexes.length > 0) {
@@ -173,16 +204,20 @@ public class GameRenderer {
                 mTilePerformanceCounter.start();
 
                 mBatch.end();
+                beginPass();
                 mRenderer.render(mForegroundLayerIndexes);
+                endPass(mForegroundPass);
                 mBatch.begin();
 
                 mTilePerformanceCounter.stop();
                 mGameObjectPerformanceCounter.start();
             }
 
-            for (GameObject object : mWorld.getActiveGameObjects()) {
+            beginPass();
+            for (GameObject object : mObjectsToDrawForZLevel.get(z.ordinal())) {
                 object.draw(mBatch, z, viewBounds);
             }
+            endPass(mZLevelPasses[z.ordinal()]);
         }
         mBatch.end();
         mGameObjectPerformanceCounter.stop();
@@ -213,6 +248,31 @@ public class GameRenderer {
         }
     }
 
+    private void beginPass() {
+        if (mRenderStats != null) {
+            mRenderStats.beginPass();
+        }
+    }
+
+    private void endPass(RenderStats.Pass pass) {
+        if (mRenderStats != null) {
+            mRenderStats.endPass(pass);
+        }
+    }
+
+    private void findObjectsToDraw(Rectangle viewBounds) {
+        mObjectsToDraw.clear();
+        mWorld.getGameObjectGrid().findObjectsToDraw(viewBounds, mObjectsToDraw);
+        for (Array<GameObject> objects : mObjectsToDrawForZLevel) {
+            objects.clear();
+        }
+        for (GameObject object : mObjectsToDraw) {
+            for (ZLevel zLevel : object.getZLevels()) {
+                mObjectsToDrawForZLevel.get(zLevel.ordinal()).add(object);
+            }
+        }
+    }
+
     private void updateCamera(float delta) {
         mCameraUpdater.update(delta);
     }
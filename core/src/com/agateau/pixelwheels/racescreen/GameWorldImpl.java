@@ -20,6 +20,7 @@ package com.agateau.pixelwheels.racescreen;
 
 import com.agateau.pixelwheels.Assets;
 import com.agateau.pixelwheels.Constants;
+import com.agateau.pixelwheels.GameConfig;
 import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.PwGame;
 import com.agateau.pixelwheels.bonus.Bonus;
@@ -29,23 +30,30 @@ import com.agateau.pixelwheels.bonus.GunBonus;
 import com.agateau.pixelwheels.bonus.MineBonus;
 import com.agateau.pixelwheels.bonus.MissileBonus;
 import com.agateau.pixelwheels.bonus.TurboBonus;
+import com.agateau.pixelwheels.debug.Debug;
+import com.agateau.pixelwheels.debug.FlightRecorder;
 import com.agateau.pixelwheels.gameobject.GameObject;
+import com.agateau.pixelwheels.gameobject.GameObjectGrid;
 import com.agateau.pixelwheels.gamesetup.GameInfo;
 import com.agateau.pixelwheels.map.Track;
 import com.agateau.pixelwheels.obstacles.ObstacleCreator;
 import com.agateau.pixelwheels.obstacles.ObstacleDef;
 import com.agateau.pixelwheels.obstacles.tiled.TiledObstacleCreator;
 import com.agateau.pixelwheels.racer.AIPilot;
+import com.agateau.pixelwheels.racer.AIScheduler;
 import com.agateau.pixelwheels.racer.LapPositionComponent;
 import com.agateau.pixelwheels.racer.PlayerPilot;
 import com.agateau.pixelwheels.racer.Racer;
+import com.agateau.pixelwheels.racer.SkidmarkManager;
 import com.agateau.pixelwheels.racer.Vehicle;
 import com.agateau.pixelwheels.sound.AudioManager;
 import com.agateau.pixelwheels.stats.GameStats;
 import com.agateau.pixelwheels.stats.TrackStats;
+import com.agateau.pixelwheels.telemetry.RaceTelemetry;
 import com.agateau.pixelwheels.vehicledef.VehicleCreator;
 import com.agateau.pixelwheels.vehicledef.VehicleDef;
 import com.agateau.utils.Assert;
+import com.agateau.utils.FileUtils;
 import com.agateau.utils.log.NLog;
 import com.badlogic.gdx.maps.MapObject;
 import com.badlogic.gdx.math.Vector2;
@@ -63,8 +71,12 @@ import java.util.Scanner;
 
 public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
     private static final Racer.RecordRanks DEBUG_RECORD_RANKS = parseFinishedOverlayDebugScreen();
+    private static final String TELEMETRY_FILE_NAME = "telemetry.pwt";
 
-    private final PwGame mGame;
+    private final Assets mAssets;
+    private final AudioManager mAudioManager;
+    private final GameStats mGameStats;
+    private final GameConfig mGameConfig;
     private Track mTrack;
     private final CountDown mCountDown;
 
@@ -76,27 +88,70 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
 
     private final Array<Racer> mRacers = new Array<>();
     private final Array<Racer> mPlayerRacers = new Array<>();
+    private final RankTable<Racer> mRankTable = new RankTable<>(sRacerComparator);
+    private final AIScheduler mAIScheduler = new AIScheduler();
     private State mState = GameWorld.State.COUNTDOWN;
 
     private final Array<GameObject> mActiveGameObjects = new Array<>();
+    private final GameObjectGrid mGameObjectGrid;
+    // Set when objects have been added or have moved since the grid was last rebuilt
+    private boolean mGameObjectGridDirty = true;
+    private final SkidmarkManager mSkidmarkManager;
 
     private final PerformanceCounter mBox2DPerformanceCounter;
     private final PerformanceCounter mGameObjectPerformanceCounter;
 
+    private RaceTelemetry mTelemetry;
+
     GameWorldImpl(PwGame game, GameInfo gameInfo, PerformanceCounters performanceCounters) {
-        mGame = game;
+        this(
+                game.getAssets(),
+                game.getAudioManager(),
+                game.getGameStats(),
+                game.getConfig(),
+                gameInfo,
+                performanceCounters);
+    }
+
+    /**
+     * Creates a world which does not depend on PwGame. This makes it possible to run races outside
+     * of RaceScreen, for example in the headless simulator.
+     *
+     * <p>gameConfig is only used to setup player pilots, so it can be null if gameInfo does not
+     * contain any player entrant.
+     */
+    public GameWorldImpl(
+            Assets assets,
+            AudioManager audioManager,
+            GameStats gameStats,
+            GameConfig gameConfig,
+            GameInfo gameInfo,
+            PerformanceCounters performanceCounters) {
+        mAssets = assets;
+        mAudioManager = audioManager;
+        mGameStats = gameStats;
+        mGameConfig = gameConfig;
         mBox2DWorld = new World(new Vector2(0, 0), true);
         mBox2DWorld.setContactListener(this);
         mTrack = gameInfo.getTrack();
         mTrack.init();
-        mCountDown = new CountDown(this, game.getAudioManager(), game.getAssets().soundAtlas);
+        mGameObjectGrid = new GameObjectGrid(mTrack.getMapWidth(), mTrack.getMapHeight());
+        mCountDown = new CountDown(this, mAudioManager, mAssets.soundAtlas);
 
         mBox2DPerformanceCounter = performanceCounters.add("- box2d");
         mGameObjectPerformanceCounter = performanceCounters.add("- g.o");
+        // Add it first so that skidmarks are drawn below the other objects
+        mSkidmarkManager = new SkidmarkManager(mAssets.skidmark, Debug.instance.maxSkidmarkQuads);
+        addGameObject(mSkidmarkManager);
         setupRacers(gameInfo.getEntrants());
         setupObstacles();
         setupBonusSpots();
         setupBonusPools();
+
+        if (Debug.instance.recordTelemetry) {
+            mTelemetry =
+                    new RaceTelemetry(this, FileUtils.getUserWritableFile(TELEMETRY_FILE_NAME));
+        }
     }
 
     @Override
@@ -135,9 +190,25 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
         return mActiveGameObjects;
     }
 
+    /** Rebuilds the grid at most once per step, and only if someone needs it */
+    @Override
+    public GameObjectGrid getGameObjectGrid() {
+        if (mGameObjectGridDirty) {
+            mGameObjectGrid.rebuild(mActiveGameObjects);
+            mGameObjectGridDirty = false;
+        }
+        return mGameObjectGrid;
+    }
+
+    @Override
+    public SkidmarkManager getSkidmarkManager() {
+        return mSkidmarkManager;
+    }
+
     @Override
     public void addGameObject(GameObject object) {
         mActiveGameObjects.add(object);
+        mGameObjectGridDirty = true;
     }
 
     @Override
@@ -145,16 +216,15 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
         return mCountDown;
     }
 
+    /** Ranks are updated at the end of each step */
     @Override
-    public int getRacerRank(Racer wantedRacer) {
-        int rank = 1;
-        for (Racer racer : mRacers) {
-            if (racer != wantedRacer && sRacerComparator.compare(racer, wantedRacer) < 0) {
-                // racer is in front of wantedRacer
-                rank += 1;
-            }
-        }
-        return rank;
+    public int getRacerRank(Racer racer) {
+        return mRankTable.getRank(racer);
+    }
+
+    @Override
+    public Racer getRacerAtRank(int rank) {
+        return mRankTable.getItemAtRank(rank);
     }
 
     /**
@@ -171,7 +241,7 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
 
     @Override
     public GameStats getGameStats() {
-        return mGame.getGameStats();
+        return mGameStats;
     }
 
     /**
@@ -187,7 +257,10 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
         // max frame time to avoid spiral of death (on slow devices)
         float frameTime = Math.min(delta, 0.25f);
         mTimeAccumulator += frameTime;
+        int stepCount = 0;
         while (mTimeAccumulator >= GameWorld.BOX2D_TIME_STEP) {
+            ++stepCount;
+            mAIScheduler.beginStep();
             mCountDown.act(GameWorld.BOX2D_TIME_STEP);
 
             mBox2DPerformanceCounter.start();
@@ -209,9 +282,21 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
                 }
             }
             mGameObjectPerformanceCounter.stop();
+            mGameObjectGridDirty = true;
+
+            mRankTable.update();
+
+            if (mTelemetry != null) {
+                mTelemetry.recordStep();
+            }
 
             mTimeAccumulator -= GameWorld.BOX2D_TIME_STEP;
         }
+        FlightRecorder.instance.setWorldStats(
+                stepCount,
+                mActiveGameObjects.size,
+                mBox2DWorld.getBodyCount(),
+                mBox2DWorld.getContactCount());
 
         if (haveAllRacersFinished()) {
             mRacers.sort(sRacerComparator);
@@ -224,7 +309,9 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
             mRacers.shuffle();
             return true;
         }
-        for (Racer racer : mPlayerRacers) {
+        // Without any player (for example when running a simulation), wait for all AI racers
+        Array<Racer> racers = mPlayerRacers.size > 0 ? mPlayerRacers : mRacers;
+        for (Racer racer : racers) {
             if (!racer.getLapPositionComponent().hasFinishedRace()) {
                 return false;
             }
@@ -233,7 +320,7 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
     }
 
     private void onFinished() {
-        TrackStats stats = mGame.getGameStats().getTrackStats(mTrack);
+        TrackStats stats = mGameStats.getTrackStats(mTrack);
         for (int idx = 0; idx < mRacers.size; ++idx) {
             Racer racer = mRacers.get(idx);
             racer.markRaceFinished();
@@ -274,43 +361,43 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
     }
 
     private void setupRacers(Array<GameInfo.Entrant> entrants) {
-        VehicleCreator creator = new VehicleCreator(mGame.getAssets(), this);
-        Assets assets = mGame.getAssets();
+        VehicleCreator creator = new VehicleCreator(mAssets, this);
 
         final float startAngle = 90;
         Array<Vector2> positions = mTrack.findStartTilePositions();
         positions.reverse();
 
-        AudioManager audioManager = mGame.getAudioManager();
         for (int idx = 0; idx < entrants.size; ++idx) {
             Assert.check(
                     idx < positions.size, "Too many entrants (" + idx + "/" + positions.size + ")");
             GameInfo.Entrant entrant = entrants.get(idx);
-            VehicleDef vehicleDef = assets.findVehicleDefById(entrant.getVehicleId());
+            VehicleDef vehicleDef = mAssets.findVehicleDefById(entrant.getVehicleId());
             Vehicle vehicle = creator.create(vehicleDef, positions.get(idx), startAngle);
-            Racer racer = new Racer(assets, audioManager, this, vehicle, entrant);
+            Racer racer = new Racer(mAssets, mAudioManager, this, vehicle, entrant);
             if (entrant.isPlayer()) {
                 GameInfo.Player player = (GameInfo.Player) entrant;
                 PlayerPilot pilot =
-                        new PlayerPilot(assets, this, racer, mGame.getConfig(), player.getIndex());
+                        new PlayerPilot(mAssets, this, racer, mGameConfig, player.getIndex());
                 racer.setPilot(pilot);
                 mPlayerRacers.add(racer);
             } else {
-                racer.setPilot(new AIPilot(this, mTrack, racer));
+                racer.setPilot(new AIPilot(this, mTrack, racer, mAIScheduler));
             }
             addGameObject(racer);
             mRacers.add(racer);
+            mRankTable.add(racer);
         }
+        mRankTable.update();
     }
 
     private void setupObstacles() {
         ObstacleCreator creator = new ObstacleCreator();
-        for (ObstacleDef def : mGame.getAssets().obstacleDefs) {
+        for (ObstacleDef def : mAssets.obstacleDefs) {
             creator.addObstacleDef(def);
         }
 
         for (MapObject object : mTrack.getObstacleObjects()) {
-            creator.create(this, mGame.getAssets(), object);
+            creator.create(this, mAssets, object);
         }
 
         TiledObstacleCreator.createObstacles(this, mTrack.getMap());
@@ -318,8 +405,7 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
 
     private void setupBonusSpots() {
         for (Vector2 pos : mTrack.findBonusSpotPositions()) {
-            BonusSpot spot =
-                    new BonusSpot(mGame.getAssets(), mGame.getAudioManager(), this, pos.x, pos.y);
+            BonusSpot spot = new BonusSpot(mAssets, mAudioManager, this, pos.x, pos.y);
             addGameObject(spot);
         }
     }
@@ -357,8 +443,7 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
     }
 
     private <T extends Bonus> void addPool(Class<T> bonusClass, float[] counts) {
-        BonusPool<T> pool =
-                new BonusPool<>(bonusClass, mGame.getAssets(), this, mGame.getAudioManager());
+        BonusPool<T> pool = new BonusPool<>(bonusClass, mAssets, this, mAudioManager);
         pool.setCounts(counts);
         mBonusPools.add(pool);
     }
@@ -437,6 +522,10 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
 
     @Override
     public void dispose() {
+        if (mTelemetry != null) {
+            mTelemetry.dispose();
+            mTelemetry = null;
+        }
         if (mTrack != null) {
             mTrack.dispose();
         }
@@ -446,9 +535,11 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
             }
         }
         mActiveGameObjects.clear();
+        mGameObjectGrid.rebuild(mActiveGameObjects);
+        mBox2DWorld.dispose();
     }
 
-    void forgetTrack() {
+    public void forgetTrack() {
         mTrack = null;
     }
 
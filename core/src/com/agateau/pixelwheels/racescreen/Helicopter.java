@@ -20,6 +20,8 @@ package com.agateau.pixelwheels.racescreen;
 
 import static com.agateau.pixelwheels.utils.BodyRegionDrawer.SHADOW_ALPHA;
 
+import com.agateau.libgdx.GLResourceLock;
+import com.agateau.libgdx.SynchronizedReflectionPool;
 import com.agateau.pixelwheels.Assets;
 import com.agateau.pixelwheels.Constants;
 import com.agateau.pixelwheels.ZLevel;
@@ -29,6 +31,7 @@ import com.agateau.pixelwheels.map.Track;
 import com.agateau.pixelwheels.racer.HoleHandlerComponent;
 import com.agateau.pixelwheels.racer.Vehicle;
 import com.agateau.pixelwheels.sound.AudioManager;
+import com.agateau.pixelwheels.sound.SoundCategory;
 import com.agateau.pixelwheels.sound.SoundPlayer;
 import com.agateau.pixelwheels.utils.OrientedPoint;
 import com.agateau.utils.AgcMathUtils;
@@ -46,10 +49,10 @@ import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Disposable;
 import com.badlogic.gdx.utils.Pool;
-import com.badlogic.gdx.utils.ReflectionPool;
 
 /** The rescue helicopter which comes to pick up fallen vehicles */
 public class Helicopter extends GameObjectAdapter implements Pool.Poolable, Disposable {
+    private static final ZLevel[] Z_LEVELS = {ZLevel.FG_LAYERS, ZLevel.FLYING_HIGH};
     private static final float SHADOW_OFFSET = 80;
     private static final Vector2 BODY_CENTER = new Vector2(30, (111 - 35));
     private static final float PROPELLER_SPEED = -720;
@@ -67,7 +70,8 @@ public class Helicopter extends GameObjectAdapter implements Pool.Poolable, Disp
         LEAVING
     }
 
-    private static final ReflectionPool<Helicopter> sPool = new ReflectionPool<>(Helicopter.class);
+    private static final SynchronizedReflectionPool<Helicopter> sPool =
+            new SynchronizedReflectionPool<>(Helicopter.class);
 
     private SoundPlayer mSoundPlayer;
     private FrameBuffer mFrameBuffer;
@@ -140,7 +144,8 @@ public class Helicopter extends GameObjectAdapter implements Pool.Poolable, Disp
 
         if (object.mSoundPlayer == null) {
             object.mSoundPlayer =
-                    audioManager.createSoundPlayer(assets.soundAtlas.get("helicopter"));
+                    audioManager.createSoundPlayer(
+                            assets.soundAtlas.get("helicopter"), SoundCategory.EFFECT);
         }
         object.mBodyRegion = assets.helicopterBody;
         object.mPropellerRegion = assets.helicopterPropeller;
@@ -156,13 +161,15 @@ public class Helicopter extends GameObjectAdapter implements Pool.Poolable, Disp
         if (object.mFrameBuffer == null) {
             int bufferWidth = object.mPropellerRegion.getRegionWidth();
             int bufferHeight = object.mPropellerRegion.getRegionHeight() / 2 + (int) BODY_CENTER.y;
-            object.mFrameBuffer =
-                    new FrameBuffer(
-                            Pixmap.Format.RGBA8888,
-                            bufferWidth,
-                            bufferHeight,
-                            false /* hasDepth */);
-            object.mFrameBufferBatch = new SpriteBatch();
+            synchronized (GLResourceLock.instance) {
+                object.mFrameBuffer =
+                        new FrameBuffer(
+                                Pixmap.Format.RGBA8888,
+                                bufferWidth,
+                                bufferHeight,
+                                false /* hasDepth */);
+                object.mFrameBufferBatch = new SpriteBatch();
+            }
             object.mFrameBufferBatch.setProjectionMatrix(
                     new Matrix4().setToOrtho2D(0, 0, bufferWidth, bufferHeight));
 
@@ -288,6 +295,16 @@ public class Helicopter extends GameObjectAdapter implements Pool.Poolable, Disp
         mAngle = AgcMathUtils.normalizeAngle(mAngle + angularSpeed * delta);
     }
 
+    @Override
+    public ZLevel[] getZLevels() {
+        return Z_LEVELS;
+    }
+
+    @Override
+    public float getBoundingRadius() {
+        return mFrameBufferRadiusU;
+    }
+
     @Override
     public void draw(Batch batch, ZLevel zLevel, Rectangle viewBounds) {
         if (!AgcMathUtils.rectangleContains(viewBounds, getPosition(), mFrameBufferRadiusU)) {
@@ -41,6 +41,7 @@ import static com.badlogic.gdx.graphics.g2d.Batch.Y4;
 import com.agateau.pixelwheels.map.MapUtils;
 import com.agateau.utils.Assert;
 import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.maps.MapProperties;
@@ -49,12 +50,18 @@ import com.badlogic.gdx.maps.tiled.TiledMapTile;
 import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import com.badlogic.gdx.maps.tiled.renderers.BatchTiledMapRenderer;
 
-/** A copy of OrthogonalTiledMapRenderer, modified to repeat borders */
+/**
+ * A copy of OrthogonalTiledMapRenderer, modified to repeat borders.
+ *
+ * <p>If it has a TileChunkCache, the cells inside the map are drawn from it, and only the repeated
+ * borders are computed at each frame.
+ */
 public class PwTiledMapRenderer extends BatchTiledMapRenderer {
     private final int mPaddingLeft;
     private final int mPaddingTop;
     private final int mPaddingRight;
     private final int mPaddingBottom;
+    private final TileChunkCache mChunkCache;
 
     private static int readPadding(TiledMap map, String name) {
         MapProperties properties = map.getProperties();
@@ -63,8 +70,11 @@ public class PwTiledMapRenderer extends BatchTiledMapRenderer {
         return value;
     }
 
-    public PwTiledMapRenderer(TiledMap map, float unitScale, Batch batch) {
+    /** chunkCache can be null, in which case all cells are computed at each frame */
+    public PwTiledMapRenderer(
+            TiledMap map, float unitScale, Batch batch, TileChunkCache chunkCache) {
         super(map, unitScale, batch);
+        mChunkCache = chunkCache;
         mPaddingLeft = readPadding(map, "paddingLeft");
         mPaddingTop = readPadding(map, "paddingTop");
         mPaddingRight = readPadding(map, "paddingRight");
@@ -73,6 +83,13 @@ public class PwTiledMapRenderer extends BatchTiledMapRenderer {
 
     @Override
     public void renderTileLayer(TiledMapTileLayer layer) {
+        // Chunks are baked for a white batch color
+        final boolean useChunks =
+                mChunkCache != null && batch.getPackedColor() == Color.WHITE_FLOAT_BITS;
+        if (useChunks) {
+            mChunkCache.draw(batch, layer, viewBounds);
+        }
+
         final Color batchColor = batch.getColor();
         final float color =
                 Color.toFloatBits(
@@ -103,6 +120,11 @@ public class PwTiledMapRenderer extends BatchTiledMapRenderer {
                         ((viewBounds.y + viewBounds.height + layerTileHeight - layerOffsetY)
                                 / layerTileHeight);
 
+        if (useChunks && col1 >= 0 && row1 >= 0 && col2 <= layerWidth && row2 < layerHeight) {
+            // No repeated borders in view
+            return;
+        }
+
         float y = row2 * layerTileHeight + layerOffsetY;
         float xStart = col1 * layerTileWidth + layerOffsetX;
         final float[] vertices = this.vertices;
@@ -110,6 +132,11 @@ public class PwTiledMapRenderer extends BatchTiledMapRenderer {
         for (int row = row2; row >= row1; row--) {
             float x = xStart;
             for (int col = col1; col < col2; col++) {
+                if (useChunks && col >= 0 && col < layerWidth && row >= 0 && row < layerHeight) {
+                    // Already drawn by mChunkCache
+                    x += layerTileWidth;
+                    continue;
+                }
                 int cellCol = wrapClamp(col, 0, layerWidth - 1, mPaddingLeft, mPaddingRight);
                 int cellRow = wrapClamp(row, 0, layerHeight - 1, mPaddingBottom, mPaddingTop);
                 final TiledMapTileLayer.Cell cell = layer.getCell(cellCol, cellRow);
@@ -117,116 +144,9 @@ public class PwTiledMapRenderer extends BatchTiledMapRenderer {
                     x += layerTileWidth;
                     continue;
                 }
-                final TiledMapTile tile = cell.getTile();
-
-                if (tile != null) {
-                    final boolean flipX = cell.getFlipHorizontally();
-                    final boolean flipY = cell.getFlipVertically();
-                    final int rotations = cell.getRotation();
-
-                    TextureRegion region = tile.getTextureRegion();
-
-                    float x1 = x + tile.getOffsetX() * unitScale;
-                    float y1 = y + tile.getOffsetY() * unitScale;
-                    float x2 = x1 + region.getRegionWidth() * unitScale;
-                    float y2 = y1 + region.getRegionHeight() * unitScale;
-
-                    float u1 = region.getU();
-                    float v1 = region.getV2();
-                    float u2 = region.getU2();
-                    float v2 = region.getV();
-
-                    vertices[X1] = x1;
-                    vertices[Y1] = y1;
-                    vertices[C1] = color;
-                    vertices[U1] = u1;
-                    vertices[V1] = v1;
-
-                    vertices[X2] = x1;
-                    vertices[Y2] = y2;
-                    vertices[C2] = color;
-                    vertices[U2] = u1;
-                    vertices[V2] = v2;
-
-                    vertices[X3] = x2;
-                    vertices[Y3] = y2;
-                    vertices[C3] = color;
-                    vertices[U3] = u2;
-                    vertices[V3] = v2;
-
-                    vertices[X4] = x2;
-                    vertices[Y4] = y1;
-                    vertices[C4] = color;
-                    vertices[U4] = u2;
-                    vertices[V4] = v1;
-
-                    if (flipX) {
-                        float temp = vertices[U1];
-                        vertices[U1] = vertices[U3];
-                        vertices[U3] = temp;
-                        temp = vertices[U2];
-                        vertices[U2] = vertices[U4];
-                        vertices[U4] = temp;
-                    }
-                    if (flipY) {
-                        float temp = vertices[V1];
-                        vertices[V1] = vertices[V3];
-                        vertices[V3] = temp;
-                        temp = vertices[V2];
-                        vertices[V2] = vertices[V4];
-                        vertices[V4] = temp;
-                    }
-                    if (rotations != 0) {
-                        switch (rotations) {
-                            case TiledMapTileLayer.Cell.ROTATE_90:
-                                {
-                                    float tempV = vertices[V1];
-                                    vertices[V1] = vertices[V2];
-                                    vertices[V2] = vertices[V3];
-                                    vertices[V3] = vertices[V4];
-                                    vertices[V4] = tempV;
-
-                                    float tempU = vertices[U1];
-                                    vertices[U1] = vertices[U2];
-                                    vertices[U2] = vertices[U3];
-                                    vertices[U3] = vertices[U4];
-                                    vertices[U4] = tempU;
-                                    break;
-                                }
-                            case TiledMapTileLayer.Cell.ROTATE_180:
-                                {
-                                    float tempU = vertices[U1];
-                                    vertices[U1] = vertices[U3];
-                                    vertices[U3] = tempU;
-                                    tempU = vertices[U2];
-                                    vertices[U2] = vertices[U4];
-                                    vertices[U4] = tempU;
-                                    float tempV = vertices[V1];
-                                    vertices[V1] = vertices[V3];
-                                    vertices[V3] = tempV;
-                                    tempV = vertices[V2];
-                                    vertices[V2] = vertices[V4];
-                                    vertices[V4] = tempV;
-                                    break;
-                                }
-                            case TiledMapTileLayer.Cell.ROTATE_270:
-                                {
-                                    float tempV = vertices[V1];
-                                    vertices[V1] = vertices[V4];
-                                    vertices[V4] = vertices[V3];
-                                    vertices[V3] = vertices[V2];
-                                    vertices[V2] = tempV;
-
-                                    float tempU = vertices[U1];
-                                    vertices[U1] = vertices[U4];
-                                    vertices[U4] = vertices[U3];
-                                    vertices[U3] = vertices[U2];
-                                    vertices[U2] = tempU;
-                                    break;
-                                }
-                        }
-                    }
-                    batch.draw(region.getTexture(), vertices, 0, NUM_VERTICES);
+                Texture texture = computeCellVertices(cell, x, y, unitScale, color, vertices, 0);
+                if (texture != null) {
+                    batch.draw(texture, vertices, 0, NUM_VERTICES);
                 }
                 x += layerTileWidth;
             }
@@ -234,6 +154,131 @@ public class PwTiledMapRenderer extends BatchTiledMapRenderer {
         }
     }
 
+    /**
+     * Writes the vertices of the tile of cell, drawn at (x, y), to vertices, starting at offset.
+     * Returns the texture to draw them with, or null if there is nothing to draw.
+     */
+    static Texture computeCellVertices(
+            TiledMapTileLayer.Cell cell,
+            float x,
+            float y,
+            float unitScale,
+            float color,
+            float[] vertices,
+            int offset) {
+        final TiledMapTile tile = cell.getTile();
+        if (tile == null) {
+            return null;
+        }
+        final boolean flipX = cell.getFlipHorizontally();
+        final boolean flipY = cell.getFlipVertically();
+        final int rotations = cell.getRotation();
+
+        TextureRegion region = tile.getTextureRegion();
+
+        float x1 = x + tile.getOffsetX() * unitScale;
+        float y1 = y + tile.getOffsetY() * unitScale;
+        float x2 = x1 + region.getRegionWidth() * unitScale;
+        float y2 = y1 + region.getRegionHeight() * unitScale;
+
+        float u1 = region.getU();
+        float v1 = region.getV2();
+        float u2 = region.getU2();
+        float v2 = region.getV();
+
+        vertices[offset + X1] = x1;
+        vertices[offset + Y1] = y1;
+        vertices[offset + C1] = color;
+        vertices[offset + U1] = u1;
+        vertices[offset + V1] = v1;
+
+        vertices[offset + X2] = x1;
+        vertices[offset + Y2] = y2;
+        vertices[offset + C2] = color;
+        vertices[offset + U2] = u1;
+        vertices[offset + V2] = v2;
+
+        vertices[offset + X3] = x2;
+        vertices[offset + Y3] = y2;
+        vertices[offset + C3] = color;
+        vertices[offset + U3] = u2;
+        vertices[offset + V3] = v2;
+
+        vertices[offset + X4] = x2;
+        vertices[offset + Y4] = y1;
+        vertices[offset + C4] = color;
+        vertices[offset + U4] = u2;
+        vertices[offset + V4] = v1;
+
+        if (flipX) {
+            float temp = vertices[offset + U1];
+            vertices[offset + U1] = vertices[offset + U3];
+            vertices[offset + U3] = temp;
+            temp = vertices[offset + U2];
+            vertices[offset + U2] = vertices[offset + U4];
+            vertices[offset + U4] = temp;
+        }
+        if (flipY) {
+            float temp = vertices[offset + V1];
+            vertices[offset + V1] = vertices[offset + V3];
+            vertices[offset + V3] = temp;
+            temp = vertices[offset + V2];
+            vertices[offset + V2] = vertices[offset + V4];
+            vertices[offset + V4] = temp;
+        }
+        if (rotations != 0) {
+            switch (rotations) {
+                case TiledMapTileLayer.Cell.ROTATE_90:
+                    {
+                        float tempV = vertices[offset + V1];
+                        vertices[offset + V1] = vertices[offset + V2];
+                        vertices[offset + V2] = vertices[offset + V3];
+                        vertices[offset + V3] = vertices[offset + V4];
+                        vertices[offset + V4] = tempV;
+
+                        float tempU = vertices[offset + U1];
+                        vertices[offset + U1] = vertices[offset + U2];
+                        vertices[offset + U2] = vertices[offset + U3];
+                        vertices[offset + U3] = vertices[offset + U4];
+                        vertices[offset + U4] = tempU;
+                        break;
+                    }
+                case TiledMapTileLayer.Cell.ROTATE_180:
+                    {
+                        float tempU = vertices[offset + U1];
+                        vertices[offset + U1] = vertices[offset + U3];
+                        vertices[offset + U3] = tempU;
+                        tempU = vertices[offset + U2];
+                        vertices[offset + U2] = vertices[offset + U4];
+                        vertices[offset + U4] = tempU;
+                        float tempV = vertices[offset + V1];
+                        vertices[offset + V1] = vertices[offset + V3];
+                        vertices[offset + V3] = tempV;
+                        tempV = vertices[offset + V2];
+                        vertices[offset + V2] = vertices[offset + V4];
+                        vertices[offset + V4] = tempV;
+                        break;
+                    }
+                case TiledMapTileLayer.Cell.ROTATE_270:
+                    {
+                        float tempV = vertices[offset + V1];
+                        vertices[offset + V1] = vertices[offset + V4];
+                        vertices[offset + V4] = vertices[offset + V3];
+                        vertices[offset + V3] = vertices[offset + V2];
+                        vertices[offset + V2] = tempV;
+
+                        float tempU = vertices[offset + U1];
+                        vertices[offset + U1] = vertices[offset + U4];
+                        vertices[offset + U4] = vertices[offset + U3];
+                        vertices[offset + U3] = vertices[offset + U2];
+                        vertices[offset + U2] = tempU;
+                        break;
+                    }
+            }
+        }
+        return region.getTexture();
+    }
+
     @SuppressWarnings("SameParameterValue")
     private static int wrapClamp(int value, int min, int max, int paddingMin, int paddingMax) {
         while (value < min) {
@@ -18,11 +18,14 @@
  */
 package com.agateau.pixelwheels.racescreen;
 
+import com.agateau.pixelwheels.Constants;
 import com.agateau.pixelwheels.GamePlay;
 import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.PwGame;
 import com.agateau.pixelwheels.debug.Debug;
 import com.agateau.pixelwheels.debug.DebugShapeMap;
+import com.agateau.pixelwheels.debug.FrameProfiler;
+import com.agateau.pixelwheels.debug.RenderStats;
 import com.agateau.pixelwheels.gameinput.GameInputHandlerFactories;
 import com.agateau.pixelwheels.gameobject.AudioClipper;
 import com.agateau.pixelwheels.gameobject.GameObject;
@@ -58,6 +61,9 @@ public class RaceScreen extends ScreenAdapter {
         void onQuitPressed();
 
         void onNextTrackPressed();
+
+        /** Called when the race is over, while the results are shown */
+        void onRaceFinished();
     }
 
     private final PwGame mGame;
@@ -67,6 +73,7 @@ public class RaceScreen extends ScreenAdapter {
     private final GameWorldImpl mGameWorld;
 
     private final Array<GameRenderer> mGameRenderers = new Array<>();
+    private final CellFrameBufferPass mCellFrameBufferPass;
     private final AudioClipper mAudioClipper;
 
     private final Array<RacerHudController> mRacerHudControllers = new Array<>();
@@ -80,6 +87,10 @@ public class RaceScreen extends ScreenAdapter {
     private final PerformanceCounter mRendererPerformanceCounter;
     private final PerformanceCounter mOverallPerformanceCounter;
     private final PerformanceCounter mHudPerformanceCounter;
+    private FrameProfiler mFrameProfiler;
+    private RenderStats mRenderStats;
+    private RenderStats.Pass mCellPass;
+    private RenderStats.Pass mHudPass;
     private PauseOverlay mPauseOverlay = null;
 
     private boolean mFirstRender = true;
@@ -95,6 +106,7 @@ public class RaceScreen extends ScreenAdapter {
 
         mOverallPerformanceCounter = mPerformanceCounters.add("All");
         mGameWorldPerformanceCounter = mPerformanceCounters.add("GameWorld.act");
+        game.getTrackPreloader().onTrackRequired(gameInfo.getTrack());
         mGameWorld = new GameWorldImpl(game, gameInfo, mPerformanceCounters);
         mRendererPerformanceCounter = mPerformanceCounters.add("Renderer");
 
@@ -105,23 +117,42 @@ public class RaceScreen extends ScreenAdapter {
         // Create the count-down controller *before* the racer controller, otherwise the touch UI
         // won't receive input because the racer hud stage would be below the count-down hud stage
         createCountDownHudController();
+        TileChunkCache tileChunkCache =
+                Debug.instance.cacheTileChunks
+                        ? new TileChunkCache(
+                                mGameWorld.getTrack().getMap(), Constants.UNIT_FOR_PIXEL)
+                        : null;
         for (Racer racer : mGameWorld.getPlayerRacers()) {
             GameRenderer renderer =
                     new GameRenderer(
                             mGameWorld,
                             racer,
                             batch,
+                            tileChunkCache,
                             mGame.getConfig().headingUpCamera,
                             mPerformanceCounters);
             mGameRenderers.add(renderer);
             mRacerHudControllers.add(createRacerHudController(mGameWorld.getTrack(), racer));
         }
+        mCellFrameBufferPass = new CellFrameBufferPass(mGameWorld, batch);
+        if (Debug.instance.recordRenderStats) {
+            mRenderStats = new RenderStats(batch);
+            mCellPass = mRenderStats.getPass("cells");
+            for (GameRenderer renderer : mGameRenderers) {
+                renderer.setRenderStats(mRenderStats);
+            }
+            mHudPass = mRenderStats.getPass("hud");
+        }
         createInputUi();
         mHudPerformanceCounter = mPerformanceCounters.add("Hud");
 
         mAudioClipper = createAudioClipper();
 
         setupDebugTools();
+
+        if (Debug.instance.profileFrames) {
+            mFrameProfiler = new FrameProfiler(mPerformanceCounters);
+        }
     }
 
     private void startMusic() {
@@ -133,7 +164,7 @@ public class RaceScreen extends ScreenAdapter {
         if (Debug.instance.showDebugHud) {
             GameRenderer gameRenderer = mGameRenderers.first();
             RacerHudController controller = mRacerHudControllers.first();
-            controller.initDebugHud(mPerformanceCounters);
+            controller.initDebugHud(mPerformanceCounters, mRenderStats);
 
             MineDropper dropper = new MineDropper(mGame, mGameWorld, gameRenderer);
             mGameWorld.addGameObject(dropper);
@@ -200,6 +231,10 @@ public class RaceScreen extends ScreenAdapter {
                 float d2 = dx * dx + dy * dy;
                 distance2 = Math.min(d2, distance2);
             }
+            if (distance2 >= maxDistance * maxDistance) {
+                // Too far to be heard, no need to compute the distance
+                return 0;
+            }
             return 1f - (float) Math.sqrt(distance2) / maxDistance;
         };
     }
@@ -238,7 +273,18 @@ public class RaceScreen extends ScreenAdapter {
         Gdx.gl.glClearColor(0, 0, 0, 1);
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
         for (GameRenderer gameRenderer : mGameRenderers) {
-            gameRenderer.render(delta);
+            gameRenderer.updateView(delta);
+        }
+        if (mRenderStats != null) {
+            mRenderStats.beginFrame();
+            mRenderStats.beginPass();
+        }
+        mCellFrameBufferPass.draw(mGameRenderers);
+        if (mRenderStats != null) {
+            mRenderStats.endPass(mCellPass);
+        }
+        for (GameRenderer gameRenderer : mGameRenderers) {
+            gameRenderer.render();
         }
 
         for (GameObject gameObject : mGameWorld.getActiveGameObjects()) {
@@ -265,12 +311,24 @@ public class RaceScreen extends ScreenAdapter {
         }
         mCountDownHudController.act(delta);
         mHudViewport.apply(true);
+        if (mRenderStats != null) {
+            mRenderStats.beginPass();
+        }
         mHudStage.draw();
+        if (mRenderStats != null) {
+            mRenderStats.endPass(mHudPass);
+        }
         mHudStage.act(delta);
         mHudPerformanceCounter.stop();
 
         mOverallPerformanceCounter.stop();
         if (!paused) {
+            if (mFrameProfiler != null) {
+                mFrameProfiler.recordFrame(delta);
+            }
+            if (mRenderStats != null) {
+                mRenderStats.endFrame();
+            }
             // This for loop replaces `mPerformanceCounters.tick(delta);` except it does not log an
             // error if the counter has not been used for the frame. This can happen in
             // GameWorldImpl.act(delta) if delta is shorter than Box2D timestep.
@@ -331,8 +389,16 @@ public class RaceScreen extends ScreenAdapter {
     }
 
     private void onFinished() {
+        if (mFrameProfiler != null) {
+            mFrameProfiler.finish(mGameInfo.getTrack().getId());
+        }
+        if (mRenderStats != null) {
+            mRenderStats.finish(mGameInfo.getTrack().getId());
+        }
         FinishedOverlay overlay = new FinishedOverlay(mGame, this, mGameWorld.getRacers());
         mHudStage.addActor(overlay);
+        mGame.flushGameStats();
+        mListener.onRaceFinished();
     }
 
     private void pauseRace() {
@@ -340,6 +406,7 @@ public class RaceScreen extends ScreenAdapter {
             return;
         }
         mGame.getAudioManager().setSoundFxMuted(true);
+        mGame.flushGameStats();
         mPauseOverlay = new PauseOverlay(mGame, this);
         mHudStage.addActor(mPauseOverlay);
     }
@@ -379,10 +446,23 @@ public class RaceScreen extends ScreenAdapter {
         }
     }
 
+    @Override
+    public void resume() {
+        super.resume();
+        mCellFrameBufferPass.invalidate();
+    }
+
     @Override
     public void dispose() {
         super.dispose();
         mGameWorld.dispose();
+        mCellFrameBufferPass.dispose();
+        if (mFrameProfiler != null) {
+            mFrameProfiler.dispose();
+        }
+        if (mRenderStats != null) {
+            mRenderStats.dispose();
+        }
     }
 
     public void forgetTrack() {
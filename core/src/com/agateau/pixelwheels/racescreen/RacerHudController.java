@@ -22,6 +22,7 @@ import com.agateau.pixelwheels.Assets;
 import com.agateau.pixelwheels.GamePlay;
 import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.debug.DebugStringMap;
+import com.agateau.pixelwheels.debug.RenderStats;
 import com.agateau.pixelwheels.racer.Racer;
 import com.agateau.pixelwheels.utils.StringUtils;
 import com.agateau.ui.anchor.Anchor;
@@ -47,6 +48,7 @@ public class RacerHudController {
     private final Hud mHud;
     private final Racer mRacer;
     private PerformanceCounters mPerformanceCounters = null;
+    private RenderStats mRenderStats = null;
 
     private Label mRankLabel;
     private Label mLapLabel;
@@ -99,8 +101,10 @@ public class RacerHudController {
                 lapIconImage, Anchor.CENTER_RIGHT, mLapLabel, Anchor.CENTER_LEFT, -8, 0);
     }
 
-    public void initDebugHud(PerformanceCounters performanceCounters) {
+    /** renderStats can be null */
+    public void initDebugHud(PerformanceCounters performanceCounters, RenderStats renderStats) {
         mPerformanceCounters = performanceCounters;
+        mRenderStats = renderStats;
 
         mDebugGroup = new VerticalGroup();
         mDebugLabel = new Label("D", mAssets.ui.skin, "tiny");
@@ -160,6 +164,9 @@ public class RacerHudController {
                     .append(String.valueOf((int) (counter.load.value * 100)))
                     .append("%\n");
         }
+        if (mRenderStats != null) {
+            mRenderStats.appendTo(sDebugSB);
+        }
         for (Map.Entry<String, String> entry : DebugStringMap.getMap().entrySet()) {
             sDebugSB.append(entry.getKey()).append(": ").append(entry.getValue()).append("\n");
         }
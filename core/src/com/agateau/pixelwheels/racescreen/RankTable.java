@@ -0,0 +1,82 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.racescreen;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import java.util.Comparator;
+
+/**
+ * Keeps items sorted by rank, and provides item → rank and rank → item lookups.
+ *
+ * <p>Ranks are only updated when update() is called. Since ranks change little from one call to
+ * the next, update() uses an insertion sort, which is close to O(n) when items are almost sorted.
+ * The sort is stable, so items which compare as equal keep their previous ranks.
+ *
+ * <p>Ranks start at 1.
+ */
+class RankTable<T> {
+    private final Comparator<T> mComparator;
+    private final Array<T> mItems = new Array<>();
+    private final ObjectIntMap<T> mRankForItem = new ObjectIntMap<>();
+
+    /** comparator must return a negative value if its first argument is ranked before the second */
+    RankTable(Comparator<T> comparator) {
+        mComparator = comparator;
+    }
+
+    /** Adds item after all the other items. Call update() to sort it */
+    void add(T item) {
+        mItems.add(item);
+        mRankForItem.put(item, mItems.size);
+    }
+
+    void update() {
+        T[] items = mItems.items;
+        int firstChangedIdx = mItems.size;
+        for (int idx = 1; idx < mItems.size; ++idx) {
+            T item = items[idx];
+            int destIdx = idx;
+            while (destIdx > 0 && mComparator.compare(items[destIdx - 1], item) > 0) {
+                items[destIdx] = items[destIdx - 1];
+                --destIdx;
+            }
+            if (destIdx != idx) {
+                items[destIdx] = item;
+                firstChangedIdx = Math.min(firstChangedIdx, destIdx);
+            }
+        }
+        for (int idx = firstChangedIdx; idx < mItems.size; ++idx) {
+            mRankForItem.put(items[idx], idx + 1);
+        }
+    }
+
+    int getRank(T item) {
+        return mRankForItem.get(item, 0);
+    }
+
+    T getItemAtRank(int rank) {
+        return mItems.get(rank - 1);
+    }
+
+    /** Returns the items, sorted by rank. Must not be modified */
+    Array<T> getItems() {
+        return mItems;
+    }
+}
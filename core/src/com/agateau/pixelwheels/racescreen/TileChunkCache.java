@@ -0,0 +1,171 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.racescreen;
+
+import static com.badlogic.gdx.graphics.g2d.Batch.X1;
+import static com.badlogic.gdx.graphics.g2d.Batch.X3;
+import static com.badlogic.gdx.graphics.g2d.Batch.Y1;
+import static com.badlogic.gdx.graphics.g2d.Batch.Y3;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * The vertices of the tile layers of a map, computed once and grouped in square chunks of cells.
+ * Drawing a layer then only requires sending the vertices of the chunks in view to the batch.
+ *
+ * <p>Vertices are computed for a white batch color. The cache does not hold any GL resource, so it
+ * can be shared by all the renderers of a map and does not need to be disposed.
+ */
+public class TileChunkCache {
+    // Unit: cells
+    static final int CHUNK_SIZE = 8;
+    // 4 vertices made of x, y, color, u and v
+    private static final int CELL_VERTEX_COUNT = 20;
+
+    /** Consecutive cells of a chunk which use the same texture */
+    private static class Run {
+        final Texture texture;
+        final float[] vertices;
+
+        Run(Texture texture, float[] vertices) {
+            this.texture = texture;
+            this.vertices = vertices;
+        }
+    }
+
+    private static class Chunk {
+        final Rectangle bounds = new Rectangle();
+        final Array<Run> runs = new Array<>();
+    }
+
+    // Chunks of each layer, in the order PwTiledMapRenderer draws cells: top rows first
+    private final ObjectMap<TiledMapTileLayer, Array<Chunk>> mChunksForLayer = new ObjectMap<>();
+
+    // Work vars
+    private final float[] mCellVertices = new float[CELL_VERTEX_COUNT];
+    private final FloatArray mRunVertices = new FloatArray();
+
+    public TileChunkCache(TiledMap map, float unitScale) {
+        for (TiledMapTileLayer layer : map.getLayers().getByType(TiledMapTileLayer.class)) {
+            mChunksForLayer.put(layer, bakeLayer(layer, unitScale));
+        }
+    }
+
+    /** Draws the chunks of layer which intersect viewBounds */
+    public void draw(Batch batch, TiledMapTileLayer layer, Rectangle viewBounds) {
+        Array<Chunk> chunks = mChunksForLayer.get(layer);
+        if (chunks == null) {
+            return;
+        }
+        for (int chunkIdx = 0; chunkIdx < chunks.size; ++chunkIdx) {
+            Chunk chunk = chunks.get(chunkIdx);
+            if (!chunk.bounds.overlaps(viewBounds)) {
+                continue;
+            }
+            for (int runIdx = 0; runIdx < chunk.runs.size; ++runIdx) {
+                Run run = chunk.runs.get(runIdx);
+                batch.draw(run.texture, run.vertices, 0, run.vertices.length);
+            }
+        }
+    }
+
+    private Array<Chunk> bakeLayer(TiledMapTileLayer layer, float unitScale) {
+        int chunkColumns = MathUtils.ceil((float) layer.getWidth() / CHUNK_SIZE);
+        int chunkRows = MathUtils.ceil((float) layer.getHeight() / CHUNK_SIZE);
+        Array<Chunk> chunks = new Array<>();
+        for (int chunkRow = chunkRows - 1; chunkRow >= 0; --chunkRow) {
+            for (int chunkColumn = 0; chunkColumn < chunkColumns; ++chunkColumn) {
+                Chunk chunk = bakeChunk(layer, unitScale, chunkColumn, chunkRow);
+                if (chunk.runs.size > 0) {
+                    chunks.add(chunk);
+                }
+            }
+        }
+        return chunks;
+    }
+
+    private Chunk bakeChunk(
+            TiledMapTileLayer layer, float unitScale, int chunkColumn, int chunkRow) {
+        final float color = Color.toFloatBits(1f, 1f, 1f, layer.getOpacity());
+        final float tileWidth = layer.getTileWidth() * unitScale;
+        final float tileHeight = layer.getTileHeight() * unitScale;
+        final float offsetX = layer.getRenderOffsetX() * unitScale;
+        // offset in tiled is y down, so we flip it
+        final float offsetY = -layer.getRenderOffsetY() * unitScale;
+
+        final int col1 = chunkColumn * CHUNK_SIZE;
+        final int col2 = Math.min(col1 + CHUNK_SIZE, layer.getWidth());
+        final int row1 = chunkRow * CHUNK_SIZE;
+        final int row2 = Math.min(row1 + CHUNK_SIZE, layer.getHeight());
+
+        Chunk chunk = new Chunk();
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        Texture runTexture = null;
+        mRunVertices.clear();
+        for (int row = row2 - 1; row >= row1; --row) {
+            for (int col = col1; col < col2; ++col) {
+                TiledMapTileLayer.Cell cell = layer.getCell(col, row);
+                if (cell == null) {
+                    continue;
+                }
+                float x = col * tileWidth + offsetX;
+                float y = row * tileHeight + offsetY;
+                Texture texture =
+                        PwTiledMapRenderer.computeCellVertices(
+                                cell, x, y, unitScale, color, mCellVertices, 0);
+                if (texture == null) {
+                    continue;
+                }
+                if (texture != runTexture) {
+                    addRun(chunk, runTexture);
+                    runTexture = texture;
+                }
+                mRunVertices.addAll(mCellVertices);
+                // Rotations and flips only affect texture coordinates
+                minX = Math.min(minX, mCellVertices[X1]);
+                minY = Math.min(minY, mCellVertices[Y1]);
+                maxX = Math.max(maxX, mCellVertices[X3]);
+                maxY = Math.max(maxY, mCellVertices[Y3]);
+            }
+        }
+        addRun(chunk, runTexture);
+        chunk.bounds.set(minX, minY, maxX - minX, maxY - minY);
+        return chunk;
+    }
+
+    private void addRun(Chunk chunk, Texture texture) {
+        if (mRunVertices.size == 0) {
+            return;
+        }
+        chunk.runs.add(new Run(texture, mRunVertices.toArray()));
+        mRunVertices.clear();
+    }
+}
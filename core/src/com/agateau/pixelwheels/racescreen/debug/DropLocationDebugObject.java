@@ -45,6 +45,8 @@ import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
  * another target at the matching position on the waypoint polygon, if any.
  */
 public class DropLocationDebugObject extends GameObjectAdapter {
+    private static final ZLevel[] Z_LEVELS = {ZLevel.FLYING_HIGH};
+
     private final Assets mAssets;
     private final GameRenderer mGameRenderer;
     private final Track mTrack;
@@ -86,6 +88,11 @@ public class DropLocationDebugObject extends GameObjectAdapter {
         }
     }
 
+    @Override
+    public ZLevel[] getZLevels() {
+        return Z_LEVELS;
+    }
+
     @Override
     public void draw(Batch batch, ZLevel zLevel, Rectangle viewBounds) {
         if (!mActive || zLevel != ZLevel.FLYING_HIGH) {
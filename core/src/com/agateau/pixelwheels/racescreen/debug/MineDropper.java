@@ -35,6 +35,8 @@ import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
 
 /** A debug helper class to drop mines by clicking on the map */
 public class MineDropper extends GameObjectAdapter {
+    private static final ZLevel[] Z_LEVELS = {};
+
     private final Vector2 mCoord = new Vector2();
     private final PwGame mGame;
     private final GameWorld mGameWorld;
@@ -73,6 +75,11 @@ public class MineDropper extends GameObjectAdapter {
         }
     }
 
+    @Override
+    public ZLevel[] getZLevels() {
+        return Z_LEVELS;
+    }
+
     @Override
     public void draw(Batch batch, ZLevel zLevel, Rectangle viewBounds) {}
 
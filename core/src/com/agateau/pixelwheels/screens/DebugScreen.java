@@ -85,6 +85,8 @@ public class DebugScreen extends PwStageScreen {
         addRange("Max driving force", "maxDrivingForce", 10, 200, 10);
         addRange("Max speed", "maxSpeed", 10, 400, 10);
         addRange("AI speed limiter", "aiSpeedLimiter", 0.1f, 1f, 0.1f);
+        addRange("AI think interval", "aiThinkInterval", 1, 30);
+        addRange("AI raycasts per step", "aiMaxRaycastsPerStep", 8, 120, 8);
         addTitle("Turbo");
         addRange("Strength", "turboStrength", 10, 800, 10);
         addRange("Duration", "turboDuration", 0.1f, 2f);
@@ -104,7 +106,7 @@ public class DebugScreen extends PwStageScreen {
 
         mCurrentIntrospector = mGame.getDebugIntrospector();
         mCurrentGroup = tabMenuItem.addPage("Misc");
-        addRange("Max skidmarks", "maxSkidmarks", 10, 200, 10);
+        addRange("Max skidmark quads", "maxSkidmarkQuads", 512, 16384, 512);
         addCheckBox("Force touch input", "alwaysShowTouchInput");
         addCheckBox("Refresh assets on restart", "refreshAssetsOnRestart");
 
@@ -115,6 +117,11 @@ public class DebugScreen extends PwStageScreen {
         addCheckBox("- Draw tile corners", "drawTileCorners");
         addCheckBox("Hud debug lines", "showHudDebugLines");
         addCheckBox("Log UI activities", "logUiActivities");
+        addCheckBox("Record telemetry", "recordTelemetry");
+        addCheckBox("Profile frame times", "profileFrames");
+        addRange("Spike threshold (ms)", "spikeThresholdMs", 20, 200, 10);
+        addCheckBox("Cache tile chunks", "cacheTileChunks");
+        addCheckBox("Record render stats", "recordRenderStats");
 
         mMenu.addBackButton()
                 .addListener(
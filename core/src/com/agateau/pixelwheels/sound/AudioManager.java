@@ -31,10 +31,10 @@ public interface AudioManager {
     void setMusicMuted(boolean muted);
 
     /** Basic method for simple sounds */
-    void play(Sound sound, float volume);
+    void play(Sound sound, float volume, SoundCategory category);
 
     /** Create a SoundPlayer, for more advanced controls */
-    SoundPlayer createSoundPlayer(Sound sound);
+    SoundPlayer createSoundPlayer(Sound sound, SoundCategory category);
 
     void playMusic(String musicId);
 
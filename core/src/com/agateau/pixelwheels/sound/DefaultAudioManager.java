@@ -33,6 +33,7 @@ public class DefaultAudioManager implements AudioManager {
     private final Array<WeakReference<DefaultSoundPlayer>> mSoundPlayers = new Array<>();
     private final MusicFader mMusicFader = new MusicFader();
     private final SoundThreadManager mSoundThreadManager = new SoundThreadManager();
+    private final VoiceManager mVoiceManager = new VoiceManager(mSoundThreadManager);
 
     private String mMusicId = "";
     private Music mMusic;
@@ -79,16 +80,18 @@ public class DefaultAudioManager implements AudioManager {
     }
 
     @Override
-    public void play(Sound sound, float volume) {
+    public void play(Sound sound, float volume, SoundCategory category) {
         if (mSoundFxMuted) {
             return;
         }
-        mSoundThreadManager.playAndForget(sound, volume);
+        if (mVoiceManager.reserveOneShot(category.getScore(volume))) {
+            mSoundThreadManager.playAndForget(sound, volume);
+        }
     }
 
     @Override
-    public SoundPlayer createSoundPlayer(Sound sound) {
-        DefaultSoundPlayer player = new DefaultSoundPlayer(mSoundThreadManager, sound);
+    public SoundPlayer createSoundPlayer(Sound sound, SoundCategory category) {
+        DefaultSoundPlayer player = new DefaultSoundPlayer(mVoiceManager, sound, category);
         player.setMuted(mSoundFxMuted);
         mSoundPlayers.add(new WeakReference<>(player));
         return player;
@@ -20,19 +20,29 @@ package com.agateau.pixelwheels.sound;
 
 import com.badlogic.gdx.audio.Sound;
 
-/** Implementation of SoundPlayer based on libgdx */
+/**
+ * Implementation of SoundPlayer based on libgdx.
+ *
+ * <p>Looping sounds are voices of the VoiceManager: loop() does not start the sound right away,
+ * the VoiceManager starts and stops it depending on what else is playing. isLooping() returns true
+ * as long as the sound is supposed to loop, even if it is currently virtualized.
+ */
 public class DefaultSoundPlayer implements SoundPlayer {
+    private final VoiceManager mVoiceManager;
     private final SoundThreadManager mSoundThreadManager;
     private final Sound mSound;
+    private final SoundCategory mCategory;
     private long mId = -1;
     private boolean mLooping = false;
     private float mVolume = 1;
     private float mPitch = 1;
     private boolean mMuted = false;
 
-    public DefaultSoundPlayer(SoundThreadManager soundThreadManager, Sound sound) {
-        mSoundThreadManager = soundThreadManager;
+    public DefaultSoundPlayer(VoiceManager voiceManager, Sound sound, SoundCategory category) {
+        mVoiceManager = voiceManager;
+        mSoundThreadManager = voiceManager.getSoundThreadManager();
         mSound = sound;
+        mCategory = category;
     }
 
     @Override
@@ -41,7 +51,9 @@ public class DefaultSoundPlayer implements SoundPlayer {
             return;
         }
         stop();
-        mId = mSoundThreadManager.play(mSound, mVolume, mPitch);
+        if (mVoiceManager.reserveOneShot(getScore())) {
+            mId = mSoundThreadManager.play(mSound, mVolume, mPitch);
+        }
     }
 
     @Override
@@ -50,18 +62,21 @@ public class DefaultSoundPlayer implements SoundPlayer {
             return;
         }
         stop();
-        mId = mSoundThreadManager.loop(mSound, mVolume, mPitch);
         mLooping = true;
+        mVoiceManager.addVoice(this);
     }
 
     @Override
     public void stop() {
+        if (mLooping) {
+            mVoiceManager.removeVoice(this);
+            mLooping = false;
+        }
         if (mId == -1) {
             return;
         }
         mSoundThreadManager.stop(mId);
         mId = -1;
-        mLooping = false;
     }
 
     @Override
@@ -71,8 +86,14 @@ public class DefaultSoundPlayer implements SoundPlayer {
 
     @Override
     public void setVolume(float volume) {
+        if (mVolume == volume) {
+            return;
+        }
         mVolume = volume;
         updateVolume();
+        if (mLooping) {
+            mVoiceManager.scheduleUpdate();
+        }
     }
 
     @Override
@@ -82,6 +103,9 @@ public class DefaultSoundPlayer implements SoundPlayer {
 
     @Override
     public void setPitch(float pitch) {
+        if (mPitch == pitch) {
+            return;
+        }
         mPitch = pitch;
         if (mId != -1) {
             mSoundThreadManager.setPitch(mId, mPitch);
@@ -101,6 +125,25 @@ public class DefaultSoundPlayer implements SoundPlayer {
         }
     }
 
+    float getScore() {
+        return mMuted ? 0 : mCategory.getScore(mVolume);
+    }
+
+    /** Returns true if this is a voice which is actually being played */
+    boolean isVoicePlaying() {
+        return mLooping && mId != -1;
+    }
+
+    void startVoice() {
+        mId = mSoundThreadManager.loop(mSound, mVolume, mPitch);
+    }
+
+    /** Stops the sound on the audio backend, but keeps it looping from the caller point of view */
+    void stopVoice() {
+        mSoundThreadManager.stop(mId);
+        mId = -1;
+    }
+
     private void updateVolume() {
         if (mId != -1) {
             mSoundThreadManager.setVolume(mId, mMuted ? 0 : mVolume);
@@ -43,14 +43,15 @@ public class EngineSoundPlayer {
         return mPitch;
     }
 
-    public EngineSoundPlayer(SoundAtlas atlas, AudioManager audioManager) {
+    public EngineSoundPlayer(
+            SoundAtlas atlas, AudioManager audioManager, SoundCategory category) {
         for (int i = 0; ; ++i) {
             String name = String.format(Locale.US, "engine-%d", i);
             if (!atlas.contains(name)) {
                 break;
             }
             Sound sound = atlas.get(name);
-            mSoundPlayers.add(audioManager.createSoundPlayer(sound));
+            mSoundPlayers.add(audioManager.createSoundPlayer(sound, category));
         }
     }
 
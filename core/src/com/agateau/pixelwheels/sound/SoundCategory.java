@@ -0,0 +1,43 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.sound;
+
+/**
+ * What a sound is about. VoiceManager uses this, together with the sound volume, to decide which
+ * sounds to play when there are too many of them.
+ */
+public enum SoundCategory {
+    /** Sounds which are not part of the race world, like the count down */
+    INTERFACE(16),
+    PLAYER_RACER(8),
+    EXPLOSION(4),
+    AI_RACER(2),
+    EFFECT(1);
+
+    private final float mWeight;
+
+    SoundCategory(float weight) {
+        mWeight = weight;
+    }
+
+    /** Returns how important a sound of this category played at this volume is */
+    public float getScore(float volume) {
+        return volume * mWeight;
+    }
+}
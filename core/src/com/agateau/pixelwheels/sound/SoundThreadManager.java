@@ -18,33 +18,52 @@
  */
 package com.agateau.pixelwheels.sound;
 
+import com.agateau.pixelwheels.debug.FlightRecorder;
 import com.agateau.utils.log.NLog;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.LifecycleListener;
 import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Pool;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * This class plays sound effects on a separate thread.
  *
- * <p>This is required because of a bug in Android 10 which causes calls to Sound.play() to block.
+ * <p>This is required because of a bug in Android 10 which causes calls to Sound.play() to block,
+ * and because with many racers, each looping engine sounds, calls to the audio backend take a
+ * significant part of the frame time.
  *
- * <p>Communication between the sound thread and the rest is done through a message queue. Messages
- * are created from a Pool to avoid allocations.
+ * <p>Communication between the sound thread and the rest is done through a single-producer,
+ * single-consumer ring buffer of preallocated messages, so sending a command does not allocate nor
+ * lock. All public methods must be called from the render thread.
+ *
+ * <p>Volume and pitch changes are not sent right away: they are coalesced so that only the last
+ * values set during a frame are sent, once per frame, when the render thread runs flush(). Play ids
+ * are generated on the calling thread, so play() and loop() return immediately.
  *
  * @see <a href="https://github.com/libgdx/libgdx/issues/5786">libgdx issue #5786</a>
  */
 public class SoundThreadManager {
-    private static final int MESSAGE_QUEUE_SIZE = 80;
+    /** Must be a power of two */
+    private static final int MESSAGE_QUEUE_SIZE = 256;
+
+    private static final int MESSAGE_QUEUE_MASK = MESSAGE_QUEUE_SIZE - 1;
+
+    /**
+     * Sounds played with play() are forgotten after this delay: they have finished, even when
+     * played at a low pitch, since our longest sound lasts less than 6 seconds. Without this they
+     * would never be removed if nobody calls stop() on them.
+     */
+    private static final long ONE_SHOT_MAX_DURATION_NS = 15_000_000_000L;
 
     private long mNextPlayId = 0;
 
     /**
      * A message to send on the queue. The class can contains all the possible messages, so its
      * members are the union of all possible message parameters. This is not elegant but it makes it
-     * possible to use a single message pool for all messages.
+     * possible to preallocate all the messages of the queue.
      */
     private static class Message {
         enum Type {
@@ -62,12 +81,21 @@ public class SoundThreadManager {
         public Sound sound;
         public float volume;
         public float pitch;
+    }
+
+    /** Volume and pitch changes for a sound, waiting for the next flush() */
+    private static class ParamChange {
+        long playId;
+        boolean hasVolume;
+        float volume;
+        boolean hasPitch;
+        float pitch;
 
-        static final Pool<Message> sPool =
-                new Pool<Message>() {
+        static final Pool<ParamChange> sPool =
+                new Pool<ParamChange>() {
                     @Override
-                    protected Message newObject() {
-                        return new Message();
+                    protected ParamChange newObject() {
+                        return new ParamChange();
                     }
                 };
     }
@@ -81,6 +109,9 @@ public class SoundThreadManager {
         long playId;
         /** The id returned by the Sound.play() or Sound.loop() methods */
         long internalId;
+        /** For sounds started with play(), the time after which they can be forgotten */
+        long expirationTime;
+        boolean looping;
 
         Sound sound;
 
@@ -93,25 +124,43 @@ public class SoundThreadManager {
                 };
     }
 
-    final Array<PlayingSound> playingSounds = new Array<>(/* ordered */ false, 16);
+    // Ring buffer. mWriteIndex is only modified by the render thread, mReadIndex only by the sound
+    // thread.
+    private final Message[] mMessages = new Message[MESSAGE_QUEUE_SIZE];
+    private final AtomicLong mWriteIndex = new AtomicLong();
+    private final AtomicLong mReadIndex = new AtomicLong();
 
-    PlayingSound findSound(long playId) {
-        int idx = findSoundIndex(playId);
-        return idx >= 0 ? playingSounds.get(idx) : null;
-    }
+    // Only accessed by the render thread
+    private final Array<ParamChange> mParamChanges = new Array<>(/* ordered */ false, 16);
+    private boolean mFlushScheduled = false;
+    private final Runnable mFlushRunnable = this::flush;
 
-    PlayingSound takeSound(long playId) {
-        int idx = findSoundIndex(playId);
-        return idx >= 0 ? playingSounds.removeIndex(idx) : null;
-    }
+    // Only accessed by the sound thread
+    final Array<PlayingSound> playingSounds = new Array<>(/* ordered */ false, 16);
 
-    private int findSoundIndex(long playId) {
-        for (int idx = 0, n = playingSounds.size; idx < n; idx++) {
-            if (playingSounds.get(idx).playId == playId) {
-                return idx;
-            }
+    private final Thread mThread;
+
+    public SoundThreadManager() {
+        for (int idx = 0; idx < MESSAGE_QUEUE_SIZE; ++idx) {
+            mMessages[idx] = new Message();
         }
-        return -1;
+        mThread = new Thread(this::run, "SoundThread");
+        mThread.setDaemon(true);
+        mThread.start();
+
+        Gdx.app.addLifecycleListener(
+                new LifecycleListener() {
+                    @Override
+                    public void pause() {}
+
+                    @Override
+                    public void resume() {}
+
+                    @Override
+                    public void dispose() {
+                        shutdown();
+                    }
+                });
     }
 
     /**
@@ -119,7 +168,12 @@ public class SoundThreadManager {
      * volume or pitch later
      */
     public void playAndForget(Sound sound, float volume) {
-        sound.play(volume, 1, 0);
+        Message message = obtainMessage(Message.Type.PLAY_AND_FORGET, -1);
+        message.sound = sound;
+        message.volume = volume;
+        message.pitch = 1;
+        publishMessage();
+        scheduleFlush();
     }
 
     public long play(Sound sound, float volume) {
@@ -128,8 +182,8 @@ public class SoundThreadManager {
 
     /**
      * Play a sound on a separate thread, return an id which can be used to control the sound with
-     * setVolume(), setPitch() or stop() or -1 if the sound could not be played because the sound
-     * thread is too busy
+     * setVolume(), setPitch() or stop(). The id becomes invalid some time after the sound has
+     * finished, calls using it are then ignored.
      */
     public long play(Sound sound, float volume, float pitch) {
         return internalPlay(sound, volume, pitch, /* loop */ false);
@@ -140,45 +194,233 @@ public class SoundThreadManager {
     }
 
     public void stop(long playId) {
-        PlayingSound pSound = takeSound(playId);
-        if (pSound == null) {
-            NLog.e("Invalid playId: %d", playId);
-            return;
+        // Pending changes are useless now
+        int idx = findParamChangeIndex(playId);
+        if (idx >= 0) {
+            ParamChange.sPool.free(mParamChanges.removeIndex(idx));
         }
-        pSound.sound.stop(pSound.internalId);
-        PlayingSound.sPool.free(pSound);
+        obtainMessage(Message.Type.STOP, playId);
+        publishMessage();
+        scheduleFlush();
     }
 
     public void setVolume(long playId, float volume) {
-        PlayingSound pSound = findSound(playId);
-        if (pSound == null) {
-            NLog.e("Invalid playId: %d", playId);
-            return;
-        }
-        pSound.sound.setVolume(pSound.internalId, volume);
+        ParamChange change = getParamChange(playId);
+        change.hasVolume = true;
+        change.volume = volume;
     }
 
     public void setPitch(long playId, float pitch) {
-        PlayingSound pSound = findSound(playId);
-        if (pSound == null) {
-            NLog.e("Invalid playId: %d", playId);
-            return;
+        ParamChange change = getParamChange(playId);
+        change.hasPitch = true;
+        change.pitch = pitch;
+    }
+
+    /**
+     * Sends pending volume and pitch changes and wakes up the sound thread. Called automatically
+     * once per frame when there is something to send.
+     */
+    public void flush() {
+        mFlushScheduled = false;
+        for (ParamChange change : mParamChanges) {
+            if (change.hasVolume) {
+                obtainMessage(Message.Type.SET_VOLUME, change.playId).volume = change.volume;
+                publishMessage();
+            }
+            if (change.hasPitch) {
+                obtainMessage(Message.Type.SET_PITCH, change.playId).pitch = change.pitch;
+                publishMessage();
+            }
         }
-        pSound.sound.setPitch(pSound.internalId, pitch);
+        ParamChange.sPool.freeAll(mParamChanges);
+        mParamChanges.clear();
+        LockSupport.unpark(mThread);
     }
 
     private long internalPlay(Sound sound, float volume, float pitch, boolean loop) {
         long playId = mNextPlayId++;
+        Message message = obtainMessage(loop ? Message.Type.LOOP : Message.Type.PLAY, playId);
+        message.sound = sound;
+        message.volume = volume;
+        message.pitch = pitch;
+        publishMessage();
+        scheduleFlush();
+        return playId;
+    }
 
+    private ParamChange getParamChange(long playId) {
+        int idx = findParamChangeIndex(playId);
+        if (idx >= 0) {
+            return mParamChanges.get(idx);
+        }
+        ParamChange change = ParamChange.sPool.obtain();
+        change.playId = playId;
+        change.hasVolume = false;
+        change.hasPitch = false;
+        mParamChanges.add(change);
+        scheduleFlush();
+        return change;
+    }
+
+    private int findParamChangeIndex(long playId) {
+        for (int idx = 0, n = mParamChanges.size; idx < n; idx++) {
+            if (mParamChanges.get(idx).playId == playId) {
+                return idx;
+            }
+        }
+        return -1;
+    }
+
+    private void scheduleFlush() {
+        if (mFlushScheduled) {
+            return;
+        }
+        mFlushScheduled = true;
+        Gdx.app.postRunnable(mFlushRunnable);
+    }
+
+    /** Returns the next free message of the queue. It must then be sent with publishMessage(). */
+    private Message obtainMessage(Message.Type type, long playId) {
+        long writeIndex = mWriteIndex.get();
+        while (writeIndex - mReadIndex.get() >= MESSAGE_QUEUE_SIZE) {
+            // The queue is full. This should not happen since the sound thread processes messages
+            // much faster than we send them, but dropping messages could leave sounds looping
+            // forever, so wait for it.
+            LockSupport.unpark(mThread);
+            Thread.yield();
+        }
+        Message message = mMessages[(int) (writeIndex & MESSAGE_QUEUE_MASK)];
+        message.type = type;
+        message.playId = playId;
+        return message;
+    }
+
+    private void publishMessage() {
+        // lazySet() ensures the message content is visible to the sound thread before the index
+        mWriteIndex.lazySet(mWriteIndex.get() + 1);
+        FlightRecorder.instance.addAudioCommand();
+    }
+
+    private void shutdown() {
+        flush();
+        obtainMessage(Message.Type.SHUTDOWN, -1);
+        publishMessage();
+        LockSupport.unpark(mThread);
+        try {
+            mThread.join();
+        } catch (InterruptedException e) {
+            NLog.e("Interrupted while waiting for the sound thread to finish");
+        }
+    }
+
+    /** The sound thread */
+    private void run() {
+        while (true) {
+            long readIndex = mReadIndex.get();
+            if (readIndex == mWriteIndex.get()) {
+                LockSupport.park(this);
+                continue;
+            }
+            Message message = mMessages[(int) (readIndex & MESSAGE_QUEUE_MASK)];
+            boolean keepRunning = processMessage(message);
+            message.sound = null;
+            mReadIndex.lazySet(readIndex + 1);
+            if (!keepRunning) {
+                return;
+            }
+        }
+    }
+
+    /** Returns false if the thread must stop */
+    private boolean processMessage(Message message) {
+        switch (message.type) {
+            case PLAY_AND_FORGET:
+                message.sound.play(message.volume, message.pitch, 0);
+                break;
+            case PLAY:
+            case LOOP:
+                startSound(message);
+                break;
+            case STOP:
+                stopSound(message.playId);
+                break;
+            case SET_VOLUME:
+                {
+                    PlayingSound pSound = findSound(message.playId);
+                    if (pSound != null) {
+                        pSound.sound.setVolume(pSound.internalId, message.volume);
+                    }
+                    break;
+                }
+            case SET_PITCH:
+                {
+                    PlayingSound pSound = findSound(message.playId);
+                    if (pSound != null) {
+                        pSound.sound.setPitch(pSound.internalId, message.pitch);
+                    }
+                    break;
+                }
+            case SHUTDOWN:
+                return false;
+        }
+        return true;
+    }
+
+    private void startSound(Message message) {
+        long now = System.nanoTime();
+        forgetFinishedSounds(now);
         PlayingSound pSound = PlayingSound.sPool.obtain();
-        pSound.playId = playId;
-        pSound.sound = sound;
-        if (loop)
-            pSound.internalId = sound.loop(volume, pitch, 0);
-        else
-            pSound.internalId = sound.play(volume, pitch, 0);
+        pSound.playId = message.playId;
+        pSound.sound = message.sound;
+        pSound.looping = message.type == Message.Type.LOOP;
+        if (pSound.looping) {
+            pSound.internalId = message.sound.loop(message.volume, message.pitch, 0);
+        } else {
+            pSound.internalId = message.sound.play(message.volume, message.pitch, 0);
+            pSound.expirationTime = now + ONE_SHOT_MAX_DURATION_NS;
+        }
         playingSounds.add(pSound);
+    }
 
-        return playId;
+    private void forgetFinishedSounds(long now) {
+        for (int idx = playingSounds.size - 1; idx >= 0; --idx) {
+            PlayingSound pSound = playingSounds.get(idx);
+            if (!pSound.looping && now - pSound.expirationTime >= 0) {
+                playingSounds.removeIndex(idx);
+                pSound.sound = null;
+                PlayingSound.sPool.free(pSound);
+            }
+        }
+    }
+
+    private void stopSound(long playId) {
+        PlayingSound pSound = takeSound(playId);
+        if (pSound == null) {
+            // Not an error: this can be a sound started with play() which has been forgotten
+            return;
+        }
+        pSound.sound.stop(pSound.internalId);
+        pSound.sound = null;
+        PlayingSound.sPool.free(pSound);
+    }
+
+    /** Returns the sound, or null if it has been stopped or forgotten */
+    PlayingSound findSound(long playId) {
+        int idx = findSoundIndex(playId);
+        return idx >= 0 ? playingSounds.get(idx) : null;
+    }
+
+    PlayingSound takeSound(long playId) {
+        int idx = findSoundIndex(playId);
+        return idx >= 0 ? playingSounds.removeIndex(idx) : null;
+    }
+
+    private int findSoundIndex(long playId) {
+        for (int idx = 0, n = playingSounds.size; idx < n; idx++) {
+            if (playingSounds.get(idx).playId == playId) {
+                return idx;
+            }
+        }
+        return -1;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.sound;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.TimeUtils;
+import java.util.Comparator;
+
+/**
+ * Limits the number of sounds played at the same time.
+ *
+ * <p>Looping sounds are "voices". Once per frame, voices are sorted by score (see SoundCategory)
+ * and only the first ones are actually played, the others are virtualized: they are stopped on
+ * the audio backend, but their player keeps reporting them as looping and keeps track of their
+ * volume and pitch, so that they can be restarted as soon as they win a slot again.
+ *
+ * <p>One-shot sounds cannot be virtualized, so they are either played right away, possibly
+ * virtualizing a less important voice, or dropped.
+ *
+ * <p>This keeps the mixing cost constant, however many racers and projectiles are active. All
+ * methods must be called from the render thread.
+ */
+public class VoiceManager {
+    /**
+     * Maximum number of sounds played at the same time. libgdx backends create 16 audio sources by
+     * default, this leaves room for the music.
+     */
+    public static final int MAX_VOICES = 12;
+
+    /** Sounds whose score is lower than this cannot be heard, so they are not played */
+    private static final float MIN_AUDIBLE_SCORE = 0.01f;
+
+    /**
+     * Voices currently being played get their score increased by this factor when sorting, to
+     * avoid restarting voices over and over when their scores are close
+     */
+    private static final float PLAYING_SCORE_BONUS = 1.25f;
+
+    /**
+     * How long a one-shot sound is considered to be using a slot. We cannot know when a sound
+     * finishes, but our one-shot sounds are short.
+     */
+    private static final long ONE_SHOT_DURATION_MS = 500;
+
+    private final SoundThreadManager mSoundThreadManager;
+    private final Array<DefaultSoundPlayer> mVoices = new Array<>(/* ordered */ false, 32);
+    private final long[] mOneShotEndTimes = new long[MAX_VOICES];
+
+    private boolean mUpdateScheduled = false;
+    private final Runnable mUpdateRunnable = this::update;
+
+    private static final Comparator<DefaultSoundPlayer> sVoiceComparator =
+            (voice1, voice2) -> Float.compare(getSortScore(voice2), getSortScore(voice1));
+
+    public VoiceManager(SoundThreadManager soundThreadManager) {
+        mSoundThreadManager = soundThreadManager;
+    }
+
+    public SoundThreadManager getSoundThreadManager() {
+        return mSoundThreadManager;
+    }
+
+    /**
+     * Reserves a slot for a one-shot sound with this score. Returns false if the sound must not be
+     * played.
+     */
+    public boolean reserveOneShot(float score) {
+        if (score < MIN_AUDIBLE_SCORE) {
+            return false;
+        }
+        long now = TimeUtils.millis();
+        int freeSlotIdx = -1;
+        int usedSlotCount = 0;
+        for (int idx = 0; idx < MAX_VOICES; ++idx) {
+            if (mOneShotEndTimes[idx] > now) {
+                ++usedSlotCount;
+            } else if (freeSlotIdx == -1) {
+                freeSlotIdx = idx;
+            }
+        }
+        if (freeSlotIdx == -1) {
+            return false;
+        }
+
+        DefaultSoundPlayer weakestVoice = null;
+        for (DefaultSoundPlayer voice : mVoices) {
+            if (!voice.isVoicePlaying()) {
+                continue;
+            }
+            ++usedSlotCount;
+            if (weakestVoice == null || voice.getScore() < weakestVoice.getScore()) {
+                weakestVoice = voice;
+            }
+        }
+        if (usedSlotCount >= MAX_VOICES) {
+            if (weakestVoice == null || weakestVoice.getScore() >= score) {
+                return false;
+            }
+            weakestVoice.stopVoice();
+            // Let update() decide if it can play again
+            scheduleUpdate();
+        }
+        mOneShotEndTimes[freeSlotIdx] = now + ONE_SHOT_DURATION_MS;
+        return true;
+    }
+
+    void addVoice(DefaultSoundPlayer voice) {
+        mVoices.add(voice);
+        scheduleUpdate();
+    }
+
+    void removeVoice(DefaultSoundPlayer voice) {
+        mVoices.removeValue(voice, /* identity */ true);
+        if (voice.isVoicePlaying()) {
+            voice.stopVoice();
+            scheduleUpdate();
+        }
+    }
+
+    /** Must be called when the score of a voice changes */
+    void scheduleUpdate() {
+        if (mUpdateScheduled) {
+            return;
+        }
+        mUpdateScheduled = true;
+        Gdx.app.postRunnable(mUpdateRunnable);
+    }
+
+    /** Decides which voices to play. Called automatically once per frame if something changed */
+    public void update() {
+        mUpdateScheduled = false;
+        int availableSlotCount = MAX_VOICES - countPlayingOneShots();
+        mVoices.sort(sVoiceComparator);
+
+        // Stop losing voices first, so that the number of sounds played by the audio backend never
+        // goes over MAX_VOICES
+        for (int idx = 0; idx < mVoices.size; ++idx) {
+            DefaultSoundPlayer voice = mVoices.get(idx);
+            if (!isVoiceAudible(voice, idx, availableSlotCount) && voice.isVoicePlaying()) {
+                voice.stopVoice();
+            }
+        }
+        for (int idx = 0; idx < mVoices.size; ++idx) {
+            DefaultSoundPlayer voice = mVoices.get(idx);
+            if (isVoiceAudible(voice, idx, availableSlotCount) && !voice.isVoicePlaying()) {
+                voice.startVoice();
+            }
+        }
+    }
+
+    private static boolean isVoiceAudible(DefaultSoundPlayer voice, int rank, int slotCount) {
+        return rank < slotCount && voice.getScore() >= MIN_AUDIBLE_SCORE;
+    }
+
+    private int countPlayingOneShots() {
+        long now = TimeUtils.millis();
+        int count = 0;
+        for (long endTime : mOneShotEndTimes) {
+            if (endTime > now) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    private static float getSortScore(DefaultSoundPlayer voice) {
+        float score = voice.getScore();
+        return voice.isVoicePlaying() ? score * PLAYING_SCORE_BONUS : score;
+    }
+}
@@ -19,6 +19,7 @@
 package com.agateau.pixelwheels.stats;
 
 import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
 import com.google.gson.Gson;
@@ -27,6 +28,7 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Map;
 
@@ -107,7 +109,32 @@ public class JsonGameStatsImplIO implements GameStatsImpl.IO {
 //        String json = mGson.toJson(root);
 //        mHandle.writeString(json, false /* append */);
 
-        mHandle.writeString(json.toJson(gameStats), false /* append */);
+        write(serialize(gameStats));
+    }
+
+    /** Returns the content save() would write. Must be called from the thread using gameStats. */
+    String serialize(GameStatsImpl gameStats) {
+        return json.toJson(gameStats);
+    }
+
+    /**
+     * Writes data to the file. Can be called from any thread.
+     *
+     * <p>Data is written to a temporary file, which then replaces the real one, so that the file is
+     * never left half-written if the game stops while saving.
+     */
+    void write(String data) {
+        FileHandle tmpHandle = mHandle.sibling(mHandle.name() + ".tmp");
+        tmpHandle.writeString(data, false /* append */, "UTF-8");
+        File tmpFile = tmpHandle.file();
+        File file = mHandle.file();
+        if (!tmpFile.renameTo(file)) {
+            // Renaming over an existing file fails on some platforms
+            file.delete();
+            if (!tmpFile.renameTo(file)) {
+                throw new GdxRuntimeException("Failed to rename " + tmpFile + " to " + file);
+            }
+        }
     }
 
 //    private JsonObject createJsonForTrack(TrackStats trackStats) {
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.stats;
+
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+
+/**
+ * Wraps a JsonGameStatsImplIO so that saving does not write to the disk right away.
+ *
+ * <p>save() only marks the stats as modified. The game calls flush() at safe points (end of a race,
+ * pause, screen changes...) to serialize the stats and write them on a background thread. Several
+ * modifications between two flushes result in a single write, and if the background thread is still
+ * busy, only the most recent data is written once it is done.
+ *
+ * <p>All methods except the background writes run on the thread using the stats.
+ */
+public class WriteBehindGameStatsImplIO implements GameStatsImpl.IO, Disposable {
+    private final JsonGameStatsImplIO mIO;
+    private final AsyncExecutor mExecutor = new AsyncExecutor(1, "GameStatsWriter");
+
+    private GameStatsImpl mDirtyGameStats;
+
+    // Data waiting to be written by the background thread. Guarded by `this`.
+    private String mPendingData;
+    private AsyncResult<Void> mWriteResult;
+
+    public WriteBehindGameStatsImplIO(JsonGameStatsImplIO io) {
+        mIO = io;
+    }
+
+    @Override
+    public void load(GameStatsImpl gameStats) {
+        waitForWrites();
+        mIO.load(gameStats);
+    }
+
+    @Override
+    public void save(GameStatsImpl gameStats) {
+        mDirtyGameStats = gameStats;
+    }
+
+    public boolean isDirty() {
+        return mDirtyGameStats != null;
+    }
+
+    /** If the stats have been modified, schedules writing them on the background thread */
+    public void flush() {
+        if (mDirtyGameStats == null) {
+            return;
+        }
+        String data = mIO.serialize(mDirtyGameStats);
+        mDirtyGameStats = null;
+        synchronized (this) {
+            boolean writeScheduled = mPendingData != null;
+            mPendingData = data;
+            if (writeScheduled) {
+                // The scheduled write has not started yet, it will pick the new data
+                return;
+            }
+        }
+        mWriteResult = mExecutor.submit(this::writePendingData);
+    }
+
+    /** Blocks until all scheduled writes are done */
+    public void waitForWrites() {
+        if (mWriteResult != null) {
+            mWriteResult.get();
+            mWriteResult = null;
+        }
+    }
+
+    @Override
+    public void dispose() {
+        flush();
+        waitForWrites();
+        mExecutor.dispose();
+    }
+
+    private Void writePendingData() {
+        String data;
+        synchronized (this) {
+            data = mPendingData;
+            mPendingData = null;
+        }
+        try {
+            mIO.write(data);
+        } catch (GdxRuntimeException e) {
+            NLog.e("Failed to save game stats: %s", e);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.telemetry;
+
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.racer.Racer;
+import com.agateau.pixelwheels.racer.Vehicle;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+
+/** Records the state of all the racers of a race at each step, using a TelemetryRecorder */
+public class RaceTelemetry implements Disposable {
+    private final GameWorld mGameWorld;
+    private final TelemetryRecorder mRecorder;
+    // A copy of the racer list, because the world sorts its list at the end of the race
+    private final Array<Racer> mRacers;
+
+    private final int mSpeedChannel;
+    private final int mSteerChannel;
+    private final int mLapDistanceChannel;
+    private final int mMaterialChannel;
+    private final int mTurboTimeChannel;
+    private final int mRankChannel;
+
+    private int mStep = 0;
+
+    public RaceTelemetry(GameWorld gameWorld, FileHandle file) {
+        mGameWorld = gameWorld;
+        mRacers = new Array<>(gameWorld.getRacers());
+        mRecorder = new TelemetryRecorder(file, GameWorld.BOX2D_TIME_STEP);
+        for (Racer racer : mRacers) {
+            mRecorder.addSource(racer.getVehicle().getId());
+        }
+        mSpeedChannel = mRecorder.addChannel("speed", TelemetryRecorder.ChannelType.FLOAT);
+        mSteerChannel = mRecorder.addChannel("steer", TelemetryRecorder.ChannelType.FLOAT);
+        mLapDistanceChannel =
+                mRecorder.addChannel("lapDistance", TelemetryRecorder.ChannelType.FLOAT);
+        mMaterialChannel = mRecorder.addChannel("material", TelemetryRecorder.ChannelType.INT);
+        mTurboTimeChannel = mRecorder.addChannel("turboTime", TelemetryRecorder.ChannelType.FLOAT);
+        mRankChannel = mRecorder.addChannel("rank", TelemetryRecorder.ChannelType.INT);
+        mRecorder.start();
+    }
+
+    /** Must be called after each step of the world */
+    public void recordStep() {
+        for (int idx = 0; idx < mRacers.size; ++idx) {
+            Racer racer = mRacers.get(idx);
+            Vehicle vehicle = racer.getVehicle();
+            mRecorder.beginRow(mStep, idx);
+            mRecorder.setFloat(mSpeedChannel, vehicle.getSpeed());
+            mRecorder.setFloat(mSteerChannel, vehicle.getSteerAngle());
+            mRecorder.setFloat(
+                    mLapDistanceChannel, racer.getLapPositionComponent().getLapDistance());
+            mRecorder.setInt(mMaterialChannel, vehicle.getMaterial().ordinal());
+            mRecorder.setFloat(mTurboTimeChannel, vehicle.getTurboTime());
+            mRecorder.setInt(mRankChannel, mGameWorld.getRacerRank(racer));
+        }
+        ++mStep;
+    }
+
+    @Override
+    public void dispose() {
+        mRecorder.dispose();
+    }
+}
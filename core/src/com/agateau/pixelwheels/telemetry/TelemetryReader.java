@@ -0,0 +1,155 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.telemetry;
+
+import com.badlogic.gdx.utils.Array;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads files created by TelemetryRecorder, one chunk at a time.
+ *
+ * <p>Usage: create a reader, then call readChunk() until it returns false. After each call,
+ * getRowCount() rows can be read from the chunk.
+ */
+public class TelemetryReader implements Closeable {
+    private final DataInputStream mInput;
+    private final float mStepDuration;
+    private final Array<String> mSources = new Array<>();
+    private final Array<String> mChannelNames = new Array<>();
+    private final Array<TelemetryRecorder.ChannelType> mChannelTypes = new Array<>();
+
+    private int mRowCount = 0;
+    private int[] mSteps = new int[0];
+    private int[] mRowSources = new int[0];
+    private float[][] mFloatColumns;
+    private int[][] mIntColumns;
+
+    public TelemetryReader(InputStream inputStream) throws IOException {
+        mInput = new DataInputStream(new BufferedInputStream(inputStream));
+        if (mInput.readInt() != TelemetryRecorder.MAGIC) {
+            throw new IOException("Not a telemetry file");
+        }
+        int version = mInput.readInt();
+        if (version != TelemetryRecorder.VERSION) {
+            throw new IOException("Unsupported telemetry file version " + version);
+        }
+        mStepDuration = mInput.readFloat();
+        int sourceCount = mInput.readInt();
+        for (int idx = 0; idx < sourceCount; ++idx) {
+            mSources.add(mInput.readUTF());
+        }
+        int channelCount = mInput.readInt();
+        for (int idx = 0; idx < channelCount; ++idx) {
+            mChannelTypes.add(TelemetryRecorder.ChannelType.values()[mInput.readByte()]);
+            mChannelNames.add(mInput.readUTF());
+        }
+        mFloatColumns = new float[channelCount][];
+        mIntColumns = new int[channelCount][];
+    }
+
+    public float getStepDuration() {
+        return mStepDuration;
+    }
+
+    public Array<String> getSources() {
+        return mSources;
+    }
+
+    public int getChannelCount() {
+        return mChannelNames.size;
+    }
+
+    public String getChannelName(int channel) {
+        return mChannelNames.get(channel);
+    }
+
+    public TelemetryRecorder.ChannelType getChannelType(int channel) {
+        return mChannelTypes.get(channel);
+    }
+
+    /** Reads the next chunk, returns false if the end of the file has been reached */
+    public boolean readChunk() throws IOException {
+        try {
+            mRowCount = mInput.readInt();
+        } catch (EOFException e) {
+            mRowCount = 0;
+            return false;
+        }
+        mSteps = readInts(mSteps);
+        mRowSources = readInts(mRowSources);
+        for (int idx = 0; idx < mChannelTypes.size; ++idx) {
+            if (mChannelTypes.get(idx) == TelemetryRecorder.ChannelType.FLOAT) {
+                mFloatColumns[idx] = readFloats(mFloatColumns[idx]);
+            } else {
+                mIntColumns[idx] = readInts(mIntColumns[idx]);
+            }
+        }
+        return true;
+    }
+
+    public int getRowCount() {
+        return mRowCount;
+    }
+
+    public int getStep(int row) {
+        return mSteps[row];
+    }
+
+    public int getSource(int row) {
+        return mRowSources[row];
+    }
+
+    public float getFloat(int channel, int row) {
+        return mFloatColumns[channel][row];
+    }
+
+    public int getInt(int channel, int row) {
+        return mIntColumns[channel][row];
+    }
+
+    @Override
+    public void close() throws IOException {
+        mInput.close();
+    }
+
+    private int[] readInts(int[] array) throws IOException {
+        if (array == null || array.length < mRowCount) {
+            array = new int[mRowCount];
+        }
+        for (int row = 0; row < mRowCount; ++row) {
+            array[row] = mInput.readInt();
+        }
+        return array;
+    }
+
+    private float[] readFloats(float[] array) throws IOException {
+        if (array == null || array.length < mRowCount) {
+            array = new float[mRowCount];
+        }
+        for (int row = 0; row < mRowCount; ++row) {
+            array[row] = mInput.readFloat();
+        }
+        return array;
+    }
+}
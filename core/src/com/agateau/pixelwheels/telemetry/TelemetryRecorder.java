@@ -0,0 +1,293 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.telemetry;
+
+import com.agateau.utils.Assert;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Records the values of a set of channels for a set of sources (for example racers), at each step
+ * of a simulation, to a binary file.
+ *
+ * <p>Values are stored in preallocated column buffers ("chunks"). Full chunks are written by a
+ * background thread, so recording a row does not allocate nor do any I/O. If the background thread
+ * cannot keep up and there is no free chunk left, rows are dropped instead of blocking the caller.
+ *
+ * <p>Usage: declare sources and channels, call start(), then for each step and each source call
+ * beginRow() followed by setFloat() or setInt() for each channel. Call dispose() when done.
+ *
+ * <p>File format (big-endian, as written by DataOutputStream):
+ *
+ * <pre>
+ * int MAGIC, int VERSION, float stepDuration
+ * int sourceCount, then for each source: UTF name
+ * int channelCount, then for each channel: byte type, UTF name
+ * chunks until the end of the file:
+ *   int rowCount
+ *   int[rowCount] steps, int[rowCount] sources
+ *   for each channel: float[rowCount] or int[rowCount] values
+ * </pre>
+ *
+ * @see TelemetryReader
+ */
+public class TelemetryRecorder implements Disposable {
+    public static final int MAGIC = 0x5057544c; // "PWTL"
+    public static final int VERSION = 1;
+
+    private static final int DEFAULT_CHUNK_SIZE = 4096;
+    private static final int CHUNK_COUNT = 4;
+
+    public enum ChannelType {
+        FLOAT,
+        INT
+    }
+
+    private static class Channel {
+        final String name;
+        final ChannelType type;
+
+        Channel(String name, ChannelType type) {
+            this.name = name;
+            this.type = type;
+        }
+    }
+
+    private static class Chunk {
+        final int[] steps;
+        final int[] sources;
+        // For each channel, only the array matching the channel type is allocated
+        final float[][] floatColumns;
+        final int[][] intColumns;
+        int rowCount = 0;
+
+        Chunk(Array<Channel> channels, int size) {
+            steps = new int[size];
+            sources = new int[size];
+            floatColumns = new float[channels.size][];
+            intColumns = new int[channels.size][];
+            for (int idx = 0; idx < channels.size; ++idx) {
+                if (channels.get(idx).type == ChannelType.FLOAT) {
+                    floatColumns[idx] = new float[size];
+                } else {
+                    intColumns[idx] = new int[size];
+                }
+            }
+        }
+    }
+
+    private final FileHandle mFile;
+    private final float mStepDuration;
+    private final int mChunkSize;
+    private final Array<String> mSources = new Array<>();
+    private final Array<Channel> mChannels = new Array<>();
+    private final ArrayBlockingQueue<Chunk> mFreeChunks = new ArrayBlockingQueue<>(CHUNK_COUNT);
+    private final AsyncExecutor mExecutor = new AsyncExecutor(1, "TelemetryRecorder");
+
+    // Only accessed by the executor thread once start() has been called
+    private DataOutputStream mOutput;
+    private ByteBuffer mColumnBuffer;
+
+    private Chunk mChunk;
+    private int mRow = -1;
+    private int mDroppedRowCount = 0;
+    private boolean mStarted = false;
+
+    public TelemetryRecorder(FileHandle file, float stepDuration) {
+        this(file, stepDuration, DEFAULT_CHUNK_SIZE);
+    }
+
+    TelemetryRecorder(FileHandle file, float stepDuration, int chunkSize) {
+        mFile = file;
+        mStepDuration = stepDuration;
+        mChunkSize = chunkSize;
+    }
+
+    /** Adds a source, returns its index */
+    public int addSource(String name) {
+        Assert.check(!mStarted, "Sources must be added before calling start()");
+        mSources.add(name);
+        return mSources.size - 1;
+    }
+
+    /** Adds a channel, returns its index */
+    public int addChannel(String name, ChannelType type) {
+        Assert.check(!mStarted, "Channels must be added before calling start()");
+        mChannels.add(new Channel(name, type));
+        return mChannels.size - 1;
+    }
+
+    public void start() {
+        Assert.check(!mStarted, "start() called twice");
+        mStarted = true;
+        for (int idx = 0; idx < CHUNK_COUNT; ++idx) {
+            mFreeChunks.add(new Chunk(mChannels, mChunkSize));
+        }
+        mExecutor.submit(
+                () -> {
+                    writeHeader();
+                    return null;
+                });
+    }
+
+    public void beginRow(int step, int source) {
+        if (mChunk != null && mChunk.rowCount == mChunkSize) {
+            submitChunk();
+        }
+        if (mChunk == null) {
+            mChunk = mFreeChunks.poll();
+            if (mChunk == null) {
+                ++mDroppedRowCount;
+                mRow = -1;
+                return;
+            }
+        }
+        mRow = mChunk.rowCount++;
+        mChunk.steps[mRow] = step;
+        mChunk.sources[mRow] = source;
+    }
+
+    public void setFloat(int channel, float value) {
+        if (mRow >= 0) {
+            mChunk.floatColumns[channel][mRow] = value;
+        }
+    }
+
+    public void setInt(int channel, int value) {
+        if (mRow >= 0) {
+            mChunk.intColumns[channel][mRow] = value;
+        }
+    }
+
+    /** Returns the number of rows which have been dropped because no chunk was available */
+    public int getDroppedRowCount() {
+        return mDroppedRowCount;
+    }
+
+    /** Writes pending rows and closes the file. Blocks until everything has been written */
+    @Override
+    public void dispose() {
+        if (mStarted) {
+            if (mChunk != null && mChunk.rowCount > 0) {
+                submitChunk();
+            }
+            mExecutor.submit(
+                    () -> {
+                        closeOutput();
+                        return null;
+                    });
+        }
+        mExecutor.dispose();
+        if (mDroppedRowCount > 0) {
+            NLog.e("%d telemetry rows have been dropped", mDroppedRowCount);
+        }
+    }
+
+    private void submitChunk() {
+        final Chunk chunk = mChunk;
+        mChunk = null;
+        mRow = -1;
+        mExecutor.submit(
+                () -> {
+                    writeChunk(chunk);
+                    return null;
+                });
+    }
+
+    private void writeHeader() {
+        try {
+            mOutput =
+                    new DataOutputStream(new BufferedOutputStream(mFile.write(/* append */ false)));
+            mColumnBuffer = ByteBuffer.allocate(mChunkSize * 4);
+            mOutput.writeInt(MAGIC);
+            mOutput.writeInt(VERSION);
+            mOutput.writeFloat(mStepDuration);
+            mOutput.writeInt(mSources.size);
+            for (String source : mSources) {
+                mOutput.writeUTF(source);
+            }
+            mOutput.writeInt(mChannels.size);
+            for (Channel channel : mChannels) {
+                mOutput.writeByte(channel.type.ordinal());
+                mOutput.writeUTF(channel.name);
+            }
+        } catch (Exception e) {
+            NLog.e("Failed to write telemetry header to %s: %s", mFile.path(), e);
+            closeOutput();
+        }
+    }
+
+    private void writeChunk(Chunk chunk) {
+        try {
+            if (mOutput == null) {
+                return;
+            }
+            int rowCount = chunk.rowCount;
+            mOutput.writeInt(rowCount);
+            writeColumn(chunk.steps, rowCount);
+            writeColumn(chunk.sources, rowCount);
+            for (int idx = 0; idx < mChannels.size; ++idx) {
+                if (chunk.floatColumns[idx] != null) {
+                    writeColumn(chunk.floatColumns[idx], rowCount);
+                } else {
+                    writeColumn(chunk.intColumns[idx], rowCount);
+                }
+            }
+        } catch (IOException e) {
+            NLog.e("Failed to write telemetry to %s: %s", mFile.path(), e);
+            closeOutput();
+        } finally {
+            chunk.rowCount = 0;
+            mFreeChunks.add(chunk);
+        }
+    }
+
+    // ByteBuffer is big-endian by default, like DataOutputStream
+    private void writeColumn(int[] column, int rowCount) throws IOException {
+        mColumnBuffer.clear();
+        mColumnBuffer.asIntBuffer().put(column, 0, rowCount);
+        mOutput.write(mColumnBuffer.array(), 0, rowCount * 4);
+    }
+
+    private void writeColumn(float[] column, int rowCount) throws IOException {
+        mColumnBuffer.clear();
+        mColumnBuffer.asFloatBuffer().put(column, 0, rowCount);
+        mOutput.write(mColumnBuffer.array(), 0, rowCount * 4);
+    }
+
+    private void closeOutput() {
+        if (mOutput == null) {
+            return;
+        }
+        try {
+            mOutput.close();
+        } catch (IOException e) {
+            NLog.e("Failed to close %s: %s", mFile.path(), e);
+        }
+        mOutput = null;
+    }
+}
@@ -86,10 +86,15 @@ public class AgcMathUtils {
      * <p>Always return the same vector
      */
     public static Vector2 computeWidthVector(Vector2 pos1, Vector2 pos2, float width) {
-        sTmpVector.set(pos2).sub(pos1).nor();
+        return computeWidthVector(sTmpVector, pos1, pos2, width);
+    }
+
+    /** Same as computeWidthVector(pos1, pos2, width), but stores the result in out */
+    public static Vector2 computeWidthVector(Vector2 out, Vector2 pos1, Vector2 pos2, float width) {
+        out.set(pos2).sub(pos1).nor();
         //noinspection SuspiciousNameCombination
-        sTmpVector.set(-sTmpVector.y, sTmpVector.x).scl(width);
-        return sTmpVector;
+        out.set(-out.y, out.x).scl(width);
+        return out;
     }
 
     /**
@@ -110,14 +115,19 @@ public class AgcMathUtils {
      * @return the projected point. Vector is reused.
      */
     public static Vector2 project(Vector2 a, Vector2 pos1, Vector2 pos2) {
-        sTmpVector.set(pos2).sub(pos1).nor();
-        float vx = sTmpVector.x;
-        float vy = sTmpVector.y;
+        return project(sTmpVector, a, pos1, pos2);
+    }
+
+    /** Same as project(a, pos1, pos2), but stores the result in out, and returns it */
+    public static Vector2 project(Vector2 out, Vector2 a, Vector2 pos1, Vector2 pos2) {
+        out.set(pos2).sub(pos1).nor();
+        float vx = out.x;
+        float vy = out.y;
 
         float pos1ToH = (a.x - pos1.x) * vx + (a.y - pos1.y) * vy;
-        sTmpVector.x = pos1.x + pos1ToH * vx;
-        sTmpVector.y = pos1.y + pos1ToH * vy;
-        return sTmpVector;
+        out.x = pos1.x + pos1ToH * vx;
+        out.y = pos1.y + pos1ToH * vy;
+        return out;
     }
 
     /**
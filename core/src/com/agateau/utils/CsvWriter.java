@@ -20,12 +20,17 @@ package com.agateau.utils;
 
 import com.agateau.utils.log.NLog;
 import com.badlogic.gdx.files.FileHandle;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.Writer;
 import java.util.Locale;
 
-/** A class to write data in CSV format */
-public class CsvWriter {
+/**
+ * A class to write data in CSV format
+ *
+ * <p>Rows are buffered: call flush() to write them to the file right away, and close() when done.
+ */
+public class CsvWriter implements Closeable {
     private final Writer mWriter;
     private char mFieldSeparator = ';';
 
@@ -53,10 +58,28 @@ public class CsvWriter {
                 mWriter.append(text);
             }
             mWriter.append('\n');
-            mWriter.flush();
         } catch (IOException e) {
             NLog.e("Failed to write CSV file");
             e.printStackTrace();
         }
     }
+
+    public void flush() {
+        try {
+            mWriter.flush();
+        } catch (IOException e) {
+            NLog.e("Failed to flush CSV file");
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            mWriter.close();
+        } catch (IOException e) {
+            NLog.e("Failed to close CSV file");
+            e.printStackTrace();
+        }
+    }
 }
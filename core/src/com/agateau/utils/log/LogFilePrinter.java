@@ -21,21 +21,33 @@ package com.agateau.utils.log;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.Flushable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 
 /**
  * A printer logging to a file
  *
+ * <p>Messages are accumulated in a buffer and written to the file channel when the buffer is full
+ * or when flush() is called. NLog flushes its printers each time it has printed a batch of
+ * messages.
+ *
  * <p>The log file can be rotated when it reaches a certain size to avoid taking too much disk
  * space.
  */
-public class LogFilePrinter implements NLog.Printer {
+public class LogFilePrinter implements NLog.Printer, Flushable {
     public static final String BACKUP_SUFFIX = ".0";
+    private static final int BUFFER_SIZE = 16 * 1024;
+
     private final String mPath;
     private final LogFileOpener mOpener;
     private final long mMaxSize;
+    private final ByteBuffer mBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
     private MessageFormatter mFormatter;
     private FileOutputStream mStream;
+    private FileChannel mChannel;
     private long mCurrentSize;
 
     public interface LogFileOpener {
@@ -50,12 +62,21 @@ public class LogFilePrinter implements NLog.Printer {
         return mPath;
     }
 
-    public void flush() {
+    /** Writes buffered messages to the file */
+    @Override
+    public synchronized void flush() {
+        if (mChannel == null) {
+            return;
+        }
+        mBuffer.flip();
         try {
-            mStream.flush();
+            while (mBuffer.hasRemaining()) {
+                mChannel.write(mBuffer);
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
+        mBuffer.clear();
     }
 
     private static final MessageFormatter sDefaultMessageFormatter =
@@ -113,30 +134,36 @@ public class LogFilePrinter implements NLog.Printer {
     }
 
     @Override
-    public void print(NLog.Level level, String tag, String message) {
-        if (mStream == null) {
+    public synchronized void print(NLog.Level level, String tag, String message) {
+        if (mChannel == null) {
             return;
         }
         message = mFormatter.formatMessage(level, tag, message);
-        // + 1 for the '\n'
-        if (mCurrentSize + message.length() + 1 > mMaxSize) {
+        byte[] bytes = (message + '\n').getBytes(StandardCharsets.UTF_8);
+        if (mCurrentSize + bytes.length > mMaxSize) {
             rotateLogFile();
         }
-        try {
-            mStream.write(message.getBytes());
-            mStream.write('\n');
-        } catch (IOException e) {
-            e.printStackTrace();
+        if (bytes.length > mBuffer.remaining()) {
+            flush();
         }
+        if (bytes.length > mBuffer.capacity()) {
+            writeDirectly(bytes);
+        } else {
+            mBuffer.put(bytes);
+        }
+        mCurrentSize += bytes.length;
     }
 
-    private void rotateLogFile() {
+    private void writeDirectly(byte[] bytes) {
         try {
-            mStream.flush();
-            mStream.close();
+            mStream.write(bytes);
         } catch (IOException e) {
             e.printStackTrace();
         }
+    }
+
+    private void rotateLogFile() {
+        closeFile();
         File file = new File(mPath);
         file.renameTo(new File(mPath + BACKUP_SUFFIX));
 
@@ -145,18 +172,22 @@ public class LogFilePrinter implements NLog.Printer {
     }
 
     private void openFile() {
-        if (mStream != null) {
-            try {
-                mStream.flush();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-            try {
-                mStream.close();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
+        closeFile();
         mStream = mOpener.openLogFile(mPath);
+        mChannel = mStream != null ? mStream.getChannel() : null;
+    }
+
+    private void closeFile() {
+        if (mStream == null) {
+            return;
+        }
+        flush();
+        try {
+            mStream.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        mStream = null;
+        mChannel = null;
     }
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.utils.log;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded, lock-free queue of log messages, with multiple producers and a single consumer.
+ *
+ * <p>Each slot has a sequence number telling whether it is free for the producer at a given
+ * position, or ready for the consumer. Producers never block: if the buffer is full the message is
+ * dropped and counted, so that logging never stalls the calling thread.
+ *
+ * <p>Entries are preallocated and reused, so queuing a message does not allocate.
+ */
+class LogRingBuffer {
+    static class Entry {
+        NLog.Level level;
+        String tag;
+        Object format;
+        Object[] args;
+    }
+
+    private final Entry[] mEntries;
+    private final AtomicLongArray mSequences;
+    private final int mMask;
+    private final AtomicLong mTail = new AtomicLong();
+    private final AtomicInteger mDroppedCount = new AtomicInteger();
+
+    // Only accessed by the consumer
+    private long mHead = 0;
+
+    /** capacity must be a power of two */
+    LogRingBuffer(int capacity) {
+        if (capacity <= 0 || (capacity & (capacity - 1)) != 0) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        mMask = capacity - 1;
+        mEntries = new Entry[capacity];
+        mSequences = new AtomicLongArray(capacity);
+        for (int idx = 0; idx < capacity; ++idx) {
+            mEntries[idx] = new Entry();
+            mSequences.set(idx, idx);
+        }
+    }
+
+    /** Queues a message. Can be called from any thread. Returns false if the buffer is full. */
+    boolean offer(NLog.Level level, String tag, Object format, Object[] args) {
+        long pos = mTail.get();
+        while (true) {
+            int idx = (int) (pos & mMask);
+            long diff = mSequences.get(idx) - pos;
+            if (diff == 0) {
+                if (mTail.compareAndSet(pos, pos + 1)) {
+                    Entry entry = mEntries[idx];
+                    entry.level = level;
+                    entry.tag = tag;
+                    entry.format = format;
+                    entry.args = args;
+                    // Publish the entry to the consumer
+                    mSequences.set(idx, pos + 1);
+                    return true;
+                }
+                pos = mTail.get();
+            } else if (diff < 0) {
+                // The consumer has not released this slot yet: the buffer is full
+                mDroppedCount.incrementAndGet();
+                return false;
+            } else {
+                // Another producer claimed this position
+                pos = mTail.get();
+            }
+        }
+    }
+
+    /**
+     * Returns the oldest queued entry, or null if there is none. The entry must be released with
+     * release() once it has been processed. Must only be called by the consumer.
+     */
+    Entry peek() {
+        int idx = (int) (mHead & mMask);
+        if (mSequences.get(idx) != mHead + 1) {
+            return null;
+        }
+        return mEntries[idx];
+    }
+
+    /** Frees the entry returned by peek(). Must only be called by the consumer. */
+    void release() {
+        int idx = (int) (mHead & mMask);
+        Entry entry = mEntries[idx];
+        entry.tag = null;
+        entry.format = null;
+        entry.args = null;
+        mSequences.set(idx, mHead + mMask + 1);
+        ++mHead;
+    }
+
+    /** Returns how many messages have been dropped since the last call */
+    int takeDroppedCount() {
+        return mDroppedCount.getAndSet(0);
+    }
+}
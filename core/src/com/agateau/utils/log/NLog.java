@@ -18,7 +18,12 @@
  */
 package com.agateau.utils.log;
 
-import java.util.Vector;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.IllegalFormatException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * A simple logging system
@@ -27,12 +32,32 @@ import java.util.Vector;
  *
  * <ul>
  *   <li>3 log levels: debug, info, error
- *   <li>Automatically prefix the log message with the name of the calling method
+ *   <li>Messages below the minimum level are skipped before any formatting happens
+ *   <li>Optionally prefix the log message with the name of the calling method
  *   <li>Pluggable "printers" to collect logs
  * </ul>
+ *
+ * <p>Logging does not format nor print anything on the calling thread: messages are queued in a
+ * lock-free ring buffer, and a background thread formats them and passes them to the printers.
+ * Printers implementing Flushable are flushed each time the queue has been drained. If the queue is
+ * full, messages are dropped rather than blocking the caller.
+ *
+ * <p>Arguments which are not immutable are converted to strings when the message is queued, so
+ * that the log shows their value at the time of the call.
  */
 public class NLog {
-    private static final Vector<Printer> sPrinters = new Vector<>();
+    private static final int BUFFER_CAPACITY = 1024;
+    private static final long DRAIN_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private static final CopyOnWriteArrayList<Printer> sPrinters = new CopyOnWriteArrayList<>();
+    private static final LogRingBuffer sBuffer = new LogRingBuffer(BUFFER_CAPACITY);
+    // Held while printing, so that there is only one consumer of sBuffer, even when flush() is
+    // called from another thread than the drain thread
+    private static final Object sDrainLock = new Object();
+    private static volatile Thread sDrainThread;
+
+    private static volatile int sMinLevelOrdinal = 0;
+    private static volatile boolean sCallerTagEnabled = false;
     private static int sStackDepth = -1;
 
     public enum Level {
@@ -42,6 +67,7 @@ public class NLog {
     }
 
     public interface Printer {
+        /** Always called from the same thread, one message at a time */
         void print(Level level, String tag, String message);
     }
 
@@ -68,27 +94,163 @@ public class NLog {
         sPrinters.add(printer);
     }
 
-    static synchronized void print(Level level, Object obj, Object... args) {
-        if (sStackDepth < 0) {
-            initStackDepth();
+    /** Messages below level are ignored. Defaults to DEBUG. */
+    public static void setMinLevel(Level level) {
+        sMinLevelOrdinal = level.ordinal();
+    }
+
+    /**
+     * Returns true if messages at this level are logged. Callers building expensive arguments can
+     * use this to skip building them.
+     */
+    public static boolean isEnabled(Level level) {
+        return level.ordinal() >= sMinLevelOrdinal;
+    }
+
+    /**
+     * Whether to prefix messages with the name of the calling method. Disabled by default because
+     * finding the caller requires walking the stack on the calling thread.
+     */
+    public static void setCallerTagEnabled(boolean enabled) {
+        sCallerTagEnabled = enabled;
+    }
+
+    /** Prints all queued messages and flushes the printers, from the calling thread */
+    public static void flush() {
+        drain();
+    }
+
+    static void print(Level level, Object obj, Object... args) {
+        if (!isEnabled(level)) {
+            return;
         }
-        print(level, getCallerMethod(), obj, args);
+        print(level, sCallerTagEnabled ? getCallerMethod() : "", obj, args);
     }
 
-    static synchronized void print(Level level, String tag, Object obj, Object... args) {
-//        String message;
-//        if (obj == null) {
-//            message = "(null)";
-//        } else {
-//            String format = obj.toString();
-//            message = args.length > 0 ? String.format(format, args) : format;
-//        }
-//        if (sPrinters.isEmpty()) {
-//            sPrinters.add(new SystemErrPrinter());
-//        }
-//        for (Printer printer : sPrinters) {
-//            printer.print(level, tag, message);
-//        }
+    static void print(Level level, String tag, Object obj, Object... args) {
+        if (!isEnabled(level)) {
+            return;
+        }
+        boolean queued = sBuffer.offer(level, tag, obj, snapshotArgs(args));
+        Thread drainThread = sDrainThread;
+        if (drainThread == null) {
+            startDrainThread();
+        } else if (!queued || level == Level.ERROR) {
+            // Do not wait for the next drain interval if the buffer is full or to print errors
+            LockSupport.unpark(drainThread);
+        }
+    }
+
+    private static Object[] snapshotArgs(Object[] args) {
+        if (args.length == 0) {
+            return args;
+        }
+        // Do not modify args in place: callers may pass their own array and reuse it
+        Object[] snapshot = new Object[args.length];
+        for (int idx = 0; idx < args.length; ++idx) {
+            Object arg = args[idx];
+            if (arg == null
+                    || arg instanceof String
+                    || arg instanceof Number
+                    || arg instanceof Boolean
+                    || arg instanceof Character
+                    || arg instanceof Enum) {
+                snapshot[idx] = arg;
+            } else {
+                snapshot[idx] = String.valueOf(arg);
+            }
+        }
+        return snapshot;
+    }
+
+    private static synchronized void startDrainThread() {
+        if (sDrainThread != null) {
+            return;
+        }
+        Thread thread = new Thread(NLog::drainLoop, "NLog");
+        thread.setDaemon(true);
+        thread.start();
+        // Print pending messages when the application exits
+        Runtime.getRuntime().addShutdownHook(new Thread(NLog::drain, "NLog-shutdown"));
+        sDrainThread = thread;
+    }
+
+    private static void drainLoop() {
+        //noinspection InfiniteLoopStatement
+        while (true) {
+            if (!drain()) {
+                LockSupport.parkNanos(DRAIN_INTERVAL_NANOS);
+            }
+        }
+    }
+
+    /** Prints all queued messages. Returns false if there were none. */
+    private static boolean drain() {
+        synchronized (sDrainLock) {
+            boolean printed = false;
+            for (LogRingBuffer.Entry entry = sBuffer.peek();
+                    entry != null;
+                    entry = sBuffer.peek()) {
+                dispatch(entry.level, entry.tag, entry.format, entry.args);
+                sBuffer.release();
+                printed = true;
+            }
+            int droppedCount = sBuffer.takeDroppedCount();
+            if (droppedCount > 0) {
+                dispatch(
+                        Level.ERROR,
+                        "NLog",
+                        "%d message(s) dropped because the log buffer was full",
+                        new Object[] {droppedCount});
+            }
+            if (printed || droppedCount > 0) {
+                flushPrinters();
+            }
+            return printed;
+        }
+    }
+
+    private static void dispatch(Level level, String tag, Object obj, Object[] args) {
+        String message = formatMessage(obj, args);
+        if (sPrinters.isEmpty()) {
+            sPrinters.addIfAbsent(new SystemErrPrinter());
+        }
+        for (Printer printer : sPrinters) {
+            printer.print(level, tag, message);
+        }
+    }
+
+    private static String formatMessage(Object obj, Object[] args) {
+        if (obj == null) {
+            return "(null)";
+        }
+        String format = obj.toString();
+        if (args == null || args.length == 0) {
+            return format;
+        }
+        try {
+            return String.format(format, args);
+        } catch (IllegalFormatException e) {
+            StringBuilder builder = new StringBuilder(format);
+            builder.append(" (invalid format:");
+            for (Object arg : args) {
+                builder.append(' ').append(arg);
+            }
+            builder.append(')');
+            return builder.toString();
+        }
+    }
+
+    private static void flushPrinters() {
+        for (Printer printer : sPrinters) {
+            if (printer instanceof Flushable) {
+                try {
+                    ((Flushable) printer).flush();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
     }
 
     private static void initStackDepth() {
@@ -102,12 +264,14 @@ public class NLog {
     }
 
     private static String getCallerMethod() {
-        return "";
-//        final StackTraceElement stackTraceElement =
-//                Thread.currentThread().getStackTrace()[sStackDepth + 3];
-//        final String fullClassName = stackTraceElement.getClassName();
-//        final String className = fullClassName.substring(fullClassName.lastIndexOf(".") + 1);
-//        final String method = stackTraceElement.getMethodName();
-//        return className + "." + method;
+        if (sStackDepth < 0) {
+            initStackDepth();
+        }
+        final StackTraceElement stackTraceElement =
+                Thread.currentThread().getStackTrace()[sStackDepth + 3];
+        final String fullClassName = stackTraceElement.getClassName();
+        final String className = fullClassName.substring(fullClassName.lastIndexOf(".") + 1);
+        final String method = stackTraceElement.getMethodName();
+        return className + "." + method;
     }
 }
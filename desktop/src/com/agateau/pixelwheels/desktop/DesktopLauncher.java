@@ -20,6 +20,7 @@ package com.agateau.pixelwheels.desktop;
 
 import com.agateau.pixelwheels.Constants;
 import com.agateau.pixelwheels.PwGame;
+import com.agateau.pixelwheels.debug.FlightRecorder;
 import com.agateau.pixelwheels.screens.PwStageScreen;
 import com.agateau.pixelwheels.utils.StringUtils;
 import com.agateau.utils.FileUtils;
@@ -62,6 +63,11 @@ public class DesktopLauncher {
         LogFilePrinter printer = new LogFilePrinter(logFilePath, Constants.LOG_MAX_SIZE);
         NLog.addPrinter(printer);
         NLog.addPrinter(new SystemErrPrinter());
+        // Desktop machines can afford walking the stack for each message
+        NLog.setCallerTagEnabled(true);
+
+        FlightRecorder.instance.setDumpFile(
+                new FileHandle(cacheDir + File.separator + Constants.FLIGHT_RECORDER_FILENAME));
 
         game.setLogExporter(new DesktopLogExporter(printer));
     }
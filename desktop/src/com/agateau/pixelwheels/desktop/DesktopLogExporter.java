@@ -23,6 +23,7 @@ import static com.agateau.translations.Translator.tr;
 import com.agateau.pixelwheels.LogExporter;
 import com.agateau.utils.PlatformUtils;
 import com.agateau.utils.log.LogFilePrinter;
+import com.agateau.utils.log.NLog;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
@@ -35,6 +36,9 @@ public class DesktopLogExporter implements LogExporter {
 
     @Override
     public void exportLogs() {
+        // Print queued messages, then make sure they are written to the file
+        NLog.flush();
+        mPrinter.flush();
         Path path = Paths.get(mPrinter.getPath());
         PlatformUtils.openURI(path.getParent().toString());
     }
@@ -22,8 +22,10 @@ import com.agateau.pixelwheels.sound.AudioManager;
 import com.agateau.pixelwheels.sound.DefaultSoundPlayer;
 import com.agateau.pixelwheels.sound.EngineSoundPlayer;
 import com.agateau.pixelwheels.sound.SoundAtlas;
+import com.agateau.pixelwheels.sound.SoundCategory;
 import com.agateau.pixelwheels.sound.SoundPlayer;
 import com.agateau.pixelwheels.sound.SoundThreadManager;
+import com.agateau.pixelwheels.sound.VoiceManager;
 import com.agateau.ui.FontSet;
 import com.agateau.ui.StageScreen;
 import com.agateau.ui.UiAssets;
@@ -48,7 +50,7 @@ class EngineLabScreen extends StageScreen {
     private final Array<SliderMenuItem> mVolumeItems = new Array<>();
 
     static class LabAudioManager implements AudioManager {
-        private final SoundThreadManager mSoundThreadManager = new SoundThreadManager();
+        private final VoiceManager mVoiceManager = new VoiceManager(new SoundThreadManager());
 
         @Override
         public boolean areSoundFxMuted() {
@@ -67,11 +69,11 @@ class EngineLabScreen extends StageScreen {
         public void setMusicMuted(boolean muted) {}
 
         @Override
-        public void play(Sound sound, float volume) {}
+        public void play(Sound sound, float volume, SoundCategory category) {}
 
         @Override
-        public SoundPlayer createSoundPlayer(Sound sound) {
-            return new DefaultSoundPlayer(mSoundThreadManager, sound);
+        public SoundPlayer createSoundPlayer(Sound sound, SoundCategory category) {
+            return new DefaultSoundPlayer(mVoiceManager, sound, category);
         }
 
         @Override
@@ -124,7 +126,9 @@ class EngineLabScreen extends StageScreen {
             String filename = String.format(Locale.US, "loop_%d_0.wav", i + 1);
             soundAtlas.load(filename, name);
         }
-        mEngineSoundPlayer = new EngineSoundPlayer(soundAtlas, new LabAudioManager());
+        mEngineSoundPlayer =
+                new EngineSoundPlayer(
+                        soundAtlas, new LabAudioManager(), SoundCategory.PLAYER_RACER);
     }
 
     @Override
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.simulator;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.utils.FileUtils;
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.ApplicationListener;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.physics.box2d.Box2D;
+
+/**
+ * Sets up what the game needs to load assets and tracks and to run races without a display.
+ *
+ * <p>Must be used from the assets directory.
+ */
+public class HeadlessEnvironment {
+    private static Assets sAssets;
+
+    /**
+     * Starts a headless application running listener. listener.create() should do all the work: the
+     * application does not call render().
+     */
+    public static void startApplication(ApplicationListener listener) {
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        config.renderInterval = -1;
+        new HeadlessApplication(listener, config);
+    }
+
+    /**
+     * Returns the game assets, starting an empty headless application first if none is running.
+     *
+     * <p>Assets are loaded only once, the same instance is returned for all calls.
+     */
+    public static synchronized Assets getAssets() {
+        if (sAssets != null) {
+            return sAssets;
+        }
+        if (Gdx.app == null) {
+            startApplication(new ApplicationAdapter() {});
+        }
+        Gdx.gl = Gdx.gl20 = HeadlessGL20.create();
+        Box2D.init();
+        String assetsDir = System.getenv("PW_ASSETS_DIR");
+        if (assetsDir != null) {
+            FileUtils.setExtraAssetsDir(assetsDir);
+        }
+        sAssets = new Assets();
+        return sAssets;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.simulator;
+
+import com.badlogic.gdx.graphics.GL20;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.IntBuffer;
+
+/**
+ * Creates a GL20 implementation which does nothing.
+ *
+ * <p>The headless backend does not provide any GL implementation, but loading assets and tracks
+ * creates textures, and some game objects create frame buffers and sprite batches. This
+ * implementation answers just enough queries for these to succeed without a GPU.
+ */
+class HeadlessGL20 {
+    static GL20 create() {
+        return (GL20)
+                Proxy.newProxyInstance(
+                        GL20.class.getClassLoader(),
+                        new Class<?>[] {GL20.class},
+                        (proxy, method, args) -> invoke(method, args));
+    }
+
+    private static Object invoke(Method method, Object[] args) {
+        switch (method.getName()) {
+            case "glCheckFramebufferStatus":
+                return GL20.GL_FRAMEBUFFER_COMPLETE;
+            case "glGetShaderiv":
+                // Pretend all shaders compiled
+                putInt(args[2], args[1].equals(GL20.GL_COMPILE_STATUS) ? 1 : 0);
+                return null;
+            case "glGetProgramiv":
+                // Pretend all programs linked, and have no attributes or uniforms
+                putInt(args[2], args[1].equals(GL20.GL_LINK_STATUS) ? 1 : 0);
+                return null;
+        }
+        return defaultValue(method.getReturnType());
+    }
+
+    private static void putInt(Object buffer, int value) {
+        IntBuffer intBuffer = (IntBuffer) buffer;
+        intBuffer.put(intBuffer.position(), value);
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == int.class) {
+            return 0;
+        } else if (type == boolean.class) {
+            return false;
+        } else if (type == float.class) {
+            return 0f;
+        } else if (type == String.class) {
+            return "";
+        }
+        return null;
+    }
+}
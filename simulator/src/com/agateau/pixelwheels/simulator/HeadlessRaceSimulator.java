@@ -0,0 +1,211 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.simulator;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.GamePlay;
+import com.agateau.pixelwheels.map.Championship;
+import com.agateau.pixelwheels.map.Track;
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Array;
+import java.util.Locale;
+
+/**
+ * Runs AI-only races on the gdx headless backend and reports how much the simulation costs.
+ *
+ * <p>Must be started from the assets directory. Exits with a non-zero status if a race had to be
+ * stopped because it took too long, so that it can be used in CI to catch simulation regressions.
+ */
+public class HeadlessRaceSimulator {
+    private static class Args {
+        int raceCount = 1;
+        int racerCount = GamePlay.instance.racerCount;
+        long seed = -1;
+        final Array<String> trackIds = new Array<>();
+
+        boolean parse(String[] arguments) {
+            for (int idx = 0; idx < arguments.length; ++idx) {
+                String arg = arguments[idx];
+                if (arg.equals("-h") || arg.equals("--help")) {
+                    showHelp();
+                    return false;
+                }
+                if (arg.equals("--races") || arg.equals("--racers") || arg.equals("--seed")) {
+                    if (idx + 1 == arguments.length) {
+                        showError("Missing value for " + arg);
+                        return false;
+                    }
+                    ++idx;
+                    try {
+                        long value = Long.parseLong(arguments[idx]);
+                        if (arg.equals("--races")) {
+                            raceCount = (int) value;
+                        } else if (arg.equals("--racers")) {
+                            racerCount = (int) value;
+                        } else {
+                            seed = value;
+                        }
+                    } catch (NumberFormatException e) {
+                        showError("Invalid value for " + arg + ": " + arguments[idx]);
+                        return false;
+                    }
+                    continue;
+                }
+                if (arg.startsWith("-")) {
+                    showError("Unknown option " + arg);
+                    return false;
+                }
+                trackIds.add(arg);
+            }
+            return true;
+        }
+
+        private static void showError(String message) {
+            System.out.println("ERROR: " + message);
+            showHelp();
+        }
+
+        private static void showHelp() {
+            System.out.println(
+                    "Usage: simulator [-h|--help] [--races N] [--racers N] [--seed N]"
+                            + " [track_id...]");
+            System.out.println();
+            System.out.println("Runs N races on each track (default: all tracks)");
+        }
+    }
+
+    private static class Summary {
+        int raceCount = 0;
+        int timedOutCount = 0;
+        long stepCount = 0;
+        float setupDuration = 0;
+        float simulationDuration = 0;
+        float box2DDuration = 0;
+        float gameObjectDuration = 0;
+
+        void add(RaceResult result) {
+            ++raceCount;
+            if (result.timedOut) {
+                ++timedOutCount;
+            }
+            stepCount += result.stepCount;
+            setupDuration += result.setupDuration;
+            simulationDuration += result.simulationDuration;
+            box2DDuration += result.box2DDuration;
+            gameObjectDuration += result.gameObjectDuration;
+        }
+
+        void add(Summary other) {
+            raceCount += other.raceCount;
+            timedOutCount += other.timedOutCount;
+            stepCount += other.stepCount;
+            setupDuration += other.setupDuration;
+            simulationDuration += other.simulationDuration;
+            box2DDuration += other.box2DDuration;
+            gameObjectDuration += other.gameObjectDuration;
+        }
+
+        void print(String name) {
+            float totalDuration = setupDuration + simulationDuration;
+            System.out.printf(
+                    Locale.US,
+                    "%-16s races=%d timedOut=%d races/s=%.2f steps/s=%.0f"
+                            + " step=%.1fus box2d=%.1fus g.o=%.1fus setup=%.1fms%n",
+                    name,
+                    raceCount,
+                    timedOutCount,
+                    raceCount / totalDuration,
+                    stepCount / simulationDuration,
+                    perStepMicros(simulationDuration),
+                    perStepMicros(box2DDuration),
+                    perStepMicros(gameObjectDuration),
+                    setupDuration * 1000 / raceCount);
+        }
+
+        private float perStepMicros(float duration) {
+            return duration * 1_000_000 / stepCount;
+        }
+    }
+
+    public static void main(String[] arguments) {
+        Args args = new Args();
+        if (!args.parse(arguments)) {
+            System.exit(1);
+        }
+        HeadlessEnvironment.startApplication(
+                new ApplicationAdapter() {
+                    @Override
+                    public void create() {
+                        int status;
+                        try {
+                            status = run(args);
+                        } catch (Exception exc) {
+                            exc.printStackTrace();
+                            status = 1;
+                        }
+                        System.exit(status);
+                    }
+                });
+    }
+
+    /** Returns all tracks, or only those whose id is in trackIds if it is not empty */
+    public static Array<Track> findTracks(Assets assets, Array<String> trackIds) {
+        Array<Track> tracks = new Array<>();
+        for (Championship championship : assets.championships) {
+            for (Track track : championship.getTracks()) {
+                if (trackIds.size == 0 || trackIds.contains(track.getId(), false)) {
+                    tracks.add(track);
+                }
+            }
+        }
+        return tracks;
+    }
+
+    private static int run(Args args) {
+        if (args.seed >= 0) {
+            MathUtils.random.setSeed(args.seed);
+        }
+        Assets assets = HeadlessEnvironment.getAssets();
+        Array<Track> tracks = findTracks(assets, args.trackIds);
+        if (tracks.size < args.trackIds.size) {
+            System.out.println("ERROR: Some tracks could not be found");
+            return 1;
+        }
+
+        RaceSimulator simulator = new RaceSimulator(assets);
+        Summary allStats = new Summary();
+        for (Track track : tracks) {
+            Summary trackStats = new Summary();
+            for (int idx = 0; idx < args.raceCount; ++idx) {
+                RaceResult result = simulator.run(track, args.racerCount);
+                trackStats.add(result);
+            }
+            track.dispose();
+            trackStats.print(track.getId());
+            allStats.add(trackStats);
+        }
+        allStats.print("TOTAL");
+        if (allStats.timedOutCount > 0) {
+            System.out.println("ERROR: " + allStats.timedOutCount + " race(s) timed out");
+            return 1;
+        }
+        return 0;
+    }
+}
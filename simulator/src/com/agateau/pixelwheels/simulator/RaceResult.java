@@ -0,0 +1,70 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.simulator;
+
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.racer.LapPositionComponent;
+import com.badlogic.gdx.utils.Array;
+
+/** Outcome and cost of a simulated race */
+public class RaceResult {
+    public static class RacerResult {
+        public final String vehicleId;
+        public final int rank;
+        public final float totalTime;
+        public final float bestLapTime;
+        public final LapPositionComponent.Status status;
+
+        RacerResult(
+                String vehicleId,
+                int rank,
+                float totalTime,
+                float bestLapTime,
+                LapPositionComponent.Status status) {
+            this.vehicleId = vehicleId;
+            this.rank = rank;
+            this.totalTime = totalTime;
+            this.bestLapTime = bestLapTime;
+            this.status = status;
+        }
+    }
+
+    public final String trackId;
+    /** Racers, sorted by rank */
+    public final Array<RacerResult> racers = new Array<>();
+
+    /** Number of Box2D steps needed to finish the race */
+    public int stepCount;
+    /** True if the race lasted longer than RaceSimulator.MAX_RACE_DURATION and was stopped */
+    public boolean timedOut;
+
+    // All durations are in seconds
+    public float setupDuration;
+    public float simulationDuration;
+    public float box2DDuration;
+    public float gameObjectDuration;
+
+    RaceResult(String trackId) {
+        this.trackId = trackId;
+    }
+
+    public float getRaceDuration() {
+        return stepCount * GameWorld.BOX2D_TIME_STEP;
+    }
+}
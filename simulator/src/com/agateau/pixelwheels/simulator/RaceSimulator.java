@@ -0,0 +1,168 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.simulator;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.racer.LapPositionComponent;
+import com.agateau.pixelwheels.racer.Racer;
+import com.agateau.pixelwheels.racescreen.GameWorldImpl;
+import com.agateau.pixelwheels.sound.AudioManager;
+import com.agateau.pixelwheels.stats.GameStats;
+import com.agateau.pixelwheels.stats.GameStatsImpl;
+import com.agateau.pixelwheels.vehicledef.VehicleDef;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.PerformanceCounter;
+import com.badlogic.gdx.utils.PerformanceCounters;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * Runs complete races with AI pilots only, without any rendering or audio, as fast as possible.
+ *
+ * <p>Races are driven with a fixed time step, so they do not depend on wall-clock time.
+ *
+ * <p>Several simulators can run races in parallel, as long as each one runs on its own thread and
+ * uses its own Track instances. Creating and disposing worlds touches state shared by all worlds
+ * (obstacle definitions, map object walkers...), so these steps are serialized.
+ */
+public class RaceSimulator {
+    /** Races lasting longer than this (in seconds) are stopped, in case a racer gets stuck */
+    public static final float MAX_RACE_DURATION = 600;
+
+    private static final String BOX2D_COUNTER_NAME = "- box2d";
+    private static final String GAME_OBJECT_COUNTER_NAME = "- g.o";
+
+    private static final Object sSetupLock = new Object();
+
+    private static final GameStatsImpl.IO sNoSaveIO =
+            new GameStatsImpl.IO() {
+                @Override
+                public void load(GameStatsImpl gameStats) {}
+
+                @Override
+                public void save(GameStatsImpl gameStats) {}
+            };
+
+    private final Assets mAssets;
+    private final AudioManager mAudioManager = new SilentAudioManager();
+    private final GameStats mGameStats = new GameStatsImpl(sNoSaveIO);
+    private final Array<String> mVehicleIds = new Array<>();
+
+    public RaceSimulator(Assets assets) {
+        mAssets = assets;
+        for (VehicleDef def : assets.vehicleDefs) {
+            mVehicleIds.add(def.id);
+        }
+    }
+
+    /**
+     * Runs a race on the given track with racerCount AI racers.
+     *
+     * <p>The track is initialized if necessary, but not disposed: callers can reuse it for several
+     * races and must dispose it themselves.
+     */
+    public RaceResult run(Track track, int racerCount) {
+        RaceResult result = new RaceResult(track.getId());
+
+        long startTime = TimeUtils.nanoTime();
+        PerformanceCounters counters = new PerformanceCounters();
+        GameWorldImpl world = createWorld(track, racerCount, counters);
+        PerformanceCounter box2DCounter = findCounter(counters, BOX2D_COUNTER_NAME);
+        PerformanceCounter gameObjectCounter = findCounter(counters, GAME_OBJECT_COUNTER_NAME);
+
+        long simulationStartTime = TimeUtils.nanoTime();
+        int maxStepCount = (int) (MAX_RACE_DURATION / GameWorld.BOX2D_TIME_STEP);
+        while (world.getState() != GameWorld.State.FINISHED) {
+            world.act(GameWorld.BOX2D_TIME_STEP);
+            ++result.stepCount;
+            for (PerformanceCounter counter : counters.counters) {
+                if (counter.valid) {
+                    counter.tick(GameWorld.BOX2D_TIME_STEP);
+                }
+            }
+            if (result.stepCount >= maxStepCount) {
+                result.timedOut = true;
+                world.setState(GameWorld.State.FINISHED);
+            }
+        }
+        long endTime = TimeUtils.nanoTime();
+
+        result.setupDuration = nanosToSeconds(simulationStartTime - startTime);
+        result.simulationDuration = nanosToSeconds(endTime - simulationStartTime);
+        result.box2DDuration = box2DCounter.time.total;
+        result.gameObjectDuration = gameObjectCounter.time.total;
+
+        Array<Racer> racers = world.getRacers();
+        // Racers are sorted by rank when the race is over, but not if we stopped it
+        racers.sort((racer1, racer2) -> -Racer.compareRaceDistances(racer1, racer2));
+        for (int idx = 0; idx < racers.size; ++idx) {
+            Racer racer = racers.get(idx);
+            LapPositionComponent component = racer.getLapPositionComponent();
+            result.racers.add(
+                    new RaceResult.RacerResult(
+                            racer.getVehicle().getId(),
+                            idx + 1,
+                            component.getTotalTime(),
+                            component.getBestLapTime(),
+                            component.getStatus()));
+        }
+
+        // The track belongs to the caller
+        world.forgetTrack();
+        disposeWorld(world);
+        return result;
+    }
+
+    /**
+     * Creates a world on the given track with racerCount AI racers, ready to be stepped.
+     *
+     * <p>Callers must call forgetTrack() on the world before disposing it if they want to keep
+     * using the track, and should dispose it with disposeWorld().
+     */
+    public GameWorldImpl createWorld(Track track, int racerCount, PerformanceCounters counters) {
+        SimulationGameInfo gameInfo = new SimulationGameInfo(track);
+        mVehicleIds.shuffle();
+        for (int idx = 0; idx < racerCount; ++idx) {
+            gameInfo.addEntrant(mVehicleIds.get(idx % mVehicleIds.size));
+        }
+        synchronized (sSetupLock) {
+            return new GameWorldImpl(mAssets, mAudioManager, mGameStats, null, gameInfo, counters);
+        }
+    }
+
+    public static void disposeWorld(GameWorldImpl world) {
+        synchronized (sSetupLock) {
+            world.dispose();
+        }
+    }
+
+    private static PerformanceCounter findCounter(PerformanceCounters counters, String name) {
+        for (PerformanceCounter counter : counters.counters) {
+            if (counter.name.equals(name)) {
+                return counter;
+            }
+        }
+        throw new RuntimeException("No performance counter named '" + name + "'");
+    }
+
+    private static float nanosToSeconds(long nanos) {
+        return nanos / 1_000_000_000f;
+    }
+}
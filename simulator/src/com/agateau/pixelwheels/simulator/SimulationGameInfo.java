@@ -0,0 +1,47 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.simulator;
+
+import com.agateau.pixelwheels.gamesetup.GameInfo;
+import com.agateau.pixelwheels.map.Track;
+
+/** A GameInfo for races where all entrants are driven by AI pilots */
+class SimulationGameInfo extends GameInfo {
+    private final Track mTrack;
+
+    private static class AIEntrant extends GameInfo.Entrant {
+        AIEntrant(String vehicleId) {
+            mVehicleId = vehicleId;
+        }
+    }
+
+    SimulationGameInfo(Track track) {
+        super(GameType.QUICK_RACE);
+        mTrack = track;
+    }
+
+    void addEntrant(String vehicleId) {
+        getEntrants().add(new AIEntrant(vehicleId));
+    }
+
+    @Override
+    public Track getTrack() {
+        return mTrack;
+    }
+}
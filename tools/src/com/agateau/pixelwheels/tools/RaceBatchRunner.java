@@ -0,0 +1,446 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.tools;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.GamePlay;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.simulator.HeadlessEnvironment;
+import com.agateau.pixelwheels.simulator.HeadlessRaceSimulator;
+import com.agateau.pixelwheels.simulator.RaceResult;
+import com.agateau.pixelwheels.simulator.RaceSimulator;
+import com.agateau.utils.CsvWriter;
+import com.agateau.utils.Introspector;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.OrderedMap;
+import com.badlogic.gdx.utils.TimeUtils;
+import java.io.Closeable;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs AI-only races in parallel for each combination of a set of GamePlay values, and writes the
+ * results as CSV files.
+ *
+ * <p>Each worker thread runs its races one after the other, with its own RaceSimulator and its own
+ * Track instances, so races from different threads only share read-only assets.
+ *
+ * <p>GamePlay is global, so all the races of a combination must be finished before moving to the
+ * next one.
+ */
+public class RaceBatchRunner implements Closeable {
+    private static class Sweep {
+        final String name;
+        final Array<Object> values = new Array<>();
+
+        Sweep(String name) {
+            this.name = name;
+        }
+    }
+
+    private static class Args {
+        int raceCount = 10;
+        int racerCount = GamePlay.instance.racerCount;
+        int threadCount = Runtime.getRuntime().availableProcessors();
+        String outputPrefix = "race-batch";
+        final Array<Sweep> sweeps = new Array<>();
+        final Array<String> trackIds = new Array<>();
+
+        boolean parse(String[] arguments) {
+            for (int idx = 0; idx < arguments.length; ++idx) {
+                String arg = arguments[idx];
+                if (arg.equals("-h") || arg.equals("--help")) {
+                    showHelp();
+                    return false;
+                }
+                if (!arg.startsWith("-")) {
+                    trackIds.add(arg);
+                    continue;
+                }
+                if (idx + 1 == arguments.length) {
+                    showError("Missing value for " + arg);
+                    return false;
+                }
+                ++idx;
+                String value = arguments[idx];
+                try {
+                    switch (arg) {
+                        case "--races":
+                            raceCount = Integer.parseInt(value);
+                            break;
+                        case "--racers":
+                            racerCount = Integer.parseInt(value);
+                            break;
+                        case "--threads":
+                            threadCount = Integer.parseInt(value);
+                            break;
+                        case "--output":
+                            outputPrefix = value;
+                            break;
+                        case "--sweep":
+                            Sweep sweep = parseSweep(value);
+                            if (sweep == null) {
+                                return false;
+                            }
+                            sweeps.add(sweep);
+                            break;
+                        default:
+                            showError("Unknown option " + arg);
+                            return false;
+                    }
+                } catch (NumberFormatException e) {
+                    showError("Invalid value for " + arg + ": " + value);
+                    return false;
+                }
+            }
+            if (raceCount < 1 || racerCount < 1 || threadCount < 1) {
+                showError("--races, --racers and --threads must be at least 1");
+                return false;
+            }
+            return true;
+        }
+
+        /** Parses "name=value1,value2..." */
+        private static Sweep parseSweep(String text) {
+            int equalIdx = text.indexOf('=');
+            if (equalIdx == -1) {
+                showError("Invalid sweep '" + text + "', expected name=value1,value2...");
+                return null;
+            }
+            Sweep sweep = new Sweep(text.substring(0, equalIdx));
+            Class<?> type;
+            try {
+                Field field = GamePlay.class.getField(sweep.name);
+                type = field.getType();
+            } catch (NoSuchFieldException e) {
+                showError("GamePlay has no field named '" + sweep.name + "'");
+                return null;
+            }
+            if (type != int.class && type != float.class) {
+                showError("GamePlay field '" + sweep.name + "' is neither an int nor a float");
+                return null;
+            }
+            for (String value : text.substring(equalIdx + 1).split(",")) {
+                // Let NumberFormatException go up, parse() handles it
+                if (type == int.class) {
+                    sweep.values.add(Integer.valueOf(value));
+                } else {
+                    sweep.values.add(Float.valueOf(value));
+                }
+            }
+            return sweep;
+        }
+
+        private static void showError(String message) {
+            System.out.println("ERROR: " + message);
+            showHelp();
+        }
+
+        private static void showHelp() {
+            System.out.println(
+                    "Usage: racebatchrunner [-h|--help] [--races N] [--racers N] [--threads N]"
+                            + " [--output PREFIX] [--sweep name=value1,value2...]..."
+                            + " [track_id...]");
+            System.out.println();
+            System.out.println(
+                    "Runs N races on each track (default: all tracks) for each combination of the"
+                            + " GamePlay values passed with --sweep.");
+            System.out.println(
+                    "Writes one row per racer and per race to PREFIX-races.csv, and the rank"
+                            + " distribution of each vehicle to PREFIX-ranks.csv.");
+        }
+    }
+
+    /** Everything a worker thread needs to run races without sharing state with other workers */
+    private static class Worker {
+        final RaceSimulator simulator;
+        final HashMap<String, Track> tracks = new HashMap<>();
+
+        Worker(Assets assets) {
+            simulator = new RaceSimulator(assets);
+        }
+
+        RaceResult run(Track referenceTrack, int racerCount) {
+            Track track = tracks.get(referenceTrack.getId());
+            if (track == null) {
+                track =
+                        new Track(
+                                referenceTrack.getChampionship(),
+                                referenceTrack.getId(),
+                                referenceTrack.getMapName());
+                tracks.put(track.getId(), track);
+            }
+            return simulator.run(track, racerCount);
+        }
+
+        void dispose() {
+            for (Track track : tracks.values()) {
+                track.dispose();
+            }
+        }
+    }
+
+    /** How a vehicle ranked on a track, for a given combination of values */
+    private static class RankStats {
+        final String trackId;
+        final String vehicleId;
+        final int[] rankCounts;
+        int raceCount = 0;
+        int rankSum = 0;
+        float bestLapTime = Float.MAX_VALUE;
+
+        RankStats(String trackId, String vehicleId, int racerCount) {
+            this.trackId = trackId;
+            this.vehicleId = vehicleId;
+            rankCounts = new int[racerCount];
+        }
+
+        void add(RaceResult.RacerResult result) {
+            ++raceCount;
+            ++rankCounts[result.rank - 1];
+            rankSum += result.rank;
+            if (result.bestLapTime > 0) {
+                bestLapTime = Math.min(bestLapTime, result.bestLapTime);
+            }
+        }
+    }
+
+    private final Args mArgs;
+    private final Assets mAssets;
+    private final Array<Track> mTracks;
+    private final Introspector mIntrospector;
+    private final List<Worker> mWorkers = new ArrayList<>();
+    private final ThreadLocal<Worker> mWorker = ThreadLocal.withInitial(this::createWorker);
+    private final CsvWriter mRaceWriter;
+    private final CsvWriter mRankWriter;
+
+    private RaceBatchRunner(Args args, Assets assets, Array<Track> tracks) {
+        mArgs = args;
+        mAssets = assets;
+        mTracks = tracks;
+        mIntrospector = Introspector.fromInstance(GamePlay.instance, null);
+        mRaceWriter = new CsvWriter(Gdx.files.absolute(args.outputPrefix + "-races.csv"));
+        mRankWriter = new CsvWriter(Gdx.files.absolute(args.outputPrefix + "-ranks.csv"));
+        writeHeaders();
+    }
+
+    public static void main(String[] arguments) {
+        Args args = new Args();
+        if (!args.parse(arguments)) {
+            System.exit(1);
+        }
+        Assets assets = HeadlessEnvironment.getAssets();
+        Array<Track> tracks = HeadlessRaceSimulator.findTracks(assets, args.trackIds);
+        if (tracks.size < args.trackIds.size) {
+            System.out.println("ERROR: Some tracks could not be found");
+            System.exit(1);
+        }
+        int exitCode = 0;
+        try (RaceBatchRunner runner = new RaceBatchRunner(args, assets, tracks)) {
+            runner.run();
+        } catch (InterruptedException | ExecutionException e) {
+            e.printStackTrace();
+            exitCode = 1;
+        }
+        System.exit(exitCode);
+    }
+
+    @Override
+    public void close() {
+        mRaceWriter.close();
+        mRankWriter.close();
+    }
+
+    private void run() throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(mArgs.threadCount);
+        try {
+            int[] indexes = new int[mArgs.sweeps.size];
+            do {
+                Object[] values = new Object[mArgs.sweeps.size];
+                for (int idx = 0; idx < values.length; ++idx) {
+                    Sweep sweep = mArgs.sweeps.get(idx);
+                    values[idx] = sweep.values.get(indexes[idx]);
+                    mIntrospector.set(sweep.name, values[idx]);
+                }
+                runCombination(executor, values);
+            } while (nextCombination(indexes));
+        } finally {
+            executor.shutdown();
+            for (Worker worker : mWorkers) {
+                worker.dispose();
+            }
+        }
+    }
+
+    /** Moves indexes to the next combination, returns false if there are no more combinations */
+    private boolean nextCombination(int[] indexes) {
+        for (int idx = indexes.length - 1; idx >= 0; --idx) {
+            ++indexes[idx];
+            if (indexes[idx] < mArgs.sweeps.get(idx).values.size) {
+                return true;
+            }
+            indexes[idx] = 0;
+        }
+        return false;
+    }
+
+    private void runCombination(ExecutorService executor, Object[] values)
+            throws InterruptedException, ExecutionException {
+        long startTime = TimeUtils.nanoTime();
+        Array<Future<RaceResult>> futures = new Array<>();
+        for (Track track : mTracks) {
+            for (int idx = 0; idx < mArgs.raceCount; ++idx) {
+                futures.add(executor.submit(() -> mWorker.get().run(track, mArgs.racerCount)));
+            }
+        }
+
+        OrderedMap<String, RankStats> rankStatsMap = new OrderedMap<>();
+        float simulationDuration = 0;
+        int timedOutCount = 0;
+        for (int idx = 0; idx < futures.size; ++idx) {
+            RaceResult result = futures.get(idx).get();
+            simulationDuration += result.setupDuration + result.simulationDuration;
+            if (result.timedOut) {
+                ++timedOutCount;
+            }
+            for (RaceResult.RacerResult racerResult : result.racers) {
+                writeRaceRow(values, idx % mArgs.raceCount, result, racerResult);
+                String key = result.trackId + "/" + racerResult.vehicleId;
+                RankStats stats = rankStatsMap.get(key);
+                if (stats == null) {
+                    stats = new RankStats(result.trackId, racerResult.vehicleId, mArgs.racerCount);
+                    rankStatsMap.put(key, stats);
+                }
+                stats.add(racerResult);
+            }
+        }
+        float wallDuration = (TimeUtils.nanoTime() - startTime) / 1_000_000_000f;
+
+        for (RankStats stats : rankStatsMap.values()) {
+            writeRankRow(values, stats);
+        }
+        // Sweeps can take hours, make the results of finished combinations available right away
+        mRaceWriter.flush();
+        mRankWriter.flush();
+
+        System.out.printf(
+                Locale.US,
+                "%s races=%d timedOut=%d duration=%.1fs races/s=%.2f parallelism=%.2f%n",
+                describeCombination(values),
+                futures.size,
+                timedOutCount,
+                wallDuration,
+                futures.size / wallDuration,
+                simulationDuration / wallDuration);
+    }
+
+    private Worker createWorker() {
+        Worker worker = new Worker(mAssets);
+        synchronized (mWorkers) {
+            mWorkers.add(worker);
+        }
+        return worker;
+    }
+
+    private String describeCombination(Object[] values) {
+        if (values.length == 0) {
+            return "defaults";
+        }
+        StringBuilder builder = new StringBuilder();
+        for (int idx = 0; idx < values.length; ++idx) {
+            if (idx > 0) {
+                builder.append(' ');
+            }
+            builder.append(mArgs.sweeps.get(idx).name).append('=').append(values[idx]);
+        }
+        return builder.toString();
+    }
+
+    private void writeHeaders() {
+        Array<Object> raceHeader = new Array<>();
+        Array<Object> rankHeader = new Array<>();
+        for (Sweep sweep : mArgs.sweeps) {
+            raceHeader.add(sweep.name);
+            rankHeader.add(sweep.name);
+        }
+        raceHeader.addAll(
+                "track",
+                "race",
+                "steps",
+                "timedOut",
+                "setupMs",
+                "simulationMs",
+                "box2dMs",
+                "gameObjectMs",
+                "vehicle",
+                "rank",
+                "totalTime",
+                "bestLapTime",
+                "status");
+        mRaceWriter.addRow(raceHeader.toArray());
+
+        rankHeader.addAll("track", "vehicle", "races", "averageRank", "bestLapTime");
+        for (int rank = 1; rank <= mArgs.racerCount; ++rank) {
+            rankHeader.add("rank" + rank);
+        }
+        mRankWriter.addRow(rankHeader.toArray());
+    }
+
+    private void writeRaceRow(
+            Object[] values, int raceIdx, RaceResult result, RaceResult.RacerResult racerResult) {
+        Array<Object> row = new Array<>(values);
+        row.addAll(
+                result.trackId,
+                raceIdx,
+                result.stepCount,
+                result.timedOut,
+                result.setupDuration * 1000,
+                result.simulationDuration * 1000,
+                result.box2DDuration * 1000,
+                result.gameObjectDuration * 1000,
+                racerResult.vehicleId,
+                racerResult.rank,
+                racerResult.totalTime,
+                racerResult.bestLapTime,
+                racerResult.status);
+        mRaceWriter.addRow(row.toArray());
+    }
+
+    private void writeRankRow(Object[] values, RankStats stats) {
+        Array<Object> row = new Array<>(values);
+        row.addAll(
+                stats.trackId,
+                stats.vehicleId,
+                stats.raceCount,
+                (float) stats.rankSum / stats.raceCount,
+                stats.bestLapTime == Float.MAX_VALUE ? 0f : stats.bestLapTime);
+        for (int count : stats.rankCounts) {
+            row.add(count);
+        }
+        mRankWriter.addRow(row.toArray());
+    }
+}
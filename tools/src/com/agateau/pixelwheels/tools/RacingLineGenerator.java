@@ -0,0 +1,342 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.tools;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.BodyIdentifier;
+import com.agateau.pixelwheels.Constants;
+import com.agateau.pixelwheels.GamePlay;
+import com.agateau.pixelwheels.map.LapPosition;
+import com.agateau.pixelwheels.map.Material;
+import com.agateau.pixelwheels.map.RacingLine;
+import com.agateau.pixelwheels.map.RacingLineIO;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.map.WaypointStore;
+import com.agateau.pixelwheels.racescreen.GameWorldImpl;
+import com.agateau.pixelwheels.simulator.HeadlessEnvironment;
+import com.agateau.pixelwheels.simulator.HeadlessRaceSimulator;
+import com.agateau.pixelwheels.simulator.RaceSimulator;
+import com.agateau.pixelwheels.utils.Box2DUtils;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.RayCastCallback;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.PerformanceCounters;
+import java.io.IOException;
+
+/**
+ * Computes the racing line of tracks and saves it to .line files next to the TMX files.
+ *
+ * <p>The line starts as the waypoint path, resampled at regular intervals. Each point can then move
+ * along the normal of the path, within the drivable corridor: the part of the track which is not
+ * slower than the path itself, not outside the lap sections and not behind a wall. Points are
+ * repeatedly moved towards the middle of their neighbors, which pulls the line tight: this gives
+ * the shortest line, going through the inside of the corners.
+ *
+ * <p>The speed of each point is the highest speed at which vehicles can steer enough to follow the
+ * curvature of the line, lowered so that vehicles have time to brake before the next points.
+ *
+ * <p>Must be started from the assets directory.
+ */
+public class RacingLineGenerator {
+    /** Distance between two points of the line, unit: world */
+    private static final float SAMPLE_SPACING = 1;
+    /** How far to look for the edges of the corridor, unit: world */
+    private static final float MAX_HALF_WIDTH = 20;
+    private static final float WIDTH_STEP = 0.25f;
+    /** Distance to keep between the line and the edges of the corridor, unit: world */
+    private static final float EDGE_MARGIN = 1.2f;
+    private static final int ITERATIONS = 5000;
+    /** Number of points on each side used to compute the curvature */
+    private static final int CURVATURE_POINT_DISTANCE = 3;
+    /** Approximate distance between front and rear wheels, unit: world */
+    private static final float WHEEL_BASE = 1.8f;
+    /** unit: m/s² */
+    private static final float BRAKING_DECELERATION = 15;
+
+    private static class WallFinder implements RayCastCallback {
+        float fraction;
+
+        @Override
+        public float reportRayFixture(
+                Fixture fixture, Vector2 point, Vector2 normal, float fraction) {
+            if (!BodyIdentifier.isWall(fixture.getBody())) {
+                return -1;
+            }
+            this.fraction = fraction;
+            // Clip the ray, so that we end up with the closest wall
+            return fraction;
+        }
+
+        /** Returns the distance from point1 to the closest wall between point1 and point2 */
+        float find(World world, Vector2 point1, Vector2 point2) {
+            fraction = 1;
+            world.rayCast(this, point1, point2);
+            return fraction * point1.dst(point2);
+        }
+    }
+
+    private final Track mTrack;
+    private final World mWorld;
+    private final WallFinder mWallFinder = new WallFinder();
+    private final Vector2 mTmp = new Vector2();
+
+    private final Array<Vector2> mCenters = new Array<>();
+    private final Array<Vector2> mNormals = new Array<>();
+    private float[] mMinOffsets;
+    private float[] mMaxOffsets;
+    private final Array<Vector2> mPoints = new Array<>();
+
+    private RacingLineGenerator(Track track, World world) {
+        mTrack = track;
+        mWorld = world;
+    }
+
+    public static void main(String[] arguments) {
+        Array<String> trackIds = new Array<>(arguments);
+        for (String arg : trackIds) {
+            if (arg.startsWith("-")) {
+                System.out.println("Usage: racinglinegenerator [track_id...]");
+                System.out.println();
+                System.out.println(
+                        "Computes the racing line of the tracks (default: all tracks) and saves"
+                                + " it to maps/<track_id>.line. Must be run from the assets"
+                                + " directory.");
+                System.exit(1);
+            }
+        }
+        Assets assets = HeadlessEnvironment.getAssets();
+        Array<Track> tracks = HeadlessRaceSimulator.findTracks(assets, trackIds);
+        if (tracks.size < trackIds.size) {
+            System.out.println("ERROR: Some tracks could not be found");
+            System.exit(1);
+        }
+        RaceSimulator simulator = new RaceSimulator(assets);
+        for (Track track : tracks) {
+            // Creating a world gives us the walls and obstacles of the track
+            GameWorldImpl world = simulator.createWorld(track, 1, new PerformanceCounters());
+            RacingLine line = new RacingLineGenerator(track, world.getBox2DWorld()).generate();
+            world.forgetTrack();
+            RaceSimulator.disposeWorld(world);
+            try {
+                RacingLineIO.save(line, track, Gdx.files.local("maps/" + track.getId() + ".line"));
+            } catch (IOException e) {
+                System.out.println("ERROR: Failed to save racing line of " + track.getId());
+                e.printStackTrace();
+                System.exit(1);
+            }
+            System.out.printf("%s: %d points%n", track.getId(), line.getCount());
+            track.dispose();
+        }
+        System.exit(0);
+    }
+
+    private RacingLine generate() {
+        samplePath();
+        computeCorridor();
+        tightenLine();
+        return createRacingLine();
+    }
+
+    /** Fills mCenters with points every SAMPLE_SPACING along the waypoint path */
+    private void samplePath() {
+        WaypointStore store = mTrack.getWaypointStore();
+        float remaining = 0;
+        for (int idx = 0; idx < store.getCount(); ++idx) {
+            Vector2 start = store.getWaypoint(idx);
+            Vector2 end = store.getWaypoint(store.getNextIndex(idx));
+            float length = start.dst(end);
+            float distance = remaining;
+            for (; distance < length; distance += SAMPLE_SPACING) {
+                mCenters.add(new Vector2(start).lerp(end, distance / length));
+            }
+            remaining = distance - length;
+        }
+
+        int count = mCenters.size;
+        for (int idx = 0; idx < count; ++idx) {
+            Vector2 previous = mCenters.get((idx + count - 1) % count);
+            Vector2 next = mCenters.get((idx + 1) % count);
+            // Points to the left of the path
+            mNormals.add(new Vector2(next).sub(previous).nor().rotate90(1));
+        }
+    }
+
+    /** Computes how far each point can move along its normal */
+    private void computeCorridor() {
+        int count = mCenters.size;
+        mMinOffsets = new float[count];
+        mMaxOffsets = new float[count];
+        for (int idx = 0; idx < count; ++idx) {
+            Vector2 center = mCenters.get(idx);
+            Vector2 normal = mNormals.get(idx);
+            float minSpeed = Math.min(mTrack.getMaterialAt(center).getSpeed(), 1);
+            float left = findEdgeDistance(center, normal, 1, minSpeed) - EDGE_MARGIN;
+            float right = findEdgeDistance(center, normal, -1, minSpeed) - EDGE_MARGIN;
+            if (left + right < 0) {
+                // Too narrow for a vehicle, stay in the middle of the corridor
+                float middle = (left - right) / 2;
+                mMinOffsets[idx] = middle;
+                mMaxOffsets[idx] = middle;
+            } else {
+                mMinOffsets[idx] = -right;
+                mMaxOffsets[idx] = left;
+            }
+        }
+    }
+
+    private float findEdgeDistance(Vector2 center, Vector2 normal, int side, float minSpeed) {
+        Vector2 end = new Vector2(normal).scl(side * MAX_HALF_WIDTH).add(center);
+        float maxDistance = mWallFinder.find(mWorld, center, end);
+        float distance = 0;
+        while (distance + WIDTH_STEP < maxDistance) {
+            mTmp.set(normal).scl(side * (distance + WIDTH_STEP)).add(center);
+            if (!isDrivable(mTmp, minSpeed)) {
+                break;
+            }
+            distance += WIDTH_STEP;
+        }
+        return distance;
+    }
+
+    private boolean isDrivable(Vector2 position, float minSpeed) {
+        Material material = mTrack.getMaterialAt(position);
+        if (material.isHole() || material.getSpeed() < minSpeed) {
+            return false;
+        }
+        return getLapPosition(position) != null;
+    }
+
+    private LapPosition getLapPosition(Vector2 position) {
+        final float U = Constants.UNIT_FOR_PIXEL;
+        return mTrack.getLapPositionTable().get((int) (position.x / U), (int) (position.y / U));
+    }
+
+    /** Moves each point towards the middle of its neighbors, without leaving the corridor */
+    private void tightenLine() {
+        int count = mCenters.size;
+        for (int idx = 0; idx < count; ++idx) {
+            float offset = MathUtils.clamp(0f, mMinOffsets[idx], mMaxOffsets[idx]);
+            mPoints.add(new Vector2(mNormals.get(idx)).scl(offset).add(mCenters.get(idx)));
+        }
+        for (int iteration = 0; iteration < ITERATIONS; ++iteration) {
+            for (int idx = 0; idx < count; ++idx) {
+                Vector2 previous = mPoints.get((idx + count - 1) % count);
+                Vector2 next = mPoints.get((idx + 1) % count);
+                Vector2 center = mCenters.get(idx);
+                Vector2 normal = mNormals.get(idx);
+                mTmp.set(previous).add(next).scl(0.5f).sub(center);
+                float offset =
+                        MathUtils.clamp(mTmp.dot(normal), mMinOffsets[idx], mMaxOffsets[idx]);
+                mPoints.get(idx).set(normal).scl(offset).add(center);
+            }
+        }
+    }
+
+    private RacingLine createRacingLine() {
+        int count = mPoints.size;
+
+        // Maximum speed in each point, from the curvature
+        float[] speeds = new float[count];
+        for (int idx = 0; idx < count; ++idx) {
+            Vector2 previous = mPoints.get((idx + count - CURVATURE_POINT_DISTANCE) % count);
+            Vector2 point = mPoints.get(idx);
+            Vector2 next = mPoints.get((idx + CURVATURE_POINT_DISTANCE) % count);
+            speeds[idx] = computeMaxSpeed(computeCurvature(previous, point, next));
+        }
+
+        // Leave enough distance to brake before slower points. Go around twice so that the end of
+        // the lap is affected by the beginning.
+        for (int step = 2 * count - 1; step >= 0; --step) {
+            int idx = step % count;
+            int nextIdx = (idx + 1) % count;
+            float distance = mPoints.get(idx).dst(mPoints.get(nextIdx));
+            float nextSpeed = speeds[nextIdx];
+            float reachableSpeed =
+                    (float) Math.sqrt(nextSpeed * nextSpeed + 2 * BRAKING_DECELERATION * distance);
+            speeds[idx] = Math.min(speeds[idx], reachableSpeed);
+        }
+
+        float[] lapDistances = new float[count];
+        for (int idx = 0; idx < count; ++idx) {
+            LapPosition position = getLapPosition(mPoints.get(idx));
+            lapDistances[idx] =
+                    position != null
+                            ? position.getLapDistance()
+                            : lapDistances[(idx + count - 1) % count];
+        }
+
+        // Start the line at the finish line, where the lap distance drops, and make sure lap
+        // distances never decrease so that RacingLine can do binary searches
+        int startIdx = 0;
+        float biggestDrop = 0;
+        for (int idx = 0; idx < count; ++idx) {
+            float drop = lapDistances[(idx + count - 1) % count] - lapDistances[idx];
+            if (drop > biggestDrop) {
+                biggestDrop = drop;
+                startIdx = idx;
+            }
+        }
+        RacingLine line = new RacingLine();
+        float lapDistance = 0;
+        for (int step = 0; step < count; ++step) {
+            int idx = (startIdx + step) % count;
+            lapDistance = Math.max(lapDistance, lapDistances[idx]);
+            Vector2 point = mPoints.get(idx);
+            line.addPoint(point.x, point.y, lapDistance, speeds[idx]);
+        }
+        return line;
+    }
+
+    /** Returns the curvature of the circle going through the 3 points, unit: 1/world */
+    private static float computeCurvature(Vector2 p1, Vector2 p2, Vector2 p3) {
+        float cross = (p2.x - p1.x) * (p3.y - p1.y) - (p2.y - p1.y) * (p3.x - p1.x);
+        float lengths = p1.dst(p2) * p2.dst(p3) * p1.dst(p3);
+        if (lengths == 0) {
+            return 0;
+        }
+        return 2 * Math.abs(cross) / lengths;
+    }
+
+    /**
+     * Returns the highest speed at which vehicles can steer enough to follow a curve, using the
+     * same steering limits as Vehicle. unit: m/s
+     */
+    private static float computeMaxSpeed(float curvature) {
+        final GamePlay GP = GamePlay.instance;
+        for (int kmh = GP.maxSpeed; kmh > 0; --kmh) {
+            float steer;
+            if (kmh < GP.lowSpeed) {
+                float factor = (float) kmh / GP.lowSpeed;
+                steer = MathUtils.lerp(GP.stoppedMaxSteer, GP.lowSpeedMaxSteer, factor);
+            } else {
+                float factor = (float) (kmh - GP.lowSpeed) / (GP.maxSpeed - GP.lowSpeed);
+                steer = MathUtils.lerp(GP.lowSpeedMaxSteer, GP.highSpeedMaxSteer, factor);
+            }
+            float maxCurvature = MathUtils.sinDeg(steer) / MathUtils.cosDeg(steer) / WHEEL_BASE;
+            if (maxCurvature >= curvature) {
+                return kmh / Box2DUtils.MS_TO_KMH;
+            }
+        }
+        return 1 / Box2DUtils.MS_TO_KMH;
+    }
+}
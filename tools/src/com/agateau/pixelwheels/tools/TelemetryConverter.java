@@ -0,0 +1,85 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.tools;
+
+import com.agateau.pixelwheels.telemetry.TelemetryReader;
+import com.agateau.pixelwheels.telemetry.TelemetryRecorder;
+import com.agateau.utils.CsvWriter;
+import com.badlogic.gdx.files.FileHandle;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * Converts a telemetry file created by TelemetryRecorder to a CSV file, with one row per source and
+ * per step.
+ */
+public class TelemetryConverter {
+    public static void main(String[] arguments) {
+        if (arguments.length < 1 || arguments.length > 2) {
+            System.out.println("Usage: telemetryconverter <telemetry.pwt> [output.csv]");
+            System.exit(1);
+        }
+        String inputPath = arguments[0];
+        String outputPath;
+        if (arguments.length == 2) {
+            outputPath = arguments[1];
+        } else {
+            outputPath = inputPath.replaceFirst("\\.pwt$", "") + ".csv";
+        }
+        try {
+            convert(inputPath, outputPath);
+        } catch (IOException e) {
+            System.out.println("ERROR: Failed to convert " + inputPath + ": " + e);
+            System.exit(1);
+        }
+    }
+
+    private static void convert(String inputPath, String outputPath) throws IOException {
+        try (TelemetryReader reader = new TelemetryReader(new FileInputStream(inputPath));
+                CsvWriter writer = new CsvWriter(new FileHandle(outputPath))) {
+            int channelCount = reader.getChannelCount();
+            Object[] row = new Object[channelCount + 3];
+            row[0] = "time";
+            row[1] = "source";
+            row[2] = "name";
+            for (int channel = 0; channel < channelCount; ++channel) {
+                row[channel + 3] = reader.getChannelName(channel);
+            }
+            writer.addRow(row);
+
+            while (reader.readChunk()) {
+                for (int idx = 0; idx < reader.getRowCount(); ++idx) {
+                    int source = reader.getSource(idx);
+                    row[0] = reader.getStep(idx) * reader.getStepDuration();
+                    row[1] = source;
+                    row[2] = reader.getSources().get(source);
+                    for (int channel = 0; channel < channelCount; ++channel) {
+                        if (reader.getChannelType(channel)
+                                == TelemetryRecorder.ChannelType.FLOAT) {
+                            row[channel + 3] = reader.getFloat(channel, idx);
+                        } else {
+                            row[channel + 3] = reader.getInt(channel, idx);
+                        }
+                    }
+                    writer.addRow(row);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2024 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.tools;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.map.CompiledTrackIO;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.simulator.HeadlessEnvironment;
+import com.agateau.pixelwheels.simulator.HeadlessRaceSimulator;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import java.io.IOException;
+
+/**
+ * Loads the TMX files of tracks and saves their tile layers and the data Track computes from them
+ * as compiled tracks (.track files), so that the game does not have to parse the TMX files and
+ * compute this data again when loading tracks.
+ *
+ * <p>Runs without a display, so that builds can run it. Must be started from the assets directory.
+ */
+public class TrackCompiler {
+    public static void main(String[] arguments) {
+        Array<String> trackIds = new Array<>(arguments);
+        for (String arg : trackIds) {
+            if (arg.startsWith("-")) {
+                System.out.println("Usage: trackcompiler [track_id...]");
+                System.out.println();
+                System.out.println(
+                        "Compiles the tracks (default: all tracks) and saves them to"
+                                + " maps/<track_id>.track. Must be run from the assets directory.");
+                System.exit(1);
+            }
+        }
+        Assets assets = HeadlessEnvironment.getAssets();
+        Array<Track> tracks = HeadlessRaceSimulator.findTracks(assets, trackIds);
+        if (tracks.size < trackIds.size) {
+            System.out.println("ERROR: Some tracks could not be found");
+            System.exit(1);
+        }
+        for (Track track : tracks) {
+            try {
+                compile(track);
+            } catch (IOException e) {
+                System.out.println("ERROR: Failed to save compiled track of " + track.getId());
+                e.printStackTrace();
+                System.exit(1);
+            }
+        }
+        System.exit(0);
+    }
+
+    private static void compile(Track track) throws IOException {
+        FileHandle compiledFile = Gdx.files.local("maps/" + track.getId() + ".track");
+        // Remove any existing compiled track, to be sure init() computes everything from the TMX
+        // file
+        compiledFile.delete();
+
+        System.out.printf("%s: compiling%n", track.getId());
+        track.init();
+        CompiledTrackIO.save(track, compiledFile);
+        track.dispose();
+    }
+}